@@ -98,3 +98,31 @@ dependencies {
 tasks.withType<Test> {
     useJUnitPlatform()
 }
+
+// JMH benchmarks live in src/jmh/java, run them with:
+// ./gradlew :backend:jmh [-Pjmh.includes=ReportBenchmark] [-Pjmh.params=orders=10000,100000]
+val jmh by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+
+configurations[jmh.implementationConfigurationName].extendsFrom(configurations.implementation.get())
+configurations[jmh.runtimeOnlyConfigurationName].extendsFrom(configurations.runtimeOnly.get())
+
+dependencies {
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:1.37")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
+}
+
+tasks.register<JavaExec>("jmh") {
+    group = "benchmark"
+    description = "Runs the JMH benchmarks, results are written to build/reports/jmh/results.json"
+    classpath = jmh.runtimeClasspath
+    mainClass = "org.openjdk.jmh.Main"
+
+    val results = layout.buildDirectory.file("reports/jmh/results.json")
+    args = listOfNotNull(project.findProperty("jmh.includes")?.toString()) +
+            (project.findProperty("jmh.params")?.let { listOf("-p", it.toString()) } ?: emptyList()) +
+            listOf("-rf", "json", "-rff", results.get().asFile.path)
+    doFirst { results.get().asFile.parentFile.mkdirs() }
+}
@@ -0,0 +1,35 @@
+package cz.syntaxbro.erpsystem.benchmarks;
+
+import cz.syntaxbro.erpsystem.ErpSystemApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Starts the application against a private in-memory H2 database. The controllers need the MVC infrastructure,
+ * so the embedded server is started as well, on a random port.
+ * The properties are passed as command line arguments, so they win over application.properties.
+ */
+final class BenchmarkApplication {
+
+    // 512-bit key, HS256/HS512 refuse shorter secrets
+    static final String JWT_SECRET = "benchmark-secret-benchmark-secret-benchmark-secret-benchmark-sec";
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String database) {
+        return new SpringApplicationBuilder(ErpSystemApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--jwt_secret=" + JWT_SECRET,
+                        "--file.upload-dir=build/jmh-uploads",
+                        "--database.triggers.enabled=false",
+                        "--reports.rollup.rebuild=false"
+                );
+    }
+}
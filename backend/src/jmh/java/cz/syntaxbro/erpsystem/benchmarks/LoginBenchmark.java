@@ -0,0 +1,84 @@
+package cz.syntaxbro.erpsystem.benchmarks;
+
+import cz.syntaxbro.erpsystem.models.User;
+import cz.syntaxbro.erpsystem.repositories.UserRepository;
+import cz.syntaxbro.erpsystem.requests.LoginRequest;
+import cz.syntaxbro.erpsystem.responses.JWTResponse;
+import cz.syntaxbro.erpsystem.security.PasswordSecurity;
+import cz.syntaxbro.erpsystem.security.services.CustomUserDetails;
+import cz.syntaxbro.erpsystem.security.services.SecurityStamps;
+import cz.syntaxbro.erpsystem.services.AuthService;
+import cz.syntaxbro.erpsystem.services.RefreshTokenService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Login throughput of {@link AuthService}: the user lookup, the password hash and minting the access and refresh
+ * token, against the administrator seeded by the data loader. The password hash dominates once it is made
+ * deliberately slow, the separate token calls show what hashing twice per login would cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx2g"})
+public class LoginBenchmark {
+
+    // Seeded by DataLoader
+    private static final LoginRequest ADMINISTRATOR = new LoginRequest("admin@example.com", "P&ssw0rd123@");
+
+    private ConfigurableApplicationContext context;
+    private AuthService authService;
+    private UserRepository userRepository;
+    private PasswordSecurity passwordSecurity;
+    private SecurityStamps securityStamps;
+    private RefreshTokenService refreshTokenService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("login");
+        authService = context.getBean(AuthService.class);
+        userRepository = context.getBean(UserRepository.class);
+        passwordSecurity = context.getBean(PasswordSecurity.class);
+        securityStamps = context.getBean(SecurityStamps.class);
+        refreshTokenService = context.getBean(RefreshTokenService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public JWTResponse login() {
+        return authService.login(ADMINISTRATOR);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public JWTResponse loginConcurrently() {
+        return authService.login(ADMINISTRATOR);
+    }
+
+    /**
+     * A login that verified the credentials once per token, a lookup and a password hash each, like the access and
+     * the refresh token used to be asked for separately.
+     */
+    @Benchmark
+    public JWTResponse separateTokenCalls() {
+        verify();
+        User user = verify();
+        return refreshTokenService.issue(new CustomUserDetails(user), securityStamps.current(user.getEmail()));
+    }
+
+    private User verify() {
+        User user = userRepository.findByEmail(ADMINISTRATOR.getEmail()).orElseThrow();
+        if (!passwordSecurity.matches(ADMINISTRATOR.getPassword(), user.getPassword())) {
+            throw new IllegalStateException("The seeded administrator password does not match");
+        }
+        return user;
+    }
+}
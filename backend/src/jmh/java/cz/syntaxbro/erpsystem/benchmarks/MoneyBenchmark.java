@@ -0,0 +1,74 @@
+package cz.syntaxbro.erpsystem.benchmarks;
+
+import cz.syntaxbro.erpsystem.models.Money;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Summing line totals the way the reports used to (a {@code BigDecimal} per line) against summing {@link Money} minor units.
+ * Run with {@code -prof gc} to compare the allocation rate as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+
+    @Param({"1000", "100000"})
+    private int lines;
+
+    private double[] prices;
+    private int[] quantities;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        prices = new double[lines];
+        quantities = new int[lines];
+        for (int i = 0; i < lines; i++) {
+            prices[i] = random.nextInt(100_000) / 100.0;
+            quantities[i] = random.nextInt(10) + 1;
+        }
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalPerLine() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < lines; i++) {
+            total = total.add(BigDecimal.valueOf(prices[i] * quantities[i]));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public BigDecimal doubleSum() {
+        double total = 0;
+        for (int i = 0; i < lines; i++) {
+            total += prices[i] * quantities[i];
+        }
+        return BigDecimal.valueOf(total);
+    }
+
+    @Benchmark
+    public BigDecimal moneyMinorSum() {
+        long total = 0;
+        for (int i = 0; i < lines; i++) {
+            total += quantities[i] * Money.minorOf(prices[i]);
+        }
+        return Money.ofMinor(total).toBigDecimal();
+    }
+
+    @Benchmark
+    public Money moneyPlus() {
+        Money total = Money.ZERO;
+        for (int i = 0; i < lines; i++) {
+            total = total.plus(Money.of(prices[i]).times(quantities[i]));
+        }
+        return total;
+    }
+}
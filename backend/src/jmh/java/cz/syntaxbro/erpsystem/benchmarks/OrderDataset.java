@@ -0,0 +1,124 @@
+package cz.syntaxbro.erpsystem.benchmarks;
+
+import cz.syntaxbro.erpsystem.constants.IdGenerators;
+import cz.syntaxbro.erpsystem.models.InventoryItem;
+import cz.syntaxbro.erpsystem.models.Order;
+import cz.syntaxbro.erpsystem.models.Product;
+import cz.syntaxbro.erpsystem.models.ProductCategory;
+import cz.syntaxbro.erpsystem.repositories.InventoryRepository;
+import cz.syntaxbro.erpsystem.repositories.ProductCategoryRepository;
+import cz.syntaxbro.erpsystem.repositories.ProductRepository;
+import cz.syntaxbro.erpsystem.services.SalesRollupService;
+import cz.syntaxbro.erpsystem.utils.IdGeneratorAligner;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates a reproducible order history into the benchmark database.
+ * Orders are spread over the last year with one to three lines each (two on average), products and inventory
+ * items go through the repositories, the orders and their lines are inserted with JDBC batches.
+ */
+final class OrderDataset {
+
+    static final int PRODUCTS = 200;
+    private static final int BATCH_SIZE = 10_000;
+
+    final List<Long> productIds = new ArrayList<>();
+    final List<Long> inventoryItemIds = new ArrayList<>();
+    final List<Double> buyoutPrices = new ArrayList<>();
+    final List<Double> purchasePrices = new ArrayList<>();
+    long orderItems;
+
+    private OrderDataset() {
+    }
+
+    static OrderDataset generate(ApplicationContext context, int orders) {
+        OrderDataset dataset = new OrderDataset();
+        Random random = new Random(42);
+
+        ProductCategory category = context.getBean(ProductCategoryRepository.class).save(ProductCategory.builder()
+                .name("benchmark")
+                .description("Generated benchmark products")
+                .build());
+        ProductRepository productRepository = context.getBean(ProductRepository.class);
+        InventoryRepository inventoryRepository = context.getBean(InventoryRepository.class);
+        for (int i = 0; i < PRODUCTS; i++) {
+            double purchasePrice = (random.nextInt(100_000) + 100) / 100.0;
+            double buyoutPrice = Math.round(purchasePrice * 130) / 100.0;
+            Product product = productRepository.save(new Product(null, "Benchmark product " + i, buyoutPrice, purchasePrice,
+                    "Generated product " + i, null, category));
+            InventoryItem item = inventoryRepository.save(new InventoryItem(null, product, 1_000_000, LocalDateTime.now(), null));
+
+            dataset.productIds.add(product.getId());
+            dataset.inventoryItemIds.add(item.getId());
+            dataset.buyoutPrices.add(buyoutPrice);
+            dataset.purchasePrices.add(purchasePrice);
+        }
+
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        List<Long> approvers = jdbc.queryForList("select id from users", Long.class);
+        long orderId = firstFreeId(jdbc, "orders");
+        long orderItemId = firstFreeId(jdbc, "order_items");
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Object[]> orderRows = new ArrayList<>(BATCH_SIZE);
+        List<Object[]> itemRows = new ArrayList<>(BATCH_SIZE * 2);
+        for (int i = 0; i < orders; i++, orderId++) {
+            Timestamp orderTime = Timestamp.valueOf(now.minusMinutes(random.nextInt(365 * 24 * 60)));
+            Order.OrderType orderType = random.nextInt(10) < 7 ? Order.OrderType.SELL : Order.OrderType.PURCHASE;
+            Order.Status status = switch (random.nextInt(10)) {
+                case 0, 1, 2, 3 -> Order.Status.CONFIRMED;
+                case 4, 5, 6 -> Order.Status.PENDING;
+                case 7, 8 -> Order.Status.CANCELED;
+                default -> Order.Status.IN_TRANSMIT;
+            };
+
+            double cost = 0;
+            int lines = random.nextInt(3) + 1;
+            for (int line = 0; line < lines; line++, orderItemId++) {
+                int product = random.nextInt(PRODUCTS);
+                int quantity = random.nextInt(10) + 1;
+                cost += quantity * (orderType == Order.OrderType.SELL ? dataset.buyoutPrices.get(product) : dataset.purchasePrices.get(product));
+                itemRows.add(new Object[]{orderItemId, dataset.inventoryItemIds.get(product), orderId, quantity, orderTime, orderTime});
+            }
+            dataset.orderItems += lines;
+
+            boolean decided = status == Order.Status.CONFIRMED || status == Order.Status.CANCELED;
+            orderRows.add(new Object[]{orderId, cost, status.name(), orderType.name(), orderTime,
+                    decided ? approvers.get(random.nextInt(approvers.size())) : null,
+                    decided ? orderTime : null, orderTime, orderTime});
+
+            if (orderRows.size() == BATCH_SIZE || i == orders - 1) {
+                jdbc.batchUpdate("insert into orders (id, cost, status, order_type, order_time, approved_by, decision_time, created_at, updated_at) " +
+                        "values (?, ?, ?, ?, ?, ?, ?, ?, ?)", orderRows);
+                jdbc.batchUpdate("insert into order_items (id, inventory_item, order_id, quantity, created_at, updated_at) " +
+                        "values (?, ?, ?, ?, ?, ?)", itemRows);
+                orderRows.clear();
+                itemRows.clear();
+            }
+        }
+
+        // The ids were assigned here, move the id generators past them for orders created by the benchmarks
+        context.getBean(IdGeneratorAligner.class).align();
+
+        context.getBean(SalesRollupService.class).rebuild();
+        return dataset;
+    }
+
+    /**
+     * The first id above both the stored rows and the ids the pooled generator may already have handed out
+     * to this application, e.g. for the sample orders of the data loader.
+     */
+    private static long firstFreeId(JdbcTemplate jdbc, String table) {
+        long maxId = jdbc.queryForObject("select coalesce(max(id), 0) from " + table, Long.class);
+        long reserved = jdbc.queryForObject("select coalesce(max(" + IdGenerators.VALUE_COLUMN + "), 0) from " + IdGenerators.TABLE +
+                " where " + IdGenerators.NAME_COLUMN + " = ?", Long.class, table);
+        return Math.max(maxId, reserved) + 1;
+    }
+}
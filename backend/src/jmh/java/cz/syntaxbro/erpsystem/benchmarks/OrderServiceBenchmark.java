@@ -0,0 +1,126 @@
+package cz.syntaxbro.erpsystem.benchmarks;
+
+import cz.syntaxbro.erpsystem.models.Order;
+import cz.syntaxbro.erpsystem.models.User;
+import cz.syntaxbro.erpsystem.repositories.UserRepository;
+import cz.syntaxbro.erpsystem.requests.OrderCreateRequest;
+import cz.syntaxbro.erpsystem.responses.BulkOrderResponse;
+import cz.syntaxbro.erpsystem.security.services.CustomUserDetails;
+import cz.syntaxbro.erpsystem.services.OrderService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code OrderServiceImpl.createdOrder} and {@code confirmOrder} on top of a generated order history,
+ * called through the Spring proxy so the transaction, rollup and cache invalidation costs are included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+public class OrderServiceBenchmark {
+
+    // Same history sizes as ReportBenchmark, so the write path is measured against the tables the reports scale with
+    @Param({"10000", "100000", "1000000"})
+    private int orders;
+
+    @Param({"3", "200"})
+    private int lines;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private OrderDataset dataset;
+    private final Random random = new Random(42);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("orders" + orders);
+        dataset = OrderDataset.generate(context, orders);
+        orderService = context.getBean(OrderService.class);
+
+        // The service reads the approver from the security context, share it with the JMH worker threads
+        User user = context.getBean(UserRepository.class).findByUsername("administrator").orElseThrow();
+        CustomUserDetails approver = new CustomUserDetails(user);
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(approver, null, approver.getAuthorities()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * A fresh pending order for every confirmOrder call, created outside of the measurement.
+     */
+    @State(Scope.Thread)
+    public static class PendingOrder {
+        Long id;
+
+        @Setup(Level.Invocation)
+        public void create(OrderServiceBenchmark benchmark) {
+            id = benchmark.orderService.createdOrder(benchmark.request(Order.OrderType.PURCHASE)).getId();
+        }
+    }
+
+    /**
+     * A batch of fresh pending orders for every bulk confirmation, created outside of the measurement.
+     */
+    @State(Scope.Thread)
+    public static class PendingOrders {
+        static final int BATCH = 100;
+
+        List<Long> ids;
+
+        @Setup(Level.Invocation)
+        public void create(OrderServiceBenchmark benchmark) {
+            ids = new ArrayList<>(BATCH);
+            for (int i = 0; i < BATCH; i++) {
+                ids.add(benchmark.orderService.createdOrder(benchmark.request(Order.OrderType.PURCHASE)).getId());
+            }
+        }
+    }
+
+    @Benchmark
+    public Order createdOrder() {
+        return orderService.createdOrder(request(Order.OrderType.SELL));
+    }
+
+    @Benchmark
+    public Order confirmOrder(PendingOrder pendingOrder) {
+        return orderService.confirmOrder(pendingOrder.id, "benchmark");
+    }
+
+    /**
+     * Confirms {@link PendingOrders#BATCH} orders in one call, compare with {@code BATCH x confirmOrder}.
+     */
+    @Benchmark
+    public BulkOrderResponse confirmOrdersInBulk(PendingOrders pendingOrders) {
+        return orderService.confirmOrders(pendingOrders.ids, "benchmark");
+    }
+
+    private OrderCreateRequest request(Order.OrderType orderType) {
+        List<OrderCreateRequest.ProductRequest> products = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            products.add(OrderCreateRequest.ProductRequest.builder()
+                    .id(dataset.productIds.get(random.nextInt(dataset.productIds.size())))
+                    .quantity(random.nextInt(5) + 1)
+                    .build());
+        }
+        return OrderCreateRequest.builder()
+                .orderType(orderType)
+                .comment("benchmark")
+                .products(products)
+                .build();
+    }
+}
@@ -0,0 +1,73 @@
+package cz.syntaxbro.erpsystem.benchmarks;
+
+import cz.syntaxbro.erpsystem.models.Order;
+import cz.syntaxbro.erpsystem.responses.reports.*;
+import cz.syntaxbro.erpsystem.services.impl.ReportServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The four reports of {@link ReportServiceImpl} (and the sales series) over the last month of a generated order history.
+ * The concrete service is used, so the numbers are not hidden behind the report cache.
+ * The 1M dataset has about 2M order lines, which also covers the best-selling report at 1M+ order items.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+public class ReportBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int orders;
+
+    private ConfigurableApplicationContext context;
+    private ReportServiceImpl reportService;
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("reports" + orders);
+        OrderDataset.generate(context, orders);
+        reportService = context.getBean(ReportServiceImpl.class);
+
+        endDate = LocalDate.now();
+        startDate = endDate.minusMonths(1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public SalesReportDTO salesReport() {
+        return reportService.generateSalesReport(startDate, endDate, Order.OrderType.SELL);
+    }
+
+    @Benchmark
+    public SalesSeriesReportDTO salesSeriesByDay() {
+        return reportService.generateSalesSeries(startDate, endDate, Order.OrderType.SELL, SalesSeriesReportDTO.Bucket.DAY);
+    }
+
+    @Benchmark
+    public List<ProductSalesReportDTO> bestSellingProducts() {
+        return reportService.generateBestSellingProductsReport(startDate, endDate, 10);
+    }
+
+    @Benchmark
+    public List<ProductPurchaseReportDTO> mostPurchasedProducts() {
+        return reportService.generateMostPurchasedProductsReport(startDate, endDate, 10);
+    }
+
+    @Benchmark
+    public List<OrderApprovalReportDTO> orderApprovals() {
+        return reportService.generateOrderApprovalsReport(startDate, endDate);
+    }
+}
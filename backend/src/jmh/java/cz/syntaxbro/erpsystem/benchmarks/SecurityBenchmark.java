@@ -0,0 +1,77 @@
+package cz.syntaxbro.erpsystem.benchmarks;
+
+import cz.syntaxbro.erpsystem.models.Role;
+import cz.syntaxbro.erpsystem.models.User;
+import cz.syntaxbro.erpsystem.security.PasswordHashingExecutor;
+import cz.syntaxbro.erpsystem.security.PasswordSecurity;
+import cz.syntaxbro.erpsystem.security.Pbkdf2PasswordHasher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import cz.syntaxbro.erpsystem.security.services.CustomUserDetails;
+import cz.syntaxbro.erpsystem.utils.JwtUtil;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-request and per-login security work: minting and validating access tokens and hashing passwords.
+ * No application context is needed, the components are created directly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SecurityBenchmark {
+
+    private JwtUtil jwtUtil;
+    private PasswordSecurity passwordSecurity;
+    private CustomUserDetails userDetails;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        Field secret = ReflectionUtils.findField(JwtUtil.class, "secret");
+        ReflectionUtils.makeAccessible(secret);
+        ReflectionUtils.setField(secret, jwtUtil, BenchmarkApplication.JWT_SECRET);
+        // Calibrated like the application with the default settings
+        passwordSecurity = new PasswordSecurity(new Pbkdf2PasswordHasher(Duration.ofMillis(100), 100_000),
+                new PasswordHashingExecutor(new SimpleMeterRegistry(), 0, 64, Duration.ofSeconds(30)));
+
+        User user = User.builder()
+                .id(1L)
+                .username("administrator")
+                .email("administrator@erp.local")
+                .password(passwordSecurity.encode("Administrator123!"))
+                .active(true)
+                .roles(Set.of(new Role("ROLE_ADMIN")))
+                .build();
+        userDetails = new CustomUserDetails(user);
+        token = jwtUtil.generateToken(userDetails);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(userDetails);
+    }
+
+    @Benchmark
+    public Boolean validateToken() {
+        return jwtUtil.validateToken(token, userDetails);
+    }
+
+    @Benchmark
+    public String encodePassword() {
+        return passwordSecurity.encode("Administrator123!");
+    }
+
+    @Benchmark
+    public boolean matchesPassword() {
+        return passwordSecurity.matches("Administrator123!", userDetails.getPassword());
+    }
+}
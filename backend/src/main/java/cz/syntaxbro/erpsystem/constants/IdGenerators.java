@@ -0,0 +1,16 @@
+package cz.syntaxbro.erpsystem.constants;
+
+/**
+ * Shared settings of the pooled table id generators. One row of {@link #TABLE} per generator holds its next value,
+ * every trip to the table reserves {@link #ALLOCATION_SIZE} ids, so inserts can be batched.
+ */
+public final class IdGenerators {
+
+    public static final String TABLE = "id_generators";
+    public static final String NAME_COLUMN = "name";
+    public static final String VALUE_COLUMN = "next_val";
+    public static final int ALLOCATION_SIZE = 50;
+
+    private IdGenerators() {
+    }
+}
@@ -36,8 +36,6 @@ public class AuthController {
     // User Login
     @PostMapping("/public/login")
     public ResponseEntity<JWTResponse> login(@Valid @RequestBody LoginRequest loginRequest) {
-        String token = authService.authenticateUser(loginRequest);
-        String refreshToken = authService.getRefreshToken(loginRequest);
-        return ResponseEntity.status(200).body(new JWTResponse(token, refreshToken));
+        return ResponseEntity.status(200).body(authService.login(loginRequest));
     }
 }
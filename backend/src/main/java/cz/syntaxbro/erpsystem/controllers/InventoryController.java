@@ -4,10 +4,13 @@ import cz.syntaxbro.erpsystem.ErpSystemApplication;
 import cz.syntaxbro.erpsystem.models.InventoryItem;
 import cz.syntaxbro.erpsystem.repositories.InventoryRepository;
 import cz.syntaxbro.erpsystem.requests.InventoryItemRequest;
+import cz.syntaxbro.erpsystem.responses.StockAsOfResponse;
+import cz.syntaxbro.erpsystem.responses.StockHistoryResponse;
 import cz.syntaxbro.erpsystem.services.InventoryService;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -15,6 +18,7 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -43,6 +47,30 @@ public class InventoryController {
         return ResponseEntity.ok(inventoryService.getAll());
     }
 
+    /**
+     * Stock of every item at the given time, e.g. {@code ?timestamp=2025-01-31T23:59:59} for a month-end close.
+     */
+    @GetMapping("/as-of")
+    public ResponseEntity<StockAsOfResponse> getStockAsOf(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime timestamp
+    ) {
+        return ResponseEntity.ok(inventoryService.getStockAsOf(timestamp));
+    }
+
+    /**
+     * Stock movements of the item within {@code (from, to]}, the last month up to now by default.
+     */
+    @GetMapping("/{itemId}/history")
+    public ResponseEntity<StockHistoryResponse> getStockHistory(
+            @PathVariable @Min(value = 1, message = "Must be positive number") Long itemId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusMonths(1);
+        return ResponseEntity.ok(inventoryService.getStockHistory(itemId, start, end));
+    }
+
     @PostMapping
     public ResponseEntity<InventoryItem> addItem(@Valid @RequestBody InventoryItemRequest item) {
         InventoryItem savedItem = inventoryService.addItem(item);
@@ -9,8 +9,8 @@ import cz.syntaxbro.erpsystem.responses.JWTResponse;
 import cz.syntaxbro.erpsystem.security.PasswordSecurity;
 import cz.syntaxbro.erpsystem.security.services.CustomUserDetails;
 import cz.syntaxbro.erpsystem.services.AuthService;
+import cz.syntaxbro.erpsystem.services.RefreshTokenService;
 import cz.syntaxbro.erpsystem.services.impl.FileStorageServiceImp;
-import cz.syntaxbro.erpsystem.utils.JwtUtil;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -33,14 +33,17 @@ public class MeController {
     private final UserRepository userRepository;
     private final FileStorageServiceImp fileStorageService;
     private final Logger logger = ErpSystemApplication.getLogger();
-    private final JwtUtil jwtUtil;
+    private final RefreshTokenService refreshTokenService;
+    private final PasswordSecurity passwordSecurity;
 
     @Autowired
-    public MeController(AuthService authService, UserRepository userRepository, FileStorageServiceImp fileStorageService, JwtUtil jwtUtil) {
+    public MeController(AuthService authService, UserRepository userRepository, FileStorageServiceImp fileStorageService,
+                        RefreshTokenService refreshTokenService, PasswordSecurity passwordSecurity) {
         this.authService = authService;
         this.userRepository = userRepository;
         this.fileStorageService = fileStorageService;
-        this.jwtUtil = jwtUtil;
+        this.refreshTokenService = refreshTokenService;
+        this.passwordSecurity = passwordSecurity;
     }
 
     @GetMapping
@@ -65,9 +68,8 @@ public class MeController {
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<User> changePassword(@Valid @RequestBody PasswordChangeRequest passwordForm) {
         User currentUser = authService.getCurrentUser();
-        PasswordSecurity security = new PasswordSecurity();
-        currentUser.setPassword(security.encode(passwordForm.getPassword()));
-        return ResponseEntity.ok(currentUser);
+        currentUser.setPassword(passwordSecurity.encode(passwordForm.getPassword()));
+        return ResponseEntity.ok(userRepository.save(currentUser));
     }
 
     @PostMapping(value = "/avatar", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -102,15 +104,20 @@ public class MeController {
     @GetMapping("/renew")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<JWTResponse> renew(@Valid @RequestParam("refreshToken") String refreshToken) {
-        ErpSystemApplication.getLogger().info("Refresh token: {}", refreshToken);
         CustomUserDetails userDetails = (CustomUserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        var isRefreshTokenValid = jwtUtil.validateToken(refreshToken, userDetails);
-        var tokenIsExpired = jwtUtil.isTokenExpired(refreshToken);
+        // The refresh token is rotated, presenting it again revokes its whole family
+        return refreshTokenService.rotate(refreshToken, userDetails.getUsername())
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(401).build());
+    }
 
-        if (isRefreshTokenValid && !tokenIsExpired) {
-            String token = authService.authenticateAccessToken(userDetails.getUser().getEmail());
-            String newRefreshToken = authService.authenticateRefreshToken(userDetails.getUser().getEmail());
-            return ResponseEntity.ok(new JWTResponse(token, newRefreshToken));
+    @PostMapping("/logout")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<Void> logout(@RequestParam("refreshToken") String refreshToken) {
+        CustomUserDetails userDetails = (CustomUserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        if (refreshTokenService.revoke(refreshToken, userDetails.getUsername())) {
+            logger.info("LOGOUT me user - {}", userDetails.getUsername());
+            return ResponseEntity.noContent().build();
         }
         return ResponseEntity.status(401).build();
     }
@@ -1,21 +1,32 @@
 package cz.syntaxbro.erpsystem.controllers;
 
 import cz.syntaxbro.erpsystem.models.Order;
+import cz.syntaxbro.erpsystem.requests.BulkOrderRequest;
 import cz.syntaxbro.erpsystem.requests.OrderCreateRequest;
+import cz.syntaxbro.erpsystem.requests.OrderPageRequest;
 import cz.syntaxbro.erpsystem.requests.OrderRequest;
 import cz.syntaxbro.erpsystem.requests.OrderUpdateRequest;
+import cz.syntaxbro.erpsystem.responses.BulkOrderResponse;
+import cz.syntaxbro.erpsystem.responses.OrderPageResponse;
 import cz.syntaxbro.erpsystem.responses.OrderResponse;
+import cz.syntaxbro.erpsystem.services.OrderExportService;
 import cz.syntaxbro.erpsystem.services.OrderService;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -25,10 +36,12 @@ import java.util.List;
 public class OrderController {
 
     private final OrderService orderService;
+    private final OrderExportService orderExportService;
 
     @Autowired
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, OrderExportService orderExportService) {
         this.orderService = orderService;
+        this.orderExportService = orderExportService;
     }
 
     @GetMapping("/{id}")
@@ -45,6 +58,57 @@ public class OrderController {
         return ResponseEntity.ok(orderService.getOrders());
     }
 
+    /**
+     * Lists orders page by page, newest first, filtered on the server. Pass the {@code nextCursor} of a page
+     * as the {@code cursor} to get the following one.
+     */
+    @GetMapping("/page")
+    public ResponseEntity<OrderPageResponse> getOrderPage(
+            @RequestParam(required = false) Order.Status status,
+            @RequestParam(required = false) Order.OrderType orderType,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Long approvedBy,
+            @RequestParam(required = false) Long productId,
+            @RequestParam(defaultValue = "ORDER_TIME") OrderPageRequest.Sort sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        OrderPageRequest pageRequest = OrderPageRequest.builder()
+                .status(status)
+                .orderType(orderType)
+                .startDate(startDate)
+                .endDate(endDate)
+                .approvedById(approvedBy)
+                .productId(productId)
+                .sort(sort)
+                .cursor(cursor)
+                .limit(limit)
+                .build();
+        return ResponseEntity.ok(orderService.getOrderPage(pageRequest));
+    }
+
+    /**
+     * Exports orders as CSV or newline-delimited JSON. The rows are streamed while they are read from the database,
+     * so large exports neither buffer the whole response nor load all orders into memory.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Order.Status status,
+            @RequestParam(defaultValue = "csv") String format) {
+        OrderExportService.Format exportFormat = OrderExportService.Format.of(format);
+        StreamingResponseBody body = out -> orderExportService.exportOrders(startDate, endDate, status, exportFormat, out);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("orders." + exportFormat.getExtension())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
     @GetMapping("/by-product")
     public ResponseEntity<List<Order>> getOrdersByProduct(
             @RequestParam(value = "productId", defaultValue = "0")
@@ -88,6 +152,23 @@ public class OrderController {
         return ResponseEntity.ok(confirmedOrder);
     }
 
+    /**
+     * Confirms many pending orders at once. Orders that cannot be confirmed (not found, not pending, not enough stock)
+     * are skipped, the response reports the result of every order.
+     */
+    @PostMapping("/bulk/confirm")
+    public ResponseEntity<BulkOrderResponse> confirmOrders(@RequestBody @Valid BulkOrderRequest request) {
+        return ResponseEntity.ok(orderService.confirmOrders(request.getOrderIds(), request.getComment()));
+    }
+
+    /**
+     * Cancels many pending orders at once, reporting the result of every order.
+     */
+    @PostMapping("/bulk/cancel")
+    public ResponseEntity<BulkOrderResponse> cancelOrders(@RequestBody @Valid BulkOrderRequest request) {
+        return ResponseEntity.ok(orderService.cancelOrders(request.getOrderIds(), request.getComment()));
+    }
+
     @PutMapping("/{id}/workflow-comment")
     public ResponseEntity<Order> addWorkflowComment(
             @PathVariable(name = "id") @NotNull Long id,
@@ -2,17 +2,26 @@ package cz.syntaxbro.erpsystem.controllers;
 
 import cz.syntaxbro.erpsystem.ErpSystemApplication;
 import cz.syntaxbro.erpsystem.models.Order;
+import cz.syntaxbro.erpsystem.responses.reports.DashboardReportDTO;
 import cz.syntaxbro.erpsystem.responses.reports.OrderApprovalReportDTO;
 import cz.syntaxbro.erpsystem.responses.reports.ProductPurchaseReportDTO;
 import cz.syntaxbro.erpsystem.responses.reports.ProductSalesReportDTO;
 import cz.syntaxbro.erpsystem.responses.reports.SalesReportDTO;
+import cz.syntaxbro.erpsystem.responses.reports.SalesSeriesReportDTO;
+import cz.syntaxbro.erpsystem.services.OrderExportService;
+import cz.syntaxbro.erpsystem.services.ReportDashboardService;
 import cz.syntaxbro.erpsystem.services.ReportService;
+import cz.syntaxbro.erpsystem.services.SalesRollupService;
 import cz.syntaxbro.erpsystem.utils.ConsoleColors;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -26,10 +35,19 @@ import java.util.List;
 public class ReportsController {
 
     private final ReportService reportService;
+    private final SalesRollupService salesRollupService;
+    private final OrderExportService orderExportService;
+    private final ReportDashboardService reportDashboardService;
 
     @Autowired
-    public ReportsController(ReportService reportService) {
+    public ReportsController(ReportService reportService,
+                             SalesRollupService salesRollupService,
+                             OrderExportService orderExportService,
+                             ReportDashboardService reportDashboardService) {
         this.reportService = reportService;
+        this.salesRollupService = salesRollupService;
+        this.orderExportService = orderExportService;
+        this.reportDashboardService = reportDashboardService;
     }
 
     /**
@@ -58,6 +76,34 @@ public class ReportsController {
         return ResponseEntity.ok(report);
     }
     
+    /**
+     * Retrieves sales/purchases per day, week or month of a specified date range.
+     *
+     * @param startDate The start date for the report period
+     * @param endDate The end date for the report period
+     * @param orderType The type of order
+     * @param bucket The size of one point of the series (day, week or month)
+     * @return A response with one sales point per bucket
+     */
+    @GetMapping("/sales/series")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER')")
+    public ResponseEntity<SalesSeriesReportDTO> getSalesSeries(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false, defaultValue = "sell") String orderType,
+            @RequestParam(defaultValue = "day") String bucket) {
+
+        var orderTypeEnum = Order.OrderType.valueOf(orderType.toUpperCase());
+        var bucketEnum = SalesSeriesReportDTO.Bucket.valueOf(bucket.toUpperCase());
+        SalesSeriesReportDTO series = reportService.generateSalesSeries(startDate, endDate, orderTypeEnum, bucketEnum);
+
+        ErpSystemApplication
+                .getLogger()
+                .info("\n\t{} Reports > sales series: {} {} points\n{}", ConsoleColors.PURPLE, bucketEnum, series.getPoints().size(), ConsoleColors.RESET);
+
+        return ResponseEntity.ok(series);
+    }
+
     /**
      * Retrieves report data for best-selling products.
      * 
@@ -127,4 +173,83 @@ public class ReportsController {
 
         return ResponseEntity.ok(report);
     }
-} 
\ No newline at end of file
+
+    /**
+     * Retrieves all reports for a specified date range in one response, the sections are computed concurrently.
+     *
+     * @param startDate The start date for the report period
+     * @param endDate The end date for the report period
+     * @param orderType The type of order of the sales section
+     * @param limit The maximum number of products in the product sections
+     * @return A response with the combined reports and the time each section took
+     */
+    @GetMapping("/dashboard")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER')")
+    public ResponseEntity<DashboardReportDTO> getDashboard(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false, defaultValue = "sell") String orderType,
+            @RequestParam(defaultValue = "10") int limit) {
+
+        var orderTypeEnum = Order.OrderType.valueOf(orderType.toUpperCase());
+        DashboardReportDTO dashboard = reportDashboardService.generateDashboard(startDate, endDate, orderTypeEnum, limit);
+
+        ErpSystemApplication
+                .getLogger()
+                .info("\n\t{} Reports > dashboard: {} ms {}\n{}", ConsoleColors.PURPLE, dashboard.getTotalTimeMillis(), dashboard.getSectionTimingsMillis(), ConsoleColors.RESET);
+
+        return ResponseEntity.ok(dashboard);
+    }
+
+    /**
+     * Exports the order lines of confirmed orders behind the sales reports as CSV or newline-delimited JSON.
+     * The rows are streamed while they are read from the database.
+     *
+     * @param startDate The start date for the report period
+     * @param endDate The end date for the report period
+     * @param orderType The type of order
+     * @param format The output format (csv or ndjson)
+     * @return A streamed response with one row per order line
+     */
+    @GetMapping("/sales/export")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER')")
+    public ResponseEntity<StreamingResponseBody> exportSales(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false, defaultValue = "sell") String orderType,
+            @RequestParam(defaultValue = "csv") String format) {
+        var orderTypeEnum = Order.OrderType.valueOf(orderType.toUpperCase());
+        OrderExportService.Format exportFormat = OrderExportService.Format.of(format);
+        StreamingResponseBody body = out -> orderExportService.exportSalesLines(startDate, endDate, orderTypeEnum, exportFormat, out);
+
+        ErpSystemApplication
+                .getLogger()
+                .info("\n\t{} Reports > sales export: {} {}\n{}", ConsoleColors.PURPLE, orderTypeEnum, exportFormat, ConsoleColors.RESET);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("sales." + exportFormat.getExtension())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
+    /**
+     * Rebuilds the daily sales rollup from all confirmed orders.
+     * Only needed after changing orders outside the application (e.g. directly in the database).
+     *
+     * @return A response with the number of rebuilt rollup rows
+     */
+    @PostMapping("/rollup/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Integer> rebuildSalesRollup() {
+        int rows = salesRollupService.rebuild();
+
+        ErpSystemApplication
+                .getLogger()
+                .info("\n\t{} Reports > sales rollup rebuilt: {} rows\n{}", ConsoleColors.PURPLE, rows, ConsoleColors.RESET);
+
+        return ResponseEntity.ok(rows);
+    }
+}
@@ -0,0 +1,34 @@
+package cz.syntaxbro.erpsystem.controllers;
+
+import cz.syntaxbro.erpsystem.services.OrderStreamBroadcaster;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/stream")
+@EnableMethodSecurity()
+@PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+public class StreamController {
+
+    private final OrderStreamBroadcaster orderStreamBroadcaster;
+
+    @Autowired
+    public StreamController(OrderStreamBroadcaster orderStreamBroadcaster) {
+        this.orderStreamBroadcaster = orderStreamBroadcaster;
+    }
+
+    /**
+     * Server-Sent Events with the order lifecycle ({@code order} events) and the stock and reserved amounts of items
+     * whose stock or reservations changed ({@code stock} events). Replaces polling of {@code GET /api/orders} and {@code GET /api/inventory}.
+     */
+    @GetMapping(value = "/orders", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamOrders() {
+        return orderStreamBroadcaster.connect();
+    }
+}
@@ -0,0 +1,31 @@
+package cz.syntaxbro.erpsystem.events;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stock or reservation change of an inventory item, written to the outbox together with the change.
+ */
+public sealed interface InventoryEvent {
+
+    Long itemId();
+
+    LocalDateTime occurredAt();
+
+    /**
+     * The stocked amount moved by {@code change}, positive when stock was added.
+     */
+    record StockChanged(Long itemId, double change, LocalDateTime occurredAt) implements InventoryEvent {
+    }
+
+    /**
+     * The stocked amount was set to a new value, e.g. after a stock-take.
+     */
+    record StockSet(Long itemId, double stockedAmount, LocalDateTime occurredAt) implements InventoryEvent {
+    }
+
+    /**
+     * The reserved amount moved by {@code change}, positive when stock was reserved for a pending order.
+     */
+    record ReservationChanged(Long itemId, double change, LocalDateTime occurredAt) implements InventoryEvent {
+    }
+}
@@ -0,0 +1,28 @@
+package cz.syntaxbro.erpsystem.events;
+
+import cz.syntaxbro.erpsystem.models.Order;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lifecycle event of an order, published by {@link OrderEventBus} after the transaction that caused it commits.
+ * Events carry plain values rather than entities, subscribers run outside the transaction and cannot load lazy data.
+ */
+public sealed interface OrderEvent {
+
+    Long orderId();
+
+    LocalDateTime occurredAt();
+
+    record OrderCreated(Long orderId, Order.OrderType orderType, double cost, LocalDateTime occurredAt) implements OrderEvent {
+    }
+
+    record OrderConfirmed(Long orderId, Order.OrderType orderType, String approvedBy, LocalDateTime occurredAt) implements OrderEvent {
+    }
+
+    record OrderCanceled(Long orderId, Order.OrderType orderType, String approvedBy, LocalDateTime occurredAt) implements OrderEvent {
+    }
+
+    record OrderStatusChanged(Long orderId, Order.Status previousStatus, Order.Status newStatus, LocalDateTime occurredAt) implements OrderEvent {
+    }
+}
@@ -0,0 +1,132 @@
+package cz.syntaxbro.erpsystem.events;
+
+import cz.syntaxbro.erpsystem.ErpSystemApplication;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ClassUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * In-process bus for the order lifecycle events. Events published inside a transaction are dispatched after it
+ * commits and dropped when it rolls back; outside a transaction they are dispatched right away.
+ * <p>
+ * Every subscriber gets the event as a separate task of a bounded executor. When the queue is full the publishing
+ * thread delivers the event itself, which slows the request path down instead of dropping events or growing the
+ * queue without limit. The queue size, caller runs, failures, delivery time and time spent in the queue are published
+ * as the {@code orders.events.*} metrics. With more than one thread events of an order may be delivered out of order,
+ * subscribers that care should compare {@link OrderEvent#occurredAt()}.
+ */
+@Component
+public class OrderEventBus {
+
+    private final List<OrderEventSubscriber> subscribers;
+    private final ThreadPoolExecutor executor;
+
+    private final Counter published;
+    private final Counter callerRuns;
+    private final Map<OrderEventSubscriber, Counter> failures;
+    private final Map<OrderEventSubscriber, Timer> deliveries;
+    private final Timer queueWait;
+
+    @Autowired
+    public OrderEventBus(List<OrderEventSubscriber> subscribers, MeterRegistry meterRegistry,
+                         @Value("${orders.events.threads:2}") int threads,
+                         @Value("${orders.events.queue-capacity:1000}") int queueCapacity) {
+        this.subscribers = List.copyOf(subscribers);
+
+        this.published = Counter.builder("orders.events.published").register(meterRegistry);
+        this.callerRuns = Counter.builder("orders.events.caller.runs").register(meterRegistry);
+        this.queueWait = Timer.builder("orders.events.queue.wait").register(meterRegistry);
+        this.failures = this.subscribers.stream().collect(Collectors.toMap(Function.identity(), subscriber ->
+                Counter.builder("orders.events.failures").tag("subscriber", name(subscriber)).register(meterRegistry)));
+        this.deliveries = this.subscribers.stream().collect(Collectors.toMap(Function.identity(), subscriber ->
+                Timer.builder("orders.events.delivery").tag("subscriber", name(subscriber)).register(meterRegistry)));
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "order-events-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (task, executor) -> {
+                    if (!executor.isShutdown()) {
+                        callerRuns.increment();
+                        task.run();
+                    }
+                });
+
+        Gauge.builder("orders.events.queue.size", executor, e -> e.getQueue().size()).register(meterRegistry);
+    }
+
+    public void publish(OrderEvent event) {
+        publishAll(List.of(event));
+    }
+
+    /**
+     * Publishes several events with a single transaction synchronization, e.g. the events of a bulk operation.
+     */
+    public void publishAll(List<? extends OrderEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            List<? extends OrderEvent> pending = List.copyOf(events);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(pending);
+                }
+            });
+        } else {
+            dispatch(events);
+        }
+    }
+
+    private void dispatch(List<? extends OrderEvent> events) {
+        for (OrderEvent event : events) {
+            published.increment();
+            for (OrderEventSubscriber subscriber : subscribers) {
+                long queuedAt = System.nanoTime();
+                executor.execute(() -> deliver(subscriber, event, queuedAt));
+            }
+        }
+    }
+
+    private void deliver(OrderEventSubscriber subscriber, OrderEvent event, long queuedAt) {
+        queueWait.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+        long started = System.nanoTime();
+        try {
+            subscriber.onEvent(event);
+        } catch (RuntimeException e) {
+            failures.get(subscriber).increment();
+            ErpSystemApplication.getLogger().warn("Order event subscriber {} failed on {}", name(subscriber), event, e);
+        } finally {
+            deliveries.get(subscriber).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static String name(OrderEventSubscriber subscriber) {
+        return ClassUtils.getUserClass(subscriber).getSimpleName();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
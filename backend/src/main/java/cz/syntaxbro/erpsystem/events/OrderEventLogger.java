@@ -0,0 +1,25 @@
+package cz.syntaxbro.erpsystem.events;
+
+import cz.syntaxbro.erpsystem.ErpSystemApplication;
+import org.springframework.stereotype.Component;
+
+/**
+ * Logs the order lifecycle, the simplest subscriber of the bus.
+ */
+@Component
+public class OrderEventLogger implements OrderEventSubscriber {
+
+    @Override
+    public void onEvent(OrderEvent event) {
+        switch (event) {
+            case OrderEvent.OrderCreated created -> ErpSystemApplication.getLogger().info(
+                    "Order {} created ({}, cost {})", created.orderId(), created.orderType(), created.cost());
+            case OrderEvent.OrderConfirmed confirmed -> ErpSystemApplication.getLogger().info(
+                    "Order {} confirmed by {}", confirmed.orderId(), confirmed.approvedBy());
+            case OrderEvent.OrderCanceled canceled -> ErpSystemApplication.getLogger().info(
+                    "Order {} canceled by {}", canceled.orderId(), canceled.approvedBy());
+            case OrderEvent.OrderStatusChanged changed -> ErpSystemApplication.getLogger().info(
+                    "Order {} status changed from {} to {}", changed.orderId(), changed.previousStatus(), changed.newStatus());
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package cz.syntaxbro.erpsystem.events;
+
+/**
+ * Receives the order events, every bean implementing this interface is subscribed to {@link OrderEventBus}.
+ * Events are delivered on the bus executor threads, an exception thrown by a subscriber is logged and counted
+ * and does not affect the other subscribers.
+ */
+public interface OrderEventSubscriber {
+
+    void onEvent(OrderEvent event);
+}
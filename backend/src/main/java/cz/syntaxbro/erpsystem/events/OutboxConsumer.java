@@ -0,0 +1,18 @@
+package cz.syntaxbro.erpsystem.events;
+
+import cz.syntaxbro.erpsystem.models.OutboxMessage;
+
+import java.util.List;
+
+/**
+ * Receives the outbox messages from the relay, every bean implementing this interface is a consumer.
+ * Delivery is at least once: a batch is delivered again when a consumer throws or the relay dies before the
+ * batch is deleted, so consumers have to tolerate duplicates.
+ */
+public interface OutboxConsumer {
+
+    /**
+     * @param messages Leased messages in ID order
+     */
+    void accept(List<OutboxMessage> messages) throws Exception;
+}
@@ -0,0 +1,53 @@
+package cz.syntaxbro.erpsystem.events;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.syntaxbro.erpsystem.models.OutboxMessage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Appends the outbox messages to a newline-delimited JSON file, enabled by setting {@code outbox.file-sink.path}.
+ * A batch that is delivered again after a failure is appended again, readers should skip IDs they have seen.
+ */
+@Component
+@ConditionalOnProperty("outbox.file-sink.path")
+public class OutboxFileSink implements OutboxConsumer {
+
+    private final Path path;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public OutboxFileSink(@Value("${outbox.file-sink.path}") Path path, ObjectMapper objectMapper) {
+        this.path = path;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void accept(List<OutboxMessage> messages) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (OutboxMessage message : messages) {
+                Map<String, Object> line = new LinkedHashMap<>();
+                line.put("id", message.getId());
+                line.put("aggregateType", message.getAggregateType().name());
+                line.put("aggregateId", message.getAggregateId());
+                line.put("eventType", message.getEventType());
+                line.put("createdAt", message.getCreatedAt().toString());
+                line.put("payload", objectMapper.readTree(message.getPayload()));
+                writer.write(objectMapper.writeValueAsString(line));
+                writer.write('\n');
+            }
+        }
+    }
+}
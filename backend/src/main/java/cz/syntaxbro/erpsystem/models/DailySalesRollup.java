@@ -0,0 +1,53 @@
+package cz.syntaxbro.erpsystem.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Pre-aggregated totals of confirmed orders per day, order type and product.
+ * Maintained incrementally by {@code SalesRollupService} whenever an order enters or leaves the CONFIRMED status.
+ */
+@Entity
+@Table(name = "daily_sales_rollup")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DailySalesRollup {
+
+    @EmbeddedId
+    private Key id;
+
+    private long quantity;
+
+    @Convert(converter = MoneyConverter.class)
+    @Column(name = "revenue_minor", nullable = false)
+    @Builder.Default
+    private Money revenue = Money.ZERO;
+
+    @Column(name = "order_count")
+    private long orderCount;
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+
+        @Column(name = "sales_date", nullable = false)
+        private LocalDate salesDate;
+
+        @Enumerated(EnumType.STRING)
+        @Column(name = "order_type", nullable = false)
+        private Order.OrderType orderType;
+
+        @Column(name = "product_id", nullable = false)
+        private Long productId;
+    }
+}
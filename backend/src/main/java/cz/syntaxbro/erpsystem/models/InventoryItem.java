@@ -37,14 +37,31 @@ public class InventoryItem {
     @Column(name = "stocked_amount")
     private double stockedAmount;
 
+    // Sum of the active stock reservations of pending SELL orders, kept up to date with every reservation change
+    @PositiveOrZero
+    @Column(name = "reserved_amount", nullable = false)
+    @Builder.Default
+    private double reservedAmount = 0;
+
     @CreationTimestamp
     private LocalDateTime createdAt;
     @UpdateTimestamp
     private LocalDateTime updatedAt;
 
+    public InventoryItem(Long id, Product product, double stockedAmount, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this(id, product, stockedAmount, 0, createdAt, updatedAt);
+    }
+
     public InventoryItem(int stockedAmount, Product product, Long id) {
         this.stockedAmount = stockedAmount;
         this.product = product;
         this.id = id;
     }
+
+    /**
+     * Stock that can still be sold or reserved.
+     */
+    public double getAvailableAmount() {
+        return stockedAmount - reservedAmount;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,75 @@
+package cz.syntaxbro.erpsystem.models;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Amount of money as a whole number of minor units (hundredths), so adding amounts up is exact
+ * and summing in a loop only needs a {@code long}.
+ * Prices are still stored as {@code double}, {@link #minorOf(double)} rounds them to the nearest minor unit.
+ */
+public record Money(long minor) implements Comparable<Money> {
+
+    public static final int SCALE = 2;
+    public static final Money ZERO = new Money(0);
+
+    private static final long MINOR_PER_UNIT = 100;
+
+    public static Money ofMinor(long minor) {
+        return minor == 0 ? ZERO : new Money(minor);
+    }
+
+    public static Money of(double amount) {
+        return ofMinor(minorOf(amount));
+    }
+
+    @JsonCreator
+    public static Money of(BigDecimal amount) {
+        return ofMinor(amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    /**
+     * Converts an amount to minor units without creating a {@code Money}, for accumulating in loops.
+     */
+    public static long minorOf(double amount) {
+        return Math.round(amount * MINOR_PER_UNIT);
+    }
+
+    public Money plus(Money other) {
+        return ofMinor(Math.addExact(minor, other.minor));
+    }
+
+    public Money minus(Money other) {
+        return ofMinor(Math.subtractExact(minor, other.minor));
+    }
+
+    public Money times(long quantity) {
+        return ofMinor(Math.multiplyExact(minor, quantity));
+    }
+
+    public boolean isZero() {
+        return minor == 0;
+    }
+
+    @JsonValue
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+
+    public double toDouble() {
+        return (double) minor / MINOR_PER_UNIT;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minor, other.minor);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -0,0 +1,21 @@
+package cz.syntaxbro.erpsystem.models;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores {@link Money} as a BIGINT column of minor units.
+ */
+@Converter
+public class MoneyConverter implements AttributeConverter<Money, Long> {
+
+    @Override
+    public Long convertToDatabaseColumn(Money money) {
+        return money == null ? null : money.minor();
+    }
+
+    @Override
+    public Money convertToEntityAttribute(Long minor) {
+        return minor == null ? null : Money.ofMinor(minor);
+    }
+}
@@ -1,11 +1,14 @@
 package cz.syntaxbro.erpsystem.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import cz.syntaxbro.erpsystem.requests.OrderRequest;
+import cz.syntaxbro.erpsystem.utils.PooledTableId;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
@@ -16,7 +19,11 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_time_status_type", columnList = "order_time, status, order_type"),
+        @Index(name = "idx_orders_status_time", columnList = "status, order_time, id"),
+        @Index(name = "idx_orders_approved_by_time", columnList = "approved_by, order_time, id")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -24,10 +31,13 @@ import java.util.List;
 public class Order {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled ids from the id_generators table, IDENTITY would make Hibernate insert every row on its own
+    @PooledTableId("orders")
     private Long id;
 
+    // Loads the lines of up to 100 orders in one query when a page of orders is read
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true, fetch=FetchType.EAGER)
+    @BatchSize(size = 100)
     private List<OrderItem> orderItems;
 
     private double cost;
@@ -76,35 +86,37 @@ public class Order {
         this.comment = orderDto.getComment() == null ? this.comment : orderDto.getComment();
     }
 
-    public double getTotal(Order.OrderType orderType) {
-        double total = 0;
-        for (OrderItem item : orderItems) {
-            Product product = item.getInventoryItem().getProduct();
-            total += item.getQuantity() * (orderType.equals(OrderType.SELL) ? product.getBuyoutPrice() : product.getPurchasePrice());
-        }
-        return total;
+    /**
+     * Total of the order lines priced for the given order type, summed exactly in minor units.
+     */
+    public Money getTotal(Order.OrderType orderType) {
+        return Money.ofMinor(totalMinor(orderType));
     }
 
     public BigDecimal getTotal() {
-        double total = 0;
+        return Money.ofMinor(totalMinor(orderType)).toBigDecimal();
+    }
+
+    /**
+     * Same as {@link #getTotal()}, without allocating, for accumulating totals of many orders.
+     */
+    @JsonIgnore
+    public long getTotalMinor() {
+        return totalMinor(orderType);
+    }
+
+    private long totalMinor(Order.OrderType orderType) {
+        long total = 0;
         for (OrderItem item : orderItems) {
             Product product = item.getInventoryItem().getProduct();
-            total += item.getQuantity() * (item.getOrder().getOrderType().equals(OrderType.SELL)
-                    ? product.getBuyoutPrice()
-                    : product.getPurchasePrice()
-            );
+            total += item.getQuantity() * Money.minorOf(product.priceFor(orderType));
         }
-        return BigDecimal.valueOf(total);
+        return total;
     }
 
     @SuppressWarnings("unused")
     public void recalculateTotal() {
-        this.cost = this.orderItems.stream()
-                .mapToDouble(item -> item.getQuantity() * (
-                        this.orderType == OrderType.SELL
-                                ? item.getInventoryItem().getProduct().getBuyoutPrice()
-                                : item.getInventoryItem().getProduct().getPurchasePrice()))
-                .sum();
+        this.cost = Money.ofMinor(totalMinor(this.orderType)).toDouble();
     }
 
     public Order(OrderType orderType, Long id, List<OrderItem> orderItems, double cost, Status status, LocalDateTime orderTime, String comment, User approvedBy, LocalDateTime decisionTime) {
@@ -1,6 +1,7 @@
 package cz.syntaxbro.erpsystem.models;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import cz.syntaxbro.erpsystem.utils.PooledTableId;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
@@ -11,7 +12,9 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "order_items")
+@Table(name = "order_items", indexes = {
+        @Index(name = "idx_order_items_item_order", columnList = "inventory_item, order_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -19,7 +22,7 @@ import java.time.LocalDateTime;
 public class OrderItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledTableId("order_items")
     private Long id;
 
     @ManyToOne
@@ -35,6 +38,11 @@ public class OrderItem {
 
     private int quantity;
 
+    // Unit price the line was added to the sales rollup with when its order was confirmed, so it is removed with the same
+    @Convert(converter = MoneyConverter.class)
+    @Column(name = "unit_price_minor")
+    private Money unitPrice;
+
     @CreationTimestamp
     private LocalDateTime createdAt;
     @UpdateTimestamp
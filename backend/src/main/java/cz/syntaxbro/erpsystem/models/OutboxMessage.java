@@ -0,0 +1,65 @@
+package cz.syntaxbro.erpsystem.models;
+
+import cz.syntaxbro.erpsystem.utils.PooledTableId;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Event written in the same transaction as the state change it describes, so it exists if and only if the change
+ * was committed. The outbox relay leases the rows, hands them to the consumers and deletes them once delivered,
+ * a row that failed too many times is parked as dead-lettered instead.
+ */
+@Entity
+@Table(name = "outbox", indexes = {
+        @Index(name = "idx_outbox_dead_lettered_at", columnList = "dead_lettered_at, id"),
+        @Index(name = "idx_outbox_aggregate_id", columnList = "aggregate_id, id")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxMessage {
+
+    @Id
+    @PooledTableId("outbox")
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "aggregate_type", nullable = false, length = 32)
+    private AggregateType aggregateType;
+
+    @Column(name = "aggregate_id")
+    private Long aggregateId;
+
+    @Column(name = "event_type", nullable = false, length = 64)
+    private String eventType;
+
+    // The event as JSON
+    @Column(name = "payload", nullable = false, length = 4000)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Set while a relay delivers the row, an expired lease makes the row available to any relay again
+    @Column(name = "leased_until")
+    private LocalDateTime leasedUntil;
+
+    @Column(name = "lease_owner", length = 64)
+    private String leaseOwner;
+
+    private int attempts;
+
+    // Set when the row was given up on after too many attempts, the relay skips it from then on
+    @Column(name = "dead_lettered_at")
+    private LocalDateTime deadLetteredAt;
+
+    public enum AggregateType {
+        ORDER, INVENTORY_ITEM
+    }
+}
@@ -62,4 +62,12 @@ public class Product {
         this.image = image;
         this.productCategory = productCategory;
     }
+
+    /**
+     * The unit price of the product on an order of the given type, the buyout price on sales and the purchase price
+     * on purchases. Order costs, totals, the sales rollup, reports and exports all price lines with it.
+     */
+    public double priceFor(Order.OrderType orderType) {
+        return orderType == Order.OrderType.SELL ? buyoutPrice : purchasePrice;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,58 @@
+package cz.syntaxbro.erpsystem.models;
+
+import cz.syntaxbro.erpsystem.utils.PooledTableId;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * An issued refresh token, identified by its {@code jti} claim. Every login starts a family of tokens, each renewal
+ * rotates the presented token and issues the next one of the family. Presenting a rotated token again means it
+ * leaked, and the whole family is revoked together with the access tokens issued in it.
+ */
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "idx_refresh_tokens_token", columnList = "token_id", unique = true),
+        @Index(name = "idx_refresh_tokens_family", columnList = "family_id"),
+        @Index(name = "idx_refresh_tokens_status_expires", columnList = "status, expires_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshToken {
+
+    public enum Status {
+        ACTIVE,
+        // Exchanged for the next token of the family
+        ROTATED,
+        REVOKED
+    }
+
+    @Id
+    @PooledTableId("refresh_tokens")
+    private Long id;
+
+    @Column(name = "token_id", nullable = false, length = 36)
+    private String tokenId;
+
+    @Column(name = "family_id", nullable = false, length = 36)
+    private String familyId;
+
+    @Column(nullable = false)
+    private String username;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    @Column(name = "issued_at", nullable = false)
+    private LocalDateTime issuedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
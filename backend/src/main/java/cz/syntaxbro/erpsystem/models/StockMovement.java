@@ -0,0 +1,61 @@
+package cz.syntaxbro.erpsystem.models;
+
+import cz.syntaxbro.erpsystem.utils.PooledTableId;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One change of the stocked amount of an inventory item. Movements are only ever inserted, in the same transaction
+ * as the change of {@link InventoryItem#getStockedAmount()}, so the stock of an item at any time is the sum of its
+ * movements up to that time. {@link StockSnapshot}s keep that sum short.
+ */
+@Entity
+@Table(name = "stock_movements", indexes = {
+        @Index(name = "idx_stock_movements_item_time", columnList = "inventory_item_id, occurred_at"),
+        @Index(name = "idx_stock_movements_time", columnList = "occurred_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMovement {
+
+    public enum Reason {
+        // Stock the item started with, or had before the ledger was introduced
+        OPENING,
+        PURCHASE,
+        SALE,
+        // Stock returned by a canceled order, no longer written since canceling only ends the reservation of a pending order
+        CANCELLATION,
+        // Stock received or issued outside of an order
+        RECEIPT,
+        ISSUE,
+        // Stocked amount set by hand
+        ADJUSTMENT
+    }
+
+    @Id
+    @PooledTableId("stock_movements")
+    private Long id;
+
+    @Column(name = "inventory_item_id", nullable = false)
+    private Long inventoryItemId;
+
+    // The order that moved the stock, null for movements outside of an order
+    @Column(name = "order_id")
+    private Long orderId;
+
+    private double delta;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Reason reason;
+
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+}
@@ -0,0 +1,39 @@
+package cz.syntaxbro.erpsystem.models;
+
+import cz.syntaxbro.erpsystem.utils.PooledTableId;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stocked amount of an inventory item at {@link #takenAt}, i.e. the sum of its {@link StockMovement}s that occurred
+ * up to then. The stock at a later time is the latest snapshot plus the movements after it.
+ */
+@Entity
+@Table(name = "stock_snapshots", indexes = {
+        @Index(name = "idx_stock_snapshots_item_time", columnList = "inventory_item_id, taken_at"),
+        @Index(name = "idx_stock_snapshots_time", columnList = "taken_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockSnapshot {
+
+    @Id
+    @PooledTableId("stock_snapshots")
+    private Long id;
+
+    @Column(name = "inventory_item_id", nullable = false)
+    private Long inventoryItemId;
+
+    @Column(name = "stocked_amount", nullable = false)
+    private double stockedAmount;
+
+    @Column(name = "taken_at", nullable = false)
+    private LocalDateTime takenAt;
+}
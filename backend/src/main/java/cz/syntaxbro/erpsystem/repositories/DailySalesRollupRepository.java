@@ -0,0 +1,104 @@
+package cz.syntaxbro.erpsystem.repositories;
+
+import cz.syntaxbro.erpsystem.models.DailySalesRollup;
+import cz.syntaxbro.erpsystem.models.Money;
+import cz.syntaxbro.erpsystem.models.Order;
+import cz.syntaxbro.erpsystem.responses.reports.ProductSalesReportDTO;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailySalesRollupRepository extends JpaRepository<DailySalesRollup, DailySalesRollup.Key> {
+
+    /**
+     * Atomically adds the deltas to an existing rollup row.
+     *
+     * @return number of updated rows, 0 when the row does not exist yet
+     */
+    @Modifying
+    @Query("update DailySalesRollup r set r.quantity = r.quantity + :quantity, r.revenue = r.revenue + :revenue, " +
+            "r.orderCount = r.orderCount + :orderCount " +
+            "where r.id.salesDate = :salesDate and r.id.orderType = :orderType and r.id.productId = :productId")
+    int increment(@Param("salesDate") LocalDate salesDate,
+                  @Param("orderType") Order.OrderType orderType,
+                  @Param("productId") Long productId,
+                  @Param("quantity") long quantity,
+                  @Param("revenue") Money revenue,
+                  @Param("orderCount") long orderCount);
+
+    /**
+     * Atomically adds the deltas to the rollup row, inserting it when it does not exist yet.
+     * Translated to {@code INSERT ... ON DUPLICATE KEY UPDATE} on MySQL and to {@code MERGE} on H2.
+     * The revenue is bound in minor units, insert values are not converted like the compared parameters.
+     */
+    @Modifying
+    @Query("insert into DailySalesRollup (id.salesDate, id.orderType, id.productId, quantity, revenue, orderCount) " +
+            "values (:salesDate, :orderType, :productId, :quantity, :revenueMinor, :orderCount) " +
+            "on conflict(id.salesDate, id.orderType, id.productId) do update " +
+            "set quantity = quantity + excluded.quantity, revenue = revenue + excluded.revenue, orderCount = orderCount + excluded.orderCount")
+    int upsert(@Param("salesDate") LocalDate salesDate,
+               @Param("orderType") Order.OrderType orderType,
+               @Param("productId") Long productId,
+               @Param("quantity") long quantity,
+               @Param("revenueMinor") long revenueMinor,
+               @Param("orderCount") long orderCount);
+
+    /**
+     * Sums the revenue of the given order type for the days within {@code [from, to]}, in minor units.
+     * Aggregates of the converted column come back as the stored {@code Long}, see {@link Money#ofMinor(long)}.
+     */
+    @Query("select coalesce(sum(r.revenue), 0) from DailySalesRollup r " +
+            "where r.id.salesDate >= :from and r.id.salesDate <= :to and r.id.orderType = :orderType")
+    Long sumRevenueMinor(@Param("from") LocalDate from,
+                         @Param("to") LocalDate to,
+                         @Param("orderType") Order.OrderType orderType);
+
+    /**
+     * Sums the revenue of the given order type per day within {@code [from, to]}, one {@code [LocalDate, Long]} row per day with sales, in minor units.
+     */
+    @Query("select r.id.salesDate, sum(r.revenue) from DailySalesRollup r " +
+            "where r.id.salesDate >= :from and r.id.salesDate <= :to and r.id.orderType = :orderType " +
+            "group by r.id.salesDate " +
+            "order by r.id.salesDate")
+    List<Object[]> sumRevenueByDay(@Param("from") LocalDate from,
+                                   @Param("to") LocalDate to,
+                                   @Param("orderType") Order.OrderType orderType);
+
+    /**
+     * Aggregates quantity and revenue per product for the days within {@code [from, to]}, ordered by revenue.
+     * Reads O(days x products) rollup rows instead of the order history, the page limits the number of returned rows.
+     */
+    @Query("select new cz.syntaxbro.erpsystem.responses.reports.ProductSalesReportDTO(" +
+            "p.id, p.name, p.description, sum(r.quantity), sum(r.revenue), p.buyoutPrice) " +
+            "from DailySalesRollup r join Product p on p.id = r.id.productId " +
+            "where r.id.salesDate >= :from and r.id.salesDate <= :to and r.id.orderType = :orderType " +
+            "group by p.id, p.name, p.description, p.buyoutPrice " +
+            "order by sum(r.revenue) desc")
+    List<ProductSalesReportDTO> findProductSales(@Param("from") LocalDate from,
+                                                 @Param("to") LocalDate to,
+                                                 @Param("orderType") Order.OrderType orderType,
+                                                 Pageable pageable);
+
+    /**
+     * Fills the (emptied) rollup table from all orders with the given status in one INSERT ... SELECT, lines at the unit
+     * price they were confirmed with, lines confirmed before the price was kept at the current price of the product.
+     *
+     * @return number of inserted rollup rows
+     */
+    @Modifying
+    @Query("insert into DailySalesRollup (id.salesDate, id.orderType, id.productId, quantity, revenue, orderCount) " +
+            "select cast(o.orderTime as LocalDate), o.orderType, p.id, sum(oi.quantity), " +
+            "sum(oi.quantity * coalesce(cast(oi.unitPrice as Long), cast(round(case when o.orderType = :sell then p.buyoutPrice else p.purchasePrice end * 100, 0) as Long))), " +
+            "count(distinct o.id) " +
+            "from OrderItem oi join oi.order o join oi.inventoryItem ii join ii.product p " +
+            "where o.status = :status " +
+            "group by cast(o.orderTime as LocalDate), o.orderType, p.id")
+    int insertFromOrders(@Param("status") Order.Status status, @Param("sell") Order.OrderType sell);
+}
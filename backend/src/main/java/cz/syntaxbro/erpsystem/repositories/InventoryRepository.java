@@ -2,12 +2,16 @@ package cz.syntaxbro.erpsystem.repositories;
 
 import cz.syntaxbro.erpsystem.models.InventoryItem;
 import cz.syntaxbro.erpsystem.models.Product;
+import jakarta.persistence.LockModeType;
 import jakarta.transaction.Transactional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface InventoryRepository  extends JpaRepository<InventoryItem, Long> {
@@ -17,5 +21,68 @@ public interface InventoryRepository  extends JpaRepository<InventoryItem, Long>
     @Query("UPDATE InventoryItem i SET i.stockedAmount = :stockedAmount WHERE i.id = :id")
     int updateQuantity(@Param("id") Long id, @Param("stockedAmount") double stockedAmount);
 
+    /**
+     * Adds to the stocked amount in a single statement, so concurrent deltas of the same item cannot overwrite each other.
+     * Like the other stock updates it leaves the persistence context alone, an item loaded before keeps its old amounts
+     * until it is refreshed ({@code InventoryService.refresh}), while the other entities of the transaction stay managed.
+     *
+     * @return The number of updated rows, 0 when the item does not exist
+     */
+    @Modifying(flushAutomatically = true)
+    @Transactional
+    @Query("UPDATE InventoryItem i SET i.stockedAmount = i.stockedAmount + :quantity WHERE i.id = :id")
+    int increaseStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    /**
+     * Takes from the stocked amount in a single statement, only when enough is available, i.e. stocked and not
+     * reserved. The check and the decrement happen under the row lock of the update, so concurrent confirmations
+     * can neither lose updates nor oversell.
+     *
+     * @return The number of updated rows, 0 when the item does not exist or there is not enough stock
+     */
+    @Modifying(flushAutomatically = true)
+    @Transactional
+    @Query("UPDATE InventoryItem i SET i.stockedAmount = i.stockedAmount - :quantity " +
+            "WHERE i.id = :id AND i.stockedAmount - i.reservedAmount >= :quantity")
+    int decreaseStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    /**
+     * Adds to the reserved amount, only when enough is available. Checked and updated in one statement like {@link #decreaseStock}.
+     *
+     * @return The number of updated rows, 0 when the item does not exist or there is not enough stock
+     */
+    @Modifying(flushAutomatically = true)
+    @Transactional
+    @Query("UPDATE InventoryItem i SET i.reservedAmount = i.reservedAmount + :quantity " +
+            "WHERE i.id = :id AND i.stockedAmount - i.reservedAmount >= :quantity")
+    int increaseReserved(@Param("id") Long id, @Param("quantity") int quantity);
+
+    @Modifying(flushAutomatically = true)
+    @Transactional
+    @Query("UPDATE InventoryItem i SET i.reservedAmount = i.reservedAmount - :quantity WHERE i.id = :id")
+    int decreaseReserved(@Param("id") Long id, @Param("quantity") int quantity);
+
+    /**
+     * Turns reserved stock into a withdrawal, the reserved and the stocked amount drop together.
+     *
+     * @return The number of updated rows, 0 when the item does not exist or its stock was set below the reservation
+     */
+    @Modifying(flushAutomatically = true)
+    @Transactional
+    @Query("UPDATE InventoryItem i SET i.stockedAmount = i.stockedAmount - :quantity, i.reservedAmount = i.reservedAmount - :quantity " +
+            "WHERE i.id = :id AND i.stockedAmount >= :quantity")
+    int takeReserved(@Param("id") Long id, @Param("quantity") int quantity);
+
     Optional<InventoryItem> findByProduct(Product product);
+
+    /**
+     * Loads and write-locks the items until the end of the transaction. The rows are locked in id order,
+     * so two transactions locking overlapping sets of items cannot deadlock each other.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i from InventoryItem i where i.id in :ids order by i.id")
+    List<InventoryItem> lockByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select i from InventoryItem i join fetch i.product where i.product.id in :productIds")
+    List<InventoryItem> findByProductIds(@Param("productIds") Collection<Long> productIds);
 }
@@ -2,17 +2,25 @@ package cz.syntaxbro.erpsystem.repositories;
 
 import cz.syntaxbro.erpsystem.models.Order;
 import cz.syntaxbro.erpsystem.models.Product;
+import cz.syntaxbro.erpsystem.responses.exports.OrderExportRow;
+import cz.syntaxbro.erpsystem.responses.exports.SalesLineExportRow;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order> {
 
     @Query("select distinct o from Order o join o.orderItems oi where oi.inventoryItem.product = :product")
     List<Order> findByProduct(@Param("product") Product product);
@@ -22,4 +30,86 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     void deleteByProduct(@Param("product") Product product);
 
     List<Order> findByStatus(Order.Status status);
+
+    /**
+     * IDs of the inventory items on the lines of the orders, without loading the orders or the items.
+     */
+    @Query("select distinct oi.inventoryItem.id from OrderItem oi where oi.order.id in :orderIds")
+    List<Long> findInventoryItemIds(@Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * Finds orders placed within the half-open window {@code [from, to)}, optionally narrowed
+     * by status and order type (a {@code null} filter matches everything).
+     * Backed by the {@code idx_orders_time_status_type} index, so the cost depends on the size
+     * of the window rather than on the size of the whole order history.
+     */
+    @Query("select distinct o from Order o left join fetch o.orderItems " +
+            "where o.orderTime >= :from and o.orderTime < :to " +
+            "and (:status is null or o.status = :status) " +
+            "and (:orderType is null or o.orderType = :orderType)")
+    List<Order> findInPeriod(@Param("from") LocalDateTime from,
+                             @Param("to") LocalDateTime to,
+                             @Param("status") Order.Status status,
+                             @Param("orderType") Order.OrderType orderType);
+
+    /**
+     * Counts orders placed within {@code [from, to)} with the given status and order type, answered from the
+     * {@code idx_orders_time_status_type} index alone.
+     */
+    @Query("select count(o) from Order o " +
+            "where o.orderTime >= :from and o.orderTime < :to and o.status = :status and o.orderType = :orderType")
+    long countInPeriod(@Param("from") LocalDateTime from,
+                       @Param("to") LocalDateTime to,
+                       @Param("status") Order.Status status,
+                       @Param("orderType") Order.OrderType orderType);
+
+    /**
+     * Counts orders placed within {@code [from, to)} with the given status and order type per day,
+     * one {@code [LocalDate, Long]} row per day with orders.
+     */
+    @Query("select cast(o.orderTime as LocalDate), count(o) from Order o " +
+            "where o.orderTime >= :from and o.orderTime < :to and o.status = :status and o.orderType = :orderType " +
+            "group by cast(o.orderTime as LocalDate)")
+    List<Object[]> countByDay(@Param("from") LocalDateTime from,
+                              @Param("to") LocalDateTime to,
+                              @Param("status") Order.Status status,
+                              @Param("orderType") Order.OrderType orderType);
+
+    /**
+     * Streams the orders placed within {@code [from, to)} as flat rows in order time order, optionally narrowed by
+     * status and order type (a {@code null} bound or filter matches everything). The line totals come from correlated
+     * subqueries and the approver from a join, so no row costs another round trip. Rows are fetched in chunks of the
+     * fetch size, the caller has to consume the stream inside a transaction and close it.
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new cz.syntaxbro.erpsystem.responses.exports.OrderExportRow(o.id, o.orderTime, o.orderType, o.status, o.cost, " +
+            "(select count(oi) from OrderItem oi where oi.order = o), " +
+            "(select coalesce(sum(oi.quantity), 0) from OrderItem oi where oi.order = o), " +
+            "u.username, o.decisionTime, o.comment) " +
+            "from Order o left join o.approvedBy u " +
+            "where (:from is null or o.orderTime >= :from) and (:to is null or o.orderTime < :to) " +
+            "and (:status is null or o.status = :status) " +
+            "and (:orderType is null or o.orderType = :orderType) " +
+            "order by o.orderTime, o.id")
+    Stream<OrderExportRow> streamExportRows(@Param("from") LocalDateTime from,
+                                            @Param("to") LocalDateTime to,
+                                            @Param("status") Order.Status status,
+                                            @Param("orderType") Order.OrderType orderType);
+
+    /**
+     * Streams the lines of the orders placed within {@code [from, to)} as flat rows with their order and product
+     * columns, in order time order, narrowed like {@link #streamExportRows}.
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new cz.syntaxbro.erpsystem.responses.exports.SalesLineExportRow(o.id, o.orderTime, o.orderType, p.id, " +
+            "p.name, oi.quantity, oi.unitPrice, p.buyoutPrice, p.purchasePrice) " +
+            "from OrderItem oi join oi.order o join oi.inventoryItem ii join ii.product p " +
+            "where (:from is null or o.orderTime >= :from) and (:to is null or o.orderTime < :to) " +
+            "and (:status is null or o.status = :status) " +
+            "and (:orderType is null or o.orderType = :orderType) " +
+            "order by o.orderTime, o.id, oi.id")
+    Stream<SalesLineExportRow> streamSalesLineRows(@Param("from") LocalDateTime from,
+                                                   @Param("to") LocalDateTime to,
+                                                   @Param("status") Order.Status status,
+                                                   @Param("orderType") Order.OrderType orderType);
 }
@@ -0,0 +1,83 @@
+package cz.syntaxbro.erpsystem.repositories;
+
+import cz.syntaxbro.erpsystem.models.Order;
+import cz.syntaxbro.erpsystem.models.OrderItem;
+import cz.syntaxbro.erpsystem.requests.OrderPageRequest;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filters for the order listing. Every specification with a {@code null} argument matches everything.
+ */
+public final class OrderSpecifications {
+
+    private OrderSpecifications() {
+    }
+
+    public static Specification<Order> matching(OrderPageRequest request) {
+        return Specification.allOf(
+                hasStatus(request.getStatus()),
+                hasOrderType(request.getOrderType()),
+                placedFrom(request.getStartDate() != null ? request.getStartDate().atStartOfDay() : null),
+                placedBefore(request.getEndDate() != null ? request.getEndDate().plusDays(1).atStartOfDay() : null),
+                approvedBy(request.getApprovedById()),
+                containsProduct(request.getProductId()));
+    }
+
+    public static Specification<Order> hasStatus(Order.Status status) {
+        return (root, query, cb) -> status == null ? null : cb.equal(root.get("status"), status);
+    }
+
+    public static Specification<Order> hasOrderType(Order.OrderType orderType) {
+        return (root, query, cb) -> orderType == null ? null : cb.equal(root.get("orderType"), orderType);
+    }
+
+    public static Specification<Order> placedFrom(LocalDateTime from) {
+        return (root, query, cb) -> from == null ? null : cb.greaterThanOrEqualTo(root.get("orderTime"), from);
+    }
+
+    public static Specification<Order> placedBefore(LocalDateTime to) {
+        return (root, query, cb) -> to == null ? null : cb.lessThan(root.get("orderTime"), to);
+    }
+
+    public static Specification<Order> approvedBy(Long userId) {
+        return (root, query, cb) -> userId == null ? null : cb.equal(root.get("approvedBy").get("id"), userId);
+    }
+
+    /**
+     * Orders with a line of the product, as an {@code exists} subquery so the orders are not multiplied by their lines.
+     */
+    public static Specification<Order> containsProduct(Long productId) {
+        return (root, query, cb) -> {
+            if (productId == null) {
+                return null;
+            }
+            Subquery<Long> lines = query.subquery(Long.class);
+            Root<OrderItem> item = lines.from(OrderItem.class);
+            lines.select(item.get("id")).where(
+                    cb.equal(item.get("order"), root),
+                    cb.equal(item.get("inventoryItem").get("product").get("id"), productId));
+            return cb.exists(lines);
+        };
+    }
+
+    /**
+     * Keyset condition for listings sorted by id descending: the orders after the last one of the previous page.
+     */
+    public static Specification<Order> idBefore(Long id) {
+        return (root, query, cb) -> id == null ? null : cb.lessThan(root.get("id"), id);
+    }
+
+    /**
+     * Keyset condition for listings sorted by order time and id descending, the id breaks ties between orders placed
+     * at the same time.
+     */
+    public static Specification<Order> placedBefore(LocalDateTime orderTime, Long id) {
+        return (root, query, cb) -> orderTime == null ? null : cb.or(
+                cb.lessThan(root.get("orderTime"), orderTime),
+                cb.and(cb.equal(root.get("orderTime"), orderTime), cb.lessThan(root.get("id"), id)));
+    }
+}
@@ -0,0 +1,38 @@
+package cz.syntaxbro.erpsystem.repositories;
+
+import cz.syntaxbro.erpsystem.models.OutboxMessage;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxRepository extends JpaRepository<OutboxMessage, Long> {
+
+    /**
+     * Locks the oldest messages that are not dead-lettered and not leased, or whose lease expired. Rows locked by
+     * another relay are skipped ({@code FOR UPDATE SKIP LOCKED} where the database supports it), so several nodes
+     * can lease disjoint batches at the same time.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select o from OutboxMessage o where o.deadLetteredAt is null and (o.leasedUntil is null or o.leasedUntil < :now) order by o.id")
+    List<OutboxMessage> findLeasable(@Param("now") LocalDateTime now, Limit limit);
+
+    /**
+     * The messages of the given aggregates below the given ID that are not dead-lettered, leased or not, without locking them.
+     */
+    @Query("select o from OutboxMessage o where o.deadLetteredAt is null and o.aggregateId in :aggregateIds and o.id < :toId")
+    List<OutboxMessage> findPending(@Param("aggregateIds") Collection<Long> aggregateIds, @Param("toId") Long toId);
+
+    /**
+     * Deletes delivered messages, unless their lease expired and another relay took them over in the meantime.
+     */
+    @Modifying
+    @Query("delete from OutboxMessage o where o.id in :ids and o.leaseOwner = :owner")
+    int deleteLeased(@Param("ids") Collection<Long> ids, @Param("owner") String owner);
+}
@@ -0,0 +1,40 @@
+package cz.syntaxbro.erpsystem.repositories;
+
+import cz.syntaxbro.erpsystem.models.RefreshToken;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    /**
+     * Write-locks the token, so two renewals with the same token cannot both rotate it.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select t from RefreshToken t where t.tokenId = :tokenId")
+    Optional<RefreshToken> lockByTokenId(@Param("tokenId") String tokenId);
+
+    boolean existsByFamilyIdAndStatus(String familyId, RefreshToken.Status status);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update RefreshToken t set t.status = cz.syntaxbro.erpsystem.models.RefreshToken.Status.REVOKED where t.familyId = :familyId")
+    int revokeFamily(@Param("familyId") String familyId);
+
+    /**
+     * Families revoked while some of their tokens are still unexpired, older ones cannot be used anyway.
+     */
+    @Query("select distinct t.familyId from RefreshToken t " +
+            "where t.status = cz.syntaxbro.erpsystem.models.RefreshToken.Status.REVOKED and t.expiresAt > :now")
+    List<String> findRevokedFamilyIds(@Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("delete from RefreshToken t where t.expiresAt < :before")
+    int deleteExpired(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,78 @@
+package cz.syntaxbro.erpsystem.repositories;
+
+import cz.syntaxbro.erpsystem.models.StockMovement;
+import cz.syntaxbro.erpsystem.responses.reports.ProductPurchaseReportDTO;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+
+    /**
+     * Sums the movements of the item that occurred within {@code (after, upTo]}, reads only that tail through the (item, time) index.
+     */
+    @Query("select coalesce(sum(m.delta), 0) from StockMovement m " +
+            "where m.inventoryItemId = :itemId and m.occurredAt > :after and m.occurredAt <= :upTo")
+    double sumDeltas(@Param("itemId") Long itemId, @Param("after") LocalDateTime after, @Param("upTo") LocalDateTime upTo);
+
+    /**
+     * Movements of the item within {@code (after, upTo]}, oldest first.
+     */
+    @Query("select m from StockMovement m " +
+            "where m.inventoryItemId = :itemId and m.occurredAt > :after and m.occurredAt <= :upTo " +
+            "order by m.occurredAt, m.id")
+    List<StockMovement> findMovements(@Param("itemId") Long itemId, @Param("after") LocalDateTime after,
+                                      @Param("upTo") LocalDateTime upTo, Limit limit);
+
+    /**
+     * IDs of the items with movements within {@code (after, upTo]}, in ID order.
+     */
+    @Query("select distinct m.inventoryItemId from StockMovement m " +
+            "where m.occurredAt > :after and m.occurredAt <= :upTo " +
+            "order by m.inventoryItemId")
+    List<Long> findMovedItemIds(@Param("after") LocalDateTime after, @Param("upTo") LocalDateTime upTo);
+
+    /**
+     * Sums the movements of every item since its latest snapshot taken up to {@code upTo}, or since {@code since} when it has none.
+     * One {@code [Long itemId, Double delta]} row per item with movements.
+     */
+    @Query("select m.inventoryItemId, sum(m.delta) from StockMovement m " +
+            "where m.inventoryItemId in :itemIds and m.occurredAt <= :upTo and m.occurredAt > coalesce(" +
+            "(select max(s.takenAt) from StockSnapshot s where s.inventoryItemId = m.inventoryItemId and s.takenAt <= :upTo), :since) " +
+            "group by m.inventoryItemId")
+    List<Object[]> sumSinceLatestSnapshot(@Param("itemIds") Collection<Long> itemIds,
+                                          @Param("upTo") LocalDateTime upTo,
+                                          @Param("since") LocalDateTime since);
+
+    /**
+     * IDs of the inventory items without any movement, i.e. items whose stock predates the ledger.
+     */
+    @Query("select i.id from InventoryItem i " +
+            "where not exists (select m.id from StockMovement m where m.inventoryItemId = i.id) " +
+            "order by i.id")
+    List<Long> findItemIdsWithoutMovements();
+
+    @Query("select distinct m.inventoryItemId from StockMovement m where m.inventoryItemId in :itemIds")
+    List<Long> findItemIdsWithMovements(@Param("itemIds") Collection<Long> itemIds);
+
+    /**
+     * Aggregates the movements of the given reason per product for the time window {@code [from, to)}, ordered by
+     * quantity. Counts the distinct orders behind the movements, the page limits the number of returned rows.
+     */
+    @Query("select new cz.syntaxbro.erpsystem.responses.reports.ProductPurchaseReportDTO(" +
+            "p.id, p.name, p.description, sum(m.delta), count(distinct m.orderId), p.purchasePrice) " +
+            "from StockMovement m join InventoryItem i on i.id = m.inventoryItemId join i.product p " +
+            "where m.reason = :reason and m.occurredAt >= :from and m.occurredAt < :to " +
+            "group by p.id, p.name, p.description, p.purchasePrice " +
+            "order by sum(m.delta) desc")
+    List<ProductPurchaseReportDTO> findProductMovements(@Param("from") LocalDateTime from,
+                                                        @Param("to") LocalDateTime to,
+                                                        @Param("reason") StockMovement.Reason reason,
+                                                        Pageable pageable);
+}
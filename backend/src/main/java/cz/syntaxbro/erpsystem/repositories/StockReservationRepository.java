@@ -0,0 +1,39 @@
+package cz.syntaxbro.erpsystem.repositories;
+
+import cz.syntaxbro.erpsystem.models.StockReservation;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    /**
+     * Write-locks the reservations of the orders. Reservations are always locked before their inventory items,
+     * by the order decisions as well as by the sweeper, so the two cannot deadlock.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from StockReservation r where r.orderId in :orderIds order by r.id")
+    List<StockReservation> lockByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * Locks the oldest expired reservations, skipping those locked by a running order decision or another sweeper.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select r from StockReservation r where r.expiresAt < :now order by r.expiresAt, r.id")
+    List<StockReservation> lockExpired(@Param("now") LocalDateTime now, Limit limit);
+
+    @Modifying
+    @Query("delete from StockReservation r where r.orderId in :orderIds")
+    int deleteByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+}
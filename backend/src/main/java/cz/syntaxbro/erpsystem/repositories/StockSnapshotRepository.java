@@ -0,0 +1,26 @@
+package cz.syntaxbro.erpsystem.repositories;
+
+import cz.syntaxbro.erpsystem.models.StockSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface StockSnapshotRepository extends JpaRepository<StockSnapshot, Long> {
+
+    Optional<StockSnapshot> findFirstByInventoryItemIdAndTakenAtLessThanEqualOrderByTakenAtDesc(Long inventoryItemId, LocalDateTime at);
+
+    /**
+     * The latest snapshot taken up to {@code at} of each of the items, items without one are missing.
+     */
+    @Query("select s from StockSnapshot s where s.inventoryItemId in :itemIds and s.takenAt = " +
+            "(select max(l.takenAt) from StockSnapshot l where l.inventoryItemId = s.inventoryItemId and l.takenAt <= :at)")
+    List<StockSnapshot> findLatest(@Param("itemIds") Collection<Long> itemIds, @Param("at") LocalDateTime at);
+
+    @Query("select max(s.takenAt) from StockSnapshot s")
+    Optional<LocalDateTime> findLastTakenAt();
+}
@@ -0,0 +1,25 @@
+package cz.syntaxbro.erpsystem.requests;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BulkOrderRequest {
+
+    @NotEmpty(message = "Order IDs cannot be empty")
+    @Size(max = 1000, message = "At most 1000 orders can be processed at once")
+    private List<@NotNull Long> orderIds;
+
+    @Size(max = 500)
+    private String comment;
+}
@@ -0,0 +1,44 @@
+package cz.syntaxbro.erpsystem.requests;
+
+import cz.syntaxbro.erpsystem.models.Order;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * One page of the order listing: the filters (a {@code null} filter matches everything), the sort key
+ * and the cursor returned with the previous page.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class OrderPageRequest {
+
+    public enum Sort {
+        ID, ORDER_TIME
+    }
+
+    private Order.Status status;
+
+    private Order.OrderType orderType;
+
+    private LocalDate startDate;
+
+    private LocalDate endDate;
+
+    private Long approvedById;
+
+    private Long productId;
+
+    @Builder.Default
+    private Sort sort = Sort.ORDER_TIME;
+
+    private String cursor;
+
+    @Builder.Default
+    private int limit = 50;
+}
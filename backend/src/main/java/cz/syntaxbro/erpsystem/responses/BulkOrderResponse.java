@@ -0,0 +1,40 @@
+package cz.syntaxbro.erpsystem.responses;
+
+import cz.syntaxbro.erpsystem.models.Order;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOrderResponse {
+
+    private int succeeded;
+
+    private int failed;
+
+    // One result per requested order, in the order of the request
+    private List<Result> results;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Result {
+
+        private Long orderId;
+
+        private boolean success;
+
+        // Status of the order after the operation, null when it does not exist
+        private Order.Status status;
+
+        // Why the order was skipped, null on success
+        private String message;
+    }
+}
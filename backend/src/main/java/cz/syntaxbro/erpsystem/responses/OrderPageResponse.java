@@ -0,0 +1,20 @@
+package cz.syntaxbro.erpsystem.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderPageResponse {
+
+    private List<OrderResponse> orders;
+
+    // Pass back as the cursor to get the next page, null on the last page
+    private String nextCursor;
+}
@@ -0,0 +1,36 @@
+package cz.syntaxbro.erpsystem.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAsOfResponse {
+
+    private LocalDateTime asOf;
+
+    // Items that had stock movements up to the time, in ID order
+    private List<Item> items;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+
+        private Long itemId;
+
+        private Long productId;
+
+        private String productName;
+
+        private double stockedAmount;
+    }
+}
@@ -0,0 +1,54 @@
+package cz.syntaxbro.erpsystem.responses;
+
+import cz.syntaxbro.erpsystem.models.StockMovement;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockHistoryResponse {
+
+    private Long itemId;
+
+    private LocalDateTime from;
+
+    private LocalDateTime to;
+
+    // Stock at the start of the window
+    private double openingAmount;
+
+    // Stock at the end of the window, also when the movements were truncated
+    private double closingAmount;
+
+    // Movements within the window, oldest first
+    private List<Movement> movements;
+
+    // Whether the window had more movements than returned, ask for a shorter one to see them all
+    private boolean truncated;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Movement {
+
+        private LocalDateTime occurredAt;
+
+        private double delta;
+
+        private StockMovement.Reason reason;
+
+        // The order that moved the stock, null outside of an order
+        private Long orderId;
+
+        // Stock right after the movement
+        private double balance;
+    }
+}
@@ -0,0 +1,16 @@
+package cz.syntaxbro.erpsystem.responses.exports;
+
+import cz.syntaxbro.erpsystem.models.Order;
+
+import java.time.LocalDateTime;
+
+/**
+ * One exported order, read as a flat row so streaming an export does not load the order lines and users.
+ *
+ * @param items The number of lines of the order
+ * @param quantity The quantity of all lines of the order
+ * @param approvedBy The username of the user who decided the order, null while pending
+ */
+public record OrderExportRow(Long id, LocalDateTime orderTime, Order.OrderType orderType, Order.Status status, double cost,
+                             Long items, Long quantity, String approvedBy, LocalDateTime decisionTime, String comment) {
+}
@@ -0,0 +1,25 @@
+package cz.syntaxbro.erpsystem.responses.exports;
+
+import cz.syntaxbro.erpsystem.models.Money;
+import cz.syntaxbro.erpsystem.models.Order;
+
+import java.time.LocalDateTime;
+
+/**
+ * One exported order line with its order and product columns, read as a flat row.
+ *
+ * @param unitPrice The unit price the line was confirmed with, null for lines confirmed before it was kept
+ */
+public record SalesLineExportRow(Long orderId, LocalDateTime orderTime, Order.OrderType orderType, Long productId,
+                                 String productName, int quantity, Money unitPrice, double buyoutPrice, double purchasePrice) {
+
+    /**
+     * The confirmed unit price, the current price of the product for lines without one.
+     */
+    public Money effectiveUnitPrice() {
+        if (unitPrice != null) {
+            return unitPrice;
+        }
+        return Money.of(orderType == Order.OrderType.SELL ? buyoutPrice : purchasePrice);
+    }
+}
@@ -0,0 +1,35 @@
+package cz.syntaxbro.erpsystem.responses.reports;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data Transfer Object combining all reports of one period, with the time each section took to compute.
+ */
+@Setter
+@Getter
+@ToString
+public class DashboardReportDTO {
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private SalesReportDTO sales;
+    private List<ProductSalesReportDTO> bestSellingProducts;
+    private List<ProductPurchaseReportDTO> mostPurchasedProducts;
+    private List<OrderApprovalReportDTO> orderApprovals;
+    private Map<String, Long> sectionTimingsMillis = new LinkedHashMap<>();
+    private long totalTimeMillis;
+
+    public DashboardReportDTO() {
+    }
+
+    public DashboardReportDTO(LocalDate startDate, LocalDate endDate) {
+        this.startDate = startDate;
+        this.endDate = endDate;
+    }
+}
@@ -1,10 +1,12 @@
 package cz.syntaxbro.erpsystem.responses.reports;
 
+import cz.syntaxbro.erpsystem.models.Money;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 
 /**
  * Data Transfer Object for product purchase report information.
@@ -36,4 +38,20 @@ public class ProductPurchaseReportDTO {
         this.purchaseCount = purchaseCount;
     }
 
+    /**
+     * Used by the aggregation query in {@code StockMovementRepository}, the cost is the quantity at the purchase price.
+     */
+    public ProductPurchaseReportDTO(Long productId, String productName, String productCode,
+                                    Double quantityPurchased, Long purchaseCount, Double purchasePrice) {
+        this.productId = productId;
+        this.productName = productName;
+        this.productCode = productCode;
+        this.quantityPurchased = quantityPurchased.intValue();
+        this.totalCost = Money.ofMinor(Money.minorOf(purchasePrice * quantityPurchased)).toBigDecimal();
+        this.averagePurchasePrice = quantityPurchased > 0
+                ? totalCost.divide(BigDecimal.valueOf(quantityPurchased), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
+        this.purchaseCount = purchaseCount.intValue();
+    }
+
 }
\ No newline at end of file
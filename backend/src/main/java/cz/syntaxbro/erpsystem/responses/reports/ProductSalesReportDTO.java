@@ -1,5 +1,6 @@
 package cz.syntaxbro.erpsystem.responses.reports;
 
+import cz.syntaxbro.erpsystem.models.Money;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
@@ -36,4 +37,18 @@ public class ProductSalesReportDTO {
         this.percentageOfTotalSales = percentageOfTotalSales;
     }
 
+    /**
+     * Used by the aggregation query in {@code DailySalesRollupRepository}, the percentage is filled in by the service.
+     */
+    public ProductSalesReportDTO(Long productId, String productName, String productCode,
+                                 Long quantitySold, Long totalRevenueMinor, Double unitPrice) {
+        this.productId = productId;
+        this.productName = productName;
+        this.productCode = productCode;
+        this.quantitySold = quantitySold.intValue();
+        this.totalRevenue = Money.ofMinor(totalRevenueMinor).toBigDecimal();
+        this.unitPrice = BigDecimal.valueOf(unitPrice);
+        this.percentageOfTotalSales = BigDecimal.ZERO;
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,65 @@
+package cz.syntaxbro.erpsystem.responses.reports;
+
+import cz.syntaxbro.erpsystem.models.Order;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Transfer Object for sales over time, one point per day, week or month of the report period.
+ */
+@Setter
+@Getter
+@ToString
+public class SalesSeriesReportDTO {
+
+    public enum Bucket {
+        DAY, WEEK, MONTH
+    }
+
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Order.OrderType orderType;
+    private Bucket bucket;
+    private List<Point> points = new ArrayList<>();
+
+    public SalesSeriesReportDTO() {
+    }
+
+    public SalesSeriesReportDTO(LocalDate startDate, LocalDate endDate, Order.OrderType orderType, Bucket bucket) {
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.orderType = orderType;
+        this.bucket = bucket;
+    }
+
+    /**
+     * Sales of one bucket, the first and the last bucket are cut to the report period.
+     */
+    @Setter
+    @Getter
+    @ToString
+    public static class Point {
+        private LocalDate bucketStart;
+        private LocalDate bucketEnd;
+        private BigDecimal totalSales;
+        private int orderCount;
+        private BigDecimal averageOrderValue;
+
+        public Point() {
+        }
+
+        public Point(LocalDate bucketStart, LocalDate bucketEnd, BigDecimal totalSales, int orderCount, BigDecimal averageOrderValue) {
+            this.bucketStart = bucketStart;
+            this.bucketEnd = bucketEnd;
+            this.totalSales = totalSales;
+            this.orderCount = orderCount;
+            this.averageOrderValue = averageOrderValue;
+        }
+    }
+}
@@ -1,6 +1,12 @@
 package cz.syntaxbro.erpsystem.security;
 
+import cz.syntaxbro.erpsystem.security.services.CustomUserDetails;
+import cz.syntaxbro.erpsystem.security.services.PrincipalCache;
+import cz.syntaxbro.erpsystem.security.services.SecurityStamps;
+import cz.syntaxbro.erpsystem.services.RefreshTokenService;
 import cz.syntaxbro.erpsystem.utils.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -10,7 +16,6 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -20,22 +25,41 @@ import java.io.IOException;
 public class JwtFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
-    private final UserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
+    private final SecurityStamps securityStamps;
+    private final RefreshTokenService refreshTokenService;
 
     @Autowired
-    public JwtFilter(JwtUtil jwtUtil, UserDetailsService userDetailsService) {
+    public JwtFilter(JwtUtil jwtUtil, PrincipalCache principalCache, SecurityStamps securityStamps,
+                     RefreshTokenService refreshTokenService) {
         this.jwtUtil = jwtUtil;
-        this.userDetailsService = userDetailsService;
+        this.principalCache = principalCache;
+        this.securityStamps = securityStamps;
+        this.refreshTokenService = refreshTokenService;
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         final String token = getTokenFromRequest(request);
 
-        if (token != null && jwtUtil.validateToken(token, userDetailsService.loadUserByUsername(jwtUtil.extractUsername(token)))) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(jwtUtil.extractUsername(token));
-            Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-            SecurityContextHolder.getContext().setAuthentication(authentication);
+        if (token != null) {
+            try {
+                // One parse verifies the signature and the expiration, the authorities come from the verified claims
+                Claims claims = jwtUtil.parseClaims(token);
+                String username = claims.getSubject();
+                // A logout or a refresh token reuse revokes the access tokens of the family too
+                String familyId = JwtUtil.extractFamily(claims);
+                if (securityStamps.isCurrent(username, JwtUtil.extractStamp(claims))
+                        && (familyId == null || !refreshTokenService.isRevoked(familyId))) {
+                    UserDetails userDetails = new CustomUserDetails(username, JwtUtil.extractAuthorities(claims),
+                            () -> ((CustomUserDetails) principalCache.get(username)).getUser());
+                    Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                }
+            } catch (JwtException e) {
+                // Invalid or expired token, the request continues unauthenticated
+                logger.debug("JWT authentication failed: " + e.getMessage());
+            }
         }
         filterChain.doFilter(request, response);
     }
@@ -0,0 +1,22 @@
+package cz.syntaxbro.erpsystem.security;
+
+/**
+ * Slow, salted password hash used by {@link PasswordSecurity}. The encoded form carries everything needed to verify
+ * it, including the work factor, so the work factor can be raised without invalidating stored hashes.
+ */
+public interface PasswordHasher {
+
+    String hash(CharSequence rawPassword);
+
+    boolean verify(CharSequence rawPassword, String encodedPassword);
+
+    /**
+     * Whether the encoded password was produced by this hasher, possibly with another work factor.
+     */
+    boolean supports(String encodedPassword);
+
+    /**
+     * Whether the encoded password is markedly weaker than what this hasher produces now.
+     */
+    boolean needsRehash(String encodedPassword);
+}
@@ -0,0 +1,119 @@
+package cz.syntaxbro.erpsystem.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs the password hashing on a few dedicated threads in front of a bounded queue. The hashing is deliberately
+ * CPU-heavy, so it runs on no more threads than there are processors however many logins come in.
+ * <p>
+ * The request thread of a login waits for its hash, so every queued login holds a request thread. The queue is
+ * therefore kept well below the request threads (a quarter of {@code server.tomcat.threads.max} unless configured),
+ * a login storm holds at most that many of them and further logins are rejected with 503 right away. A login that
+ * waited longer than the maximum wait is given up with 503 as well. The queue size, rejections, timeouts, time spent
+ * in the queue and the hashing time are published as the {@code security.password.hashing.*} metrics.
+ */
+@Component
+public class PasswordHashingExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final MeterRegistry meterRegistry;
+    private final Duration maxWait;
+    private final Counter rejected;
+    private final Counter timedOut;
+    private final Timer queueWait;
+
+    @Autowired
+    public PasswordHashingExecutor(MeterRegistry meterRegistry,
+                                   @Value("${security.password.hashing.threads:0}") int threads,
+                                   @Value("${security.password.hashing.queue-capacity:0}") int queueCapacity,
+                                   @Value("${security.password.hashing.max-wait:PT2S}") Duration maxWait,
+                                   @Value("${server.tomcat.threads.max:200}") int requestThreads) {
+        // 0 means a quarter of the request threads, the others stay free for requests that do not hash
+        this(meterRegistry, threads, queueCapacity > 0 ? queueCapacity : Math.max(1, requestThreads / 4), maxWait);
+    }
+
+    public PasswordHashingExecutor(MeterRegistry meterRegistry, int threads, int queueCapacity, Duration maxWait) {
+        this.meterRegistry = meterRegistry;
+        this.maxWait = maxWait;
+        this.rejected = Counter.builder("security.password.hashing.rejected").register(meterRegistry);
+        this.timedOut = Counter.builder("security.password.hashing.timed_out").register(meterRegistry);
+        this.queueWait = Timer.builder("security.password.hashing.queue.wait").register(meterRegistry);
+
+        // 0 threads means one per processor, more would only make the hashes slower
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("security.password.hashing.queue.size", executor, e -> e.getQueue().size()).register(meterRegistry);
+    }
+
+    /**
+     * Runs the hashing work on the executor and waits for its result, at most the maximum wait.
+     *
+     * @param operation Tags the {@code security.password.hashing.duration} metric, e.g. hash or verify
+     * @throws ResponseStatusException 503 when the queue is full or the result did not come in time
+     */
+    public <T> T run(String operation, Supplier<T> work) {
+        Timer duration = Timer.builder("security.password.hashing.duration").tag("operation", operation).register(meterRegistry);
+        long queuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                queueWait.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                return duration.record(work);
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many concurrent logins, try again later");
+        }
+
+        try {
+            return future.get(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // Frees the place in the queue if the work has not started yet
+            future.cancel(true);
+            executor.remove((Runnable) future);
+            timedOut.increment();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many concurrent logins, try again later");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Error hashing password", e.getCause());
+        }
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -1,5 +1,6 @@
 package cz.syntaxbro.erpsystem.security;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
@@ -9,26 +10,42 @@ import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
 import java.util.regex.Pattern;
 
+/**
+ * Hashes passwords with the configured {@link PasswordHasher} on the {@link PasswordHashingExecutor}. Passwords
+ * stored before, as a plain unsalted SHA-256, are still verified and are reported by {@link #upgradeEncoding(String)}
+ * so they can be rehashed on the next successful login.
+ */
 @Component
 public class PasswordSecurity implements PasswordEncoder {
 
+    private final PasswordHasher hasher;
+    private final PasswordHashingExecutor executor;
+
+    @Autowired
+    public PasswordSecurity(PasswordHasher hasher, PasswordHashingExecutor executor) {
+        this.hasher = hasher;
+        this.executor = executor;
+    }
+
     @Override
     public String encode(CharSequence password) {
-        try {
-            String rawPassword = password.toString();
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(rawPassword.getBytes(StandardCharsets.UTF_8));
+        return executor.run("hash", () -> hasher.hash(password));
+    }
 
-            return Base64.getEncoder().encodeToString(hash);
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("Error hashing password", e);
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        if (rawPassword == null || encodedPassword == null) {
+            return false;
         }
+        if (hasher.supports(encodedPassword)) {
+            return executor.run("verify", () -> hasher.verify(rawPassword, encodedPassword));
+        }
+        return matchesLegacy(rawPassword, encodedPassword);
     }
 
     @Override
-    public boolean matches(CharSequence rawPassword, String encodedPassword) {
-        String receivedHash = this.encode(rawPassword.toString());
-        return encodedPassword.equals(receivedHash);
+    public boolean upgradeEncoding(String encodedPassword) {
+        return encodedPassword != null && (!hasher.supports(encodedPassword) || hasher.needsRehash(encodedPassword));
     }
 
     // Password validation (at least 1 uppercase, 1 number, 1 special char, 10-32 characters)
@@ -37,5 +54,14 @@ public class PasswordSecurity implements PasswordEncoder {
         return Pattern.matches(passwordPattern, password);
     }
 
-
-}
\ No newline at end of file
+    // Unsalted SHA-256 of the first versions, cheap enough to verify on the request thread
+    private static boolean matchesLegacy(CharSequence rawPassword, String encodedPassword) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(rawPassword.toString().getBytes(StandardCharsets.UTF_8));
+            return MessageDigest.isEqual(Base64.getEncoder().encodeToString(hash).getBytes(StandardCharsets.UTF_8),
+                    encodedPassword.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Error hashing password", e);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package cz.syntaxbro.erpsystem.security;
+
+import cz.syntaxbro.erpsystem.ErpSystemApplication;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * PBKDF2 with HMAC-SHA256 and a random 16-byte salt, encoded as {@code $pbkdf2-sha256$<iterations>$<salt>$<hash>}.
+ * The iteration count is calibrated on startup so one hash takes about the target duration on this machine,
+ * but never less than the configured minimum.
+ */
+@Component
+public class Pbkdf2PasswordHasher implements PasswordHasher {
+
+    static final String PREFIX = "$pbkdf2-sha256$";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final int MAX_ITERATIONS = 10_000_000;
+    private static final int PROBE_ITERATIONS = 10_000;
+
+    private final SecureRandom random = new SecureRandom();
+    private final int iterations;
+
+    @Autowired
+    public Pbkdf2PasswordHasher(@Value("${security.password.pbkdf2.target-duration:PT0.1S}") Duration target,
+                                @Value("${security.password.pbkdf2.min-iterations:100000}") int minIterations) {
+        this(calibrate(target, minIterations));
+        ErpSystemApplication.getLogger().info("PBKDF2 password hashing calibrated to {} iterations for {} ms per hash",
+                iterations, target.toMillis());
+    }
+
+    Pbkdf2PasswordHasher(int iterations) {
+        this.iterations = iterations;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    @Override
+    public String hash(CharSequence rawPassword) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        Base64.Encoder base64 = Base64.getEncoder().withoutPadding();
+        return PREFIX + iterations + "$" + base64.encodeToString(salt) + "$"
+                + base64.encodeToString(derive(rawPassword, salt, iterations));
+    }
+
+    @Override
+    public boolean verify(CharSequence rawPassword, String encodedPassword) {
+        String[] parts = split(encodedPassword);
+        if (parts == null) {
+            return false;
+        }
+        Base64.Decoder base64 = Base64.getDecoder();
+        try {
+            byte[] expected = base64.decode(parts[2]);
+            return MessageDigest.isEqual(expected, derive(rawPassword, base64.decode(parts[1]), Integer.parseInt(parts[0])));
+        } catch (IllegalArgumentException e) {
+            // Corrupted salt or hash
+            return false;
+        }
+    }
+
+    @Override
+    public boolean supports(String encodedPassword) {
+        return split(encodedPassword) != null;
+    }
+
+    @Override
+    public boolean needsRehash(String encodedPassword) {
+        String[] parts = split(encodedPassword);
+        // Calibration varies a little between starts, only a markedly lower count is worth a rehash
+        return parts == null || Integer.parseInt(parts[0]) < iterations / 4 * 3;
+    }
+
+    // Iterations, salt and hash, or null when not this format
+    private static String[] split(String encodedPassword) {
+        if (encodedPassword == null || !encodedPassword.startsWith(PREFIX)) {
+            return null;
+        }
+        String[] parts = encodedPassword.substring(PREFIX.length()).split("\\$");
+        if (parts.length != 3 || parts[0].isEmpty() || parts[0].length() > 9 || !parts[0].chars().allMatch(Character::isDigit)) {
+            return null;
+        }
+        return parts;
+    }
+
+    private static byte[] derive(CharSequence rawPassword, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(rawPassword.toString().toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Error hashing password", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    private static int calibrate(Duration target, int minIterations) {
+        byte[] salt = new byte[SALT_BYTES];
+        long fastest = Long.MAX_VALUE;
+        // The first runs are slower until the JIT kicks in, the fastest run is the closest to the steady state
+        for (int i = 0; i < 5; i++) {
+            long started = System.nanoTime();
+            derive("calibration", salt, PROBE_ITERATIONS);
+            fastest = Math.min(fastest, System.nanoTime() - started);
+        }
+        long scaled = PROBE_ITERATIONS * target.toNanos() / Math.max(fastest, 1);
+        return (int) Math.max(minIterations, Math.min(MAX_ITERATIONS, scaled / 1000 * 1000));
+    }
+}
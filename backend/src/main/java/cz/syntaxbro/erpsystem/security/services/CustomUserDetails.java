@@ -1,25 +1,53 @@
 package cz.syntaxbro.erpsystem.security.services;
 
 import cz.syntaxbro.erpsystem.models.User;
-import lombok.Getter;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
-@Getter
 public class CustomUserDetails implements UserDetails {
 
-    private final User user;
+    private final String username;
+    private final Collection<? extends GrantedAuthority> authorities;
+    private final Supplier<User> userLoader;
+    private volatile User user;
 
     public CustomUserDetails(User user) {
+        this.username = user.getEmail();
+        this.authorities = null;
+        this.userLoader = null;
         this.user = user;
     }
 
+    /**
+     * Principal of a verified access token. The authorities come from the token claims and the user entity is
+     * loaded only when something asks for it, so authorizing a request needs no query.
+     */
+    public CustomUserDetails(String username, Collection<? extends GrantedAuthority> authorities, Supplier<User> userLoader) {
+        this.username = username;
+        this.authorities = List.copyOf(authorities);
+        this.userLoader = userLoader;
+    }
+
+    public User getUser() {
+        User loaded = user;
+        if (loaded == null) {
+            loaded = userLoader.get();
+            user = loaded;
+        }
+        return loaded;
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
+        if (authorities != null) {
+            return authorities;
+        }
         return user.getRoles().stream()
                 .map(role -> new SimpleGrantedAuthority(role.getName()))
                 .collect(Collectors.toSet());
@@ -27,17 +55,18 @@ public class CustomUserDetails implements UserDetails {
 
     @Override
     public String getPassword() {
-        return user.getPassword();
+        return getUser().getPassword();
     }
 
     @Override
     public String getUsername() {
-        return user.getEmail();
+        return username;
     }
 
     @Override
     public boolean isEnabled() {
-        return user.isActive();
+        // A token of a deactivated user is revoked by its security stamp, it never gets this far
+        return authorities != null || user.isActive();
     }
 
     // unimplemented
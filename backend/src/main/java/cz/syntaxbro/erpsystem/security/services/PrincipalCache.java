@@ -0,0 +1,92 @@
+package cz.syntaxbro.erpsystem.security.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache with a short time-to-live of the users behind access tokens, keyed by the token subject.
+ * Authenticated requests of an active user then do not query the database at all. A change of the user
+ * (roles, deactivation) reaches the requests once the entry expires or is invalidated.
+ * Hits and misses are published as the {@code auth.principals.requests} metric.
+ */
+@Component
+public class PrincipalCache {
+
+    private record Entry(UserDetails user, long expiresAt) {
+    }
+
+    private final UserDetailsService userDetailsService;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Clock clock;
+    private final Map<String, Entry> entries;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    @Autowired
+    public PrincipalCache(UserDetailsService userDetailsService, MeterRegistry meterRegistry,
+                          @Value("${security.principal-cache.max-size:10000}") int maxSize,
+                          @Value("${security.principal-cache.ttl:PT30S}") Duration ttl) {
+        this(userDetailsService, meterRegistry, maxSize, ttl, Clock.systemUTC());
+    }
+
+    PrincipalCache(UserDetailsService userDetailsService, MeterRegistry meterRegistry, int maxSize, Duration ttl, Clock clock) {
+        this.userDetailsService = userDetailsService;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > PrincipalCache.this.maxSize;
+            }
+        };
+
+        this.hits = Counter.builder("auth.principals.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("auth.principals.requests").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("auth.principals.size", this, PrincipalCache::size).register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached user, or loads it and caches it.
+     *
+     * @throws org.springframework.security.core.userdetails.UsernameNotFoundException when the user does not exist
+     */
+    public UserDetails get(String username) {
+        synchronized (this) {
+            Entry entry = entries.get(username);
+            if (entry != null && entry.expiresAt() > clock.millis()) {
+                hits.increment();
+                return entry.user();
+            }
+            misses.increment();
+        }
+
+        // Loaded outside the lock, a slow query must not block the requests of other users
+        UserDetails user = userDetailsService.loadUserByUsername(username);
+        synchronized (this) {
+            entries.put(username, new Entry(user, clock.millis() + ttlMillis));
+        }
+        return user;
+    }
+
+    public synchronized void invalidate(String username) {
+        entries.remove(username);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,86 @@
+package cz.syntaxbro.erpsystem.security.services;
+
+import cz.syntaxbro.erpsystem.utils.BloomFilter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * In-memory bloom filter of the revoked refresh token families, checked on every request with an access token.
+ * A negative answer is exact and needs no database, a positive one has to be confirmed against the store.
+ * The filter only grows, it is rebuilt from the store on startup and periodically, which also drops the families
+ * that have expired since. Until the first rebuild it knows none of the families revoked before startup,
+ * see {@link #isLoaded()}.
+ */
+@Component
+public class RevokedFamilies {
+
+    private final int expectedRevocations;
+    private final double falsePositiveProbability;
+
+    private volatile BloomFilter filter;
+    // Families revoked while a rebuild is running, the rebuilt filter may have been read before they were stored
+    private Set<String> revokedDuringRebuild;
+    private volatile boolean loaded;
+
+    @Autowired
+    public RevokedFamilies(@Value("${security.refresh-tokens.bloom.expected-revocations:100000}") int expectedRevocations,
+                           @Value("${security.refresh-tokens.bloom.fpp:0.01}") double falsePositiveProbability) {
+        this.expectedRevocations = expectedRevocations;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.filter = new BloomFilter(expectedRevocations, falsePositiveProbability);
+    }
+
+    /**
+     * Whether the filter has been built from the store. Before that a negative answer proves nothing.
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public boolean mightContain(String familyId) {
+        return filter.mightContain(familyId);
+    }
+
+    public synchronized void add(String familyId) {
+        filter.put(familyId);
+        if (revokedDuringRebuild != null) {
+            revokedDuringRebuild.add(familyId);
+        }
+    }
+
+    /**
+     * Starts a rebuild, families added from now on are carried over to the rebuilt filter.
+     * The revoked families have to be read from the store after this call.
+     */
+    public synchronized void beginRebuild() {
+        revokedDuringRebuild = new HashSet<>();
+    }
+
+    /**
+     * Keeps the current filter after the revoked families could not be read.
+     */
+    public synchronized void cancelRebuild() {
+        revokedDuringRebuild = null;
+    }
+
+    /**
+     * Replaces the filter with one of the given families and the families added since {@link #beginRebuild()}.
+     */
+    public void completeRebuild(Collection<String> familyIds) {
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedRevocations, familyIds.size()), falsePositiveProbability);
+        familyIds.forEach(rebuilt::put);
+        synchronized (this) {
+            if (revokedDuringRebuild != null) {
+                revokedDuringRebuild.forEach(rebuilt::put);
+                revokedDuringRebuild = null;
+            }
+            filter = rebuilt;
+            loaded = true;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package cz.syntaxbro.erpsystem.security.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-user security stamps, a version every token carries from the time it was issued. Revoking a user, e.g. when
+ * its roles change or it is deactivated, bumps the version and every token issued before is rejected, while the
+ * tokens stay stateless otherwise. Only revoked users have an entry, the others are at version 0.
+ * <p>
+ * The stamps live in memory of this node: a revocation does not reach other nodes and is forgotten on restart,
+ * after which earlier tokens are accepted again until they expire.
+ */
+@Component
+public class SecurityStamps {
+
+    private final PrincipalCache principalCache;
+    private final Map<String, Long> stamps = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SecurityStamps(PrincipalCache principalCache) {
+        this.principalCache = principalCache;
+    }
+
+    /**
+     * The stamp to issue new tokens of the user with.
+     */
+    public long current(String username) {
+        return stamps.getOrDefault(username, 0L);
+    }
+
+    /**
+     * Whether a token of the user issued with the given stamp has not been revoked since.
+     */
+    public boolean isCurrent(String username, long stamp) {
+        return stamp >= current(username);
+    }
+
+    /**
+     * Rejects every token of the user issued so far and drops its cached principal. Inside a transaction the user
+     * is revoked once more after commit, so a token issued from the data that was about to change is rejected too.
+     */
+    public void revoke(String username) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump(username);
+                }
+            });
+        }
+        bump(username);
+    }
+
+    private void bump(String username) {
+        stamps.merge(username, 1L, Long::sum);
+        principalCache.invalidate(username);
+    }
+}
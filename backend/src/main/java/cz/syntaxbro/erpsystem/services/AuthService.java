@@ -3,17 +3,17 @@ package cz.syntaxbro.erpsystem.services;
 import cz.syntaxbro.erpsystem.models.User;
 import cz.syntaxbro.erpsystem.requests.LoginRequest;
 import cz.syntaxbro.erpsystem.requests.SignUpRequest;
+import cz.syntaxbro.erpsystem.responses.JWTResponse;
 import jakarta.validation.Valid;
 
 public interface AuthService {
 
     void registerUser(SignUpRequest signUpRequest);
 
-    String authenticateUser(LoginRequest loginRequest);
+    /**
+     * Verifies the credentials once and issues both the access and the refresh token.
+     */
+    JWTResponse login(LoginRequest loginRequest);
 
     User getCurrentUser();
-
-    String getRefreshToken(LoginRequest loginRequest);
-    String authenticateRefreshToken(String email);
-    String authenticateAccessToken(String email);
 }
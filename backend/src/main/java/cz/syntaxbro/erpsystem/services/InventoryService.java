@@ -2,9 +2,15 @@ package cz.syntaxbro.erpsystem.services;
 
 import cz.syntaxbro.erpsystem.models.InventoryItem;
 import cz.syntaxbro.erpsystem.models.Product;
+import cz.syntaxbro.erpsystem.models.StockMovement;
 import cz.syntaxbro.erpsystem.requests.InventoryItemRequest;
+import cz.syntaxbro.erpsystem.responses.StockAsOfResponse;
+import cz.syntaxbro.erpsystem.responses.StockHistoryResponse;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface InventoryService {
@@ -14,12 +20,80 @@ public interface InventoryService {
     InventoryItem findItemByProduct(Product product);
     Optional<InventoryItem> findItemByProductForOrder(Product product);
 
+    /**
+     * Loads the inventory items of many products with one query.
+     *
+     * @return The inventory items keyed by product ID, products without an inventory item are missing
+     */
+    Map<Long, InventoryItem> findItemsByProductIds(Collection<Long> productIds);
+
+    /**
+     * Loads the items and write-locks them in id order until the end of the current transaction.
+     * Changes of their stocked amount are written when the transaction commits.
+     *
+     * @return The locked items keyed by ID, in ID order
+     */
+    Map<Long, InventoryItem> lockItems(Collection<Long> itemIds);
+
+    /**
+     * Reloads the amounts of an item loaded in the current transaction. The stock changes are update statements,
+     * they do not touch items that were loaded before them.
+     */
+    void refresh(InventoryItem item);
+
     void updateQuantity(Long itemId, int quantity);
 
     InventoryItem updateItem(Long id, InventoryItemRequest item);
 
+    /**
+     * Moves available stock to the reserved amount of the item.
+     *
+     * @throws IllegalArgumentException when less than the quantity is available
+     */
     void reserveStock(Long itemId, int quantity);
+
+    /**
+     * Returns reserved stock to the available stock.
+     */
+    void releaseReservedStock(Long itemId, int quantity);
+
+    /**
+     * Withdraws reserved stock when the order holding the reservation is confirmed, journaled as a sale of the order.
+     */
+    void takeReservedStock(Long itemId, int quantity, Long orderId);
+
     void receiveStock(Long itemId, int quantity);
     void releaseStock(Long itemId, int quantity);
+
+    /**
+     * Adds stock, journaled with the reason and the order that moved it.
+     *
+     * @param orderId The order that moved the stock, null outside of an order
+     */
+    void receiveStock(Long itemId, int quantity, StockMovement.Reason reason, Long orderId);
+
+    /**
+     * Takes available stock, journaled with the reason and the order that moved it.
+     *
+     * @param orderId The order that moved the stock, null outside of an order
+     */
+    void releaseStock(Long itemId, int quantity, StockMovement.Reason reason, Long orderId);
+
+    /**
+     * Whether the quantity is available, i.e. stocked and not reserved by pending orders.
+     */
     boolean isStockAvailable(Long itemId, int quantity);
-}
\ No newline at end of file
+
+    /**
+     * The stock of every item at the given time, e.g. at the end of a month. Read from the stock ledger, i.e. from
+     * the latest snapshot of each item before the time and the movements after it.
+     */
+    StockAsOfResponse getStockAsOf(LocalDateTime at);
+
+    /**
+     * The stock movements of the item within {@code (from, to]} with the stock after each of them.
+     *
+     * @throws IllegalArgumentException when the window ends before it starts
+     */
+    StockHistoryResponse getStockHistory(Long itemId, LocalDateTime from, LocalDateTime to);
+}
@@ -0,0 +1,61 @@
+package cz.syntaxbro.erpsystem.services;
+
+import cz.syntaxbro.erpsystem.models.Order;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+
+/**
+ * Service interface for exporting orders as CSV or newline-delimited JSON.
+ * Rows are written while they are read from the database, so an export takes the same memory
+ * no matter how many orders it contains.
+ */
+public interface OrderExportService {
+
+    @Getter
+    enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public static Format of(String format) {
+            for (Format value : values()) {
+                if (value.name().equalsIgnoreCase(format)) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported export format: " + format);
+        }
+    }
+
+    /**
+     * Writes one row per order placed within the date range.
+     *
+     * @param startDate The first day of the export (optional, unbounded when null)
+     * @param endDate The last day of the export (optional, unbounded when null)
+     * @param status Only orders with this status are exported (optional)
+     * @param format The output format
+     * @param out The stream the rows are written to; it is flushed but not closed
+     */
+    void exportOrders(LocalDate startDate, LocalDate endDate, Order.Status status, Format format, OutputStream out) throws IOException;
+
+    /**
+     * Writes one row per order line of the confirmed orders in the report period, i.e. the raw data behind the sales reports.
+     *
+     * @param startDate The start date for the report period (optional, same default as the reports)
+     * @param endDate The end date for the report period (optional, same default as the reports)
+     * @param orderType The type of order
+     * @param format The output format
+     * @param out The stream the rows are written to; it is flushed but not closed
+     */
+    void exportSalesLines(LocalDate startDate, LocalDate endDate, Order.OrderType orderType, Format format, OutputStream out) throws IOException;
+}
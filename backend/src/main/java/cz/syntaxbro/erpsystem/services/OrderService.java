@@ -2,8 +2,11 @@ package cz.syntaxbro.erpsystem.services;
 
 import cz.syntaxbro.erpsystem.models.Order;
 import cz.syntaxbro.erpsystem.requests.OrderCreateRequest;
+import cz.syntaxbro.erpsystem.requests.OrderPageRequest;
 import cz.syntaxbro.erpsystem.requests.OrderRequest;
 import cz.syntaxbro.erpsystem.requests.OrderUpdateRequest;
+import cz.syntaxbro.erpsystem.responses.BulkOrderResponse;
+import cz.syntaxbro.erpsystem.responses.OrderPageResponse;
 import cz.syntaxbro.erpsystem.responses.OrderResponse;
 import org.springframework.http.ResponseEntity;
 
@@ -15,10 +18,31 @@ public interface OrderService {
 
     List<OrderResponse> getOrders();
 
+    /**
+     * Returns one page of orders matching the filters, newest first. The page is read with a keyset condition
+     * built from the cursor, so every page costs the same no matter how deep the client pages.
+     *
+     * @param pageRequest The filters, sort key, cursor of the previous page and page size (at most {@code 200})
+     * @return The orders of the page and the cursor of the next one
+     */
+    OrderPageResponse getOrderPage(OrderPageRequest pageRequest);
+
     List<Order> getOrdersByProduct(Long productId);
 
+    /**
+     * Creates a pending order, a SELL order reserves its lines until it is decided or the reservation expires.
+     *
+     * @throws org.springframework.web.server.ResponseStatusException 409 CONFLICT when a line of a SELL order is not
+     * available (stocked minus reserved), nothing is created then
+     */
     Order createdOrder(OrderCreateRequest orderRequest);
 
+    /**
+     * Replaces the lines of a pending order and its reservation.
+     *
+     * @throws org.springframework.web.server.ResponseStatusException 409 CONFLICT when a line of a SELL order is not
+     * available, the order and its reservation stay as they were
+     */
     Order updateOrder(Long orderId, OrderUpdateRequest orderRequest);
 
     void deleteOrder(Long id);
@@ -27,6 +51,26 @@ public interface OrderService {
     Order confirmOrder(Long id, String comment);
     Order cancelOrder(Long id, String comment);
     Order addWorkflowComment(Long id, String comment);
+
+    /**
+     * Confirms many pending orders in one transaction. The inventory items of all the orders are locked up front,
+     * every SELL order is checked against the stock left by the orders before it. Orders that cannot be confirmed
+     * are skipped and reported, the others are confirmed.
+     *
+     * @param orderIds The orders to confirm, duplicates are processed once
+     * @param comment The decision comment set on every confirmed order (optional)
+     * @return One result per order
+     */
+    BulkOrderResponse confirmOrders(List<Long> orderIds, String comment);
+
+    /**
+     * Cancels many pending orders in one transaction, the bulk counterpart of {@link #cancelOrder(Long, String)}.
+     *
+     * @param orderIds The orders to cancel, duplicates are processed once
+     * @param comment The decision comment set on every canceled order (optional)
+     * @return One result per order
+     */
+    BulkOrderResponse cancelOrders(List<Long> orderIds, String comment);
     List<Order> getOrdersByStatus(Order.Status status);
     ResponseEntity<?> updateOrderStatus(Long orderId, Order.Status status);
 }
@@ -0,0 +1,208 @@
+package cz.syntaxbro.erpsystem.services;
+
+import cz.syntaxbro.erpsystem.events.OrderEvent;
+import cz.syntaxbro.erpsystem.events.OrderEventSubscriber;
+import cz.syntaxbro.erpsystem.events.OutboxConsumer;
+import cz.syntaxbro.erpsystem.models.InventoryItem;
+import cz.syntaxbro.erpsystem.models.OutboxMessage;
+import cz.syntaxbro.erpsystem.repositories.InventoryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes order lifecycle events and stock levels to the clients of {@code /api/stream/orders} as Server-Sent Events,
+ * so the frontend does not have to poll the order and inventory listings. The order events come from the order event
+ * bus; the stock levels are sent for the inventory items the outbox relays a stock or reservation change of, whichever
+ * write made it (order decisions, reservations, stock-takes, item edits).
+ * <p>
+ * Connections are held by the async servlet support and cost no thread while idle. Every client has its own
+ * bounded buffer drained by a virtual thread; a client that falls behind by a whole buffer is disconnected rather
+ * than slowing down the other clients, it reconnects and reloads the listings. Connected clients, sent events and
+ * dropped clients are published as the {@code orders.stream.*} metrics.
+ */
+@Component
+public class OrderStreamBroadcaster implements OrderEventSubscriber, OutboxConsumer {
+
+    /**
+     * Current stock of an inventory item, sent as the {@code stock} event after a change of its stock.
+     */
+    public record StockLevel(Long itemId, Long productId, double stockedAmount, double reservedAmount, LocalDateTime occurredAt) {
+    }
+
+    private final InventoryRepository inventoryRepository;
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final Executor senders;
+    private final ScheduledExecutorService heartbeats;
+
+    private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+    private final AtomicLong eventIds = new AtomicLong();
+
+    private final Counter sent;
+    private final Counter overflowDrops;
+    private final Counter errorDrops;
+
+    @Autowired
+    public OrderStreamBroadcaster(InventoryRepository inventoryRepository, MeterRegistry meterRegistry,
+                                  @Value("${orders.stream.buffer-size:256}") int bufferSize,
+                                  @Value("${orders.stream.timeout:PT30M}") Duration timeout,
+                                  @Value("${orders.stream.heartbeat:PT30S}") Duration heartbeat) {
+        this(inventoryRepository, meterRegistry, bufferSize, timeout, Executors.newVirtualThreadPerTaskExecutor());
+        this.heartbeats.scheduleAtFixedRate(this::heartbeat, heartbeat.toMillis(), heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    OrderStreamBroadcaster(InventoryRepository inventoryRepository, MeterRegistry meterRegistry,
+                           int bufferSize, Duration timeout, Executor senders) {
+        this.inventoryRepository = inventoryRepository;
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeout.toMillis();
+        this.senders = senders;
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "order-stream-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.sent = Counter.builder("orders.stream.events.sent").register(meterRegistry);
+        this.overflowDrops = Counter.builder("orders.stream.clients.dropped").tag("cause", "overflow").register(meterRegistry);
+        this.errorDrops = Counter.builder("orders.stream.clients.dropped").tag("cause", "error").register(meterRegistry);
+        Gauge.builder("orders.stream.clients", clients, Set::size).register(meterRegistry);
+    }
+
+    /**
+     * Registers a new client, the returned emitter is completed by the servlet container on timeout or disconnect.
+     */
+    public SseEmitter connect() {
+        Client client = new Client(new SseEmitter(timeoutMillis), new ArrayBlockingQueue<>(bufferSize));
+        client.emitter.onCompletion(() -> clients.remove(client));
+        client.emitter.onTimeout(() -> clients.remove(client));
+        client.emitter.onError(error -> clients.remove(client));
+        clients.add(client);
+        return client.emitter;
+    }
+
+    @Override
+    public void onEvent(OrderEvent event) {
+        if (clients.isEmpty()) {
+            return;
+        }
+        broadcast(event("order", event));
+    }
+
+    /**
+     * Sends the current stock levels of the items the stock and reservation changes among the messages are about, once per item.
+     */
+    @Override
+    public void accept(List<OutboxMessage> messages) {
+        if (clients.isEmpty()) {
+            return;
+        }
+        Map<Long, LocalDateTime> changedAt = new LinkedHashMap<>();
+        for (OutboxMessage message : messages) {
+            if (message.getAggregateType() == OutboxMessage.AggregateType.INVENTORY_ITEM) {
+                changedAt.put(message.getAggregateId(), message.getCreatedAt());
+            }
+        }
+        if (changedAt.isEmpty()) {
+            return;
+        }
+        for (InventoryItem item : inventoryRepository.findAllById(changedAt.keySet())) {
+            broadcast(event("stock", new StockLevel(item.getId(), item.getProduct().getId(), item.getStockedAmount(),
+                    item.getReservedAmount(), changedAt.get(item.getId()))));
+        }
+    }
+
+    // Built once and shared by the clients, a builder appends to itself every time it is built
+    private Set<DataWithMediaType> event(String name, Object data) {
+        return SseEmitter.event()
+                .id(String.valueOf(eventIds.incrementAndGet()))
+                .name(name)
+                .data(data, MediaType.APPLICATION_JSON)
+                .build();
+    }
+
+    private void heartbeat() {
+        // A comment keeps proxies from closing idle connections and finds the clients that went away
+        broadcast(SseEmitter.event().comment("heartbeat").build());
+    }
+
+    private void broadcast(Set<DataWithMediaType> event) {
+        for (Client client : clients) {
+            if (!client.buffer.offer(event)) {
+                overflowDrops.increment();
+                drop(client, null);
+            } else if (client.draining.compareAndSet(false, true)) {
+                senders.execute(() -> drain(client));
+            }
+        }
+    }
+
+    private void drain(Client client) {
+        do {
+            Set<DataWithMediaType> event;
+            while ((event = client.buffer.poll()) != null) {
+                try {
+                    client.emitter.send(event);
+                    sent.increment();
+                } catch (IOException | IllegalStateException e) {
+                    errorDrops.increment();
+                    drop(client, e);
+                    return;
+                }
+            }
+            client.draining.set(false);
+            // An event offered after the last poll but before the flag was cleared would otherwise wait for the next one
+        } while (!client.buffer.isEmpty() && client.draining.compareAndSet(false, true));
+    }
+
+    private void drop(Client client, Throwable error) {
+        if (clients.remove(client)) {
+            client.buffer.clear();
+            if (error != null) {
+                client.emitter.completeWithError(error);
+            } else {
+                client.emitter.complete();
+            }
+        }
+    }
+
+    public int clientCount() {
+        return clients.size();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        heartbeats.shutdownNow();
+        clients.forEach(client -> drop(client, null));
+    }
+
+    private static final class Client {
+        private final SseEmitter emitter;
+        private final BlockingQueue<Set<DataWithMediaType>> buffer;
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Client(SseEmitter emitter, BlockingQueue<Set<DataWithMediaType>> buffer) {
+            this.emitter = emitter;
+            this.buffer = buffer;
+        }
+    }
+}
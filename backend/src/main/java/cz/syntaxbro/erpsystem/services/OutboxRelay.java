@@ -0,0 +1,274 @@
+package cz.syntaxbro.erpsystem.services;
+
+import cz.syntaxbro.erpsystem.ErpSystemApplication;
+import cz.syntaxbro.erpsystem.events.OutboxConsumer;
+import cz.syntaxbro.erpsystem.models.OutboxMessage;
+import cz.syntaxbro.erpsystem.repositories.OutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Drains the outbox to the {@link OutboxConsumer}s on a single background thread, in batches.
+ * <p>
+ * A batch is leased in a short transaction (marked with this node and a lease expiry), delivered without holding
+ * any lock, then deleted. Rows leased or being leased by another node are skipped, so several nodes drain the outbox
+ * side by side and there is no order across the whole outbox. Per aggregate (an order, an inventory item) messages
+ * are delivered in ID order: a message is held back while an older one of its aggregate is pending, leased by
+ * another node or waiting for a retry. IDs come in blocks per node and are assigned before the commit, so ID order is
+ * the order in which the events were written only for writes of one node; consumers that compare events written on
+ * different nodes use the time in the payload.
+ * <p>
+ * A batch whose relay failed or died keeps its lease as a back-off and is picked up again once the lease expires,
+ * one message at a time, so delivery is at least once. A message leased the maximum number of attempts without
+ * being delivered is dead-lettered (kept, but skipped from then on), so it does not hold up its aggregate.
+ * The relay polls every interval and is woken up right after a transaction that wrote to the outbox commits. Without
+ * any consumer it does not run, the messages are kept until a node with consumers drains them. Delivered, failed and
+ * dead-lettered messages, batch time and the delivery lag are published as the {@code outbox.relay.*} metrics.
+ */
+@Component
+public class OutboxRelay {
+
+    private final OutboxRepository outboxRepository;
+    private final List<OutboxConsumer> consumers;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    private final int batchSize;
+    private final Duration lease;
+    private final int maxAttempts;
+    private final Duration interval;
+    private final boolean enabled;
+    private final String owner = UUID.randomUUID().toString();
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "outbox-relay");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean wakeUpPending = new AtomicBoolean();
+
+    private final Counter delivered;
+    private final Counter failures;
+    private final Counter deadLettered;
+    private final Timer batches;
+    private final Timer lag;
+
+    @Autowired
+    public OutboxRelay(OutboxRepository outboxRepository, List<OutboxConsumer> consumers,
+                       PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                       @Value("${outbox.relay.batch-size:100}") int batchSize,
+                       @Value("${outbox.relay.lease:PT30S}") Duration lease,
+                       @Value("${outbox.relay.max-attempts:10}") int maxAttempts,
+                       @Value("${outbox.relay.interval:PT1S}") Duration interval,
+                       @Value("${outbox.relay.enabled:true}") boolean enabled) {
+        this(outboxRepository, consumers, new TransactionTemplate(transactionManager), meterRegistry, Clock.systemDefaultZone(),
+                batchSize, lease, maxAttempts, interval, enabled);
+    }
+
+    OutboxRelay(OutboxRepository outboxRepository, List<OutboxConsumer> consumers, TransactionTemplate transactionTemplate,
+                MeterRegistry meterRegistry, Clock clock, int batchSize, Duration lease, int maxAttempts, Duration interval,
+                boolean enabled) {
+        this.outboxRepository = outboxRepository;
+        this.consumers = List.copyOf(consumers);
+        this.transactionTemplate = transactionTemplate;
+        this.clock = clock;
+        this.batchSize = batchSize;
+        this.lease = lease;
+        this.maxAttempts = maxAttempts;
+        this.interval = interval;
+        this.enabled = enabled;
+
+        this.delivered = Counter.builder("outbox.relay.delivered").register(meterRegistry);
+        this.failures = Counter.builder("outbox.relay.failures").register(meterRegistry);
+        this.deadLettered = Counter.builder("outbox.relay.dead_lettered").register(meterRegistry);
+        this.batches = Timer.builder("outbox.relay.batch").register(meterRegistry);
+        this.lag = Timer.builder("outbox.relay.lag").register(meterRegistry);
+    }
+
+    /**
+     * Starts polling once the application is ready, so the schema exists.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled && consumers.isEmpty()) {
+            ErpSystemApplication.getLogger().warn("Outbox relay not started, no outbox consumer is registered");
+        }
+        if (enabled && !consumers.isEmpty() && !executor.isShutdown()) {
+            executor.scheduleWithFixedDelay(this::drainSafely, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Drains the outbox as soon as possible, wake-ups requested while one is pending are merged into it.
+     */
+    public void wakeUp() {
+        if (enabled && !consumers.isEmpty() && wakeUpPending.compareAndSet(false, true) && !executor.isShutdown()) {
+            executor.execute(() -> {
+                wakeUpPending.set(false);
+                drainSafely();
+            });
+        }
+    }
+
+    private void drainSafely() {
+        try {
+            drain();
+        } catch (RuntimeException e) {
+            // Must not escape, a failed run would cancel the scheduled polling
+            ErpSystemApplication.getLogger().warn("Outbox relay failed", e);
+        }
+    }
+
+    /**
+     * Delivers batches until nothing can be leased (the outbox is empty, leased or held back) or a batch fails.
+     * Nothing is leased without a consumer, the messages would be deleted without being delivered to anyone.
+     *
+     * @return The number of delivered messages
+     */
+    int drain() {
+        if (consumers.isEmpty()) {
+            return 0;
+        }
+        int total = 0;
+        while (true) {
+            List<OutboxMessage> batch = lease();
+            if (batch.isEmpty()) {
+                return total;
+            }
+            if (!deliver(batch)) {
+                return total;
+            }
+            total += batch.size();
+        }
+    }
+
+    private List<OutboxMessage> lease() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now(clock);
+            List<OutboxMessage> leasable = new ArrayList<>();
+            for (OutboxMessage message : outboxRepository.findLeasable(now, Limit.of(batchSize))) {
+                if (message.getAttempts() >= maxAttempts) {
+                    deadLetter(message, now);
+                } else {
+                    leasable.add(message);
+                }
+            }
+            List<OutboxMessage> batch = holdBack(leasable);
+            if (batch.isEmpty()) {
+                return batch;
+            }
+
+            // A message that was leased before is retried alone, so a message that keeps failing is the only one dead-lettered
+            if (batch.getFirst().getAttempts() > 0) {
+                batch = List.of(batch.getFirst());
+            }
+            for (OutboxMessage message : batch) {
+                message.setLeaseOwner(owner);
+                message.setLeasedUntil(now.plus(lease));
+                message.setAttempts(message.getAttempts() + 1);
+            }
+            return batch;
+        });
+    }
+
+    /**
+     * Leaves out the messages that have an older pending message of their aggregate outside the batch, so the
+     * messages of an aggregate are delivered in ID order. The rows skipped because another relay locked them are
+     * still pending here, their lease is not committed yet.
+     */
+    private List<OutboxMessage> holdBack(List<OutboxMessage> leasable) {
+        if (leasable.isEmpty()) {
+            return leasable;
+        }
+        Set<Long> aggregateIds = new HashSet<>();
+        leasable.forEach(message -> aggregateIds.add(message.getAggregateId()));
+        Map<Aggregate, List<Long>> pending = outboxRepository.findPending(aggregateIds, leasable.getLast().getId()).stream()
+                .collect(Collectors.groupingBy(Aggregate::of, Collectors.mapping(OutboxMessage::getId, Collectors.toList())));
+
+        Set<Long> kept = new HashSet<>();
+        List<OutboxMessage> batch = new ArrayList<>();
+        for (OutboxMessage message : leasable) {
+            boolean olderPending = pending.getOrDefault(Aggregate.of(message), List.of()).stream()
+                    .anyMatch(id -> id < message.getId() && !kept.contains(id));
+            if (!olderPending) {
+                kept.add(message.getId());
+                batch.add(message);
+            }
+        }
+        return batch;
+    }
+
+    private void deadLetter(OutboxMessage message, LocalDateTime now) {
+        message.setDeadLetteredAt(now);
+        message.setLeaseOwner(null);
+        message.setLeasedUntil(null);
+        deadLettered.increment();
+        ErpSystemApplication.getLogger().error("Outbox message {} ({} of {} {}) dead-lettered after {} attempts",
+                message.getId(), message.getEventType(), message.getAggregateType(), message.getAggregateId(),
+                message.getAttempts());
+    }
+
+    private boolean deliver(List<OutboxMessage> batch) {
+        long started = System.nanoTime();
+        List<OutboxMessage> messages = List.copyOf(batch);
+        for (OutboxConsumer consumer : consumers) {
+            try {
+                consumer.accept(messages);
+            } catch (Exception e) {
+                // The lease is kept as a back-off, the batch is retried when it expires, by this node or another one
+                failures.increment();
+                ErpSystemApplication.getLogger().warn("Outbox consumer {} failed on messages {}..{}, attempt {}",
+                        consumer.getClass().getSimpleName(), batch.getFirst().getId(), batch.getLast().getId(),
+                        batch.getFirst().getAttempts(), e);
+                return false;
+            }
+        }
+
+        List<Long> ids = batch.stream().map(OutboxMessage::getId).toList();
+        transactionTemplate.executeWithoutResult(status -> outboxRepository.deleteLeased(ids, owner));
+
+        LocalDateTime now = LocalDateTime.now(clock);
+        for (OutboxMessage message : batch) {
+            lag.record(Duration.between(message.getCreatedAt(), now));
+        }
+        delivered.increment(batch.size());
+        batches.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        return true;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private record Aggregate(OutboxMessage.AggregateType type, Long id) {
+
+        static Aggregate of(OutboxMessage message) {
+            return new Aggregate(message.getAggregateType(), message.getAggregateId());
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package cz.syntaxbro.erpsystem.services;
+
+import cz.syntaxbro.erpsystem.events.InventoryEvent;
+import cz.syntaxbro.erpsystem.events.OrderEvent;
+
+public interface OutboxService {
+
+    /**
+     * Writes the event to the outbox in the current transaction, it is relayed only if the transaction commits.
+     */
+    void append(OrderEvent event);
+
+    void append(InventoryEvent event);
+}
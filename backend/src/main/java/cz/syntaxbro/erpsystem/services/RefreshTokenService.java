@@ -0,0 +1,54 @@
+package cz.syntaxbro.erpsystem.services;
+
+import cz.syntaxbro.erpsystem.responses.JWTResponse;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Store of the issued refresh tokens. Each login starts a token family, a renewal rotates the presented refresh
+ * token for the next one of its family, and a logout or a reuse of an already rotated token revokes the family,
+ * rejecting its refresh tokens as well as the access tokens issued with them.
+ */
+public interface RefreshTokenService {
+
+    /**
+     * Starts a new token family and issues its first access and refresh token.
+     */
+    JWTResponse issue(UserDetails userDetails, long stamp);
+
+    /**
+     * Exchanges the refresh token of the user for a new access and refresh token of the same family.
+     *
+     * @return Empty when the token is invalid, expired, revoked or already rotated, the last one revokes its family
+     */
+    Optional<JWTResponse> rotate(String refreshToken, String username);
+
+    /**
+     * Revokes the family of the refresh token of the user, e.g. on logout.
+     *
+     * @return False when the token is invalid or not of the user
+     */
+    boolean revoke(String refreshToken, String username);
+
+    /**
+     * Whether the token family has been revoked. Answered from memory unless the bloom filter reports a possible hit
+     * or has not been built yet, then from the store.
+     */
+    boolean isRevoked(String familyId);
+
+    /**
+     * Reloads the revoked families into the bloom filter.
+     *
+     * @return The number of revoked families
+     */
+    int rebuildRevocations();
+
+    /**
+     * Deletes the tokens that expired before the given time.
+     *
+     * @return The number of deleted tokens
+     */
+    int purgeExpired(LocalDateTime before);
+}
@@ -0,0 +1,88 @@
+package cz.syntaxbro.erpsystem.services;
+
+import cz.syntaxbro.erpsystem.ErpSystemApplication;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads the revoked refresh token families into the bloom filter on startup, before the web server accepts requests,
+ * then periodically deletes the expired tokens and rebuilds the filter. The rebuild drops the expired families and
+ * picks up families revoked on other nodes, which this node rejects only from the next rebuild on.
+ */
+@Component
+public class RefreshTokenSweeper implements SmartInitializingSingleton {
+
+    private final RefreshTokenService refreshTokenService;
+    private final Clock clock;
+    private final Duration interval;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "refresh-token-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public RefreshTokenSweeper(RefreshTokenService refreshTokenService,
+                               @Value("${security.refresh-tokens.sweep-interval:PT1H}") Duration interval) {
+        this(refreshTokenService, Clock.systemDefaultZone(), interval);
+    }
+
+    RefreshTokenSweeper(RefreshTokenService refreshTokenService, Clock clock, Duration interval) {
+        this.refreshTokenService = refreshTokenService;
+        this.clock = clock;
+        this.interval = interval;
+    }
+
+    /**
+     * Runs once all singletons exist, before the web server is started. Should the build fail, the revocation checks
+     * ask the store until a sweep has built the filter.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            int revoked = refreshTokenService.rebuildRevocations();
+            ErpSystemApplication.getLogger().info("Revocation filter built with {} revoked token families", revoked);
+        } catch (RuntimeException e) {
+            ErpSystemApplication.getLogger().warn("Building the revocation filter failed", e);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                sweep();
+            } catch (RuntimeException e) {
+                // Must not escape, a failed run would cancel the scheduled sweeps
+                ErpSystemApplication.getLogger().warn("Refresh token sweep failed", e);
+            }
+        }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return The number of deleted tokens
+     */
+    public int sweep() {
+        int purged = refreshTokenService.purgeExpired(LocalDateTime.now(clock));
+        refreshTokenService.rebuildRevocations();
+        return purged;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,155 @@
+package cz.syntaxbro.erpsystem.services;
+
+import cz.syntaxbro.erpsystem.models.Order;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU cache with a time-to-live for generated reports.
+ * Entries are evicted when they expire, when the cache is full, or when an order inside their date window changes status.
+ * Hit, miss and eviction counts are published as the {@code reports.cache.*} metrics.
+ */
+@Component
+public class ReportCache {
+
+    public enum Kind {
+        SALES, SALES_SERIES, BEST_SELLING_PRODUCTS, MOST_PURCHASED_PRODUCTS, ORDER_APPROVALS
+    }
+
+    /**
+     * Cache key, the dates are the effective (defaulted) report window.
+     * The limit is the product limit of the product reports, or the bucket ordinal of the sales series.
+     */
+    public record Key(Kind kind, LocalDate startDate, LocalDate endDate, Order.OrderType orderType, int limit) {
+
+        boolean contains(LocalDate day) {
+            return !day.isBefore(startDate) && !day.isAfter(endDate);
+        }
+    }
+
+    private record Entry(Object value, long expiresAt) {
+    }
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Clock clock;
+    private final Map<Key, Entry> entries;
+
+    // Bumped on every invalidation, a report computed across an invalidation is not cached
+    private long generation;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter expiredEvictions;
+    private final Counter sizeEvictions;
+    private final Counter invalidationEvictions;
+
+    @Autowired
+    public ReportCache(MeterRegistry meterRegistry,
+                       @Value("${reports.cache.max-size:256}") int maxSize,
+                       @Value("${reports.cache.ttl:PT5M}") Duration ttl) {
+        this(meterRegistry, maxSize, ttl, Clock.systemUTC());
+    }
+
+    ReportCache(MeterRegistry meterRegistry, int maxSize, Duration ttl, Clock clock) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > ReportCache.this.maxSize) {
+                    sizeEvictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        this.hits = Counter.builder("reports.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("reports.cache.requests").tag("result", "miss").register(meterRegistry);
+        this.expiredEvictions = Counter.builder("reports.cache.evictions").tag("cause", "expired").register(meterRegistry);
+        this.sizeEvictions = Counter.builder("reports.cache.evictions").tag("cause", "size").register(meterRegistry);
+        this.invalidationEvictions = Counter.builder("reports.cache.evictions").tag("cause", "invalidation").register(meterRegistry);
+        Gauge.builder("reports.cache.size", this, ReportCache::size).register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached report for the key, or generates it with the loader and caches the result.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Key key, Supplier<T> loader) {
+        long startGeneration;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAt() > clock.millis()) {
+                    hits.increment();
+                    return (T) entry.value();
+                }
+                entries.remove(key);
+                expiredEvictions.increment();
+            }
+            misses.increment();
+            startGeneration = generation;
+        }
+
+        // Generate the report outside the lock, so slow reports do not block cache hits
+        T value = loader.get();
+
+        synchronized (this) {
+            if (startGeneration == generation) {
+                entries.put(key, new Entry(value, clock.millis() + ttlMillis));
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Evicts every report whose date window contains the given day, plus the most purchased products reports,
+     * which depend on the current stock rather than on order dates. A {@code null} day evicts everything.
+     * Inside a transaction the reports are evicted once more after commit, so a report regenerated from the
+     * data that was about to change does not stay cached.
+     */
+    public void invalidate(LocalDate day) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(day);
+                }
+            });
+        }
+        evict(day);
+    }
+
+    private synchronized void evict(LocalDate day) {
+        generation++;
+        Iterator<Key> keys = entries.keySet().iterator();
+        while (keys.hasNext()) {
+            Key key = keys.next();
+            if (day == null || key.kind() == Kind.MOST_PURCHASED_PRODUCTS || key.contains(day)) {
+                keys.remove();
+                invalidationEvictions.increment();
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
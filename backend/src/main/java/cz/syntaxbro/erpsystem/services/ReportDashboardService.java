@@ -0,0 +1,23 @@
+package cz.syntaxbro.erpsystem.services;
+
+import cz.syntaxbro.erpsystem.models.Order;
+import cz.syntaxbro.erpsystem.responses.reports.DashboardReportDTO;
+
+import java.time.LocalDate;
+
+/**
+ * Service interface for the reports dashboard.
+ */
+public interface ReportDashboardService {
+
+    /**
+     * Generates all reports for the specified date range in one call, the sections are computed concurrently.
+     *
+     * @param startDate The start date for the report period (optional)
+     * @param endDate The end date for the report period (optional)
+     * @param orderType The type of order of the sales section
+     * @param limit The maximum number of products in the product sections
+     * @return The combined reports together with the time each section took
+     */
+    DashboardReportDTO generateDashboard(LocalDate startDate, LocalDate endDate, Order.OrderType orderType, int limit);
+}
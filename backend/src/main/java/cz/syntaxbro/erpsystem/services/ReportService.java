@@ -5,6 +5,7 @@ import cz.syntaxbro.erpsystem.responses.reports.OrderApprovalReportDTO;
 import cz.syntaxbro.erpsystem.responses.reports.ProductPurchaseReportDTO;
 import cz.syntaxbro.erpsystem.responses.reports.ProductSalesReportDTO;
 import cz.syntaxbro.erpsystem.responses.reports.SalesReportDTO;
+import cz.syntaxbro.erpsystem.responses.reports.SalesSeriesReportDTO;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -22,6 +23,18 @@ public interface ReportService {
      * @return A sales report DTO with aggregated sales data
      */
     SalesReportDTO generateSalesReport(LocalDate startDate, LocalDate endDate, Order.OrderType orderType);
+
+    /**
+     * Generates the sales of the specified date range per day, week (starting on Monday) or month.
+     * Buckets without sales are included with zero values.
+     *
+     * @param startDate The start date for the report period (optional)
+     * @param endDate The end date for the report period (optional)
+     * @param orderType The type of order
+     * @param bucket The size of one point of the series
+     * @return A sales series DTO with one point per bucket
+     */
+    SalesSeriesReportDTO generateSalesSeries(LocalDate startDate, LocalDate endDate, Order.OrderType orderType, SalesSeriesReportDTO.Bucket bucket);
     
     /**
      * Generates a report of best-selling products for the specified date range.
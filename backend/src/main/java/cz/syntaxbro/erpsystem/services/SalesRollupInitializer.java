@@ -0,0 +1,33 @@
+package cz.syntaxbro.erpsystem.services;
+
+import cz.syntaxbro.erpsystem.repositories.DailySalesRollupRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Backfills the daily sales rollup once the application (including the data loader) has started.
+ * The rollup is rebuilt when it is still empty, or always when started with {@code --reports.rollup.rebuild=true}.
+ */
+@Component
+public class SalesRollupInitializer {
+
+    private final SalesRollupService salesRollupService;
+    private final DailySalesRollupRepository rollupRepository;
+
+    @Value("${reports.rollup.rebuild:false}")
+    private boolean forceRebuild;
+
+    public SalesRollupInitializer(SalesRollupService salesRollupService, DailySalesRollupRepository rollupRepository) {
+        this.salesRollupService = salesRollupService;
+        this.rollupRepository = rollupRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (forceRebuild || rollupRepository.count() == 0) {
+            salesRollupService.rebuild();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package cz.syntaxbro.erpsystem.services;
+
+import cz.syntaxbro.erpsystem.models.Order;
+
+/**
+ * Keeps the daily sales rollup in sync with confirmed orders.
+ */
+public interface SalesRollupService {
+
+    /**
+     * Adds the order to the rollup when it became CONFIRMED, or removes it when it stopped being CONFIRMED.
+     * Has to be called in the same transaction as the status change.
+     *
+     * @param order The order whose status changes
+     * @param previousStatus The status the order had before the change (null for new orders)
+     * @param newStatus The status the order has after the change (null for deleted orders)
+     */
+    void applyStatusChange(Order order, Order.Status previousStatus, Order.Status newStatus);
+
+    /**
+     * Drops the rollup and backfills it from all confirmed orders.
+     *
+     * @return The number of rollup rows written
+     */
+    int rebuild();
+}
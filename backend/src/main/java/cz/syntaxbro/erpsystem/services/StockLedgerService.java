@@ -0,0 +1,61 @@
+package cz.syntaxbro.erpsystem.services;
+
+import cz.syntaxbro.erpsystem.models.StockMovement;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only journal of the stock movements, with periodic per-item snapshots of its running sum. The stocked
+ * amount of an inventory item stays the current value the order decisions check and lock; the journal is written
+ * in the same transaction and answers what the stock was at any earlier time.
+ */
+public interface StockLedgerService {
+
+    /**
+     * Journals a change of the stocked amount, in the transaction that changes it.
+     *
+     * @param orderId The order that moved the stock, null outside of an order
+     */
+    void record(Long itemId, Long orderId, double delta, StockMovement.Reason reason);
+
+    /**
+     * Journals several changes with one batched insert, e.g. the changes of a bulk order decision.
+     */
+    void recordAll(List<StockMovement> movements);
+
+    /**
+     * The stocked amount of the item at the given time: its latest snapshot taken up to then plus the movements after it.
+     */
+    double stockAsOf(Long itemId, LocalDateTime at);
+
+    /**
+     * The stocked amounts of many items at the given time, read like {@link #stockAsOf(Long, LocalDateTime)} with a
+     * few queries per batch of items.
+     *
+     * @return The amounts keyed by item ID, items without any movement up to the time are missing
+     */
+    Map<Long, Double> stockAsOf(Collection<Long> itemIds, LocalDateTime at);
+
+    /**
+     * Movements of the item within {@code (after, upTo]}, oldest first.
+     */
+    List<StockMovement> movements(Long itemId, LocalDateTime after, LocalDateTime upTo, Limit limit);
+
+    /**
+     * Snapshots every item that moved since the last snapshot, as of the given time.
+     *
+     * @return The number of written snapshots
+     */
+    int takeSnapshots(LocalDateTime upTo, int batchSize);
+
+    /**
+     * Journals the stock of items that have no movement yet, i.e. stock that predates the ledger, as an opening movement.
+     *
+     * @return The number of journaled items
+     */
+    int recordOpeningBalances();
+}
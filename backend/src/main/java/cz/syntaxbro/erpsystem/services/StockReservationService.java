@@ -0,0 +1,50 @@
+package cz.syntaxbro.erpsystem.services;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Stock reservations of pending SELL orders. Reserving moves stock from available to reserved on the inventory
+ * item, so a SELL order that was accepted cannot fail on missing stock when it is confirmed later.
+ */
+public interface StockReservationService {
+
+    /**
+     * Reserves the quantities for the order until the reservation time-to-live passes.
+     *
+     * @param quantities Quantities keyed by inventory item ID
+     * @throws IllegalArgumentException when one of the items does not have enough available stock
+     */
+    void reserve(Long orderId, Map<Long, Integer> quantities);
+
+    /**
+     * Withdraws the reserved stock of the order and removes its reservations.
+     *
+     * @return The withdrawn quantities keyed by inventory item ID, empty when the order had no (unexpired) reservation
+     */
+    Map<Long, Integer> convert(Long orderId);
+
+    /**
+     * Returns the reserved stock of the order to the available stock and removes its reservations.
+     */
+    void release(Long orderId);
+
+    /**
+     * Write-locks the reservations of the orders for a bulk decision, which adjusts the locked inventory items itself.
+     *
+     * @return The reserved quantities keyed by order ID, then by inventory item ID
+     */
+    Map<Long, Map<Long, Integer>> lock(Collection<Long> orderIds);
+
+    /**
+     * Removes the reservations of the orders without touching the inventory items, after {@link #lock}.
+     */
+    void remove(Collection<Long> orderIds);
+
+    /**
+     * Releases up to {@code limit} expired reservations.
+     *
+     * @return The number of released reservations
+     */
+    int releaseExpired(int limit);
+}
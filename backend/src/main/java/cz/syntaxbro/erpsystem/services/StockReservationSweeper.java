@@ -0,0 +1,78 @@
+package cz.syntaxbro.erpsystem.services;
+
+import cz.syntaxbro.erpsystem.ErpSystemApplication;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Releases expired stock reservations in batches, every batch in its own transaction so the inventory rows are
+ * locked only briefly. Released reservations are counted by the {@code orders.reservations.expired} metric.
+ */
+@Component
+public class StockReservationSweeper {
+
+    private final StockReservationService reservationService;
+    private final int batchSize;
+    private final Duration interval;
+    private final Counter expired;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "stock-reservation-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public StockReservationSweeper(StockReservationService reservationService, MeterRegistry meterRegistry,
+                                   @Value("${orders.reservations.sweep-batch-size:500}") int batchSize,
+                                   @Value("${orders.reservations.sweep-interval:PT1M}") Duration interval) {
+        this.reservationService = reservationService;
+        this.batchSize = batchSize;
+        this.interval = interval;
+        this.expired = Counter.builder("orders.reservations.expired").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                sweep();
+            } catch (RuntimeException e) {
+                // Must not escape, a failed run would cancel the scheduled sweeps
+                ErpSystemApplication.getLogger().warn("Stock reservation sweep failed", e);
+            }
+        }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Releases expired reservations until none is left.
+     *
+     * @return The number of released reservations
+     */
+    public int sweep() {
+        int total = 0;
+        int released;
+        do {
+            released = reservationService.releaseExpired(batchSize);
+            expired.increment(released);
+            total += released;
+        } while (released == batchSize);
+        return total;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
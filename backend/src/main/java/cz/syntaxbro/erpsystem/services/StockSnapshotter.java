@@ -0,0 +1,95 @@
+package cz.syntaxbro.erpsystem.services;
+
+import cz.syntaxbro.erpsystem.ErpSystemApplication;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snapshots the stock of the items that moved since the last run, so reading the stock at any time sums only
+ * a short tail of movements. Snapshots are taken as of a settle delay ago: a movement is journaled with the time
+ * it was made but becomes visible only when its transaction commits, and it has to be visible before a snapshot
+ * covers its time. Written snapshots are counted by the {@code inventory.snapshots.taken} metric.
+ */
+@Component
+public class StockSnapshotter {
+
+    private final StockLedgerService ledgerService;
+    private final Clock clock;
+    private final Duration interval;
+    private final Duration settle;
+    private final int batchSize;
+    private final Counter taken;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "stock-snapshotter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public StockSnapshotter(StockLedgerService ledgerService, MeterRegistry meterRegistry,
+                            @Value("${inventory.snapshots.interval:PT1H}") Duration interval,
+                            @Value("${inventory.snapshots.settle:PT5M}") Duration settle,
+                            @Value("${inventory.snapshots.batch-size:500}") int batchSize) {
+        this(ledgerService, meterRegistry, Clock.systemDefaultZone(), interval, settle, batchSize);
+    }
+
+    StockSnapshotter(StockLedgerService ledgerService, MeterRegistry meterRegistry, Clock clock,
+                     Duration interval, Duration settle, int batchSize) {
+        this.ledgerService = ledgerService;
+        this.clock = clock;
+        this.interval = interval;
+        this.settle = settle;
+        this.batchSize = batchSize;
+        this.taken = Counter.builder("inventory.snapshots.taken").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor.execute(() -> {
+            try {
+                int opened = ledgerService.recordOpeningBalances();
+                if (opened > 0) {
+                    ErpSystemApplication.getLogger().info("Opening stock movements recorded for {} inventory items", opened);
+                }
+            } catch (RuntimeException e) {
+                ErpSystemApplication.getLogger().warn("Recording opening stock movements failed", e);
+            }
+        });
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                snapshot();
+            } catch (RuntimeException e) {
+                // Must not escape, a failed run would cancel the scheduled snapshots
+                ErpSystemApplication.getLogger().warn("Stock snapshot failed", e);
+            }
+        }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return The number of written snapshots
+     */
+    public int snapshot() {
+        int written = ledgerService.takeSnapshots(LocalDateTime.now(clock).minus(settle), batchSize);
+        taken.increment(written);
+        return written;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -1,23 +1,26 @@
 package cz.syntaxbro.erpsystem.services.impl;
 
+import cz.syntaxbro.erpsystem.ErpSystemApplication;
 import cz.syntaxbro.erpsystem.exceptions.GlobalExceptionHandler;
 import cz.syntaxbro.erpsystem.security.PasswordSecurity;
 import cz.syntaxbro.erpsystem.models.Role;
 import cz.syntaxbro.erpsystem.models.User;
 import cz.syntaxbro.erpsystem.repositories.UserRepository;
 import cz.syntaxbro.erpsystem.security.services.CustomUserDetails;
+import cz.syntaxbro.erpsystem.security.services.SecurityStamps;
 import cz.syntaxbro.erpsystem.services.AuthService;
+import cz.syntaxbro.erpsystem.services.RefreshTokenService;
 import cz.syntaxbro.erpsystem.services.UserService;
-import cz.syntaxbro.erpsystem.utils.JwtUtil;
 import cz.syntaxbro.erpsystem.requests.LoginRequest;
 import cz.syntaxbro.erpsystem.requests.SignUpRequest;
+import cz.syntaxbro.erpsystem.responses.JWTResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
 import java.util.Map;
@@ -28,16 +31,19 @@ import java.util.stream.Collectors;
 public class AuthServiceImpl implements AuthService {
 
     private final UserRepository userRepository;
-    private final JwtUtil jwtUtil;
     private final PasswordSecurity security;
     private final UserService userService;
+    private final SecurityStamps securityStamps;
+    private final RefreshTokenService refreshTokenService;
 
     @Autowired
-    public AuthServiceImpl(UserRepository userRepository, JwtUtil jwtUtil, PasswordSecurity security, UserService userService) {
+    public AuthServiceImpl(UserRepository userRepository, PasswordSecurity security, UserService userService,
+                           SecurityStamps securityStamps, RefreshTokenService refreshTokenService) {
         this.userRepository = userRepository;
-        this.jwtUtil = jwtUtil;
         this.security = security;
         this.userService = userService;
+        this.securityStamps = securityStamps;
+        this.refreshTokenService = refreshTokenService;
     }
 
     @Override
@@ -57,40 +63,35 @@ public class AuthServiceImpl implements AuthService {
     }
 
     @Override
-    public String authenticateUser(LoginRequest loginRequest) {
-        User user = userRepository.findByEmail(loginRequest.getEmail())
-                .orElseThrow(() -> new GlobalExceptionHandler.UserNotFoundException("Invalid email or password"));
-
-        if (!security.matches(loginRequest.getPassword(), user.getPassword())) {
-            throw new RuntimeException("[password];Invalid email or password");
-        }
-
-        return jwtUtil.generateToken(new CustomUserDetails(user));
+    public JWTResponse login(LoginRequest loginRequest) {
+        // One lookup and one password hash for both tokens, issued in a new refresh token family
+        CustomUserDetails userDetails = new CustomUserDetails(verifyCredentials(loginRequest));
+        return refreshTokenService.issue(userDetails, securityStamps.current(userDetails.getUsername()));
     }
 
-    public String getRefreshToken(LoginRequest loginRequest) {
+    private User verifyCredentials(LoginRequest loginRequest) {
         User user = userRepository.findByEmail(loginRequest.getEmail())
-                .orElseThrow(() -> new UsernameNotFoundException("Invalid email or password"));
+                .orElseThrow(() -> new GlobalExceptionHandler.UserNotFoundException("Invalid email or password"));
 
         if (!security.matches(loginRequest.getPassword(), user.getPassword())) {
             throw new RuntimeException("[password];Invalid email or password");
         }
-
-        return jwtUtil.generateRefreshToken(new CustomUserDetails(user));
-    }
-
-    @Override
-    public String authenticateRefreshToken(String email) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new UsernameNotFoundException("Invalid email or password"));
-        return jwtUtil.generateRefreshToken(new CustomUserDetails(user));
+        rehashIfOutdated(user, loginRequest.getPassword());
+        return user;
     }
 
-    @Override
-    public String authenticateAccessToken(String email) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new UsernameNotFoundException("Invalid email or password"));
-        return jwtUtil.generateToken(new CustomUserDetails(user));
+    // The raw password is only known on login, that is when a legacy or weaker hash gets replaced
+    private void rehashIfOutdated(User user, String rawPassword) {
+        if (!security.upgradeEncoding(user.getPassword())) {
+            return;
+        }
+        try {
+            user.setPassword(security.encode(rawPassword));
+            userRepository.save(user);
+        } catch (ResponseStatusException e) {
+            // Hashing is overloaded, the login goes on and the password is rehashed next time
+            ErpSystemApplication.getLogger().warn("Password rehash of {} postponed: {}", user.getEmail(), e.getReason());
+        }
     }
 
     @Override
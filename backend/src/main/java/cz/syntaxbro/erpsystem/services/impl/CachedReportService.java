@@ -0,0 +1,76 @@
+package cz.syntaxbro.erpsystem.services.impl;
+
+import cz.syntaxbro.erpsystem.models.Order;
+import cz.syntaxbro.erpsystem.responses.reports.OrderApprovalReportDTO;
+import cz.syntaxbro.erpsystem.responses.reports.ProductPurchaseReportDTO;
+import cz.syntaxbro.erpsystem.responses.reports.ProductSalesReportDTO;
+import cz.syntaxbro.erpsystem.responses.reports.SalesReportDTO;
+import cz.syntaxbro.erpsystem.responses.reports.SalesSeriesReportDTO;
+import cz.syntaxbro.erpsystem.services.ReportCache;
+import cz.syntaxbro.erpsystem.services.ReportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static cz.syntaxbro.erpsystem.services.impl.ReportServiceImpl.effectiveEndDate;
+import static cz.syntaxbro.erpsystem.services.impl.ReportServiceImpl.effectiveStartDate;
+
+/**
+ * Caching front of {@link ReportServiceImpl}, the reports are served from the {@link ReportCache}
+ * until they expire or an order inside their date window changes status.
+ */
+@Service
+@Primary
+public class CachedReportService implements ReportService {
+
+    private final ReportServiceImpl reportService;
+    private final ReportCache reportCache;
+
+    @Autowired
+    public CachedReportService(ReportServiceImpl reportService, ReportCache reportCache) {
+        this.reportService = reportService;
+        this.reportCache = reportCache;
+    }
+
+    private ReportCache.Key key(ReportCache.Kind kind, LocalDate startDate, LocalDate endDate, Order.OrderType orderType, int limit) {
+        return new ReportCache.Key(kind, effectiveStartDate(startDate), effectiveEndDate(endDate), orderType, limit);
+    }
+
+    @Override
+    public SalesReportDTO generateSalesReport(LocalDate startDate, LocalDate endDate, Order.OrderType orderType) {
+        return reportCache.get(
+                key(ReportCache.Kind.SALES, startDate, endDate, orderType, 0),
+                () -> reportService.generateSalesReport(startDate, endDate, orderType));
+    }
+
+    @Override
+    public SalesSeriesReportDTO generateSalesSeries(LocalDate startDate, LocalDate endDate, Order.OrderType orderType, SalesSeriesReportDTO.Bucket bucket) {
+        return reportCache.get(
+                key(ReportCache.Kind.SALES_SERIES, startDate, endDate, orderType, bucket.ordinal()),
+                () -> reportService.generateSalesSeries(startDate, endDate, orderType, bucket));
+    }
+
+    @Override
+    public List<ProductSalesReportDTO> generateBestSellingProductsReport(LocalDate startDate, LocalDate endDate, int limit) {
+        return reportCache.get(
+                key(ReportCache.Kind.BEST_SELLING_PRODUCTS, startDate, endDate, null, limit),
+                () -> reportService.generateBestSellingProductsReport(startDate, endDate, limit));
+    }
+
+    @Override
+    public List<ProductPurchaseReportDTO> generateMostPurchasedProductsReport(LocalDate startDate, LocalDate endDate, int limit) {
+        return reportCache.get(
+                key(ReportCache.Kind.MOST_PURCHASED_PRODUCTS, startDate, endDate, null, limit),
+                () -> reportService.generateMostPurchasedProductsReport(startDate, endDate, limit));
+    }
+
+    @Override
+    public List<OrderApprovalReportDTO> generateOrderApprovalsReport(LocalDate startDate, LocalDate endDate) {
+        return reportCache.get(
+                key(ReportCache.Kind.ORDER_APPROVALS, startDate, endDate, null, 0),
+                () -> reportService.generateOrderApprovalsReport(startDate, endDate));
+    }
+}
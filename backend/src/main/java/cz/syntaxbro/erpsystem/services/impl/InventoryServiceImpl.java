@@ -1,75 +1,128 @@
 package cz.syntaxbro.erpsystem.services.impl;
 
 import cz.syntaxbro.erpsystem.ErpSystemApplication;
+import cz.syntaxbro.erpsystem.events.InventoryEvent;
 import cz.syntaxbro.erpsystem.models.InventoryItem;
 import cz.syntaxbro.erpsystem.models.Product;
+import cz.syntaxbro.erpsystem.models.StockMovement;
 import cz.syntaxbro.erpsystem.repositories.InventoryRepository;
 import cz.syntaxbro.erpsystem.requests.InventoryItemRequest;
+import cz.syntaxbro.erpsystem.responses.StockAsOfResponse;
+import cz.syntaxbro.erpsystem.responses.StockHistoryResponse;
 import cz.syntaxbro.erpsystem.services.InventoryService;
+import cz.syntaxbro.erpsystem.services.OutboxService;
 import cz.syntaxbro.erpsystem.services.ProductService;
+import cz.syntaxbro.erpsystem.services.StockLedgerService;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.util.List;
-import java.util.Optional;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class InventoryServiceImpl implements InventoryService {
+
+    // Movements returned by one history request at most
+    static final int MAX_HISTORY_MOVEMENTS = 1000;
+
     private final InventoryRepository inventoryRepository;
     private final ProductService productService;
+    private final OutboxService outboxService;
+    private final StockLedgerService ledgerService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     @Autowired
-    public InventoryServiceImpl(InventoryRepository inventoryRepository, ProductService productService) {
+    public InventoryServiceImpl(InventoryRepository inventoryRepository, ProductService productService, OutboxService outboxService,
+                                StockLedgerService ledgerService) {
         this.inventoryRepository = inventoryRepository;
         this.productService = productService;
+        this.outboxService = outboxService;
+        this.ledgerService = ledgerService;
     }
 
+    @Transactional
     public InventoryItem addItem(InventoryItemRequest item) {
-        return inventoryRepository.save(InventoryItem
+        InventoryItem savedItem = inventoryRepository.save(InventoryItem
                 .builder()
                 .product(productService.getProductById(item.getProductId()))
                 .stockedAmount(item.getStockedAmount())
                 .build()
         );
+        ledgerService.record(savedItem.getId(), null, savedItem.getStockedAmount(), StockMovement.Reason.OPENING);
+        outboxService.append(new InventoryEvent.StockSet(savedItem.getId(), savedItem.getStockedAmount(), LocalDateTime.now()));
+        return savedItem;
     }
 
     @Transactional
     @Override
     public void reserveStock(Long itemId, int quantity) {
-        InventoryItem item = this.getItem(itemId);
-        double newQuantity = item.getStockedAmount() - quantity;
+        if (inventoryRepository.increaseReserved(itemId, quantity) == 0) {
+            InventoryItem item = this.getItem(itemId);
+            // A conflict with the stock, not a malformed request: the same order may be accepted once stock comes in
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Not enough quantity of product " + item.getProduct().getName() + " to reserve");
+        }
+        outboxService.append(new InventoryEvent.ReservationChanged(itemId, quantity, LocalDateTime.now()));
+    }
 
-        if (newQuantity < 0) {
-            throw new IllegalArgumentException("We do not have enough quantity of this item.");
+    @Transactional
+    @Override
+    public void releaseReservedStock(Long itemId, int quantity) {
+        if (inventoryRepository.decreaseReserved(itemId, quantity) > 0) {
+            outboxService.append(new InventoryEvent.ReservationChanged(itemId, -quantity, LocalDateTime.now()));
         }
+    }
 
-        int rows = inventoryRepository.updateQuantity(itemId, newQuantity);
+    @Transactional
+    @Override
+    public void takeReservedStock(Long itemId, int quantity, Long orderId) {
+        if (inventoryRepository.takeReserved(itemId, quantity) == 0) {
+            getItem(itemId);
+            throw new ResponseStatusException(HttpStatus.NOT_ACCEPTABLE, "not enough quantity of product");
+        }
+        ledgerService.record(itemId, orderId, -quantity, StockMovement.Reason.SALE);
+        outboxService.append(new InventoryEvent.StockChanged(itemId, -quantity, LocalDateTime.now()));
+    }
 
-        if (rows == 0) {
-            throw new EntityNotFoundException(String.format("Item with id %d not found", itemId));
+    @Override
+    public void refresh(InventoryItem item) {
+        if (entityManager.contains(item)) {
+            entityManager.refresh(item);
         }
     }
 
     @Transactional
     @Override
     public void updateQuantity(Long itemId, int quantity) {
-        int rows = inventoryRepository.updateQuantity(itemId, quantity);
-
-        if (rows == 0) {
+        // Locked first, the journal needs the difference to the amount being overwritten
+        InventoryItem item = lockItems(List.of(itemId)).get(itemId);
+        if (item == null || inventoryRepository.updateQuantity(itemId, quantity) == 0) {
             throw new EntityNotFoundException(String.format("Item with id %d not found", itemId));
         }
+        ledgerService.record(itemId, null, quantity - item.getStockedAmount(), StockMovement.Reason.ADJUSTMENT);
+        outboxService.append(new InventoryEvent.StockSet(itemId, quantity, LocalDateTime.now()));
     }
 
     @Override
+    @Transactional
     public InventoryItem updateItem(Long id, InventoryItemRequest item) {
-        return inventoryRepository.findById(id)
+        return inventoryRepository.lockByIds(List.of(id)).stream().findFirst()
             .map(existingItem -> {
                 existingItem.setProduct(productService.getProductById(item.getProductId()));
+                ledgerService.record(id, null, item.getStockedAmount() - existingItem.getStockedAmount(), StockMovement.Reason.ADJUSTMENT);
                 existingItem.setStockedAmount(item.getStockedAmount());
+                outboxService.append(new InventoryEvent.StockSet(id, item.getStockedAmount(), LocalDateTime.now()));
                 return inventoryRepository.save(existingItem);
             }).orElseThrow(() -> new EntityNotFoundException("Inventory Item not found with id: " + id));
     }
@@ -79,32 +132,45 @@ public class InventoryServiceImpl implements InventoryService {
         return inventoryRepository.findAll();
     }
 
+    @Transactional
     @Override
     public void receiveStock(Long itemId, int quantity) {
-        InventoryItem inventoryItem = getItem(itemId);
-        if (inventoryItem != null) {
-            inventoryItem.setStockedAmount(inventoryItem.getStockedAmount() + quantity);
-            inventoryRepository.save(inventoryItem);
+        receiveStock(itemId, quantity, StockMovement.Reason.RECEIPT, null);
+    }
+
+    @Transactional
+    @Override
+    public void receiveStock(Long itemId, int quantity, StockMovement.Reason reason, Long orderId) {
+        if (inventoryRepository.increaseStock(itemId, quantity) == 0) {
+            throw new EntityNotFoundException(String.format("Item with id %d not found", itemId));
         }
+        ledgerService.record(itemId, orderId, quantity, reason);
+        outboxService.append(new InventoryEvent.StockChanged(itemId, quantity, LocalDateTime.now()));
     }
 
+    @Transactional
     @Override
     public void releaseStock(Long itemId, int quantity) {
-        InventoryItem inventoryItem = getItem(itemId);
-        if (inventoryItem != null) {
-            if (inventoryItem.getStockedAmount() < quantity) {
-                throw new ResponseStatusException(HttpStatus.NOT_ACCEPTABLE, "not enough quantity of product");
-            }
-            inventoryItem.setStockedAmount(inventoryItem.getStockedAmount() - quantity);
-            inventoryRepository.save(inventoryItem);
+        releaseStock(itemId, quantity, StockMovement.Reason.ISSUE, null);
+    }
+
+    @Transactional
+    @Override
+    public void releaseStock(Long itemId, int quantity, StockMovement.Reason reason, Long orderId) {
+        if (inventoryRepository.decreaseStock(itemId, quantity) == 0) {
+            // Nothing was updated: either the item does not exist (getItem throws) or there is not enough stock
+            getItem(itemId);
+            throw new ResponseStatusException(HttpStatus.NOT_ACCEPTABLE, "not enough quantity of product");
         }
+        ledgerService.record(itemId, orderId, -quantity, reason);
+        outboxService.append(new InventoryEvent.StockChanged(itemId, -quantity, LocalDateTime.now()));
     }
 
     @Override
     public boolean isStockAvailable(Long itemId, int quantity) {
         InventoryItem item = this.getItem(itemId);
 
-        return item.getStockedAmount() >= quantity;
+        return item.getAvailableAmount() >= quantity;
     }
 
     @Override
@@ -119,9 +185,90 @@ public class InventoryServiceImpl implements InventoryService {
         return inventoryRepository.findByProduct(product);
     }
 
+    @Override
+    public Map<Long, InventoryItem> findItemsByProductIds(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return Map.of();
+        }
+        return inventoryRepository.findByProductIds(productIds).stream()
+                .collect(Collectors.toMap(item -> item.getProduct().getId(), Function.identity()));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<Long, InventoryItem> lockItems(Collection<Long> itemIds) {
+        Map<Long, InventoryItem> items = new LinkedHashMap<>();
+        if (!itemIds.isEmpty()) {
+            inventoryRepository.lockByIds(itemIds).forEach(item -> items.put(item.getId(), item));
+        }
+        return items;
+    }
+
     @Override
     public InventoryItem getItem(Long itemId) {
         return inventoryRepository.findById(itemId)
                 .orElseThrow(() -> new EntityNotFoundException(String.format("Item with id %d not found", itemId)));
     }
-}
\ No newline at end of file
+
+    @Override
+    @Transactional(readOnly = true)
+    public StockAsOfResponse getStockAsOf(LocalDateTime at) {
+        List<InventoryItem> items = inventoryRepository.findAll();
+        Map<Long, Double> amounts = ledgerService.stockAsOf(items.stream().map(InventoryItem::getId).toList(), at);
+
+        List<StockAsOfResponse.Item> levels = new ArrayList<>(amounts.size());
+        for (InventoryItem item : items) {
+            Double amount = amounts.get(item.getId());
+            // Items without any movement up to then did not exist yet
+            if (amount != null) {
+                levels.add(StockAsOfResponse.Item.builder()
+                        .itemId(item.getId())
+                        .productId(item.getProduct().getId())
+                        .productName(item.getProduct().getName())
+                        .stockedAmount(amount)
+                        .build());
+            }
+        }
+        levels.sort(Comparator.comparing(StockAsOfResponse.Item::getItemId));
+        return StockAsOfResponse.builder()
+                .asOf(at)
+                .items(levels)
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public StockHistoryResponse getStockHistory(Long itemId, LocalDateTime from, LocalDateTime to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("The history has to end after it starts");
+        }
+        getItem(itemId);
+
+        double opening = ledgerService.stockAsOf(itemId, from);
+        List<StockMovement> movements = ledgerService.movements(itemId, from, to, Limit.of(MAX_HISTORY_MOVEMENTS + 1));
+        boolean truncated = movements.size() > MAX_HISTORY_MOVEMENTS;
+
+        List<StockHistoryResponse.Movement> history = new ArrayList<>(Math.min(movements.size(), MAX_HISTORY_MOVEMENTS));
+        double balance = opening;
+        for (StockMovement movement : movements.subList(0, Math.min(movements.size(), MAX_HISTORY_MOVEMENTS))) {
+            balance += movement.getDelta();
+            history.add(StockHistoryResponse.Movement.builder()
+                    .occurredAt(movement.getOccurredAt())
+                    .delta(movement.getDelta())
+                    .reason(movement.getReason())
+                    .orderId(movement.getOrderId())
+                    .balance(balance)
+                    .build());
+        }
+
+        return StockHistoryResponse.builder()
+                .itemId(itemId)
+                .from(from)
+                .to(to)
+                .openingAmount(opening)
+                .closingAmount(truncated ? ledgerService.stockAsOf(itemId, to) : balance)
+                .movements(history)
+                .truncated(truncated)
+                .build();
+    }
+}
@@ -0,0 +1,136 @@
+package cz.syntaxbro.erpsystem.services.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.syntaxbro.erpsystem.models.Money;
+import cz.syntaxbro.erpsystem.models.Order;
+import cz.syntaxbro.erpsystem.repositories.OrderRepository;
+import cz.syntaxbro.erpsystem.responses.exports.OrderExportRow;
+import cz.syntaxbro.erpsystem.responses.exports.SalesLineExportRow;
+import cz.syntaxbro.erpsystem.services.OrderExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.Temporal;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static cz.syntaxbro.erpsystem.services.impl.ReportServiceImpl.effectiveEndDate;
+import static cz.syntaxbro.erpsystem.services.impl.ReportServiceImpl.effectiveStartDate;
+
+@Service
+public class OrderExportServiceImpl implements OrderExportService {
+
+    static final List<String> ORDER_COLUMNS = List.of(
+            "id", "orderTime", "orderType", "status", "cost", "items", "quantity", "approvedBy", "decisionTime", "comment");
+
+    static final List<String> SALES_LINE_COLUMNS = List.of(
+            "orderId", "orderTime", "orderType", "productId", "productName", "quantity", "unitPrice", "lineTotal");
+
+    private final OrderRepository orderRepository;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public OrderExportServiceImpl(OrderRepository orderRepository, ObjectMapper objectMapper) {
+        this.orderRepository = orderRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportOrders(LocalDate startDate, LocalDate endDate, Order.Status status, Format format, OutputStream out) throws IOException {
+        LocalDateTime from = startDate != null ? startDate.atStartOfDay() : null;
+        LocalDateTime to = endDate != null ? endDate.plusDays(1).atStartOfDay() : null;
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writeHeader(writer, format, ORDER_COLUMNS);
+
+        try (Stream<OrderExportRow> rows = orderRepository.streamExportRows(from, to, status, null)) {
+            Iterator<OrderExportRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                OrderExportRow row = iterator.next();
+                writeRow(writer, format, ORDER_COLUMNS, Arrays.asList(
+                        row.id(),
+                        row.orderTime(),
+                        row.orderType(),
+                        row.status(),
+                        row.cost(),
+                        row.items(),
+                        row.quantity(),
+                        row.approvedBy(),
+                        row.decisionTime(),
+                        row.comment()));
+            }
+        }
+        writer.flush();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportSalesLines(LocalDate startDate, LocalDate endDate, Order.OrderType orderType, Format format, OutputStream out) throws IOException {
+        LocalDateTime from = effectiveStartDate(startDate).atStartOfDay();
+        LocalDateTime to = effectiveEndDate(endDate).plusDays(1).atStartOfDay();
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writeHeader(writer, format, SALES_LINE_COLUMNS);
+
+        try (Stream<SalesLineExportRow> rows = orderRepository.streamSalesLineRows(from, to, Order.Status.CONFIRMED, orderType)) {
+            Iterator<SalesLineExportRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                SalesLineExportRow row = iterator.next();
+                // In minor units like the report totals, written with two decimals (Money as JSON and as text)
+                Money unitPrice = row.effectiveUnitPrice();
+                writeRow(writer, format, SALES_LINE_COLUMNS, Arrays.asList(
+                        row.orderId(),
+                        row.orderTime(),
+                        row.orderType(),
+                        row.productId(),
+                        row.productName(),
+                        row.quantity(),
+                        unitPrice,
+                        unitPrice.times(row.quantity())));
+            }
+        }
+        writer.flush();
+    }
+
+    private void writeHeader(Writer writer, Format format, List<String> columns) throws IOException {
+        if (format == Format.CSV) {
+            writer.write(String.join(",", columns));
+            writer.write('\n');
+        }
+    }
+
+    private void writeRow(Writer writer, Format format, List<String> columns, List<Object> values) throws IOException {
+        if (format == Format.CSV) {
+            StringJoiner line = new StringJoiner(",");
+            for (Object value : values) {
+                line.add(csvField(value));
+            }
+            writer.write(line.toString());
+        } else {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 0; i < columns.size(); i++) {
+                Object value = values.get(i);
+                row.put(columns.get(i), value instanceof Temporal || value instanceof Enum<?> ? value.toString() : value);
+            }
+            writer.write(objectMapper.writeValueAsString(row));
+        }
+        writer.write('\n');
+    }
+
+    static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+}
@@ -1,20 +1,29 @@
 package cz.syntaxbro.erpsystem.services.impl;
 
 import cz.syntaxbro.erpsystem.ErpSystemApplication;
+import cz.syntaxbro.erpsystem.events.InventoryEvent;
+import cz.syntaxbro.erpsystem.events.OrderEvent;
+import cz.syntaxbro.erpsystem.events.OrderEventBus;
 import cz.syntaxbro.erpsystem.exceptions.ResourceNotFoundException;
 import cz.syntaxbro.erpsystem.models.*;
 import cz.syntaxbro.erpsystem.requests.InventoryItemRequest;
 import cz.syntaxbro.erpsystem.requests.OrderCreateRequest;
+import cz.syntaxbro.erpsystem.requests.OrderPageRequest;
 import cz.syntaxbro.erpsystem.requests.OrderRequest;
 import cz.syntaxbro.erpsystem.repositories.OrderRepository;
+import cz.syntaxbro.erpsystem.repositories.OrderSpecifications;
 import cz.syntaxbro.erpsystem.repositories.ProductRepository;
 import cz.syntaxbro.erpsystem.requests.OrderUpdateRequest;
+import cz.syntaxbro.erpsystem.responses.BulkOrderResponse;
 import cz.syntaxbro.erpsystem.responses.OrderItemReponse;
+import cz.syntaxbro.erpsystem.responses.OrderPageResponse;
 import cz.syntaxbro.erpsystem.responses.OrderResponse;
 import cz.syntaxbro.erpsystem.security.services.CustomUserDetails;
 import cz.syntaxbro.erpsystem.services.*;
 import cz.syntaxbro.erpsystem.utils.ConsoleColors;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -22,27 +31,43 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class OrderServiceImpl implements OrderService {
 
+    static final int MAX_PAGE_SIZE = 200;
+
     private final OrderRepository orderRepository;
     private final ProductRepository productRepository;
     private final InventoryService inventoryService;
     private final OrderItemService orderItemService;
+    private final SalesRollupService salesRollupService;
+    private final ReportCache reportCache;
+    private final OrderEventBus orderEventBus;
+    private final OutboxService outboxService;
+    private final StockReservationService reservationService;
+    private final StockLedgerService ledgerService;
 
 
     @Autowired
-    public OrderServiceImpl(OrderRepository orderRepository, ProductRepository productRepository, InventoryService inventoryService, OrderItemService orderItemService) {
+    public OrderServiceImpl(OrderRepository orderRepository, ProductRepository productRepository, InventoryService inventoryService, OrderItemService orderItemService, SalesRollupService salesRollupService, ReportCache reportCache, OrderEventBus orderEventBus, OutboxService outboxService, StockReservationService reservationService, StockLedgerService ledgerService) {
         this.orderRepository = orderRepository;
         this.productRepository = productRepository;
         this.inventoryService = inventoryService;
         this.orderItemService = orderItemService;
+        this.salesRollupService = salesRollupService;
+        this.reportCache = reportCache;
+        this.orderEventBus = orderEventBus;
+        this.outboxService = outboxService;
+        this.reservationService = reservationService;
+        this.ledgerService = ledgerService;
     }
 
     @Override
@@ -53,12 +78,66 @@ public class OrderServiceImpl implements OrderService {
 
     @Override
     public List<OrderResponse> getOrders() {
-        return orderRepository.findAll().stream().map(order -> {
-            var orderResponse = OrderResponse.builder().build();
-            orderResponse.map(order);
-            orderResponse.setOrderItems(order.getOrderItems().stream().map(OrderItemReponse::new).toList());
-            return orderResponse;
-        }).collect(Collectors.toList());
+        return orderRepository.findAll().stream().map(this::toResponse).collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public OrderPageResponse getOrderPage(OrderPageRequest pageRequest) {
+        OrderPageRequest.Sort sortKey = pageRequest.getSort() != null ? pageRequest.getSort() : OrderPageRequest.Sort.ORDER_TIME;
+        int limit = Math.clamp(pageRequest.getLimit(), 1, MAX_PAGE_SIZE);
+        Sort sort = sortKey == OrderPageRequest.Sort.ID
+                ? Sort.by(Sort.Direction.DESC, "id")
+                : Sort.by(Sort.Direction.DESC, "orderTime", "id");
+        Specification<Order> specification = OrderSpecifications.matching(pageRequest)
+                .and(afterCursor(sortKey, pageRequest.getCursor()));
+
+        // One order more than requested tells whether there is a next page, without counting the matches
+        List<Order> orders = orderRepository.findBy(specification, query -> query.sortBy(sort).limit(limit + 1).all());
+        boolean hasNext = orders.size() > limit;
+        List<Order> page = hasNext ? orders.subList(0, limit) : orders;
+
+        return OrderPageResponse.builder()
+                .orders(page.stream().map(this::toResponse).toList())
+                .nextCursor(hasNext ? encodeCursor(sortKey, page.getLast()) : null)
+                .build();
+    }
+
+    private OrderResponse toResponse(Order order) {
+        var orderResponse = OrderResponse.builder().build();
+        orderResponse.map(order);
+        orderResponse.setOrderItems(order.getOrderItems().stream().map(OrderItemReponse::new).toList());
+        return orderResponse;
+    }
+
+    /**
+     * The cursor carries the sort key of the last order of a page, e.g. {@code ORDER_TIME|2025-02-13T10:20|42},
+     * encoded as URL-safe base64 so clients treat it as opaque.
+     */
+    static String encodeCursor(OrderPageRequest.Sort sort, Order last) {
+        String key = sort == OrderPageRequest.Sort.ID
+                ? String.valueOf(last.getId())
+                : last.getOrderTime() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((sort.name() + "|" + key).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Specification<Order> afterCursor(OrderPageRequest.Sort sort, String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        // A cursor of the other sort key is rejected as well, it would silently skip or repeat orders
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (!parts[0].equals(sort.name())) {
+                throw new IllegalArgumentException();
+            }
+            return sort == OrderPageRequest.Sort.ID
+                    ? OrderSpecifications.idBefore(Long.parseLong(parts[1]))
+                    : OrderSpecifications.placedBefore(LocalDateTime.parse(parts[1]), Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
     }
 
     @Override
@@ -71,7 +150,7 @@ public class OrderServiceImpl implements OrderService {
     @Override
     @Transactional
     public Order createdOrder(OrderCreateRequest orderRequest) {
-        double totalCost = 0;
+        long totalCostMinor = 0;
         List<OrderItem> orderItems = new ArrayList<>();
 
         Order order = Order.builder()
@@ -81,63 +160,48 @@ public class OrderServiceImpl implements OrderService {
                 .comment(orderRequest.getComment())
                 .decisionTime(null)
                 .status(Order.Status.PENDING)
-                .cost(totalCost)
+                .cost(0)
                 .build();
 
         order = orderRepository.save(order);
 
-        for (var orderItemRequest : orderRequest.getProducts()) {
-            Product product = productRepository.findById(orderItemRequest.getId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Product with id " + orderItemRequest.getId() + " not found"));
-
-            var optionalInventoryItem = inventoryService.findItemByProductForOrder(product);
-            InventoryItem inventoryItem;
-
-            inventoryItem = optionalInventoryItem.orElseGet(() -> inventoryService.addItem(InventoryItemRequest
-                    .builder()
-                    .stockedAmount(0d)
-                    .productId(product.getId())
-                    .build()
-            ));
-
-            double productPrice = orderRequest.getOrderType() == Order.OrderType.SELL
-                    ? inventoryItem.getProduct().getPurchasePrice()
-                    : inventoryItem.getProduct().getBuyoutPrice();
+        Map<Long, Integer> quantities = quantitiesByProduct(orderRequest.getProducts(),
+                OrderCreateRequest.ProductRequest::getId, OrderCreateRequest.ProductRequest::getQuantity);
+        Map<Long, InventoryItem> inventoryItems = inventoryItemsForOrder(quantities.keySet());
 
-            Optional<OrderItem> existingOrderItem = orderItems.stream()
-                    .filter(orderItem -> orderItem.getInventoryItem().getProduct().equals(product))
-                    .findFirst();
+        for (var line : quantities.entrySet()) {
+            InventoryItem inventoryItem = inventoryItems.get(line.getKey());
 
-            Order finalOrder = order;
+            double productPrice = inventoryItem.getProduct().priceFor(orderRequest.getOrderType());
 
-            existingOrderItem.map(item -> {
-                item.setQuantity(item.getQuantity() + orderItemRequest.getQuantity());
-                return item;
-            }).orElseGet(() -> {
-                OrderItem newOrderItem = OrderItem.builder()
-                        .inventoryItem(inventoryItem)
-                        .quantity(orderItemRequest.getQuantity())
-                        .order(finalOrder)
-                        .build();
+            OrderItem newOrderItem = OrderItem.builder()
+                    .inventoryItem(inventoryItem)
+                    .quantity(line.getValue())
+                    .order(order)
+                    .build();
 
-                orderItemService.createOrderItem(newOrderItem);
-                orderItems.add(newOrderItem);
+            orderItemService.createOrderItem(newOrderItem);
+            orderItems.add(newOrderItem);
 
-                return newOrderItem;
-            });
+            totalCostMinor += line.getValue() * Money.minorOf(productPrice);
+        }
 
-            totalCost += orderItemRequest.getQuantity() * productPrice;
+        if (order.getOrderType() == Order.OrderType.SELL) {
+            reservationService.reserve(order.getId(), quantitiesByItem(quantities, inventoryItems));
         }
 
-        order.setCost(totalCost);
+        order.setCost(Money.ofMinor(totalCostMinor).toDouble());
         order.setOrderItems(orderItems);
         order.setCreatedAt(LocalDateTime.now());
         order.setUpdatedAt(LocalDateTime.now());
 
-        return orderRepository.save(order);
+        Order saved = orderRepository.save(order);
+        publish(new OrderEvent.OrderCreated(saved.getId(), saved.getOrderType(), saved.getCost(), saved.getCreatedAt()));
+        return saved;
     }
 
     @Override
+    @Transactional
     public Order updateOrder(Long orderId, OrderUpdateRequest orderRequest) {
         Order order = getOrderById(orderId);
 
@@ -155,44 +219,83 @@ public class OrderServiceImpl implements OrderService {
 
         order.setUpdatedAt(LocalDateTime.now());
 
-        order.setOrderItems(orderRequest.getProducts()
-                .stream().map(product -> {
-                    Product productFromDb = productRepository.findById(product.getId())
-                            .orElseThrow(() -> new ResourceNotFoundException("Product with id " + product.getId() + " not found"));
+        Map<Long, Integer> quantities = quantitiesByProduct(orderRequest.getProducts(),
+                OrderUpdateRequest.ProductRequest::getId, OrderUpdateRequest.ProductRequest::getQuantity);
+        Map<Long, InventoryItem> inventoryItems = inventoryItemsForOrder(quantities.keySet());
 
-                    var optionalInventoryItem = inventoryService.findItemByProductForOrder(productFromDb);
+        // The lines or the order type may have changed, reserve the new lines instead of the old ones
+        reservationService.release(orderId);
+        if (order.getOrderType() == Order.OrderType.SELL) {
+            reservationService.reserve(orderId, quantitiesByItem(quantities, inventoryItems));
+        }
 
-                    InventoryItem inventoryItem;
+        // Replaced in place, the collection of a managed order must not be swapped for another one (orphan removal)
+        order.getOrderItems().clear();
+        quantities.forEach((productId, quantity) -> order.getOrderItems().add(OrderItem.builder()
+                .order(order)
+                .inventoryItem(inventoryItems.get(productId))
+                .quantity(quantity)
+                .build()));
 
-                    if (optionalInventoryItem.isEmpty()) {
-                        inventoryService.addItem(InventoryItemRequest.builder()
-                                .stockedAmount(0)
-                                .productId(productFromDb.getId())
-                                .build());
+        return orderRepository.save(order);
+    }
 
-                        inventoryItem = inventoryService.findItemByProduct(productFromDb);
-                    } else {
-                        inventoryItem = optionalInventoryItem.get();
-                    }
+    /**
+     * Merges the lines of an order request by product, keeping the products in the order they were first requested.
+     */
+    private static <T> Map<Long, Integer> quantitiesByProduct(List<T> lines, Function<T, Long> productId, Function<T, Integer> quantity) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (T line : lines) {
+            quantities.merge(productId.apply(line), quantity.apply(line), Integer::sum);
+        }
+        return quantities;
+    }
 
-                    return OrderItem.builder()
-                            .order(order)
-                            .inventoryItem(inventoryItem)
-                            .quantity(product.getQuantity())
-                            .build();
-                }).toList()
-        );
+    private static Map<Long, Integer> quantitiesByItem(Map<Long, Integer> quantitiesByProduct, Map<Long, InventoryItem> inventoryItems) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        quantitiesByProduct.forEach((productId, quantity) -> quantities.put(inventoryItems.get(productId).getId(), quantity));
+        return quantities;
+    }
 
-        return orderRepository.save(order);
+    /**
+     * Resolves the inventory items of the ordered products with one query for the products and one for their items,
+     * whatever the number of lines. Products that are not in the inventory yet get an empty inventory item.
+     *
+     * @return The inventory items keyed by product ID
+     * @throws ResourceNotFoundException when one of the products does not exist
+     */
+    private Map<Long, InventoryItem> inventoryItemsForOrder(Set<Long> productIds) {
+        Set<Long> foundProductIds = productRepository.findAllById(productIds).stream()
+                .map(Product::getId)
+                .collect(Collectors.toSet());
+        for (Long productId : productIds) {
+            if (!foundProductIds.contains(productId)) {
+                throw new ResourceNotFoundException("Product with id " + productId + " not found");
+            }
+        }
+
+        Map<Long, InventoryItem> inventoryItems = new HashMap<>(inventoryService.findItemsByProductIds(productIds));
+        for (Long productId : productIds) {
+            inventoryItems.computeIfAbsent(productId, id -> inventoryService.addItem(InventoryItemRequest.builder()
+                    .stockedAmount(0d)
+                    .productId(id)
+                    .build()));
+        }
+        return inventoryItems;
     }
 
     @Override
+    @Transactional
     public void deleteOrder(Long id) {
         Order order = getOrderById(id);
+        reservationService.release(id);
+        salesRollupService.applyStatusChange(order, order.getStatus(), null);
+        reportCache.invalidate(orderDate(order));
         orderRepository.delete(order);
     }
 
     @Override
+    @Transactional
     public Order confirmOrder(Long id, String comment) {
         Order order = getOrderById(id);
 
@@ -203,25 +306,41 @@ public class OrderServiceImpl implements OrderService {
 
         User user = getCurrentUser();
 
+        // The reserved quantities are withdrawn with the reservation, only the rest is taken from the available stock
+        Map<Long, Integer> reserved = order.getOrderType() == Order.OrderType.SELL
+                ? new HashMap<>(reservationService.convert(id))
+                : new HashMap<>();
+
         for (var item : order.getOrderItems()) {
             if (item != null) {
                 if (order.getOrderType() == Order.OrderType.SELL) {
-                    inventoryService.releaseStock(item.getInventoryItem().getId(), item.getQuantity());
+                    Long itemId = item.getInventoryItem().getId();
+                    int covered = Math.min(item.getQuantity(), reserved.getOrDefault(itemId, 0));
+                    reserved.merge(itemId, -covered, Integer::sum);
+                    if (item.getQuantity() > covered) {
+                        inventoryService.releaseStock(itemId, item.getQuantity() - covered, StockMovement.Reason.SALE, id);
+                    }
                 } else if (order.getOrderType() == Order.OrderType.PURCHASE) {
-                    inventoryService.receiveStock(item.getInventoryItem().getId(), item.getQuantity());
+                    inventoryService.receiveStock(item.getInventoryItem().getId(), item.getQuantity(), StockMovement.Reason.PURCHASE, id);
                 }
+                // The response shows the stocked amount, which the update statements changed behind the loaded item
+                inventoryService.refresh(item.getInventoryItem());
             }
         }
         order.setStatus(Order.Status.CONFIRMED);
         order.setComment(comment);
         order.setDecisionTime(LocalDateTime.now());
         order.setApprovedBy(user);
+        salesRollupService.applyStatusChange(order, Order.Status.PENDING, Order.Status.CONFIRMED);
+        reportCache.invalidate(orderDate(order));
+        publish(decisionEvent(order));
         orderRepository.save(order);
 
         return orderRepository.save(order);
     }
 
     @Override
+    @Transactional
     public Order cancelOrder(Long id, String comment) {
         Order order = getOrderById(id);
 
@@ -235,18 +354,169 @@ public class OrderServiceImpl implements OrderService {
         CustomUserDetails userDetails = (CustomUserDetails) auth.getPrincipal();
         User user = userDetails.getUser();
 
-        for (var item : order.getOrderItems()) {
-            if (item != null) inventoryService.receiveStock(item.getInventoryItem().getId(), item.getQuantity());
-        }
+        // A pending order has not moved any stock, only its reservation ends
+        reservationService.release(id);
         order.setStatus(Order.Status.CANCELED);
         order.setComment(comment);
         order.setDecisionTime(LocalDateTime.now());
         order.setApprovedBy(user);
+        salesRollupService.applyStatusChange(order, Order.Status.PENDING, Order.Status.CANCELED);
+        reportCache.invalidate(orderDate(order));
+        publish(decisionEvent(order));
         orderRepository.save(order);
 
         return orderRepository.save(order);
     }
 
+    @Override
+    @Transactional
+    public BulkOrderResponse confirmOrders(List<Long> orderIds, String comment) {
+        return decideOrders(orderIds, Order.Status.CONFIRMED, comment);
+    }
+
+    @Override
+    @Transactional
+    public BulkOrderResponse cancelOrders(List<Long> orderIds, String comment) {
+        return decideOrders(orderIds, Order.Status.CANCELED, comment);
+    }
+
+    /**
+     * Shared part of the bulk operations. The inventory rows are locked before the orders are loaded, so the orders
+     * reference the locked, current items. Stock and status changes are written on commit, in JDBC batches.
+     */
+    private BulkOrderResponse decideOrders(List<Long> orderIds, Order.Status decision, String comment) {
+        Set<Long> ids = new LinkedHashSet<>(orderIds);
+        // Reservations first, then the items, in the same order as the reservation sweeper
+        Map<Long, Map<Long, Integer>> reservations = reservationService.lock(ids);
+        List<Long> itemIds = new ArrayList<>(orderRepository.findInventoryItemIds(ids));
+        reservations.values().forEach(reserved -> reserved.keySet().stream()
+                .filter(itemId -> !itemIds.contains(itemId))
+                .forEach(itemIds::add));
+        Map<Long, InventoryItem> inventoryItems = inventoryService.lockItems(itemIds);
+        Map<Long, Order> orders = orderRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+
+        User user = getCurrentUser();
+        LocalDateTime decisionTime = LocalDateTime.now();
+        List<BulkOrderResponse.Result> results = new ArrayList<>(ids.size());
+        List<OrderEvent> events = new ArrayList<>();
+        Map<Long, Integer> stockChanges = new TreeMap<>();
+        List<StockMovement> movements = new ArrayList<>();
+        List<Long> decided = new ArrayList<>();
+        int succeeded = 0;
+
+        for (Long id : ids) {
+            Order order = orders.get(id);
+            String error;
+            if (order == null) {
+                error = "Order with id " + id + " not found";
+            } else if (order.getStatus() != Order.Status.PENDING) {
+                error = decision == Order.Status.CONFIRMED
+                        ? "Only pending orders can be confirmed"
+                        : "Only pending orders can be canceled";
+            } else {
+                error = applyStockChanges(order, decision, inventoryItems, reservations.getOrDefault(id, Map.of()), stockChanges, movements);
+            }
+
+            if (error == null) {
+                order.setStatus(decision);
+                order.setComment(comment);
+                order.setDecisionTime(decisionTime);
+                order.setApprovedBy(user);
+                salesRollupService.applyStatusChange(order, Order.Status.PENDING, decision);
+                reportCache.invalidate(orderDate(order));
+                events.add(decisionEvent(order));
+                decided.add(id);
+                succeeded++;
+            }
+
+            results.add(BulkOrderResponse.Result.builder()
+                    .orderId(id)
+                    .success(error == null)
+                    .status(order != null ? order.getStatus() : null)
+                    .message(error)
+                    .build());
+        }
+        reservationService.remove(decided);
+        ledgerService.recordAll(movements);
+        events.forEach(outboxService::append);
+        stockChanges.forEach((itemId, change) -> outboxService.append(new InventoryEvent.StockChanged(itemId, change, decisionTime)));
+        orderEventBus.publishAll(events);
+
+        return BulkOrderResponse.builder()
+                .succeeded(succeeded)
+                .failed(results.size() - succeeded)
+                .results(results)
+                .build();
+    }
+
+    /**
+     * Applies the stock changes of one order to the locked items, all of its lines or none. Like
+     * {@link #confirmOrder}, confirming a SELL order takes stock and confirming a PURCHASE order adds it.
+     * Canceling changes no stock, a pending order has not moved any yet. The reservations of the order end either way.
+     *
+     * @param reserved The stock reserved by the order, by inventory item ID
+     * @param stockChanges Collects the applied changes by inventory item ID
+     * @param movements Collects the applied changes as stock movements of the order
+     * @return null when the changes were applied, otherwise why the order cannot be processed
+     */
+    private static String applyStockChanges(Order order, Order.Status decision, Map<Long, InventoryItem> inventoryItems,
+                                            Map<Long, Integer> reserved, Map<Long, Integer> stockChanges,
+                                            List<StockMovement> movements) {
+        if (decision == Order.Status.CANCELED) {
+            endReservations(inventoryItems, reserved);
+            return null;
+        }
+
+        int sign;
+        StockMovement.Reason reason;
+        if (order.getOrderType() == Order.OrderType.PURCHASE) {
+            sign = 1;
+            reason = StockMovement.Reason.PURCHASE;
+        } else if (order.getOrderType() == Order.OrderType.SELL) {
+            sign = -1;
+            reason = StockMovement.Reason.SALE;
+        } else {
+            return null;
+        }
+
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (OrderItem item : order.getOrderItems()) {
+            if (item != null) {
+                quantities.merge(item.getInventoryItem().getId(), item.getQuantity(), Integer::sum);
+            }
+        }
+
+        if (sign < 0) {
+            for (var line : quantities.entrySet()) {
+                InventoryItem inventoryItem = inventoryItems.get(line.getKey());
+                if (inventoryItem.getAvailableAmount() + reserved.getOrDefault(line.getKey(), 0) < line.getValue()) {
+                    return "Not enough quantity of product " + inventoryItem.getProduct().getName();
+                }
+            }
+        }
+        quantities.forEach((itemId, quantity) -> {
+            InventoryItem inventoryItem = inventoryItems.get(itemId);
+            inventoryItem.setStockedAmount(inventoryItem.getStockedAmount() + sign * quantity);
+            stockChanges.merge(itemId, sign * quantity, Integer::sum);
+            movements.add(StockMovement.builder()
+                    .inventoryItemId(itemId)
+                    .orderId(order.getId())
+                    .delta(sign * quantity)
+                    .reason(reason)
+                    .build());
+        });
+        endReservations(inventoryItems, reserved);
+        return null;
+    }
+
+    private static void endReservations(Map<Long, InventoryItem> inventoryItems, Map<Long, Integer> reserved) {
+        reserved.forEach((itemId, quantity) -> {
+            InventoryItem inventoryItem = inventoryItems.get(itemId);
+            inventoryItem.setReservedAmount(inventoryItem.getReservedAmount() - quantity);
+        });
+    }
+
     @Override
     public Order addWorkflowComment(Long id, String comment) {
         Order order = getOrderById(id);
@@ -260,21 +530,44 @@ public class OrderServiceImpl implements OrderService {
     }
 
     @Override
+    @Transactional
     public ResponseEntity<?> updateOrderStatus(Long orderId, Order.Status status) {
         Order order = getOrderById(orderId);
+        Order.Status previousStatus = order.getStatus();
 
-        /*
-        TODO... events/subcriber/observer
-        když uživatel bude mít daný sub na dané objednávce, tak v rámci observeru dostane informaci o tom že status objednávky bude změnen.
-         */
-
+        if (previousStatus == Order.Status.PENDING && status != Order.Status.PENDING) {
+            reservationService.release(orderId);
+        }
         order.setStatus(status);
+        salesRollupService.applyStatusChange(order, previousStatus, status);
+        reportCache.invalidate(orderDate(order));
+        // Subscribers get the status change only after the commit
+        publish(new OrderEvent.OrderStatusChanged(orderId, previousStatus, status, LocalDateTime.now()));
 
         orderRepository.save(order);
 
         return ResponseEntity.status(HttpStatus.OK).body("Order with id " + orderId + " has been updated to " + status);
     }
 
+    /**
+     * Writes the event to the outbox in the current transaction and hands it to the in-process subscribers after commit.
+     */
+    private void publish(OrderEvent event) {
+        outboxService.append(event);
+        orderEventBus.publish(event);
+    }
+
+    private static OrderEvent decisionEvent(Order order) {
+        String approvedBy = order.getApprovedBy() != null ? order.getApprovedBy().getUsername() : null;
+        return order.getStatus() == Order.Status.CONFIRMED
+                ? new OrderEvent.OrderConfirmed(order.getId(), order.getOrderType(), approvedBy, order.getDecisionTime())
+                : new OrderEvent.OrderCanceled(order.getId(), order.getOrderType(), approvedBy, order.getDecisionTime());
+    }
+
+    private static LocalDate orderDate(Order order) {
+        return order.getOrderTime() != null ? order.getOrderTime().toLocalDate() : null;
+    }
+
     public User getCurrentUser() {
         // Get current user
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
@@ -0,0 +1,70 @@
+package cz.syntaxbro.erpsystem.services.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.syntaxbro.erpsystem.events.InventoryEvent;
+import cz.syntaxbro.erpsystem.events.OrderEvent;
+import cz.syntaxbro.erpsystem.models.OutboxMessage;
+import cz.syntaxbro.erpsystem.repositories.OutboxRepository;
+import cz.syntaxbro.erpsystem.services.OutboxRelay;
+import cz.syntaxbro.erpsystem.services.OutboxService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+
+@Service
+public class OutboxServiceImpl implements OutboxService {
+
+    private final OutboxRepository outboxRepository;
+    private final OutboxRelay outboxRelay;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public OutboxServiceImpl(OutboxRepository outboxRepository, OutboxRelay outboxRelay, ObjectMapper objectMapper) {
+        this.outboxRepository = outboxRepository;
+        this.outboxRelay = outboxRelay;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(OrderEvent event) {
+        append(OutboxMessage.AggregateType.ORDER, event.orderId(), event);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(InventoryEvent event) {
+        append(OutboxMessage.AggregateType.INVENTORY_ITEM, event.itemId(), event);
+    }
+
+    private void append(OutboxMessage.AggregateType aggregateType, Long aggregateId, Object event) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize " + event, e);
+        }
+
+        outboxRepository.save(OutboxMessage.builder()
+                .aggregateType(aggregateType)
+                .aggregateId(aggregateId)
+                .eventType(event.getClass().getSimpleName())
+                .payload(payload)
+                .createdAt(LocalDateTime.now())
+                .build());
+
+        // Relay right after the commit instead of at the next poll, wake-ups of one transaction are coalesced by the relay
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                outboxRelay.wakeUp();
+            }
+        });
+    }
+}
@@ -0,0 +1,183 @@
+package cz.syntaxbro.erpsystem.services.impl;
+
+import cz.syntaxbro.erpsystem.ErpSystemApplication;
+import cz.syntaxbro.erpsystem.models.RefreshToken;
+import cz.syntaxbro.erpsystem.models.User;
+import cz.syntaxbro.erpsystem.repositories.RefreshTokenRepository;
+import cz.syntaxbro.erpsystem.repositories.UserRepository;
+import cz.syntaxbro.erpsystem.responses.JWTResponse;
+import cz.syntaxbro.erpsystem.security.services.CustomUserDetails;
+import cz.syntaxbro.erpsystem.security.services.RevokedFamilies;
+import cz.syntaxbro.erpsystem.security.services.SecurityStamps;
+import cz.syntaxbro.erpsystem.services.RefreshTokenService;
+import cz.syntaxbro.erpsystem.utils.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Keeps the refresh tokens in the database and the revoked families in a {@link RevokedFamilies} bloom filter.
+ * The results of the revocation checks are counted by the {@code auth.revocations.checks} metric, tagged
+ * {@code negative} when answered from memory, {@code false_positive} or {@code revoked} when the store was asked.
+ */
+@Service
+public class RefreshTokenServiceImpl implements RefreshTokenService {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+    private final JwtUtil jwtUtil;
+    private final SecurityStamps securityStamps;
+    private final RevokedFamilies revokedFamilies;
+    private final Clock clock;
+    private final Counter negativeChecks;
+    private final Counter falsePositiveChecks;
+    private final Counter revokedChecks;
+    private final Counter unfilteredChecks;
+
+    @Autowired
+    public RefreshTokenServiceImpl(RefreshTokenRepository refreshTokenRepository, UserRepository userRepository, JwtUtil jwtUtil,
+                                   SecurityStamps securityStamps, RevokedFamilies revokedFamilies, MeterRegistry meterRegistry) {
+        this(refreshTokenRepository, userRepository, jwtUtil, securityStamps, revokedFamilies, meterRegistry, Clock.systemDefaultZone());
+    }
+
+    RefreshTokenServiceImpl(RefreshTokenRepository refreshTokenRepository, UserRepository userRepository, JwtUtil jwtUtil,
+                            SecurityStamps securityStamps, RevokedFamilies revokedFamilies, MeterRegistry meterRegistry, Clock clock) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
+        this.jwtUtil = jwtUtil;
+        this.securityStamps = securityStamps;
+        this.revokedFamilies = revokedFamilies;
+        this.clock = clock;
+        this.negativeChecks = Counter.builder("auth.revocations.checks").tag("result", "negative").register(meterRegistry);
+        this.falsePositiveChecks = Counter.builder("auth.revocations.checks").tag("result", "false_positive").register(meterRegistry);
+        this.revokedChecks = Counter.builder("auth.revocations.checks").tag("result", "revoked").register(meterRegistry);
+        this.unfilteredChecks = Counter.builder("auth.revocations.checks").tag("result", "unfiltered").register(meterRegistry);
+    }
+
+    @Override
+    @Transactional
+    public JWTResponse issue(UserDetails userDetails, long stamp) {
+        return issueInFamily(userDetails, stamp, UUID.randomUUID().toString());
+    }
+
+    @Override
+    @Transactional
+    public Optional<JWTResponse> rotate(String refreshToken, String username) {
+        Claims claims = parseOwnClaims(refreshToken, username);
+        if (claims == null || claims.getId() == null || !securityStamps.isCurrent(username, JwtUtil.extractStamp(claims))) {
+            return Optional.empty();
+        }
+
+        String familyId = JwtUtil.extractFamily(claims);
+        RefreshToken token = refreshTokenRepository.lockByTokenId(claims.getId())
+                .filter(t -> t.getFamilyId().equals(familyId) && t.getUsername().equals(username))
+                .orElse(null);
+        if (token == null || token.getStatus() == RefreshToken.Status.REVOKED) {
+            return Optional.empty();
+        }
+        if (token.getStatus() == RefreshToken.Status.ROTATED) {
+            // Only a copy of the token can be presented twice, whoever holds the family now is not trusted
+            ErpSystemApplication.getLogger().warn("Rotated refresh token of {} reused, revoking its family", username);
+            revokeFamily(familyId);
+            return Optional.empty();
+        }
+
+        Optional<User> user = userRepository.findByEmail(username).filter(User::isActive);
+        if (user.isEmpty()) {
+            return Optional.empty();
+        }
+        token.setStatus(RefreshToken.Status.ROTATED);
+        return Optional.of(issueInFamily(new CustomUserDetails(user.get()), securityStamps.current(username), familyId));
+    }
+
+    @Override
+    @Transactional
+    public boolean revoke(String refreshToken, String username) {
+        Claims claims = parseOwnClaims(refreshToken, username);
+        if (claims == null || claims.getId() == null) {
+            return false;
+        }
+        boolean own = refreshTokenRepository.lockByTokenId(claims.getId())
+                .filter(t -> t.getFamilyId().equals(JwtUtil.extractFamily(claims)) && t.getUsername().equals(username))
+                .isPresent();
+        if (own) {
+            revokeFamily(JwtUtil.extractFamily(claims));
+        }
+        return own;
+    }
+
+    @Override
+    public boolean isRevoked(String familyId) {
+        boolean loaded = revokedFamilies.isLoaded();
+        if (loaded && !revokedFamilies.mightContain(familyId)) {
+            negativeChecks.increment();
+            return false;
+        }
+        // Before the filter is built every family is looked up, the empty filter would let revoked ones through
+        boolean revoked = refreshTokenRepository.existsByFamilyIdAndStatus(familyId, RefreshToken.Status.REVOKED);
+        (revoked ? revokedChecks : loaded ? falsePositiveChecks : unfilteredChecks).increment();
+        return revoked;
+    }
+
+    @Override
+    public int rebuildRevocations() {
+        revokedFamilies.beginRebuild();
+        List<String> familyIds;
+        try {
+            familyIds = refreshTokenRepository.findRevokedFamilyIds(LocalDateTime.now(clock));
+        } catch (RuntimeException e) {
+            revokedFamilies.cancelRebuild();
+            throw e;
+        }
+        revokedFamilies.completeRebuild(familyIds);
+        return familyIds.size();
+    }
+
+    @Override
+    @Transactional
+    public int purgeExpired(LocalDateTime before) {
+        return refreshTokenRepository.deleteExpired(before);
+    }
+
+    private JWTResponse issueInFamily(UserDetails userDetails, long stamp, String familyId) {
+        String tokenId = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now(clock);
+        refreshTokenRepository.save(RefreshToken.builder()
+                .tokenId(tokenId)
+                .familyId(familyId)
+                .username(userDetails.getUsername())
+                .status(RefreshToken.Status.ACTIVE)
+                .issuedAt(now)
+                .expiresAt(now.plus(JwtUtil.REFRESH_TOKEN_VALIDITY))
+                .build());
+        return new JWTResponse(jwtUtil.generateToken(userDetails, stamp, familyId),
+                jwtUtil.generateRefreshToken(userDetails, stamp, familyId, tokenId));
+    }
+
+    private void revokeFamily(String familyId) {
+        refreshTokenRepository.revokeFamily(familyId);
+        // Before the commit the store does not confirm the hit yet, the family is rejected right after it
+        revokedFamilies.add(familyId);
+    }
+
+    // Verified claims of a refresh token issued to the user in a family, null otherwise
+    private Claims parseOwnClaims(String refreshToken, String username) {
+        try {
+            Claims claims = jwtUtil.parseClaims(refreshToken);
+            return username.equals(claims.getSubject()) && JwtUtil.extractFamily(claims) != null ? claims : null;
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
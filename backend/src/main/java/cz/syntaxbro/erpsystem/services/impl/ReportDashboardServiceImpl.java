@@ -0,0 +1,93 @@
+package cz.syntaxbro.erpsystem.services.impl;
+
+import cz.syntaxbro.erpsystem.models.Order;
+import cz.syntaxbro.erpsystem.responses.reports.*;
+import cz.syntaxbro.erpsystem.services.ReportDashboardService;
+import cz.syntaxbro.erpsystem.services.ReportService;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+import static cz.syntaxbro.erpsystem.services.impl.ReportServiceImpl.effectiveEndDate;
+import static cz.syntaxbro.erpsystem.services.impl.ReportServiceImpl.effectiveStartDate;
+
+@Service
+public class ReportDashboardServiceImpl implements ReportDashboardService {
+
+    static final String SALES = "sales";
+    static final String BEST_SELLING_PRODUCTS = "bestSellingProducts";
+    static final String MOST_PURCHASED_PRODUCTS = "mostPurchasedProducts";
+    static final String ORDER_APPROVALS = "orderApprovals";
+
+    private final ReportService reportService;
+
+    // The sections mostly wait on the database, a virtual thread per section is enough,
+    // the connection pool limits how many of them actually query at once
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Autowired
+    public ReportDashboardServiceImpl(ReportService reportService) {
+        this.reportService = reportService;
+    }
+
+    @Override
+    public DashboardReportDTO generateDashboard(LocalDate startDate, LocalDate endDate, Order.OrderType orderType, int limit) {
+        long started = System.nanoTime();
+
+        // Resolve the default window once, so every section covers the same period
+        LocalDate from = effectiveStartDate(startDate);
+        LocalDate to = effectiveEndDate(endDate);
+
+        Map<String, Long> timings = new ConcurrentHashMap<>();
+        CompletableFuture<SalesReportDTO> sales = section(SALES, timings,
+                () -> reportService.generateSalesReport(from, to, orderType));
+        CompletableFuture<List<ProductSalesReportDTO>> bestSelling = section(BEST_SELLING_PRODUCTS, timings,
+                () -> reportService.generateBestSellingProductsReport(from, to, limit));
+        CompletableFuture<List<ProductPurchaseReportDTO>> mostPurchased = section(MOST_PURCHASED_PRODUCTS, timings,
+                () -> reportService.generateMostPurchasedProductsReport(from, to, limit));
+        CompletableFuture<List<OrderApprovalReportDTO>> approvals = section(ORDER_APPROVALS, timings,
+                () -> reportService.generateOrderApprovalsReport(from, to));
+
+        DashboardReportDTO dashboard = new DashboardReportDTO(from, to);
+        try {
+            dashboard.setSales(sales.join());
+            dashboard.setBestSellingProducts(bestSelling.join());
+            dashboard.setMostPurchasedProducts(mostPurchased.join());
+            dashboard.setOrderApprovals(approvals.join());
+        } catch (CompletionException e) {
+            // Surface the failure of a section as if it was computed on the calling thread
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+
+        for (String section : List.of(SALES, BEST_SELLING_PRODUCTS, MOST_PURCHASED_PRODUCTS, ORDER_APPROVALS)) {
+            dashboard.getSectionTimingsMillis().put(section, timings.get(section));
+        }
+        dashboard.setTotalTimeMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return dashboard;
+    }
+
+    private <T> CompletableFuture<T> section(String name, Map<String, Long> timings, Supplier<T> report) {
+        return CompletableFuture.supplyAsync(() -> {
+            long started = System.nanoTime();
+            try {
+                return report.get();
+            } finally {
+                timings.put(name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            }
+        }, executor);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
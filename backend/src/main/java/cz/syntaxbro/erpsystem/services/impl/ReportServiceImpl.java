@@ -6,14 +6,18 @@ import cz.syntaxbro.erpsystem.responses.reports.OrderApprovalReportDTO;
 import cz.syntaxbro.erpsystem.responses.reports.ProductPurchaseReportDTO;
 import cz.syntaxbro.erpsystem.responses.reports.ProductSalesReportDTO;
 import cz.syntaxbro.erpsystem.responses.reports.SalesReportDTO;
+import cz.syntaxbro.erpsystem.responses.reports.SalesSeriesReportDTO;
 import cz.syntaxbro.erpsystem.services.ReportService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
 import java.util.*;
 
 /**
@@ -23,36 +27,41 @@ import java.util.*;
 public class ReportServiceImpl implements ReportService {
 
     private final OrderRepository orderRepository;
-    private final OrderItemRepository orderItemRepository;
-    private final ProductRepository productRepository;
     private final UserRepository userRepository;
-    private final InventoryRepository inventoryRepository;
+    private final StockMovementRepository stockMovementRepository;
+    private final DailySalesRollupRepository rollupRepository;
 
     @Autowired
     public ReportServiceImpl(OrderRepository orderRepository,
-                            OrderItemRepository orderItemRepository,
-                            ProductRepository productRepository,
                             UserRepository userRepository,
-                            InventoryRepository inventoryRepository) {
+                            StockMovementRepository stockMovementRepository,
+                            DailySalesRollupRepository rollupRepository) {
         this.orderRepository = orderRepository;
-        this.orderItemRepository = orderItemRepository;
-        this.productRepository = productRepository;
         this.userRepository = userRepository;
-        this.inventoryRepository = inventoryRepository;
+        this.stockMovementRepository = stockMovementRepository;
+        this.rollupRepository = rollupRepository;
     }
 
-    private OrderReportTable getOrders(LocalDate startDate, LocalDate endDate) {
-        // Set default dates if not provided
-        LocalDate effectiveStartDate = startDate != null ? startDate : LocalDate.now().minusMonths(1);
-        LocalDate effectiveEndDate = endDate != null ? endDate : LocalDate.now();
+    // Set default dates if not provided
+    static LocalDate effectiveStartDate(LocalDate startDate) {
+        return startDate != null ? startDate : LocalDate.now().minusMonths(1);
+    }
+
+    static LocalDate effectiveEndDate(LocalDate endDate) {
+        return endDate != null ? endDate : LocalDate.now();
+    }
 
-        // Fetch orders within the date range
-        var orders = orderRepository.findAll().stream()
-                .filter(order -> {
-                    LocalDate orderDate = order.getOrderTime().toLocalDate();
-                    return !orderDate.isBefore(effectiveStartDate) && !orderDate.isAfter(effectiveEndDate);
-                })
-                .toList();
+    private OrderReportTable getOrders(LocalDate startDate, LocalDate endDate, Order.Status status, Order.OrderType orderType) {
+        LocalDate effectiveStartDate = effectiveStartDate(startDate);
+        LocalDate effectiveEndDate = effectiveEndDate(endDate);
+
+        // Fetch only the orders within the date range, the window is end-exclusive
+        var orders = orderRepository.findInPeriod(
+                effectiveStartDate.atStartOfDay(),
+                effectiveEndDate.plusDays(1).atStartOfDay(),
+                status,
+                orderType
+        );
 
         return new OrderReportTable(effectiveStartDate, effectiveEndDate, orders);
     }
@@ -72,28 +81,31 @@ public class ReportServiceImpl implements ReportService {
 
     @Override
     public SalesReportDTO generateSalesReport(LocalDate startDate, LocalDate endDate, Order.OrderType orderType) {
-        OrderReportTable orderReportTable = getOrders(startDate, endDate);
-        
-        // Calculate metrics
-        BigDecimal totalSales = BigDecimal.ZERO;
-        for (Order order : orderReportTable.orders) {
-            totalSales = totalSales.add(BigDecimal.valueOf(order.getTotal(orderType)));
-        }
-        
-        int orderCount = (int) orderReportTable.orders.stream().filter(o -> o.getOrderType().equals(orderType)).count();
+        LocalDate effectiveStartDate = effectiveStartDate(startDate);
+        LocalDate effectiveEndDate = effectiveEndDate(endDate);
+
+        // Calculate metrics from the pre-aggregated daily rollup of confirmed orders
+        BigDecimal totalSales = Money.ofMinor(rollupRepository.sumRevenueMinor(effectiveStartDate, effectiveEndDate, orderType)).toBigDecimal();
+
+        int orderCount = (int) orderRepository.countInPeriod(
+                effectiveStartDate.atStartOfDay(),
+                effectiveEndDate.plusDays(1).atStartOfDay(),
+                Order.Status.CONFIRMED,
+                orderType
+        );
         
         BigDecimal averageOrderValue = orderCount > 0 
                 ? totalSales.divide(new BigDecimal(orderCount), 2, RoundingMode.HALF_UP) 
                 : BigDecimal.ZERO;
         
-        long daysBetween = ChronoUnit.DAYS.between(orderReportTable.effectiveStartDate, orderReportTable.effectiveEndDate) + 1;
+        long daysBetween = ChronoUnit.DAYS.between(effectiveStartDate, effectiveEndDate) + 1;
         BigDecimal dailyAverageSales = daysBetween > 0 
                 ? totalSales.divide(new BigDecimal(daysBetween), 2, RoundingMode.HALF_UP) 
                 : BigDecimal.ZERO;
         
         return new SalesReportDTO(
-                orderReportTable.effectiveStartDate,
-                orderReportTable.effectiveEndDate,
+                effectiveStartDate,
+                effectiveEndDate,
                 totalSales,
                 orderCount,
                 averageOrderValue,
@@ -102,174 +114,128 @@ public class ReportServiceImpl implements ReportService {
     }
 
     @Override
-    public List<ProductSalesReportDTO> generateBestSellingProductsReport(LocalDate startDate, LocalDate endDate, int limit) {
-        OrderReportTable orderReportTable = getOrders(startDate, endDate);
-        
-        // Calculate total sales for the period
-        BigDecimal totalSales = BigDecimal.ZERO;
-        for (Order order : orderReportTable.orders) {
-            totalSales = totalSales.add(BigDecimal.valueOf(order.getTotal(Order.OrderType.SELL)));
-        }
-        
-        // Collect all order items from these orders
-        List<OrderItem> allOrderItems = new ArrayList<>();
-        for (Order order : orderReportTable.orders) {
-            List<OrderItem> orderItems = orderItemRepository.findAll().stream()
-                    .filter(item -> item.getOrder().getId().equals(order.getId()))
-                    .toList();
-            allOrderItems.addAll(orderItems);
+    public SalesSeriesReportDTO generateSalesSeries(LocalDate startDate, LocalDate endDate, Order.OrderType orderType, SalesSeriesReportDTO.Bucket bucket) {
+        LocalDate effectiveStartDate = effectiveStartDate(startDate);
+        LocalDate effectiveEndDate = effectiveEndDate(endDate);
+
+        // Prepare every bucket of the period, so the series has no gaps
+        Map<LocalDate, SeriesBucket> buckets = new TreeMap<>();
+        for (LocalDate start = bucketStart(effectiveStartDate, bucket); !start.isAfter(effectiveEndDate); start = nextBucketStart(start, bucket)) {
+            buckets.put(start, new SeriesBucket());
         }
-        
-        // Group by product and calculate metrics
-        Map<Long, List<OrderItem>> itemsByProduct = new HashMap<>();
-        for (OrderItem item : allOrderItems) {
-            Long productId = item.getId();
-            if (!itemsByProduct.containsKey(productId)) {
-                itemsByProduct.put(productId, new ArrayList<>());
+
+        // The database groups by day, here are only the (at most one per day) rows folded into the buckets
+        List<Object[]> revenueByDay = rollupRepository.sumRevenueByDay(effectiveStartDate, effectiveEndDate, orderType);
+        for (Object[] row : revenueByDay) {
+            SeriesBucket seriesBucket = buckets.get(bucketStart((LocalDate) row[0], bucket));
+            if (seriesBucket != null) {
+                seriesBucket.totalSalesMinor += ((Number) row[1]).longValue();
             }
-            itemsByProduct.get(productId).add(item);
         }
-        
-        List<ProductSalesReportDTO> productReports = new ArrayList<>();
-        
-        for (Map.Entry<Long, List<OrderItem>> entry : itemsByProduct.entrySet()) {
-            Long productId = entry.getKey();
-            List<OrderItem> items = entry.getValue();
-            
-            // Get the product
-            Optional<Product> productOpt = productRepository.findById(productId);
-            if (productOpt.isEmpty()) {
-                continue;
-            }
-            Product product = productOpt.get();
-            
-            // Calculate metrics
-            int quantitySold = 0;
-            for (OrderItem item : items) {
-                quantitySold += item.getQuantity();
+
+        List<Object[]> ordersByDay = orderRepository.countByDay(
+                effectiveStartDate.atStartOfDay(),
+                effectiveEndDate.plusDays(1).atStartOfDay(),
+                Order.Status.CONFIRMED,
+                orderType
+        );
+        for (Object[] row : ordersByDay) {
+            SeriesBucket seriesBucket = buckets.get(bucketStart((LocalDate) row[0], bucket));
+            if (seriesBucket != null) {
+                seriesBucket.orderCount += ((Number) row[1]).intValue();
             }
+        }
 
+        SalesSeriesReportDTO series = new SalesSeriesReportDTO(effectiveStartDate, effectiveEndDate, orderType, bucket);
+        for (Map.Entry<LocalDate, SeriesBucket> entry : buckets.entrySet()) {
+            LocalDate start = entry.getKey();
+            SeriesBucket seriesBucket = entry.getValue();
 
-            BigDecimal totalRevenue = BigDecimal.ZERO;
-            for (OrderItem item : items) {
-                Product product_ = item.getInventoryItem().getProduct();
-                BigDecimal itemPrice = BigDecimal.valueOf(item.getQuantity() * product_.getBuyoutPrice());
-                totalRevenue = totalRevenue.add(itemPrice);
-            }
+            LocalDate pointStart = start.isBefore(effectiveStartDate) ? effectiveStartDate : start;
+            LocalDate bucketEnd = nextBucketStart(start, bucket).minusDays(1);
+            LocalDate pointEnd = bucketEnd.isAfter(effectiveEndDate) ? effectiveEndDate : bucketEnd;
 
-            BigDecimal percentageOfTotalSales = totalSales.compareTo(BigDecimal.ZERO) > 0
-                    ? totalRevenue.multiply(new BigDecimal(100)).divide(totalSales, 2, RoundingMode.HALF_UP)
+            BigDecimal totalSales = Money.ofMinor(seriesBucket.totalSalesMinor).toBigDecimal();
+            BigDecimal averageOrderValue = seriesBucket.orderCount > 0
+                    ? totalSales.divide(new BigDecimal(seriesBucket.orderCount), 2, RoundingMode.HALF_UP)
                     : BigDecimal.ZERO;
-            
-            productReports.add(new ProductSalesReportDTO(
-                    productId,
-                    product.getName(),
-                    product.getDescription(),
-                    quantitySold,
-                    totalRevenue,
-                    BigDecimal.valueOf(product.getBuyoutPrice()),
-                    percentageOfTotalSales
+
+            series.getPoints().add(new SalesSeriesReportDTO.Point(
+                    pointStart,
+                    pointEnd,
+                    totalSales,
+                    seriesBucket.orderCount,
+                    averageOrderValue
             ));
         }
-        
-        // Sort by total revenue in descending order and limit results
-        productReports.sort((a, b) -> b.getTotalRevenue().compareTo(a.getTotalRevenue()));
-        if (productReports.size() > limit) {
-            productReports = productReports.subList(0, limit);
-        }
-        
-        return productReports;
+
+        return series;
+    }
+
+    private static class SeriesBucket {
+        long totalSalesMinor;
+        int orderCount;
+    }
+
+    static LocalDate bucketStart(LocalDate day, SalesSeriesReportDTO.Bucket bucket) {
+        return switch (bucket) {
+            case DAY -> day;
+            case WEEK -> day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> day.withDayOfMonth(1);
+        };
+    }
+
+    private static LocalDate nextBucketStart(LocalDate bucketStart, SalesSeriesReportDTO.Bucket bucket) {
+        return switch (bucket) {
+            case DAY -> bucketStart.plusDays(1);
+            case WEEK -> bucketStart.plusWeeks(1);
+            case MONTH -> bucketStart.plusMonths(1);
+        };
     }
 
     @Override
-    public List<ProductPurchaseReportDTO> generateMostPurchasedProductsReport(LocalDate startDate, LocalDate endDate, int limit) {
-        // Set default dates if not provided
-        LocalDate effectiveStartDate = startDate != null ? startDate : LocalDate.now().minusMonths(1);
-        LocalDate effectiveEndDate = endDate != null ? endDate : LocalDate.now();
-
-        // Fetch inventory items with purchase dates in the range
-        List<InventoryItem> inventoryItems = inventoryRepository.findAll().stream()
-                .filter(item -> {
-                    LocalDate purchaseDate = item.getCreatedAt().toLocalDate();
-                    return !purchaseDate.isBefore(effectiveStartDate) && !purchaseDate.isAfter(effectiveEndDate);
-                })
-                .toList();
-
-        // Group by product and calculate metrics
-        Map<Long, List<InventoryItem>> itemsByProduct = new HashMap<>();
-        for (InventoryItem item : inventoryItems) {
-            Long productId = item.getProduct().getId();
-            if (!itemsByProduct.containsKey(productId)) {
-                itemsByProduct.put(productId, new ArrayList<>());
-            }
-            itemsByProduct.get(productId).add(item);
-        }
-        
-        List<ProductPurchaseReportDTO> productReports = new ArrayList<>();
-        
-        for (Map.Entry<Long, List<InventoryItem>> entry : itemsByProduct.entrySet()) {
-            Long productId = entry.getKey();
-            List<InventoryItem> items = entry.getValue();
-            
-            // Get the product
-            Optional<Product> productOpt = productRepository.findById(productId);
-            if (productOpt.isEmpty()) {
-                continue;
-            }
-            Product product = productOpt.get();
-            
-            // Calculate metrics
-            int quantityPurchased = 0;
-            for (InventoryItem item : items) {
-                quantityPurchased += item.getStockedAmount();
-            }
-            
-            BigDecimal totalCost = BigDecimal.ZERO;
-            for (InventoryItem item : items) {
-                totalCost = totalCost.add(BigDecimal.valueOf(item.getProduct().getPurchasePrice() * item.getStockedAmount()));
-            }
-            
-            BigDecimal averagePurchasePrice = quantityPurchased > 0
-                    ? totalCost.divide(new BigDecimal(quantityPurchased), 2, RoundingMode.HALF_UP)
-                    : BigDecimal.ZERO;
-            
-            productReports.add(new ProductPurchaseReportDTO(
-                    productId,
-                    product.getName(),
-                    product.getDescription(),
-                    quantityPurchased,
-                    totalCost,
-                    averagePurchasePrice,
-                    items.size()
-            ));
+    public List<ProductSalesReportDTO> generateBestSellingProductsReport(LocalDate startDate, LocalDate endDate, int limit) {
+        if (limit < 1) {
+            return new ArrayList<>();
         }
-        
-        // Sort by quantity purchased in descending order and limit results
-        productReports.sort((a, b) -> Integer.compare(b.getQuantityPurchased(), a.getQuantityPurchased()));
-        if (productReports.size() > limit) {
-            productReports = productReports.subList(0, limit);
+
+        LocalDate from = effectiveStartDate(startDate);
+        LocalDate to = effectiveEndDate(endDate);
+
+        // Calculate total sales for the period
+        BigDecimal totalSales = Money.ofMinor(rollupRepository.sumRevenueMinor(from, to, Order.OrderType.SELL)).toBigDecimal();
+
+        // Group the daily rollup by product, sort by total revenue in descending order and limit results - all in one query
+        List<ProductSalesReportDTO> productReports = rollupRepository.findProductSales(
+                from, to, Order.OrderType.SELL, PageRequest.of(0, limit));
+
+        for (ProductSalesReportDTO productReport : productReports) {
+            productReport.setPercentageOfTotalSales(totalSales.compareTo(BigDecimal.ZERO) > 0
+                    ? productReport.getTotalRevenue().multiply(new BigDecimal(100)).divide(totalSales, 2, RoundingMode.HALF_UP)
+                    : BigDecimal.ZERO);
         }
-        
+
         return productReports;
     }
 
     @Override
-    public List<OrderApprovalReportDTO> generateOrderApprovalsReport(LocalDate startDate, LocalDate endDate) {
-        // Set default dates if not provided
-        LocalDate effectiveStartDate = startDate != null ? startDate : LocalDate.now().minusMonths(1);
-        LocalDate effectiveEndDate = endDate != null ? endDate : LocalDate.now();
+    public List<ProductPurchaseReportDTO> generateMostPurchasedProductsReport(LocalDate startDate, LocalDate endDate, int limit) {
+        if (limit < 1) {
+            return new ArrayList<>();
+        }
 
-        Order.Status status = Order.Status.CONFIRMED;
+        // Stock received by confirmed PURCHASE orders within the date range, the window is end-exclusive
+        return stockMovementRepository.findProductMovements(
+                effectiveStartDate(startDate).atStartOfDay(),
+                effectiveEndDate(endDate).plusDays(1).atStartOfDay(),
+                StockMovement.Reason.PURCHASE,
+                PageRequest.of(0, limit));
+    }
 
+    @Override
+    public List<OrderApprovalReportDTO> generateOrderApprovalsReport(LocalDate startDate, LocalDate endDate) {
         // Fetch approved orders within the date range
-        List<Order> approvedOrders = orderRepository.findAll().stream()
-                .filter(order -> {
-                    LocalDate orderDate = order.getOrderTime().toLocalDate();
-                    return status.equals(order.getStatus()) &&
-                           !orderDate.isBefore(effectiveStartDate) &&
-                           !orderDate.isAfter(effectiveEndDate);
-                })
-                .toList();
+        List<Order> approvedOrders = getOrders(startDate, endDate, Order.Status.CONFIRMED, null).orders;
 
         // Calculate total number of approvals
         int totalApprovals = approvedOrders.size();
@@ -302,10 +268,11 @@ public class ReportServiceImpl implements ReportService {
             // Calculate metrics
             int approvedOrderCount = orders.size();
 
-            BigDecimal totalApprovedAmount = BigDecimal.ZERO;
+            long totalApprovedMinor = 0;
             for (Order order : orders) {
-                totalApprovedAmount = totalApprovedAmount.add(order.getTotal());
+                totalApprovedMinor += order.getTotalMinor();
             }
+            BigDecimal totalApprovedAmount = Money.ofMinor(totalApprovedMinor).toBigDecimal();
 
             BigDecimal averageApprovedOrderAmount = approvedOrderCount > 0
                     ? totalApprovedAmount.divide(new BigDecimal(approvedOrderCount), 2, RoundingMode.HALF_UP)
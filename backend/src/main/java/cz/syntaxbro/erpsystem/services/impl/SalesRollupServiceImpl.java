@@ -0,0 +1,85 @@
+package cz.syntaxbro.erpsystem.services.impl;
+
+import cz.syntaxbro.erpsystem.ErpSystemApplication;
+import cz.syntaxbro.erpsystem.models.DailySalesRollup;
+import cz.syntaxbro.erpsystem.models.Money;
+import cz.syntaxbro.erpsystem.models.Order;
+import cz.syntaxbro.erpsystem.models.OrderItem;
+import cz.syntaxbro.erpsystem.models.Product;
+import cz.syntaxbro.erpsystem.repositories.DailySalesRollupRepository;
+import cz.syntaxbro.erpsystem.services.SalesRollupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Service
+public class SalesRollupServiceImpl implements SalesRollupService {
+
+    private final DailySalesRollupRepository rollupRepository;
+
+    @Autowired
+    public SalesRollupServiceImpl(DailySalesRollupRepository rollupRepository) {
+        this.rollupRepository = rollupRepository;
+    }
+
+    @Override
+    @Transactional
+    public void applyStatusChange(Order order, Order.Status previousStatus, Order.Status newStatus) {
+        boolean wasCounted = previousStatus == Order.Status.CONFIRMED;
+        boolean isCounted = newStatus == Order.Status.CONFIRMED;
+
+        if (wasCounted == isCounted || order.getOrderItems() == null || order.getOrderTime() == null) {
+            return;
+        }
+
+        int sign = isCounted ? 1 : -1;
+        LocalDate salesDate = order.getOrderTime().toLocalDate();
+
+        // Merge lines of the same product, so the order is counted once per product
+        Map<Long, DailySalesRollup> deltas = new LinkedHashMap<>();
+        for (OrderItem item : order.getOrderItems()) {
+            if (item == null) continue;
+
+            Product product = item.getInventoryItem().getProduct();
+            // Removed with the price it was added with, the product price may have changed since
+            if (isCounted || item.getUnitPrice() == null) {
+                item.setUnitPrice(Money.of(product.priceFor(order.getOrderType())));
+            }
+
+            DailySalesRollup delta = deltas.computeIfAbsent(product.getId(), productId -> DailySalesRollup.builder()
+                    .id(new DailySalesRollup.Key(salesDate, order.getOrderType(), productId))
+                    .orderCount(sign)
+                    .build());
+            delta.setQuantity(delta.getQuantity() + (long) sign * item.getQuantity());
+            delta.setRevenue(delta.getRevenue().plus(item.getUnitPrice().times((long) sign * item.getQuantity())));
+        }
+
+        for (DailySalesRollup delta : deltas.values()) {
+            DailySalesRollup.Key key = delta.getId();
+            if (sign > 0) {
+                // One statement, two first confirmations of the same day and product cannot both insert the row
+                rollupRepository.upsert(key.getSalesDate(), key.getOrderType(), key.getProductId(),
+                        delta.getQuantity(), delta.getRevenue().minor(), delta.getOrderCount());
+            } else {
+                // Nothing to subtract from when the rollup has not been backfilled yet
+                rollupRepository.increment(key.getSalesDate(), key.getOrderType(), key.getProductId(),
+                        delta.getQuantity(), delta.getRevenue(), delta.getOrderCount());
+            }
+        }
+    }
+
+    @Override
+    @Transactional
+    public int rebuild() {
+        rollupRepository.deleteAllInBatch();
+        int rows = rollupRepository.insertFromOrders(Order.Status.CONFIRMED, Order.OrderType.SELL);
+
+        ErpSystemApplication.getLogger().info("[SALES ROLLUP] Rebuilt {} rollup rows from confirmed orders", rows);
+
+        return rows;
+    }
+}
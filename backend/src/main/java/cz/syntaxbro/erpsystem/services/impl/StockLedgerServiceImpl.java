@@ -0,0 +1,164 @@
+package cz.syntaxbro.erpsystem.services.impl;
+
+import cz.syntaxbro.erpsystem.models.InventoryItem;
+import cz.syntaxbro.erpsystem.models.StockMovement;
+import cz.syntaxbro.erpsystem.models.StockSnapshot;
+import cz.syntaxbro.erpsystem.repositories.InventoryRepository;
+import cz.syntaxbro.erpsystem.repositories.StockMovementRepository;
+import cz.syntaxbro.erpsystem.repositories.StockSnapshotRepository;
+import cz.syntaxbro.erpsystem.services.StockLedgerService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Service
+public class StockLedgerServiceImpl implements StockLedgerService {
+
+    // Before any movement, the lower bound of items without a snapshot
+    static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+    // Items per query of the bulk reads, keeps the IN lists short
+    static final int BATCH_SIZE = 500;
+
+    private final StockMovementRepository movementRepository;
+    private final StockSnapshotRepository snapshotRepository;
+    private final InventoryRepository inventoryRepository;
+    private final Clock clock;
+
+    @Autowired
+    public StockLedgerServiceImpl(StockMovementRepository movementRepository, StockSnapshotRepository snapshotRepository,
+                                  InventoryRepository inventoryRepository) {
+        this(movementRepository, snapshotRepository, inventoryRepository, Clock.systemDefaultZone());
+    }
+
+    StockLedgerServiceImpl(StockMovementRepository movementRepository, StockSnapshotRepository snapshotRepository,
+                           InventoryRepository inventoryRepository, Clock clock) {
+        this.movementRepository = movementRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.clock = clock;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Long itemId, Long orderId, double delta, StockMovement.Reason reason) {
+        movementRepository.save(StockMovement.builder()
+                .inventoryItemId(itemId)
+                .orderId(orderId)
+                .delta(delta)
+                .reason(reason)
+                .occurredAt(LocalDateTime.now(clock))
+                .build());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAll(List<StockMovement> movements) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        for (StockMovement movement : movements) {
+            if (movement.getOccurredAt() == null) {
+                movement.setOccurredAt(now);
+            }
+        }
+        movementRepository.saveAll(movements);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public double stockAsOf(Long itemId, LocalDateTime at) {
+        Optional<StockSnapshot> snapshot = snapshotRepository.findFirstByInventoryItemIdAndTakenAtLessThanEqualOrderByTakenAtDesc(itemId, at);
+        LocalDateTime after = snapshot.map(StockSnapshot::getTakenAt).orElse(BEGINNING);
+        return snapshot.map(StockSnapshot::getStockedAmount).orElse(0.0) + movementRepository.sumDeltas(itemId, after, at);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, Double> stockAsOf(Collection<Long> itemIds, LocalDateTime at) {
+        List<Long> ids = List.copyOf(new TreeSet<>(itemIds));
+        Map<Long, Double> amounts = new TreeMap<>();
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + BATCH_SIZE, ids.size()));
+            for (StockSnapshot snapshot : snapshotRepository.findLatest(batch, at)) {
+                amounts.put(snapshot.getInventoryItemId(), snapshot.getStockedAmount());
+            }
+            for (Object[] row : movementRepository.sumSinceLatestSnapshot(batch, at, BEGINNING)) {
+                amounts.merge((Long) row[0], ((Number) row[1]).doubleValue(), Double::sum);
+            }
+        }
+        return amounts;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<StockMovement> movements(Long itemId, LocalDateTime after, LocalDateTime upTo, Limit limit) {
+        return movementRepository.findMovements(itemId, after, upTo, limit);
+    }
+
+    @Override
+    @Transactional
+    public int takeSnapshots(LocalDateTime upTo, int batchSize) {
+        LocalDateTime after = snapshotRepository.findLastTakenAt().orElse(BEGINNING);
+        if (!upTo.isAfter(after)) {
+            return 0;
+        }
+
+        // Every snapshot is its item's previous snapshot plus the movements since, so snapshots taken
+        // concurrently by several nodes are all correct, only redundant
+        List<Long> itemIds = movementRepository.findMovedItemIds(after, upTo);
+        int taken = 0;
+        for (int from = 0; from < itemIds.size(); from += batchSize) {
+            List<Long> batch = itemIds.subList(from, Math.min(from + batchSize, itemIds.size()));
+            Map<Long, Double> previous = snapshotRepository.findLatest(batch, upTo).stream()
+                    .collect(Collectors.toMap(StockSnapshot::getInventoryItemId, StockSnapshot::getStockedAmount, (a, b) -> a));
+
+            List<StockSnapshot> snapshots = new ArrayList<>(batch.size());
+            for (Object[] row : movementRepository.sumSinceLatestSnapshot(batch, upTo, BEGINNING)) {
+                Long itemId = (Long) row[0];
+                snapshots.add(StockSnapshot.builder()
+                        .inventoryItemId(itemId)
+                        .stockedAmount(previous.getOrDefault(itemId, 0.0) + ((Number) row[1]).doubleValue())
+                        .takenAt(upTo)
+                        .build());
+            }
+            snapshotRepository.saveAll(snapshots);
+            taken += snapshots.size();
+        }
+        return taken;
+    }
+
+    @Override
+    @Transactional
+    public int recordOpeningBalances() {
+        List<Long> itemIds = movementRepository.findItemIdsWithoutMovements();
+        if (itemIds.isEmpty()) {
+            return 0;
+        }
+
+        // Under the item locks no stock change is in flight, an item still without movements has only pre-ledger stock
+        Map<Long, InventoryItem> items = new LinkedHashMap<>();
+        inventoryRepository.lockByIds(itemIds).forEach(item -> items.put(item.getId(), item));
+        movementRepository.findItemIdsWithMovements(items.keySet()).forEach(items::remove);
+
+        LocalDateTime now = LocalDateTime.now(clock);
+        List<StockMovement> openings = new ArrayList<>(items.size());
+        for (InventoryItem item : items.values()) {
+            // Earlier history is unknown, the last update of the item is the best guess of when the stock was set
+            LocalDateTime since = item.getUpdatedAt() != null ? item.getUpdatedAt()
+                    : item.getCreatedAt() != null ? item.getCreatedAt() : now;
+            openings.add(StockMovement.builder()
+                    .inventoryItemId(item.getId())
+                    .delta(item.getStockedAmount())
+                    .reason(StockMovement.Reason.OPENING)
+                    .occurredAt(since)
+                    .build());
+        }
+        movementRepository.saveAll(openings);
+        return openings.size();
+    }
+}
@@ -0,0 +1,117 @@
+package cz.syntaxbro.erpsystem.services.impl;
+
+import cz.syntaxbro.erpsystem.models.StockReservation;
+import cz.syntaxbro.erpsystem.repositories.StockReservationRepository;
+import cz.syntaxbro.erpsystem.services.InventoryService;
+import cz.syntaxbro.erpsystem.services.StockReservationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+@Service
+public class StockReservationServiceImpl implements StockReservationService {
+
+    private final StockReservationRepository reservationRepository;
+    private final InventoryService inventoryService;
+    private final Duration ttl;
+    private final Clock clock;
+
+    @Autowired
+    public StockReservationServiceImpl(StockReservationRepository reservationRepository, InventoryService inventoryService,
+                                       @Value("${orders.reservations.ttl:P2D}") Duration ttl) {
+        this(reservationRepository, inventoryService, ttl, Clock.systemDefaultZone());
+    }
+
+    StockReservationServiceImpl(StockReservationRepository reservationRepository, InventoryService inventoryService,
+                                Duration ttl, Clock clock) {
+        this.reservationRepository = reservationRepository;
+        this.inventoryService = inventoryService;
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reserve(Long orderId, Map<Long, Integer> quantities) {
+        LocalDateTime expiresAt = LocalDateTime.now(clock).plus(ttl);
+        List<StockReservation> reservations = new ArrayList<>(quantities.size());
+
+        // Items in ID order, like every other path that locks several items
+        new TreeMap<>(quantities).forEach((itemId, quantity) -> {
+            inventoryService.reserveStock(itemId, quantity);
+            reservations.add(StockReservation.builder()
+                    .orderId(orderId)
+                    .inventoryItemId(itemId)
+                    .quantity(quantity)
+                    .expiresAt(expiresAt)
+                    .build());
+        });
+        reservationRepository.saveAll(reservations);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<Long, Integer> convert(Long orderId) {
+        Map<Long, Integer> quantities = lock(List.of(orderId)).getOrDefault(orderId, Map.of());
+        quantities.forEach((itemId, quantity) -> inventoryService.takeReservedStock(itemId, quantity, orderId));
+        reservationRepository.deleteByOrderIds(List.of(orderId));
+        return quantities;
+    }
+
+    @Override
+    @Transactional
+    public void release(Long orderId) {
+        Map<Long, Integer> quantities = lock(List.of(orderId)).getOrDefault(orderId, Map.of());
+        if (!quantities.isEmpty()) {
+            quantities.forEach(inventoryService::releaseReservedStock);
+            reservationRepository.deleteByOrderIds(List.of(orderId));
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<Long, Map<Long, Integer>> lock(Collection<Long> orderIds) {
+        Map<Long, Map<Long, Integer>> quantities = new HashMap<>();
+        if (!orderIds.isEmpty()) {
+            for (StockReservation reservation : reservationRepository.lockByOrderIds(orderIds)) {
+                quantities.computeIfAbsent(reservation.getOrderId(), id -> new TreeMap<>())
+                        .merge(reservation.getInventoryItemId(), reservation.getQuantity(), Integer::sum);
+            }
+        }
+        return quantities;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void remove(Collection<Long> orderIds) {
+        if (!orderIds.isEmpty()) {
+            reservationRepository.deleteByOrderIds(orderIds);
+        }
+    }
+
+    @Override
+    @Transactional
+    public int releaseExpired(int limit) {
+        List<StockReservation> expired = reservationRepository.lockExpired(LocalDateTime.now(clock), Limit.of(limit));
+        if (expired.isEmpty()) {
+            return 0;
+        }
+
+        // One update per item, in ID order
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (StockReservation reservation : expired) {
+            quantities.merge(reservation.getInventoryItemId(), reservation.getQuantity(), Integer::sum);
+        }
+        reservationRepository.deleteAllInBatch(expired);
+        quantities.forEach(inventoryService::releaseReservedStock);
+        return expired.size();
+    }
+}
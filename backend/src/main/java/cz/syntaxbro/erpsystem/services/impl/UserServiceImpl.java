@@ -6,6 +6,7 @@ import cz.syntaxbro.erpsystem.requests.UserRequest;
 import cz.syntaxbro.erpsystem.repositories.RoleRepository;
 import cz.syntaxbro.erpsystem.repositories.UserRepository;
 import cz.syntaxbro.erpsystem.requests.CreateUserRequest;
+import cz.syntaxbro.erpsystem.security.services.SecurityStamps;
 import cz.syntaxbro.erpsystem.services.UserService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -24,11 +25,14 @@ public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final PasswordEncoder encoder;
+    private final SecurityStamps securityStamps;
 
-    public UserServiceImpl(UserRepository userRepository, RoleRepository roleRepository, PasswordEncoder encoder) {
+    public UserServiceImpl(UserRepository userRepository, RoleRepository roleRepository, PasswordEncoder encoder,
+                           SecurityStamps securityStamps) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.encoder = encoder;
+        this.securityStamps = securityStamps;
     }
 
     @Override
@@ -66,6 +70,8 @@ public class UserServiceImpl implements UserService {
         var optionalUser = getUserByIdOrThrow(id);
         if (optionalUser.isPresent()) {
             User user = optionalUser.get();
+            boolean wasActive = user.isActive();
+            Set<String> previousRoles = roleNames(user);
 
             user.setUsername(userDto.getUsername());
             user.setFirstName(userDto.getFirstName());
@@ -77,6 +83,10 @@ public class UserServiceImpl implements UserService {
                     .filter(Optional::isPresent)
                     .map(Optional::get).collect(Collectors.toSet()));
 
+            // Tokens carry the roles, issued ones must not outlive a change of them or a deactivation
+            if (wasActive != user.isActive() || !previousRoles.equals(roleNames(user))) {
+                securityStamps.revoke(user.getEmail());
+            }
             return userRepository.save(user);
         }
         throw new IllegalArgumentException("User not found: " + id);
@@ -84,10 +94,15 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public void deleteUser(Long id) {
-        if (!userRepository.existsById(id)) {
-            throw new IllegalArgumentException("User not found with id: " + id);
-        }
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("User not found with id: " + id));
         userRepository.deleteById(id);
+        securityStamps.revoke(user.getEmail());
+    }
+
+    private static Set<String> roleNames(User user) {
+        return user.getRoles() == null ? Set.of()
+                : user.getRoles().stream().map(Role::getName).collect(Collectors.toSet());
     }
 
     // Helper method to get the user by ID or throw an exception if the user does not exist.
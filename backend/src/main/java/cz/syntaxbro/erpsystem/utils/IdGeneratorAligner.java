@@ -0,0 +1,62 @@
+package cz.syntaxbro.erpsystem.utils;
+
+import cz.syntaxbro.erpsystem.ErpSystemApplication;
+import cz.syntaxbro.erpsystem.constants.IdGenerators;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Moves the pooled id generators past the ids already stored in their tables, before anything is inserted.
+ * Rows created while the tables still used IDENTITY ids would otherwise collide with the generated ones;
+ * once the generators are ahead this is a no-op.
+ */
+@Component
+public class IdGeneratorAligner {
+
+    // Generator name -> table it generates ids for
+    static final Map<String, String> GENERATED_TABLES = Map.of(
+            "orders", "orders",
+            "order_items", "order_items");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Takes the entity manager factory only to be created after it, i.e. after Hibernate has updated the schema.
+     */
+    @Autowired
+    public IdGeneratorAligner(JdbcTemplate jdbcTemplate, @SuppressWarnings("unused") EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void align() {
+        GENERATED_TABLES.forEach(this::align);
+    }
+
+    private void align(String generator, String table) {
+        long maxId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from " + table, Long.class);
+        if (maxId == 0) {
+            return;
+        }
+
+        // The pooled optimizer hands out the ALLOCATION_SIZE ids below the stored value
+        long nextValue = maxId + IdGenerators.ALLOCATION_SIZE;
+        int updated = jdbcTemplate.update("update " + IdGenerators.TABLE + " set " + IdGenerators.VALUE_COLUMN + " = ? " +
+                "where " + IdGenerators.NAME_COLUMN + " = ? and " + IdGenerators.VALUE_COLUMN + " < ?", nextValue, generator, nextValue);
+
+        if (updated == 0 && jdbcTemplate.queryForObject("select count(*) from " + IdGenerators.TABLE +
+                " where " + IdGenerators.NAME_COLUMN + " = ?", Long.class, generator) == 0) {
+            jdbcTemplate.update("insert into " + IdGenerators.TABLE + " (" + IdGenerators.NAME_COLUMN + ", " +
+                    IdGenerators.VALUE_COLUMN + ") values (?, ?)", generator, nextValue);
+            updated = 1;
+        }
+        if (updated > 0) {
+            ErpSystemApplication.getLogger().info("Id generator '{}' moved to {}", generator, nextValue);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package cz.syntaxbro.erpsystem.utils;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * The connections {@link PooledTableIdGenerator} reserves blocks of ids over: a small pool of its own, to the same
+ * database and with the same settings as the application pool, handed to Hibernate as a setting.
+ */
+@Component
+public class IdGeneratorPool implements HibernatePropertiesCustomizer {
+
+    private final HikariDataSource dataSource;
+
+    @Autowired
+    public IdGeneratorPool(DataSource applicationDataSource, @Value("${id-generators.pool-size:2}") int poolSize) throws SQLException {
+        if (!applicationDataSource.isWrapperFor(HikariDataSource.class)) {
+            // Not pooled, the generators take their connections from Hibernate
+            this.dataSource = null;
+            return;
+        }
+
+        HikariDataSource applicationPool = applicationDataSource.unwrap(HikariDataSource.class);
+        HikariConfig config = new HikariConfig();
+        applicationPool.copyStateTo(config);
+        config.setPoolName("id-generators");
+        config.setMaximumPoolSize(poolSize);
+        config.setMinimumIdle(1);
+        this.dataSource = new HikariDataSource(config);
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        if (dataSource != null) {
+            hibernateProperties.put(PooledTableIdGenerator.DATA_SOURCE, dataSource);
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+}
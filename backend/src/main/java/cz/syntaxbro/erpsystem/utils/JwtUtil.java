@@ -2,16 +2,23 @@ package cz.syntaxbro.erpsystem.utils;
 
 import cz.syntaxbro.erpsystem.ErpSystemApplication;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
@@ -20,10 +27,20 @@ import java.util.logging.Level;
 @Component
 public class JwtUtil {
 
+    public static final String ROLES_CLAIM = "roles";
+    public static final String STAMP_CLAIM = "stamp";
+    // Refresh token family the access and refresh tokens were issued in, the refresh tokens are identified by jti
+    public static final String FAMILY_CLAIM = "fid";
+    public static final Duration REFRESH_TOKEN_VALIDITY = Duration.ofHours(12);
+
     // Injected from application.properties
     @Value("${jwt_secret}")
     private String secret;
 
+    // Built from the secret on first use, both are immutable and thread-safe
+    private volatile SecretKey signingKey;
+    private volatile JwtParser parser;
+
     // Extractions from JWT
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
@@ -34,12 +51,54 @@ public class JwtUtil {
         return claimsResolver.apply(claims);
     }
 
+    /**
+     * Verifies the signature and the expiration of the token and returns its claims, one parse for all the claims needed.
+     *
+     * @throws io.jsonwebtoken.JwtException when the token is malformed, forged or expired
+     */
+    public Claims parseClaims(String token) {
+        JwtParser jwtParser = parser;
+        if (jwtParser == null) {
+            jwtParser = Jwts.parser().verifyWith(getSigningKey()).build();
+            parser = jwtParser;
+        }
+        return jwtParser.parseSignedClaims(token).getPayload();
+    }
+
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parseClaims(token);
+    }
+
+    /**
+     * The authorities the token was issued with, the role names.
+     */
+    public static List<GrantedAuthority> extractAuthorities(Claims claims) {
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        if (claims.get(ROLES_CLAIM) instanceof Collection<?> roles) {
+            for (Object role : roles) {
+                // Tokens issued before the roles were names carry the serialized authorities
+                Object name = role instanceof Map<?, ?> authority ? authority.get("authority") : role;
+                if (name != null) {
+                    authorities.add(new SimpleGrantedAuthority(name.toString()));
+                }
+            }
+        }
+        return authorities;
+    }
+
+    /**
+     * The security stamp the token was issued with, 0 for tokens without one.
+     */
+    public static long extractStamp(Claims claims) {
+        Number stamp = claims.get(STAMP_CLAIM, Number.class);
+        return stamp != null ? stamp.longValue() : 0L;
+    }
+
+    /**
+     * The refresh token family the token was issued in, null for tokens issued outside of one.
+     */
+    public static String extractFamily(Claims claims) {
+        return claims.get(FAMILY_CLAIM, String.class);
     }
 
     public Date extractExpiration(String token) {
@@ -69,7 +128,7 @@ public class JwtUtil {
     public String generateRefreshToken(Map<String, Object> claims, String username) {
         Calendar calendar = Calendar.getInstance();
         calendar.setTime(new Date());
-        calendar.add(Calendar.HOUR, 12);
+        calendar.add(Calendar.SECOND, (int) REFRESH_TOKEN_VALIDITY.toSeconds());
 
         ErpSystemApplication.getLogger().warn("Generated refresh token: {}", calendar.getTime());
         return Jwts.builder()
@@ -82,24 +141,53 @@ public class JwtUtil {
     }
 
     public String generateToken(UserDetails userDetails) {
-        Map<String, Object> claims = new HashMap<>();
-        claims.put("roles", userDetails.getAuthorities());
+        return generateToken(userDetails, 0L);
+    }
+
+    public String generateToken(UserDetails userDetails, long stamp) {
+        return generateToken(userClaims(userDetails, stamp), userDetails.getUsername());
+    }
+
+    public String generateToken(UserDetails userDetails, long stamp, String familyId) {
+        Map<String, Object> claims = userClaims(userDetails, stamp);
+        claims.put(FAMILY_CLAIM, familyId);
         return generateToken(claims, userDetails.getUsername());
     }
 
     public String generateRefreshToken(UserDetails userDetails) {
-        Map<String, Object> claims = new HashMap<>();
-        claims.put("roles", userDetails.getAuthorities());
+        return generateRefreshToken(userDetails, 0L);
+    }
+
+    public String generateRefreshToken(UserDetails userDetails, long stamp) {
+        return generateRefreshToken(userClaims(userDetails, stamp), userDetails.getUsername());
+    }
+
+    public String generateRefreshToken(UserDetails userDetails, long stamp, String familyId, String tokenId) {
+        Map<String, Object> claims = userClaims(userDetails, stamp);
+        claims.put(FAMILY_CLAIM, familyId);
+        claims.put(Claims.ID, tokenId);
         return generateRefreshToken(claims, userDetails.getUsername());
     }
 
+    private static Map<String, Object> userClaims(UserDetails userDetails, long stamp) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(ROLES_CLAIM, userDetails.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+        claims.put(STAMP_CLAIM, stamp);
+        return claims;
+    }
+
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        final Claims claims = extractAllClaims(token);
+        return (claims.getSubject().equals(userDetails.getUsername()) && claims.getExpiration().after(new Date()));
     }
 
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+        SecretKey key = signingKey;
+        if (key == null) {
+            key = Keys.hmacShaKeyFor(secret.getBytes());
+            signingKey = key;
+        }
+        return key;
     }
 
 }
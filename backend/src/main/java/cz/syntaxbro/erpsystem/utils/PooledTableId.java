@@ -0,0 +1,24 @@
+package cz.syntaxbro.erpsystem.utils;
+
+import cz.syntaxbro.erpsystem.constants.IdGenerators;
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates the id from its row of the {@link IdGenerators#TABLE} table, {@link IdGenerators#ALLOCATION_SIZE} ids
+ * per trip to the table, see {@link PooledTableIdGenerator}.
+ */
+@IdGeneratorType(PooledTableIdGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface PooledTableId {
+
+    /**
+     * The name of the generator, its row in the table.
+     */
+    String value();
+}
@@ -0,0 +1,161 @@
+package cz.syntaxbro.erpsystem.utils;
+
+import cz.syntaxbro.erpsystem.constants.IdGenerators;
+import org.hibernate.HibernateException;
+import org.hibernate.MappingException;
+import org.hibernate.boot.model.relational.QualifiedName;
+import org.hibernate.boot.model.relational.SqlStringGenerationContext;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.engine.jdbc.env.spi.JdbcEnvironment;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.AnnotationBasedGenerator;
+import org.hibernate.generator.GeneratorCreationContext;
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.hibernate.id.enhanced.TableGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Member;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Properties;
+
+/**
+ * The pooled table generator of {@link PooledTableId}, on the shared {@link IdGenerators#TABLE} table.
+ * <p>
+ * Hibernate's table generator reserves the next block of ids in a transaction of its own, on a second connection
+ * taken from the application pool while the connection of the inserting transaction is held. With every pooled
+ * connection held by a transaction waiting for its block, nobody gets that second connection until the pool times
+ * out. The blocks are therefore reserved over the small pool of {@link IdGeneratorPool} instead, which nothing else
+ * uses and which is never held for longer than one reservation. Without that pool (e.g. an embedded test database
+ * that is not pooled) the block is reserved the way Hibernate does it.
+ */
+public class PooledTableIdGenerator extends TableGenerator implements AnnotationBasedGenerator<PooledTableId> {
+
+    /**
+     * Hibernate setting holding the {@link DataSource} the blocks are reserved over.
+     */
+    public static final String DATA_SOURCE = "erp.id-generators.data-source";
+
+    private String name;
+    private QualifiedName tableName;
+    private boolean storeLastUsedValue;
+    private DataSource dataSource;
+    private String selectQuery;
+    private String insertQuery;
+    private String updateQuery;
+
+    @Override
+    public void initialize(PooledTableId annotation, Member member, GeneratorCreationContext context) {
+        this.name = annotation.value();
+    }
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) throws MappingException {
+        // The same settings a @TableGenerator on the table had, so the stored values stay valid
+        parameters.setProperty(TABLE_PARAM, IdGenerators.TABLE);
+        parameters.setProperty(SEGMENT_COLUMN_PARAM, IdGenerators.NAME_COLUMN);
+        parameters.setProperty(VALUE_COLUMN_PARAM, IdGenerators.VALUE_COLUMN);
+        parameters.setProperty(SEGMENT_VALUE_PARAM, name);
+        parameters.setProperty(INCREMENT_PARAM, String.valueOf(IdGenerators.ALLOCATION_SIZE));
+        parameters.setProperty(INITIAL_PARAM, "1");
+        super.configure(type, parameters, serviceRegistry);
+
+        ConfigurationService configuration = serviceRegistry.requireService(ConfigurationService.class);
+        storeLastUsedValue = configuration.getSetting(AvailableSettings.TABLE_GENERATOR_STORE_LAST_USED, StandardConverters.BOOLEAN, true);
+        dataSource = (DataSource) configuration.getSettings().get(DATA_SOURCE);
+        tableName = determineGeneratorTableName(parameters, serviceRegistry.requireService(JdbcEnvironment.class), serviceRegistry);
+    }
+
+    @Override
+    public void initialize(SqlStringGenerationContext context) {
+        super.initialize(context);
+        String table = context.format(tableName);
+        selectQuery = buildSelectQuery(table, context);
+        insertQuery = buildInsertQuery(table, context);
+        updateQuery = buildUpdateQuery(table, context);
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        if (dataSource == null) {
+            return super.generate(session, object);
+        }
+        return getOptimizer().generate(new AccessCallback() {
+            @Override
+            public IntegralDataTypeHolder getNextValue() {
+                return reserveBlock();
+            }
+
+            @Override
+            public String getTenantIdentifier() {
+                return session.getTenantIdentifier();
+            }
+        });
+    }
+
+    /**
+     * Moves the stored value past the next block, like {@link TableGenerator} does, and commits right away.
+     *
+     * @return The value the optimizer derives the block from
+     */
+    private IntegralDataTypeHolder reserveBlock() {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                IntegralDataTypeHolder value = IdentifierGeneratorHelper.getIntegralDataTypeHolder(getIdentifierType().getReturnedClass());
+                int updated;
+                do {
+                    readOrInsert(connection, value);
+
+                    IntegralDataTypeHolder next = value.copy();
+                    if (getOptimizer().applyIncrementSizeToSourceValues()) {
+                        next.add(getIncrementSize());
+                    } else {
+                        next.increment();
+                    }
+                    try (PreparedStatement update = connection.prepareStatement(updateQuery)) {
+                        next.bind(update, 1);
+                        value.bind(update, 2);
+                        update.setString(3, getSegmentValue());
+                        updated = update.executeUpdate();
+                    }
+                } while (updated == 0);
+
+                connection.commit();
+                return storeLastUsedValue ? value.increment() : value;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new HibernateException("Could not reserve ids of generator '" + getSegmentValue() + "'", e);
+        }
+    }
+
+    private void readOrInsert(Connection connection, IntegralDataTypeHolder value) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement(selectQuery)) {
+            select.setString(1, getSegmentValue());
+            try (ResultSet resultSet = select.executeQuery()) {
+                if (resultSet.next()) {
+                    value.initialize(resultSet, storeLastUsedValue ? 0 : 1);
+                    return;
+                }
+            }
+        }
+
+        value.initialize(storeLastUsedValue ? getInitialValue() - 1 : getInitialValue());
+        try (PreparedStatement insert = connection.prepareStatement(insertQuery)) {
+            insert.setString(1, getSegmentValue());
+            value.bind(insert, 2);
+            insert.executeUpdate();
+        }
+    }
+}
@@ -2,10 +2,18 @@ package cz.syntaxbro.erpsystem.configs;
 
 import cz.syntaxbro.erpsystem.models.Role;
 import cz.syntaxbro.erpsystem.models.User;
+import cz.syntaxbro.erpsystem.security.PasswordHashingExecutor;
 import cz.syntaxbro.erpsystem.security.PasswordSecurity;
+import cz.syntaxbro.erpsystem.security.Pbkdf2PasswordHasher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -13,7 +21,9 @@ import static org.junit.jupiter.api.Assertions.*;
 
 class PasswordSecurityTest {
 
-    private final PasswordSecurity passwordSecurity = new PasswordSecurity();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PasswordSecurity passwordSecurity = new PasswordSecurity(
+            new Pbkdf2PasswordHasher(Duration.ofMillis(1), 1000), new PasswordHashingExecutor(meterRegistry, 1, 4, Duration.ofSeconds(5)));
     private User user;
 
     /**
@@ -64,4 +74,40 @@ class PasswordSecurityTest {
         boolean isValidated = passwordSecurity.passwordValidator(this.user.getPassword());
         assertTrue(isValidated);
     }
-}
\ No newline at end of file
+
+    /**
+     * Test: Ensures that an encoded password matches the raw password and that
+     * every encoding is salted differently.
+     */
+    @Test
+    void hashPasswordWithSalt() {
+        assertTrue(passwordSecurity.matches("Password123@", this.user.getPassword()));
+        assertNotEquals(this.user.getPassword(), passwordSecurity.encode("Password123@"));
+        assertFalse(passwordSecurity.upgradeEncoding(this.user.getPassword()));
+        // The hashes of setUp and of the test, one verification
+        assertEquals(2, meterRegistry.get("security.password.hashing.duration").tag("operation", "hash").timer().count());
+        assertEquals(1, meterRegistry.get("security.password.hashing.duration").tag("operation", "verify").timer().count());
+    }
+
+    /**
+     * Test: Ensures that a password stored as the legacy unsalted SHA-256 still matches
+     * and is reported for a rehash.
+     */
+    @Test
+    void legacyHashMatchesAndNeedsUpgrade() {
+        // SHA-256 of "Password123@" in Base64
+        String legacyHash = Base64.getEncoder().encodeToString(sha256("Password123@"));
+
+        assertTrue(passwordSecurity.matches("Password123@", legacyHash));
+        assertFalse(passwordSecurity.matches("Password123", legacyHash));
+        assertTrue(passwordSecurity.upgradeEncoding(legacyHash));
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package cz.syntaxbro.erpsystem.controllers;
 import cz.syntaxbro.erpsystem.models.Role;
 import cz.syntaxbro.erpsystem.models.User;
 import cz.syntaxbro.erpsystem.requests.LoginRequest;
+import cz.syntaxbro.erpsystem.responses.JWTResponse;
 import cz.syntaxbro.erpsystem.requests.SignUpRequest;
 import cz.syntaxbro.erpsystem.services.AuthService;
 import org.junit.jupiter.api.BeforeEach;
@@ -95,8 +96,7 @@ class AuthControllerTest {
         String mockToken = "mocked-jwt-token";
         String mockRefreshToken = "mocked-refresh-token";
 
-        when(authService.authenticateUser(any(LoginRequest.class))).thenReturn(mockToken);
-        when(authService.getRefreshToken(any(LoginRequest.class))).thenReturn(mockRefreshToken);
+        when(authService.login(any(LoginRequest.class))).thenReturn(new JWTResponse(mockToken, mockRefreshToken));
 
         mockMvc.perform(post("/api/auth/public/login")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -104,7 +104,7 @@ class AuthControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().string(String.format("{\"accessToken\":\"%s\",\"refreshToken\":\"%s\"}", mockToken, mockRefreshToken)));
 
-        verify(authService, times(1)).authenticateUser(any(LoginRequest.class));
+        verify(authService, times(1)).login(any(LoginRequest.class));
     }
 
     /**
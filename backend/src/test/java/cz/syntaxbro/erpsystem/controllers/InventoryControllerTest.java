@@ -4,6 +4,8 @@ import cz.syntaxbro.erpsystem.models.InventoryItem;
 import cz.syntaxbro.erpsystem.models.Product;
 import cz.syntaxbro.erpsystem.repositories.InventoryRepository;
 import cz.syntaxbro.erpsystem.requests.InventoryItemRequest;
+import cz.syntaxbro.erpsystem.responses.StockAsOfResponse;
+import cz.syntaxbro.erpsystem.responses.StockHistoryResponse;
 import cz.syntaxbro.erpsystem.services.InventoryService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,6 +16,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -21,6 +24,7 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -134,4 +138,41 @@ class InventoryControllerTest {
         ResponseEntity<?> response = inventoryController.removeItem(1L);
         assertEquals(HttpStatus.OK, response.getStatusCode());
     }
-}
\ No newline at end of file
+
+    /**
+     * Test: Stock of all items at the end of a month
+     * Expected result: 200 OK + the stock levels at the requested time
+     */
+    @Test
+    void testGetStockAsOf() {
+        LocalDateTime monthEnd = LocalDateTime.of(2025, 1, 31, 23, 59, 59);
+        StockAsOfResponse stock = StockAsOfResponse.builder()
+                .asOf(monthEnd)
+                .items(List.of(StockAsOfResponse.Item.builder().itemId(1L).productId(1L).productName("testName").stockedAmount(7).build()))
+                .build();
+        when(inventoryService.getStockAsOf(monthEnd)).thenReturn(stock);
+
+        ResponseEntity<StockAsOfResponse> response = inventoryController.getStockAsOf(monthEnd);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(stock, response.getBody());
+    }
+
+    /**
+     * Test: Stock history of an item without a window
+     * Expected result: 200 OK, the history of the last month up to now is requested
+     */
+    @Test
+    void testGetStockHistoryDefaultsToLastMonth() {
+        StockHistoryResponse history = StockHistoryResponse.builder().itemId(1L).movements(List.of()).build();
+        when(inventoryService.getStockHistory(eq(1L), any(), any())).thenReturn(history);
+
+        ResponseEntity<StockHistoryResponse> response = inventoryController.getStockHistory(1L, null, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(history, response.getBody());
+        verify(inventoryService).getStockHistory(eq(1L),
+                argThat(from -> from.isBefore(LocalDateTime.now().minusDays(27))),
+                argThat(to -> !to.isBefore(LocalDateTime.now().minusMinutes(1))));
+    }
+}
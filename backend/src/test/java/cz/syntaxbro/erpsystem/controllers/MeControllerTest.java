@@ -5,7 +5,9 @@ import cz.syntaxbro.erpsystem.requests.UserRequest;
 import cz.syntaxbro.erpsystem.repositories.UserRepository;
 import cz.syntaxbro.erpsystem.requests.PasswordChangeRequest;
 import cz.syntaxbro.erpsystem.security.FileStorageConfig;
+import cz.syntaxbro.erpsystem.security.PasswordSecurity;
 import cz.syntaxbro.erpsystem.services.AuthService;
+import cz.syntaxbro.erpsystem.services.RefreshTokenService;
 import cz.syntaxbro.erpsystem.services.impl.FileStorageServiceImp;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -41,6 +43,12 @@ class MeControllerTest {
     @Mock
     private FileStorageServiceImp fileStorageService;
 
+    @Mock
+    private RefreshTokenService refreshTokenService;
+
+    @Mock
+    private PasswordSecurity passwordSecurity;
+
     @InjectMocks
     private MeController meController;
 
@@ -106,13 +114,15 @@ class MeControllerTest {
         passwordChangeRequest.setPassword("NewSecurePassword!123");
 
         when(authService.getCurrentUser()).thenReturn(testUser);
+        when(passwordSecurity.encode("NewSecurePassword!123")).thenReturn("newHashedPassword");
+        when(userRepository.save(testUser)).thenReturn(testUser);
 
         ResponseEntity<User> response = meController.changePassword(passwordChangeRequest);
 
         // Ensure response is not null before accessing its body
         assertThat(response).isNotNull();
         assertThat(response.getBody()).isNotNull();
-        assertThat(response.getBody().getPassword()).isNotBlank();
+        assertThat(response.getBody().getPassword()).isEqualTo("newHashedPassword");
 
         verify(authService, times(1)).getCurrentUser();
     }
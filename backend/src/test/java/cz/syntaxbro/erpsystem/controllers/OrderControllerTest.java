@@ -2,16 +2,26 @@ package cz.syntaxbro.erpsystem.controllers;
 
 import cz.syntaxbro.erpsystem.models.Order;
 import cz.syntaxbro.erpsystem.models.OrderItem;
+import cz.syntaxbro.erpsystem.requests.BulkOrderRequest;
 import cz.syntaxbro.erpsystem.requests.OrderCreateRequest;
+import cz.syntaxbro.erpsystem.requests.OrderPageRequest;
+import cz.syntaxbro.erpsystem.responses.BulkOrderResponse;
+import cz.syntaxbro.erpsystem.responses.OrderPageResponse;
 import cz.syntaxbro.erpsystem.responses.OrderResponse;
+import cz.syntaxbro.erpsystem.services.OrderExportService;
 import cz.syntaxbro.erpsystem.services.OrderService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
@@ -24,6 +34,9 @@ public class OrderControllerTest {
     @Mock
     private OrderService orderService;
 
+    @Mock
+    private OrderExportService orderExportService;
+
     @InjectMocks
     private OrderController orderController;
 
@@ -113,6 +126,51 @@ public class OrderControllerTest {
         assertEquals(orders, response.getBody());
     }
 
+    /**
+     * Test: Confirms and cancels orders in bulk.
+     * Expected outcome:
+     * - The order IDs and the comment are passed to the service, its per-order results are returned.
+     */
+    @Test
+    public void testBulkConfirmAndCancel() {
+        BulkOrderRequest request = BulkOrderRequest.builder().orderIds(List.of(1L, 2L)).comment("bulk").build();
+        BulkOrderResponse result = BulkOrderResponse.builder().succeeded(2).failed(0).results(List.of()).build();
+        when(orderService.confirmOrders(List.of(1L, 2L), "bulk")).thenReturn(result);
+        when(orderService.cancelOrders(List.of(1L, 2L), "bulk")).thenReturn(result);
+
+        ResponseEntity<BulkOrderResponse> confirmed = orderController.confirmOrders(request);
+        ResponseEntity<BulkOrderResponse> canceled = orderController.cancelOrders(request);
+
+        assertEquals(200, confirmed.getStatusCode().value());
+        assertEquals(result, confirmed.getBody());
+        assertEquals(result, canceled.getBody());
+    }
+
+    /**
+     * Test: Retrieves one filtered page of orders.
+     * Expected outcome:
+     * - The query parameters are passed to the service as one page request.
+     * - The response body contains the page and its cursor.
+     */
+    @Test
+    public void testGetOrderPage() {
+        OrderPageResponse page = OrderPageResponse.builder().orders(List.of(this.orderResponse)).nextCursor("next").build();
+        ArgumentCaptor<OrderPageRequest> captor = ArgumentCaptor.forClass(OrderPageRequest.class);
+        when(orderService.getOrderPage(captor.capture())).thenReturn(page);
+
+        ResponseEntity<OrderPageResponse> response = orderController.getOrderPage(Order.Status.CONFIRMED, null,
+                LocalDate.of(2025, 1, 1), null, 3L, 7L, OrderPageRequest.Sort.ID, "cursor", 20);
+
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(page, response.getBody());
+        assertEquals(Order.Status.CONFIRMED, captor.getValue().getStatus());
+        assertEquals(3L, captor.getValue().getApprovedById());
+        assertEquals(7L, captor.getValue().getProductId());
+        assertEquals(OrderPageRequest.Sort.ID, captor.getValue().getSort());
+        assertEquals("cursor", captor.getValue().getCursor());
+        assertEquals(20, captor.getValue().getLimit());
+    }
+
     /**
      * Test: Creates a new order.
      * Expected outcome:
@@ -140,4 +198,26 @@ public class OrderControllerTest {
         assertEquals(200, response.getStatusCode().value());
         assertEquals(createdOrder, response.getBody());
     }
-} 
\ No newline at end of file
+
+    /**
+     * Test: Exports orders as NDJSON.
+     * Expected outcome:
+     * - The response is an attachment with the NDJSON content type.
+     * - The export runs only when the streamed body is written.
+     */
+    @Test
+    public void testExportOrders() throws Exception {
+        LocalDate startDate = LocalDate.of(2025, 2, 1);
+
+        ResponseEntity<StreamingResponseBody> response = orderController.exportOrders(startDate, null, null, "ndjson");
+
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals("application/x-ndjson", String.valueOf(response.getHeaders().getContentType()));
+        assertEquals("attachment; filename=\"orders.ndjson\"", response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION));
+        verifyNoInteractions(orderExportService);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        verify(orderExportService).exportOrders(startDate, null, null, OrderExportService.Format.NDJSON, out);
+    }
+}
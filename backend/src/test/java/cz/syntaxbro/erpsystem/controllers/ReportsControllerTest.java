@@ -1,11 +1,15 @@
 package cz.syntaxbro.erpsystem.controllers;
 
 import cz.syntaxbro.erpsystem.models.Order;
+import cz.syntaxbro.erpsystem.responses.reports.DashboardReportDTO;
 import cz.syntaxbro.erpsystem.responses.reports.OrderApprovalReportDTO;
 import cz.syntaxbro.erpsystem.responses.reports.ProductPurchaseReportDTO;
 import cz.syntaxbro.erpsystem.responses.reports.ProductSalesReportDTO;
 import cz.syntaxbro.erpsystem.responses.reports.SalesReportDTO;
+import cz.syntaxbro.erpsystem.responses.reports.SalesSeriesReportDTO;
+import cz.syntaxbro.erpsystem.services.ReportDashboardService;
 import cz.syntaxbro.erpsystem.services.ReportService;
+import cz.syntaxbro.erpsystem.services.SalesRollupService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -30,6 +34,12 @@ public class ReportsControllerTest {
     @Mock
     private ReportService reportService;
 
+    @Mock
+    private SalesRollupService salesRollupService;
+
+    @Mock
+    private ReportDashboardService reportDashboardService;
+
     @InjectMocks
     private ReportsController reportsController;
 
@@ -283,6 +293,45 @@ public class ReportsControllerTest {
         verify(reportService).generateMostPurchasedProductsReport(startDate, endDate, customLimit);
     }
 
+    @Test
+    @WithMockUser(roles = {"ADMIN"})
+    void getSalesSeries_ShouldReturnSeriesForBucket() {
+        // Arrange
+        LocalDate startDate = LocalDate.now().minusMonths(1);
+        LocalDate endDate = LocalDate.now();
+        SalesSeriesReportDTO series = new SalesSeriesReportDTO(startDate, endDate, Order.OrderType.SELL, SalesSeriesReportDTO.Bucket.WEEK);
+
+        when(reportService.generateSalesSeries(startDate, endDate, Order.OrderType.SELL, SalesSeriesReportDTO.Bucket.WEEK)).thenReturn(series);
+
+        // Act
+        ResponseEntity<SalesSeriesReportDTO> response = reportsController.getSalesSeries(startDate, endDate, "sell", "week");
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(series, response.getBody());
+    }
+
+    @Test
+    @WithMockUser(roles = {"ADMIN"})
+    void getDashboard_ShouldReturnCombinedReports() {
+        // Arrange
+        LocalDate startDate = LocalDate.now().minusMonths(1);
+        LocalDate endDate = LocalDate.now();
+        DashboardReportDTO dashboard = new DashboardReportDTO(startDate, endDate);
+        dashboard.setSales(salesReportDTO);
+        dashboard.setOrderApprovals(orderApprovalReportDTOs);
+
+        when(reportDashboardService.generateDashboard(startDate, endDate, Order.OrderType.SELL, 10)).thenReturn(dashboard);
+
+        // Act
+        ResponseEntity<DashboardReportDTO> response = reportsController.getDashboard(startDate, endDate, "sell", 10);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(dashboard, response.getBody());
+        verify(reportDashboardService).generateDashboard(startDate, endDate, Order.OrderType.SELL, 10);
+    }
+
     @Test
     @WithMockUser(roles = {"ADMIN"})
     void getOrderApprovals_WithNullDates_ShouldPassNullToService() {
@@ -297,4 +346,19 @@ public class ReportsControllerTest {
         assertNotNull(response.getBody());
         verify(reportService).generateOrderApprovalsReport(null, null);
     }
-}
\ No newline at end of file
+
+    @Test
+    @WithMockUser(roles = {"ADMIN"})
+    void rebuildSalesRollup_ShouldReturnRowCount() {
+        // Arrange
+        when(salesRollupService.rebuild()).thenReturn(42);
+
+        // Act
+        ResponseEntity<Integer> response = reportsController.rebuildSalesRollup();
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(42, response.getBody());
+        verify(salesRollupService).rebuild();
+    }
+}
@@ -0,0 +1,40 @@
+package cz.syntaxbro.erpsystem.controllers;
+
+import cz.syntaxbro.erpsystem.services.OrderStreamBroadcaster;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.*;
+
+public class StreamControllerTest {
+
+    @Mock
+    private OrderStreamBroadcaster orderStreamBroadcaster;
+
+    @InjectMocks
+    private StreamController streamController;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    /**
+     * Test: Opens the order stream.
+     * Expected outcome:
+     * - The emitter of the newly registered client is returned, so the connection stays open for the events.
+     */
+    @Test
+    public void testStreamOrders() {
+        SseEmitter emitter = new SseEmitter();
+        when(orderStreamBroadcaster.connect()).thenReturn(emitter);
+
+        assertSame(emitter, streamController.streamOrders());
+        verify(orderStreamBroadcaster, times(1)).connect();
+    }
+}
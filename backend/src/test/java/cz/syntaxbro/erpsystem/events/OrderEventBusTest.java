@@ -0,0 +1,121 @@
+package cz.syntaxbro.erpsystem.events;
+
+import cz.syntaxbro.erpsystem.models.Order;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderEventBusTest {
+
+    private final OrderEvent created = new OrderEvent.OrderCreated(1L, Order.OrderType.SELL, 10.0, LocalDateTime.now());
+    private final OrderEvent changed = new OrderEvent.OrderStatusChanged(1L, Order.Status.PENDING, Order.Status.IN_TRANSMIT, LocalDateTime.now());
+
+    private MeterRegistry meterRegistry;
+    private OrderEventBus bus;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        if (bus != null) {
+            bus.shutdown();
+        }
+    }
+
+    /**
+     * Test: Events published inside a transaction wait for the commit.
+     * Expected outcome:
+     * - Nothing is delivered before afterCommit, both events are delivered after it.
+     */
+    @Test
+    void eventsInsideTransactionAreDeliveredAfterCommit() throws InterruptedException {
+        CountDownLatch delivered = new CountDownLatch(2);
+        List<OrderEvent> received = new CopyOnWriteArrayList<>();
+        bus = new OrderEventBus(List.of(event -> {
+            received.add(event);
+            delivered.countDown();
+        }), meterRegistry, 1, 10);
+
+        TransactionSynchronizationManager.initSynchronization();
+        bus.publish(created);
+        bus.publishAll(List.of(changed));
+        assertTrue(received.isEmpty());
+
+        // Simulace commitu transakce
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(created, changed), received);
+        assertEquals(2, meterRegistry.get("orders.events.published").counter().count());
+    }
+
+    /**
+     * Test: A full queue makes the publishing thread deliver the event itself.
+     * Expected outcome:
+     * - With the only worker blocked and the queue full, the next event is delivered on the calling thread and counted.
+     * - A failing subscriber is counted and does not stop the delivery of later events.
+     */
+    @Test
+    void fullQueueRunsOnCallerAndFailuresAreCounted() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Thread> threads = new CopyOnWriteArrayList<>();
+        bus = new OrderEventBus(List.of(event -> {
+            threads.add(Thread.currentThread());
+            if (threads.size() == 1) {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            throw new IllegalStateException("subscriber failure");
+        }), meterRegistry, 1, 1);
+
+        bus.publish(created);  // blocks the worker
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        bus.publish(changed);  // fills the queue
+        bus.publish(changed);  // runs on this thread
+
+        assertEquals(1, meterRegistry.get("orders.events.caller.runs").counter().count());
+        assertSame(Thread.currentThread(), threads.get(1));
+
+        release.countDown();
+        bus.shutdown();
+        assertTrue(allDelivered());
+        assertEquals(3, threads.size());
+        assertEquals(3, meterRegistry.get("orders.events.failures").counter().count());
+    }
+
+    private boolean allDelivered() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("orders.events.delivery").timer().count() < 3) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,79 @@
+package cz.syntaxbro.erpsystem.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoneyTest {
+
+    /**
+     * Test: Adding amounts up in minor units is exact, unlike adding doubles.
+     * Expected Result:
+     * - Ten times 0.10 is exactly 1.00.
+     */
+    @Test
+    public void testSummationIsExact() {
+        double doubleTotal = 0;
+        long minorTotal = 0;
+        for (int i = 0; i < 10; i++) {
+            doubleTotal += 0.1;
+            minorTotal += Money.minorOf(0.1);
+        }
+
+        assertNotEquals(1.0, doubleTotal);
+        assertEquals(Money.of(1.0), Money.ofMinor(minorTotal));
+        assertEquals(new BigDecimal("1.00"), Money.ofMinor(minorTotal).toBigDecimal());
+    }
+
+    /**
+     * Test: Conversions between doubles, BigDecimals and minor units round to the nearest minor unit.
+     */
+    @Test
+    public void testConversions() {
+        assertEquals(1999, Money.minorOf(19.99));
+        assertEquals(Money.ofMinor(1235), Money.of(new BigDecimal("12.345")));
+        assertEquals(-250, Money.of(-2.5).minor());
+        assertEquals(19.99, Money.ofMinor(1999).toDouble());
+        assertEquals("19.99", Money.ofMinor(1999).toString());
+        assertEquals(Money.of(30.0), Money.of(10.0).times(4).minus(Money.of(10.0)));
+        assertTrue(Money.of(0.0).isZero());
+    }
+
+    /**
+     * Test: The converter stores money as minor units and keeps nulls.
+     */
+    @Test
+    public void testConverter() {
+        MoneyConverter converter = new MoneyConverter();
+
+        assertEquals(1999L, converter.convertToDatabaseColumn(Money.of(19.99)));
+        assertEquals(Money.of(19.99), converter.convertToEntityAttribute(1999L));
+        assertNull(converter.convertToDatabaseColumn(null));
+        assertNull(converter.convertToEntityAttribute(null));
+    }
+
+    /**
+     * Test: The order total is priced by the order type and summed in minor units.
+     */
+    @Test
+    public void testOrderTotal() {
+        Product product = Product.builder().buyoutPrice(0.1).purchasePrice(0.05).build();
+        InventoryItem inventoryItem = InventoryItem.builder().product(product).build();
+        List<OrderItem> items = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            items.add(OrderItem.builder().inventoryItem(inventoryItem).quantity(1).build());
+        }
+        Order order = Order.builder().orderType(Order.OrderType.SELL).orderItems(items).build();
+
+        assertEquals(new BigDecimal("0.30"), order.getTotal());
+        assertEquals(30, order.getTotalMinor());
+        assertEquals(Money.of(0.15), order.getTotal(Order.OrderType.PURCHASE));
+
+        order.recalculateTotal();
+        assertEquals(0.3, order.getCost());
+    }
+}
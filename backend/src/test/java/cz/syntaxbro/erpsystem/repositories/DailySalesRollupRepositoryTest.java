@@ -0,0 +1,206 @@
+package cz.syntaxbro.erpsystem.repositories;
+
+import cz.syntaxbro.erpsystem.models.*;
+import cz.syntaxbro.erpsystem.responses.reports.ProductSalesReportDTO;
+import cz.syntaxbro.erpsystem.services.SalesRollupService;
+import cz.syntaxbro.erpsystem.services.impl.SalesRollupServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(SalesRollupServiceImpl.class)
+class DailySalesRollupRepositoryTest {
+
+    private final OrderRepository orderRepository;
+    private final ProductRepository productRepository;
+    private final InventoryRepository inventoryRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final ProductCategoryRepository productCategoryRepository;
+    private final DailySalesRollupRepository rollupRepository;
+    private final SalesRollupService salesRollupService;
+    private final TestEntityManager entityManager;
+
+    @Autowired
+    DailySalesRollupRepositoryTest(TestEntityManager entityManager, OrderRepository orderRepository, ProductRepository productRepository, InventoryRepository inventoryRepository, OrderItemRepository orderItemRepository, ProductCategoryRepository productCategoryRepository, DailySalesRollupRepository rollupRepository, SalesRollupService salesRollupService) {
+        this.orderRepository = orderRepository;
+        this.productRepository = productRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.productCategoryRepository = productCategoryRepository;
+        this.rollupRepository = rollupRepository;
+        this.salesRollupService = salesRollupService;
+        this.entityManager = entityManager;
+    }
+
+    private final LocalDateTime orderTime = LocalDateTime.of(2025, 2, 13, 10, 20);
+    private InventoryItem cheapItem;
+    private InventoryItem expensiveItem;
+
+    /**
+     * Sets up two products with inventory items so each test can place its own orders.
+     */
+    @BeforeEach
+    void setUp() {
+        ProductCategory category = productCategoryRepository.save(ProductCategory.builder()
+                .name("reportCategory")
+                .description("test products")
+                .build());
+
+        Product cheap = productRepository.save(new Product(null, "Cheap", 10.0, 5.0, "Cheap product", null, category));
+        Product expensive = productRepository.save(new Product(null, "Expensive", 100.0, 50.0, "Expensive product", null, category));
+
+        cheapItem = inventoryRepository.save(new InventoryItem(null, cheap, 100, LocalDateTime.now(), null));
+        expensiveItem = inventoryRepository.save(new InventoryItem(null, expensive, 100, LocalDateTime.now(), null));
+    }
+
+    private Order saveOrder(Order.OrderType orderType, LocalDateTime time, InventoryItem item, int quantity) {
+        Order order = orderRepository.save(Order.builder()
+                .orderType(orderType)
+                .status(Order.Status.CONFIRMED)
+                .orderTime(time)
+                .orderItems(new ArrayList<>())
+                .build());
+        order.getOrderItems().add(orderItemRepository.save(OrderItem.builder()
+                .order(order)
+                .inventoryItem(item)
+                .quantity(quantity)
+                .build()));
+        return order;
+    }
+
+    /**
+     * Tests whether `rebuild()` backfills the rollup from confirmed orders and `findProductSales()` groups it by product.
+     * Expected outcome:
+     * - Items of the same product across orders are summed up.
+     * - Purchase orders and orders outside the window are ignored.
+     * - Rows are ordered by revenue and limited by the page size.
+     */
+    @Test
+    void rebuildAndFindProductSalesGroupsByProduct() {
+        saveOrder(Order.OrderType.SELL, orderTime, cheapItem, 3);
+        saveOrder(Order.OrderType.SELL, orderTime.plusHours(1), cheapItem, 2);
+        saveOrder(Order.OrderType.SELL, orderTime, expensiveItem, 1);
+        saveOrder(Order.OrderType.PURCHASE, orderTime, expensiveItem, 50);
+        saveOrder(Order.OrderType.SELL, orderTime.minusDays(7), expensiveItem, 50);
+        orderItemRepository.flush();
+
+        assertEquals(4, salesRollupService.rebuild());
+
+        LocalDate day = orderTime.toLocalDate();
+        List<ProductSalesReportDTO> sales = rollupRepository.findProductSales(day, day, Order.OrderType.SELL, PageRequest.of(0, 10));
+
+        assertEquals(2, sales.size());
+        assertEquals("Expensive", sales.get(0).getProductName());
+        assertEquals(1, sales.get(0).getQuantitySold());
+        assertEquals(0, new BigDecimal("100").compareTo(sales.get(0).getTotalRevenue()));
+        assertEquals("Cheap", sales.get(1).getProductName());
+        assertEquals(5, sales.get(1).getQuantitySold());
+        assertEquals(0, new BigDecimal("50").compareTo(sales.get(1).getTotalRevenue()));
+
+        assertEquals(1, rollupRepository.findProductSales(day, day, Order.OrderType.SELL, PageRequest.of(0, 1)).size());
+        assertEquals(15000L, rollupRepository.sumRevenueMinor(day, day, Order.OrderType.SELL));
+        assertEquals(250000L, rollupRepository.sumRevenueMinor(day, day, Order.OrderType.PURCHASE));
+    }
+
+    /**
+     * Tests whether `applyStatusChange()` adds an order when it gets confirmed and removes it again when it leaves that status.
+     * Expected outcome:
+     * - The rollup row is created on confirmation with the quantity, revenue and order count of the order.
+     * - Canceling the same order brings the row back to zero.
+     */
+    @Test
+    void applyStatusChangeKeepsRollupInSync() {
+        Order order = saveOrder(Order.OrderType.SELL, orderTime, cheapItem, 4);
+        DailySalesRollup.Key key = new DailySalesRollup.Key(orderTime.toLocalDate(), Order.OrderType.SELL, cheapItem.getProduct().getId());
+
+        salesRollupService.applyStatusChange(order, Order.Status.PENDING, Order.Status.CONFIRMED);
+        salesRollupService.applyStatusChange(order, Order.Status.PENDING, Order.Status.CONFIRMED);
+        entityManager.clear();
+
+        DailySalesRollup row = rollupRepository.findById(key).orElseThrow();
+        assertEquals(8, row.getQuantity());
+        assertEquals(Money.of(80.0), row.getRevenue());
+        assertEquals(2, row.getOrderCount());
+
+        salesRollupService.applyStatusChange(order, Order.Status.CONFIRMED, Order.Status.CANCELED);
+        salesRollupService.applyStatusChange(order, Order.Status.PENDING, Order.Status.CANCELED);
+
+        entityManager.clear();
+        row = rollupRepository.findById(key).orElseThrow();
+        assertEquals(4, row.getQuantity());
+        assertEquals(Money.of(40.0), row.getRevenue());
+        assertEquals(1, row.getOrderCount());
+    }
+
+    /**
+     * Tests whether an order leaving the CONFIRMED status is removed with the prices it was added with.
+     * Expected outcome:
+     * - A price change between the confirmation and the cancellation leaves no revenue behind.
+     * - A rebuild counts the line at the price it was confirmed with.
+     */
+    @Test
+    void applyStatusChangeRemovesOrderAtConfirmedPrice() {
+        Order order = saveOrder(Order.OrderType.SELL, orderTime, cheapItem, 4);
+        DailySalesRollup.Key key = new DailySalesRollup.Key(orderTime.toLocalDate(), Order.OrderType.SELL, cheapItem.getProduct().getId());
+
+        salesRollupService.applyStatusChange(order, Order.Status.PENDING, Order.Status.CONFIRMED);
+        cheapItem.getProduct().setBuyoutPrice(12.5);
+        orderItemRepository.flush();
+        assertEquals(1, salesRollupService.rebuild());
+        entityManager.clear();
+        assertEquals(Money.of(40.0), rollupRepository.findById(key).orElseThrow().getRevenue());
+
+        salesRollupService.applyStatusChange(order, Order.Status.CONFIRMED, Order.Status.CANCELED);
+
+        entityManager.clear();
+        DailySalesRollup row = rollupRepository.findById(key).orElseThrow();
+        assertEquals(0, row.getQuantity());
+        assertEquals(Money.ZERO, row.getRevenue());
+        assertEquals(0, row.getOrderCount());
+    }
+
+    /**
+     * Tests whether `sumRevenueByDay()` and `OrderRepository.countByDay()` group the sales of the window per day.
+     * Expected outcome:
+     * - One row per day with sales, ordered by day, holding the revenue / the number of confirmed orders of that day.
+     */
+    @Test
+    void sumRevenueAndCountOrdersByDay() {
+        saveOrder(Order.OrderType.SELL, orderTime, cheapItem, 3);
+        saveOrder(Order.OrderType.SELL, orderTime.plusHours(1), expensiveItem, 1);
+        saveOrder(Order.OrderType.SELL, orderTime.plusDays(2), cheapItem, 1);
+        saveOrder(Order.OrderType.PURCHASE, orderTime, expensiveItem, 50);
+        orderItemRepository.flush();
+        salesRollupService.rebuild();
+
+        LocalDate day = orderTime.toLocalDate();
+        List<Object[]> revenue = rollupRepository.sumRevenueByDay(day, day.plusDays(7), Order.OrderType.SELL);
+
+        assertEquals(2, revenue.size());
+        assertEquals(day, revenue.get(0)[0]);
+        assertEquals(13000L, ((Number) revenue.get(0)[1]).longValue());
+        assertEquals(day.plusDays(2), revenue.get(1)[0]);
+        assertEquals(1000L, ((Number) revenue.get(1)[1]).longValue());
+
+        Map<Object, Long> orders = new HashMap<>();
+        for (Object[] row : orderRepository.countByDay(day.atStartOfDay(), day.plusDays(7).atStartOfDay(), Order.Status.CONFIRMED, Order.OrderType.SELL)) {
+            orders.put(row[0], ((Number) row[1]).longValue());
+        }
+        assertEquals(Map.of(day, 2L, day.plusDays(2), 1L), orders);
+    }
+}
@@ -11,6 +11,7 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -100,6 +101,27 @@ public class InventoryRepositoryTest {
 //        assertEquals(20, updatedItem.getQuantity(), "The quantity should be updated to 20");
     }
 
+    /**
+     * Test case for locking inventory items before changing their stock.
+     * It verifies that the items are returned in id order and unknown ids are ignored.
+     */
+    @Test
+    void lockByIds_shouldReturnItemsInIdOrder() {
+        ProductCategory productCategory = productCategoryRepository.findByName("test").orElseThrow();
+        Product otherProduct = productRepository.save(Product.builder()
+                .name("Other Product")
+                .description("description")
+                .buyoutPrice(10)
+                .purchasePrice(20)
+                .productCategory(productCategory)
+                .build());
+        InventoryItem otherItem = inventoryRepository.save(InventoryItem.builder().product(otherProduct).stockedAmount(5).build());
+
+        List<InventoryItem> locked = inventoryRepository.lockByIds(List.of(otherItem.getId(), testItem.getId(), 999L));
+
+        assertEquals(List.of(testItem.getId(), otherItem.getId()), locked.stream().map(InventoryItem::getId).toList());
+    }
+
     /**
      * Test case for updating a non-existing inventory item.
      * This verifies that attempting to update an item that does not exist
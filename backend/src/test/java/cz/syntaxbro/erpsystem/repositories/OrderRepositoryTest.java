@@ -1,14 +1,20 @@
 package cz.syntaxbro.erpsystem.repositories;
 
 import cz.syntaxbro.erpsystem.models.*;
+import cz.syntaxbro.erpsystem.requests.OrderPageRequest;
+import cz.syntaxbro.erpsystem.responses.exports.OrderExportRow;
+import cz.syntaxbro.erpsystem.responses.exports.SalesLineExportRow;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.test.context.support.WithMockUser;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -33,6 +39,8 @@ class OrderRepositoryTest {
     }
 
     private Product productOne;
+    private User testUser;
+    private Order orderOne;
 
     /**
      * Sets up test data before each test execution.
@@ -42,7 +50,7 @@ class OrderRepositoryTest {
     @BeforeEach
     void setUp() {
         // Creating and saving a test user
-        User testUser = User.builder()
+        testUser = User.builder()
                 .username("admin")
                 .email("admin@example.com")
                 .password("!Password123")
@@ -102,7 +110,7 @@ class OrderRepositoryTest {
         LocalDateTime orderDateOne = LocalDateTime.of(2025, 2, 13, 10, 20);
 
         // Creating order linked to the test user and order items
-        Order orderOne = Order.builder()
+        orderOne = Order.builder()
                 .orderItems(List.of(orderItemOne, orderItemTwo))
                 .orderTime(orderDateOne)
                 .status(Order.Status.PENDING)
@@ -143,4 +151,105 @@ class OrderRepositoryTest {
         // Assertions
         assertEquals(1, orders.size(), "Should find exactly one order for the product");
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests whether `findInPeriod()` only returns orders inside the requested window and honours the optional filters.
+     * Expected outcome:
+     * - The order from 2025-02-13 is found for a window containing that day.
+     * - Nothing is found outside the window or for a non-matching status / order type.
+     */
+    @Test
+    void findInPeriodFiltersByWindowStatusAndType() {
+        LocalDateTime from = LocalDateTime.of(2025, 2, 13, 0, 0);
+        LocalDateTime to = from.plusDays(1);
+
+        assertEquals(1, orderRepository.findInPeriod(from, to, null, null).size());
+        assertEquals(1, orderRepository.findInPeriod(from, to, Order.Status.PENDING, Order.OrderType.SELL).size());
+        assertTrue(orderRepository.findInPeriod(to, to.plusDays(1), null, null).isEmpty());
+        assertTrue(orderRepository.findInPeriod(from, to, Order.Status.CONFIRMED, null).isEmpty());
+        assertTrue(orderRepository.findInPeriod(from, to, null, Order.OrderType.PURCHASE).isEmpty());
+    }
+
+    /**
+     * Tests whether `streamExportRows()` streams the orders of the window as flat rows and treats null bounds as unbounded.
+     * Expected outcome:
+     * - The row carries the line count, the total quantity and the approver of the order.
+     * - Nothing is streamed for a non-matching status.
+     */
+    @Test
+    void streamExportRowsStreamsMatchingOrders() {
+        LocalDateTime from = LocalDateTime.of(2025, 2, 13, 0, 0);
+
+        try (Stream<OrderExportRow> rows = orderRepository.streamExportRows(null, null, null, null)) {
+            List<OrderExportRow> exported = rows.toList();
+            assertEquals(1, exported.size());
+            assertEquals(orderOne.getId(), exported.getFirst().id());
+            assertEquals(2L, exported.getFirst().items());
+            assertEquals(20L, exported.getFirst().quantity());
+            assertEquals("admin", exported.getFirst().approvedBy());
+        }
+        try (Stream<OrderExportRow> rows = orderRepository.streamExportRows(from, from.plusDays(1), Order.Status.PENDING, Order.OrderType.SELL)) {
+            assertEquals(1, rows.count());
+        }
+        try (Stream<OrderExportRow> rows = orderRepository.streamExportRows(from, null, Order.Status.CONFIRMED, null)) {
+            assertEquals(0, rows.count());
+        }
+    }
+
+    /**
+     * Tests whether `streamSalesLineRows()` streams one flat row per order line with its product columns.
+     * Expected outcome:
+     * - Both lines of the order are streamed, priced with the current price while no confirmed price is kept.
+     */
+    @Test
+    void streamSalesLineRowsStreamsOrderLines() {
+        try (Stream<SalesLineExportRow> rows = orderRepository.streamSalesLineRows(null, null, Order.Status.PENDING, Order.OrderType.SELL)) {
+            List<SalesLineExportRow> lines = rows.toList();
+            assertEquals(2, lines.size());
+            assertEquals(orderOne.getId(), lines.getFirst().orderId());
+            assertEquals("ProductOne", lines.getFirst().productName());
+            assertEquals(10, lines.getFirst().quantity());
+            assertEquals(Money.of(100.0), lines.getFirst().effectiveUnitPrice());
+        }
+        try (Stream<SalesLineExportRow> rows = orderRepository.streamSalesLineRows(null, null, Order.Status.CONFIRMED, null)) {
+            assertEquals(0, rows.count());
+        }
+    }
+
+    /**
+     * Tests the order listing specifications and the keyset condition.
+     * Expected outcome:
+     * - Each filter narrows the orders down to the matching one.
+     * - The keyset condition returns the orders after the given one in the listing order.
+     */
+    @Test
+    void specificationsFilterAndPageOrders() {
+        Order orderTwo = orderRepository.save(Order.builder()
+                .orderTime(LocalDateTime.of(2025, 2, 14, 8, 0))
+                .status(Order.Status.CONFIRMED)
+                .orderType(Order.OrderType.PURCHASE)
+                .cost(50.0)
+                .build());
+        Sort newestFirst = Sort.by(Sort.Direction.DESC, "orderTime", "id");
+
+        List<Order> all = orderRepository.findAll(OrderSpecifications.matching(OrderPageRequest.builder().build()), newestFirst);
+        assertEquals(List.of(orderTwo.getId(), orderOne.getId()), all.stream().map(Order::getId).toList());
+
+        assertEquals(List.of(orderOne.getId()), ids(OrderPageRequest.builder().productId(productOne.getId()).build()));
+        assertEquals(List.of(orderOne.getId()), ids(OrderPageRequest.builder().approvedById(testUser.getId()).build()));
+        assertEquals(List.of(orderTwo.getId()), ids(OrderPageRequest.builder().status(Order.Status.CONFIRMED).build()));
+        assertEquals(List.of(orderTwo.getId()), ids(OrderPageRequest.builder().orderType(Order.OrderType.PURCHASE).build()));
+        assertEquals(List.of(orderOne.getId()), ids(OrderPageRequest.builder().endDate(LocalDate.of(2025, 2, 13)).build()));
+        assertEquals(List.of(orderTwo.getId()), ids(OrderPageRequest.builder().startDate(LocalDate.of(2025, 2, 14)).build()));
+
+        // Keyset: the page after orderTwo, read with a limit like the listing does
+        List<Order> next = orderRepository.findBy(OrderSpecifications.placedBefore(orderTwo.getOrderTime(), orderTwo.getId()),
+                query -> query.sortBy(newestFirst).limit(1).all());
+        assertEquals(List.of(orderOne.getId()), next.stream().map(Order::getId).toList());
+        assertEquals(1, orderRepository.findAll(OrderSpecifications.idBefore(orderTwo.getId())).size());
+    }
+
+    private List<Long> ids(OrderPageRequest request) {
+        return orderRepository.findAll(OrderSpecifications.matching(request)).stream().map(Order::getId).toList();
+    }
+}
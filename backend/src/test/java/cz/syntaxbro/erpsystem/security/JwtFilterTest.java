@@ -1,6 +1,15 @@
 package cz.syntaxbro.erpsystem.security;
 
+import cz.syntaxbro.erpsystem.models.Role;
+import cz.syntaxbro.erpsystem.models.User;
+import cz.syntaxbro.erpsystem.security.services.CustomUserDetails;
+import cz.syntaxbro.erpsystem.security.services.PrincipalCache;
+import cz.syntaxbro.erpsystem.security.services.SecurityStamps;
+import cz.syntaxbro.erpsystem.services.RefreshTokenService;
 import cz.syntaxbro.erpsystem.utils.JwtUtil;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -10,13 +19,15 @@ import org.junit.jupiter.api.Test;
 import org.mockito.*;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.User;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 
 import java.io.IOException;
-import java.util.Collections;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.mockito.Mockito.*;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -43,11 +54,15 @@ class JwtFilterTest {
     @Mock
     private FilterChain filterChain;
 
-    @InjectMocks
+    @Mock
+    private RefreshTokenService refreshTokenService;
+
     private JwtFilter jwtFilter;
+    private SecurityStamps securityStamps;
 
     private final String validToken = "valid.jwt.token";
-    private UserDetails userDetails;
+    private final String username = "test@example.com";
+    private User user;
 
     /**
      * Setup mocks and initialize test dependencies.
@@ -55,30 +70,38 @@ class JwtFilterTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        jwtFilter = new JwtFilter(jwtUtil, userDetailsService);
+        PrincipalCache principalCache = new PrincipalCache(userDetailsService, new SimpleMeterRegistry(), 100, Duration.ofSeconds(30));
+        securityStamps = new SecurityStamps(principalCache);
+        jwtFilter = new JwtFilter(jwtUtil, principalCache, securityStamps, refreshTokenService);
 
         // Always clear SecurityContext before each test
         SecurityContextHolder.clearContext();
 
-        String username = "testUser";
-        userDetails = new User(username, "password", Collections.emptyList());
+        user = new User();
+        user.setId(1L);
+        user.setEmail(username);
+        user.setActive(true);
+        user.setRoles(Set.of(new Role("ROLE_USER")));
 
         when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
-        when(jwtUtil.extractUsername(validToken)).thenReturn(username);
-        when(userDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
+        when(jwtUtil.parseClaims(validToken)).thenReturn(claims(0L));
+        when(userDetailsService.loadUserByUsername(username)).thenReturn(new CustomUserDetails(user));
+    }
+
+    private io.jsonwebtoken.Claims claims(long stamp) {
+        return Jwts.claims()
+                .subject(username)
+                .add(JwtUtil.ROLES_CLAIM, List.of("ROLE_ADMIN"))
+                .add(JwtUtil.STAMP_CLAIM, stamp)
+                .build();
     }
 
     /**
      * Test: Valid JWT token should authenticate the user.
-     * Expected: Security context should be set with correct authentication.
+     * Expected: Security context should be set with the authorities of the token, without loading the user.
      */
     @Test
     void shouldAuthenticateUser_whenValidTokenProvided() throws ServletException, IOException {
-        // Arrange
-        when(jwtUtil.validateToken(validToken, userDetails)).thenReturn(true);
-        when(jwtUtil.extractUsername(validToken)).thenReturn("testUser");
-        when(userDetailsService.loadUserByUsername("testUser")).thenReturn(userDetails);
-
         // Act
         jwtFilter.doFilterInternal(request, response, filterChain);
 
@@ -86,28 +109,98 @@ class JwtFilterTest {
         UsernamePasswordAuthenticationToken auth = (UsernamePasswordAuthenticationToken) SecurityContextHolder.getContext().getAuthentication();
 
         assertThat(auth).isNotNull();
-        assertThat(auth.getPrincipal()).isEqualTo(userDetails);
+        assertThat(((CustomUserDetails) auth.getPrincipal()).getUsername()).isEqualTo(username);
+        assertThat(auth.getAuthorities()).extracting(GrantedAuthority::getAuthority).containsExactly("ROLE_ADMIN");
 
+        // The token is parsed only once and the database is not asked
+        verify(jwtUtil, times(1)).parseClaims(validToken);
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
         verify(filterChain).doFilter(request, response);
     }
 
     /**
-     * Test: Invalid JWT token should NOT authenticate the user.
-     * Expected: Security context should remain empty.
+     * Test: Code asking for the user entity should load it once, repeated requests are served from the cache.
+     * Expected: The user is loaded only for the first request.
      */
     @Test
-    void shouldNotAuthenticateUser_whenInvalidTokenProvided() throws ServletException, IOException {
-        // Arrange: Mock invalid token scenario
-        when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
+    void shouldLoadUserOnce_whenUserEntityRequestedRepeatedly() throws ServletException, IOException {
+        for (int i = 0; i < 2; i++) {
+            SecurityContextHolder.clearContext();
+            jwtFilter.doFilterInternal(request, response, filterChain);
+
+            CustomUserDetails principal = (CustomUserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+            assertThat(principal.getUser()).isSameAs(user);
+        }
+
+        verify(userDetailsService, times(1)).loadUserByUsername(username);
+    }
+
+    /**
+     * Test: Token issued before the user was revoked should NOT authenticate.
+     * Expected: Tokens with the old stamp are rejected, tokens with the new stamp are accepted.
+     */
+    @Test
+    void shouldNotAuthenticateUser_whenTokenRevoked() throws ServletException, IOException {
+        securityStamps.revoke(username);
+
+        jwtFilter.doFilterInternal(request, response, filterChain);
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+
+        // After a new login the token carries the current stamp
+        when(jwtUtil.parseClaims(validToken)).thenReturn(claims(securityStamps.current(username)));
+        jwtFilter.doFilterInternal(request, response, filterChain);
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNotNull();
+    }
+
+    /**
+     * Test: Access token of a revoked refresh token family (logout, refresh token reuse) should NOT authenticate.
+     * Expected: Tokens of the revoked family are rejected, tokens of other families are accepted.
+     */
+    @Test
+    void shouldNotAuthenticateUser_whenTokenFamilyRevoked() throws ServletException, IOException {
+        when(jwtUtil.parseClaims(validToken)).thenReturn(Jwts.claims()
+                .subject(username)
+                .add(JwtUtil.ROLES_CLAIM, List.of("ROLE_USER"))
+                .add(JwtUtil.FAMILY_CLAIM, "revoked-family")
+                .build());
+        when(refreshTokenService.isRevoked("revoked-family")).thenReturn(true);
+
+        jwtFilter.doFilterInternal(request, response, filterChain);
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+
+        // A token without a family (issued before) is not checked for revocation
+        when(jwtUtil.parseClaims(validToken)).thenReturn(claims(0L));
+        jwtFilter.doFilterInternal(request, response, filterChain);
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNotNull();
+        verify(refreshTokenService, times(1)).isRevoked(anyString());
+        verify(filterChain, times(2)).doFilter(request, response);
+    }
+
+    /**
+     * Test: Token with authorities serialized as objects (issued by earlier versions) should keep its roles.
+     * Expected: The authority names are read from the objects.
+     */
+    @Test
+    void shouldReadAuthorities_whenTokenCarriesSerializedAuthorities() throws ServletException, IOException {
+        when(jwtUtil.parseClaims(validToken)).thenReturn(Jwts.claims()
+                .subject(username)
+                .add(JwtUtil.ROLES_CLAIM, List.of(Map.of("authority", "ROLE_MANAGER")))
+                .build());
 
-        // Ensure extractUsername() returns a valid username
-        when(jwtUtil.extractUsername(validToken)).thenReturn("testUser");
+        jwtFilter.doFilterInternal(request, response, filterChain);
 
-        // Ensure userDetailsService.loadUserByUsername() is called normally
-        when(userDetailsService.loadUserByUsername("testUser")).thenReturn(userDetails);
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getAuthorities())
+                .extracting(GrantedAuthority::getAuthority).containsExactly("ROLE_MANAGER");
+    }
 
-        // Ensure validateToken() returns false (invalid token)
-        when(jwtUtil.validateToken(validToken, userDetails)).thenReturn(false);
+    /**
+     * Test: Invalid JWT token should NOT authenticate the user.
+     * Expected: Security context should remain empty.
+     */
+    @Test
+    void shouldNotAuthenticateUser_whenInvalidTokenProvided() throws ServletException, IOException {
+        // Arrange: Token with a bad signature
+        when(jwtUtil.parseClaims(validToken)).thenThrow(new SignatureException("JWT signature does not match"));
 
         // Act: Execute the filter
         jwtFilter.doFilterInternal(request, response, filterChain);
@@ -115,11 +208,8 @@ class JwtFilterTest {
         // Authentication should NOT be set
         assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
 
-        // Ensure validateToken was called with correct parameters
-        verify(jwtUtil).validateToken(validToken, userDetails);
-
-        // Ensure userDetailsService.loadUserByUsername() was called
-        verify(userDetailsService).loadUserByUsername("testUser");
+        // The user is not loaded at all for an invalid token
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
 
         // Ensure request proceeds
         verify(filterChain).doFilter(request, response);
@@ -141,11 +231,8 @@ class JwtFilterTest {
         // Security context should remain empty
         assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
 
-        // Ensure extractUsername was **never called**
-        verify(jwtUtil, never()).extractUsername(anyString());
-
-        // Ensure validateToken was **never called**
-        verify(jwtUtil, never()).validateToken(anyString(), any(UserDetails.class));
+        // Ensure the token was **never parsed**
+        verify(jwtUtil, never()).parseClaims(anyString());
 
         // Ensure loadUserByUsername was **never called**
         verify(userDetailsService, never()).loadUserByUsername(anyString());
@@ -172,4 +259,4 @@ class JwtFilterTest {
         // Verify request was passed to next filter
         verify(filterChain).doFilter(request, response);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,196 @@
+package cz.syntaxbro.erpsystem.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashingTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PasswordHashingExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void pbkdf2_ShouldVerifyOnlyTheHashedPassword() {
+        Pbkdf2PasswordHasher hasher = new Pbkdf2PasswordHasher(1000);
+
+        String encoded = hasher.hash("P&ssw0rd123@");
+
+        assertTrue(encoded.startsWith("$pbkdf2-sha256$1000$"));
+        assertTrue(hasher.verify("P&ssw0rd123@", encoded));
+        assertFalse(hasher.verify("P&ssw0rd123", encoded));
+        assertFalse(hasher.verify("P&ssw0rd123@", encoded.replace("$1000$", "$1001$")));
+    }
+
+    @Test
+    void pbkdf2_ShouldAskForRehashOnlyWhenMarkedlyWeaker() {
+        Pbkdf2PasswordHasher hasher = new Pbkdf2PasswordHasher(100_000);
+
+        assertFalse(hasher.needsRehash(new Pbkdf2PasswordHasher(90_000).hash("P&ssw0rd123@")));
+        assertTrue(hasher.needsRehash(new Pbkdf2PasswordHasher(10_000).hash("P&ssw0rd123@")));
+        assertTrue(hasher.needsRehash("bGVnYWN5LXNoYTI1Ni1oYXNo"));
+        assertFalse(hasher.supports("bGVnYWN5LXNoYTI1Ni1oYXNo"));
+    }
+
+    @Test
+    void pbkdf2_ShouldCalibrateToAtLeastTheMinimum() {
+        Pbkdf2PasswordHasher hasher = new Pbkdf2PasswordHasher(Duration.ofNanos(1), 2000);
+
+        assertEquals(2000, hasher.getIterations());
+    }
+
+    @Test
+    void executor_ShouldRejectWhenQueueIsFull() throws Exception {
+        executor = new PasswordHashingExecutor(meterRegistry, 1, 1, Duration.ofSeconds(5));
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(1);
+
+        // One thread busy and one task queued, the next one is rejected
+        CompletableFuture<String> busy = CompletableFuture.supplyAsync(() -> executor.run("hash", () -> {
+            running.countDown();
+            await(release);
+            return "busy";
+        }));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> executor.run("hash", () -> "queued"));
+        waitForQueueSize(1);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> executor.run("hash", () -> "rejected"));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatusCode());
+        assertEquals(1, meterRegistry.get("security.password.hashing.rejected").counter().count());
+
+        release.countDown();
+        assertEquals("busy", busy.get(5, TimeUnit.SECONDS));
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Test: A login storm on as many request threads as Tomcat has, with the queue derived from them.
+     * Expected outcome:
+     * - A quarter of the request threads queue behind the busy hashing thread, the others are rejected with 503 right away.
+     */
+    @Test
+    void executor_ShouldRejectMostOfALoginStorm() throws Exception {
+        int requestThreads = 16;
+        executor = new PasswordHashingExecutor(meterRegistry, 1, 0, Duration.ofSeconds(5), requestThreads);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(1);
+        ExecutorService requests = Executors.newFixedThreadPool(requestThreads);
+        try {
+            Future<String> busy = requests.submit(() -> executor.run("verify", () -> {
+                running.countDown();
+                await(release);
+                return "busy";
+            }));
+            assertTrue(running.await(5, TimeUnit.SECONDS));
+
+            List<Future<String>> logins = new ArrayList<>();
+            for (int i = 1; i < requestThreads; i++) {
+                logins.add(requests.submit(() -> executor.run("verify", () -> "done")));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (meterRegistry.get("security.password.hashing.rejected").counter().count() < requestThreads - 1 - requestThreads / 4
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(requestThreads / 4, executor.getQueueSize());
+
+            release.countDown();
+            assertEquals("busy", busy.get(5, TimeUnit.SECONDS));
+            int done = 0;
+            for (Future<String> login : logins) {
+                try {
+                    assertEquals("done", login.get(5, TimeUnit.SECONDS));
+                    done++;
+                } catch (ExecutionException e) {
+                    assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ((ResponseStatusException) e.getCause()).getStatusCode());
+                }
+            }
+            assertEquals(requestThreads / 4, done);
+            assertEquals(requestThreads - 1 - requestThreads / 4, meterRegistry.get("security.password.hashing.rejected").counter().count());
+        } finally {
+            requests.shutdownNow();
+        }
+    }
+
+    /**
+     * Test: The hashing thread is busy for longer than a queued login may wait.
+     * Expected outcome:
+     * - The login is given up with 503 after the maximum wait and leaves the queue.
+     */
+    @Test
+    void executor_ShouldGiveUpAfterMaxWait() throws Exception {
+        executor = new PasswordHashingExecutor(meterRegistry, 1, 1, Duration.ofMillis(50));
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(1);
+        CompletableFuture.runAsync(() -> {
+            try {
+                executor.run("hash", () -> {
+                    running.countDown();
+                    // Hashing does not stop when its caller gives up, the thread stays busy
+                    boolean interrupted = false;
+                    while (release.getCount() > 0) {
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            interrupted = true;
+                        }
+                    }
+                    if (interrupted) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "busy";
+                });
+            } catch (ResponseStatusException ignored) {
+                // The busy one times out as well
+            }
+        });
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> executor.run("hash", () -> "late"));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatusCode());
+        assertEquals(0, executor.getQueueSize());
+        assertTrue(meterRegistry.get("security.password.hashing.timed_out").counter().count() >= 1);
+        release.countDown();
+    }
+
+    @Test
+    void executor_ShouldRethrowFailureOfTheWork() {
+        executor = new PasswordHashingExecutor(meterRegistry, 1, 1, Duration.ofSeconds(5));
+
+        assertThrows(IllegalStateException.class, () -> executor.run("hash", () -> {
+            throw new IllegalStateException("boom");
+        }));
+    }
+
+    private void waitForQueueSize(int size) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executor.getQueueSize() < size && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(size, executor.getQueueSize());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
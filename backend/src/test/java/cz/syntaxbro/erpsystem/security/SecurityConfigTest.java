@@ -5,6 +5,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
@@ -38,4 +39,36 @@ public class SecurityConfigTest {
         mockMvc.perform(MockMvcRequestBuilders.get("/api/protected"))
                 .andExpect(status().isUnauthorized()); // Verifies that an unauthenticated user receives 401 Unauthorized
     }
+
+    /**
+     * Tests whether the metrics endpoint is restricted to administrators while the health check stays public.
+     * Without authentication the metrics return 401.
+     */
+    @Test
+    void shouldRequireAuthenticationForMetrics() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/actuator/metrics"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(MockMvcRequestBuilders.get("/actuator/health"))
+                .andExpect(status().isOk());
+    }
+
+    /**
+     * Tests whether an authenticated user without the ADMIN role is denied the metrics with HTTP 403 Forbidden.
+     */
+    @Test
+    @WithMockUser(roles = {"USER"})
+    void shouldDenyMetricsToNonAdmins() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/actuator/metrics"))
+                .andExpect(status().isForbidden());
+    }
+
+    /**
+     * Tests whether an administrator can read the metrics.
+     */
+    @Test
+    @WithMockUser(roles = {"ADMIN"})
+    void shouldAllowMetricsToAdmins() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/actuator/metrics"))
+                .andExpect(status().isOk());
+    }
 }
@@ -0,0 +1,118 @@
+package cz.syntaxbro.erpsystem.security.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PrincipalCacheTest {
+
+    private MeterRegistry meterRegistry;
+    private MutableClock clock;
+    private UserDetailsService userDetailsService;
+    private PrincipalCache principalCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        clock = new MutableClock();
+        userDetailsService = mock(UserDetailsService.class);
+        when(userDetailsService.loadUserByUsername(anyString()))
+                .thenAnswer(invocation -> new User(invocation.getArgument(0), "password", Collections.emptyList()));
+        principalCache = new PrincipalCache(userDetailsService, meterRegistry, 2, Duration.ofSeconds(30), clock);
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("auth.principals.requests").tag("result", result).counter().count();
+    }
+
+    @Test
+    void get_ShouldServeRepeatedRequestsFromCache() {
+        UserDetails first = principalCache.get("alice@example.com");
+        UserDetails second = principalCache.get("alice@example.com");
+
+        assertSame(first, second);
+        verify(userDetailsService, times(1)).loadUserByUsername("alice@example.com");
+        assertEquals(1, count("hit"));
+        assertEquals(1, count("miss"));
+    }
+
+    @Test
+    void get_ShouldReloadUserAfterTtl() {
+        principalCache.get("alice@example.com");
+        clock.advance(Duration.ofSeconds(31));
+        principalCache.get("alice@example.com");
+
+        verify(userDetailsService, times(2)).loadUserByUsername("alice@example.com");
+    }
+
+    @Test
+    void get_ShouldEvictLeastRecentlyUsedUser() {
+        principalCache.get("alice@example.com");
+        principalCache.get("bob@example.com");
+        principalCache.get("alice@example.com");
+        // The third user evicts bob, alice was used last
+        principalCache.get("carol@example.com");
+
+        assertEquals(2, principalCache.size());
+        principalCache.get("alice@example.com");
+        principalCache.get("bob@example.com");
+        verify(userDetailsService, times(1)).loadUserByUsername("alice@example.com");
+        verify(userDetailsService, times(2)).loadUserByUsername("bob@example.com");
+    }
+
+    @Test
+    void invalidate_ShouldReloadUserOnNextRequest() {
+        principalCache.get("alice@example.com");
+        principalCache.invalidate("alice@example.com");
+        principalCache.get("alice@example.com");
+
+        verify(userDetailsService, times(2)).loadUserByUsername("alice@example.com");
+    }
+
+    @Test
+    void get_ShouldNotCacheUnknownUser() {
+        when(userDetailsService.loadUserByUsername("ghost@example.com")).thenThrow(new UsernameNotFoundException("ghost"));
+
+        assertThrows(UsernameNotFoundException.class, () -> principalCache.get("ghost@example.com"));
+        assertEquals(0, principalCache.size());
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant instant = Instant.parse("2025-03-31T10:00:00Z");
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
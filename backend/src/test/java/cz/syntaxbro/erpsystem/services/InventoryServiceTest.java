@@ -1,7 +1,9 @@
 package cz.syntaxbro.erpsystem.services;
 
+import cz.syntaxbro.erpsystem.events.InventoryEvent;
 import cz.syntaxbro.erpsystem.models.InventoryItem;
 import cz.syntaxbro.erpsystem.models.Product;
+import cz.syntaxbro.erpsystem.models.StockMovement;
 import cz.syntaxbro.erpsystem.repositories.InventoryRepository;
 import cz.syntaxbro.erpsystem.requests.InventoryItemRequest;
 import cz.syntaxbro.erpsystem.services.impl.InventoryServiceImpl;
@@ -9,10 +11,13 @@ import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -25,6 +30,12 @@ public class InventoryServiceTest {
     @Mock
     private ProductService productService;
 
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private StockLedgerService ledgerService;
+
     @InjectMocks
     private InventoryServiceImpl inventoryService;
 
@@ -76,11 +87,14 @@ public class InventoryServiceTest {
         Long itemId = 1L;
         int newQuantity = 20;
 
+        when(inventoryRepository.lockByIds(List.of(itemId))).thenReturn(List.of(item1));
         when(inventoryRepository.updateQuantity(itemId, newQuantity)).thenReturn(1);
 
         assertDoesNotThrow(() -> inventoryService.updateQuantity(itemId, newQuantity));
 
         verify(inventoryRepository, times(1)).updateQuantity(itemId, newQuantity);
+        // The journal gets the difference to the overwritten amount
+        verify(ledgerService, times(1)).record(itemId, null, 10, StockMovement.Reason.ADJUSTMENT);
     }
 
     @Test
@@ -88,7 +102,7 @@ public class InventoryServiceTest {
         Long itemId = 1L;
         int newQuantity = 20;
 
-        when(inventoryRepository.updateQuantity(itemId, newQuantity)).thenReturn(0);
+        when(inventoryRepository.lockByIds(List.of(itemId))).thenReturn(List.of());
 
         EntityNotFoundException exception = assertThrows(EntityNotFoundException.class, () ->
                 inventoryService.updateQuantity(itemId, newQuantity)
@@ -96,6 +110,24 @@ public class InventoryServiceTest {
 
         assertEquals("Item with id 1 not found", exception.getMessage());
 
-        verify(inventoryRepository, times(1)).updateQuantity(itemId, newQuantity);
+        verify(inventoryRepository, never()).updateQuantity(itemId, newQuantity);
+        verifyNoInteractions(ledgerService);
+    }
+
+    @Test
+    void testReservationChangesAreWrittenToTheOutbox() {
+        Long itemId = 1L;
+
+        when(inventoryRepository.increaseReserved(itemId, 3)).thenReturn(1);
+        when(inventoryRepository.decreaseReserved(itemId, 3)).thenReturn(1);
+
+        inventoryService.reserveStock(itemId, 3);
+        inventoryService.releaseReservedStock(itemId, 3);
+
+        // The stream pushes the new stock level of the item once the outbox relays the change
+        ArgumentCaptor<InventoryEvent> events = ArgumentCaptor.forClass(InventoryEvent.class);
+        verify(outboxService, times(2)).append(events.capture());
+        assertEquals(List.of(3.0, -3.0), events.getAllValues().stream()
+                .map(event -> ((InventoryEvent.ReservationChanged) event).change()).toList());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,149 @@
+package cz.syntaxbro.erpsystem.services;
+
+import cz.syntaxbro.erpsystem.models.InventoryItem;
+import cz.syntaxbro.erpsystem.models.Product;
+import cz.syntaxbro.erpsystem.models.ProductCategory;
+import cz.syntaxbro.erpsystem.repositories.InventoryRepository;
+import cz.syntaxbro.erpsystem.repositories.ProductCategoryRepository;
+import cz.syntaxbro.erpsystem.repositories.ProductRepository;
+import cz.syntaxbro.erpsystem.services.impl.InventoryServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Stress tests of the stock deltas against a real database. Every call commits on its own,
+ * like concurrent order confirmations do, so the test itself runs outside of a transaction.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventoryStockConcurrencyTest {
+
+    private static final int THREADS = 64;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductCategoryRepository productCategoryRepository;
+
+    private InventoryService inventoryService;
+    private InventoryItem item;
+
+    @BeforeEach
+    void setUp() {
+        inventoryService = new InventoryServiceImpl(inventoryRepository, null, mock(OutboxService.class), mock(StockLedgerService.class));
+
+        ProductCategory category = productCategoryRepository.save(ProductCategory.builder()
+                .name("concurrency")
+                .description("stress test")
+                .build());
+        Product product = productRepository.save(Product.builder()
+                .name("Contended Product")
+                .description("stress test")
+                .buyoutPrice(10)
+                .purchasePrice(8)
+                .productCategory(category)
+                .build());
+        item = inventoryRepository.save(InventoryItem.builder().product(product).stockedAmount(0).build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        inventoryRepository.deleteById(item.getId());
+        productRepository.deleteById(item.getProduct().getId());
+        productCategoryRepository.deleteById(item.getProduct().getProductCategory().getId());
+    }
+
+    /**
+     * Test: 64 threads receive and release stock of the same item at the same time.
+     * Expected outcome:
+     * - Every delta is applied, the final amount equals the start amount plus the sum of all deltas.
+     */
+    @Test
+    void concurrentDeltasAreNotLost() throws Exception {
+        inventoryRepository.updateQuantity(item.getId(), 10_000);
+        int rounds = 50;
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < rounds; i++) {
+                inventoryService.receiveStock(item.getId(), 2);
+                inventoryService.releaseStock(item.getId(), 1);
+            }
+        });
+
+        double expected = 10_000 + THREADS * rounds * (2 - 1);
+        assertEquals(expected, stockedAmount());
+    }
+
+    /**
+     * Test: 64 threads release more stock than there is.
+     * Expected outcome:
+     * - Exactly as many releases succeed as there are units in stock, the rest is refused.
+     * - The stock never goes negative.
+     */
+    @Test
+    void concurrentReleasesNeverOversell() throws Exception {
+        inventoryRepository.updateQuantity(item.getId(), 100);
+        AtomicInteger released = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < 5; i++) {
+                try {
+                    inventoryService.releaseStock(item.getId(), 1);
+                    released.incrementAndGet();
+                } catch (ResponseStatusException e) {
+                    refused.incrementAndGet();
+                }
+            }
+        });
+
+        assertEquals(100, released.get());
+        assertEquals(THREADS * 5 - 100, refused.get());
+        assertEquals(0.0, stockedAmount());
+    }
+
+    private double stockedAmount() {
+        return inventoryRepository.findById(item.getId()).orElseThrow().getStockedAmount();
+    }
+
+    private void runConcurrently(IntConsumer task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.accept(thread);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
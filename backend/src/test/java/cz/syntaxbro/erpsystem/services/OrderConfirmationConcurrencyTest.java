@@ -0,0 +1,195 @@
+package cz.syntaxbro.erpsystem.services;
+
+import cz.syntaxbro.erpsystem.models.*;
+import cz.syntaxbro.erpsystem.repositories.*;
+import cz.syntaxbro.erpsystem.requests.OrderCreateRequest;
+import cz.syntaxbro.erpsystem.security.services.CustomUserDetails;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stress test of {@code OrderService.confirmOrder} against a real database: many confirmations of orders of the same
+ * item, each committing on its own, through the transactional service like the order endpoints call it.
+ */
+@SpringBootTest(properties = {"spring.profiles.active=test",
+        // A database of its own, the orders are committed and other contexts on testdb recreate its tables. The confirmations
+        // queue on the row lock of the item, wait for it as long as MySQL does (innodb_lock_wait_timeout) rather than 2 s
+        "spring.datasource.url=jdbc:h2:mem:order-confirmation;LOCK_TIMEOUT=50000"})
+class OrderConfirmationConcurrencyTest {
+
+    // More than the pooled connections (10), the ones waiting for a connection must not starve the id generators
+    private static final int CONFIRMERS = 64;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductCategoryRepository productCategoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DailySalesRollupRepository rollupRepository;
+
+    private InventoryItem item;
+    private UsernamePasswordAuthenticationToken authentication;
+    private final List<Long> orderIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        CustomUserDetails approver = new CustomUserDetails(userRepository.findByUsername("administrator").orElseThrow());
+        authentication = new UsernamePasswordAuthenticationToken(approver, null, approver.getAuthorities());
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+
+        ProductCategory category = productCategoryRepository.save(ProductCategory.builder()
+                .name("confirmation concurrency")
+                .description("stress test")
+                .build());
+        Product product = productRepository.save(Product.builder()
+                .name("Contended Order Product")
+                .description("stress test")
+                .buyoutPrice(10)
+                .purchasePrice(8)
+                .productCategory(category)
+                .build());
+        item = inventoryRepository.save(InventoryItem.builder().product(product).stockedAmount(1_000).build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        orderRepository.deleteAllById(orderIds);
+        inventoryRepository.deleteById(item.getId());
+        productRepository.deleteById(item.getProduct().getId());
+        productCategoryRepository.deleteById(item.getProduct().getProductCategory().getId());
+    }
+
+    /**
+     * Test: 64 threads confirm SELL and PURCHASE orders of the same item at the same time.
+     * Expected outcome:
+     * - Every confirmation succeeds and its stock change is applied, none is lost to another one.
+     * - The reservations of the SELL orders are taken with them, nothing stays reserved.
+     */
+    @Test
+    void concurrentConfirmationsApplyEveryStockChange() throws Exception {
+        for (int i = 0; i < CONFIRMERS; i++) {
+            Order.OrderType orderType = i % 2 == 0 ? Order.OrderType.SELL : Order.OrderType.PURCHASE;
+            orderIds.add(orderService.createdOrder(request(orderType, i % 5 + 1)).getId());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(CONFIRMERS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Order>> futures = new ArrayList<>();
+            for (Long orderId : orderIds) {
+                futures.add(executor.submit(() -> {
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                    start.await();
+                    return orderService.confirmOrder(orderId, "stress test");
+                }));
+            }
+            start.countDown();
+            for (Future<Order> future : futures) {
+                assertEquals(Order.Status.CONFIRMED, future.get(60, TimeUnit.SECONDS).getStatus());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int expected = 1_000;
+        for (int i = 0; i < CONFIRMERS; i++) {
+            expected += (i % 2 == 0 ? -1 : 1) * (i % 5 + 1);
+        }
+        InventoryItem stored = inventoryRepository.findById(item.getId()).orElseThrow();
+        assertEquals(expected, stored.getStockedAmount());
+        assertEquals(0, stored.getReservedAmount());
+    }
+
+    /**
+     * Test: Confirms a PURCHASE order.
+     * Expected outcome:
+     * - The confirmed order shows the stocked amount after the confirmation, not the one loaded with the order.
+     */
+    @Test
+    void confirmedOrderShowsTheCurrentStock() {
+        Order order = orderService.createdOrder(request(Order.OrderType.PURCHASE, 5));
+        orderIds.add(order.getId());
+
+        Order confirmed = orderService.confirmOrder(order.getId(), "stress test");
+
+        assertEquals(1_005, confirmed.getOrderItems().getFirst().getInventoryItem().getStockedAmount());
+    }
+
+    /**
+     * Test: Creates and confirms a SELL and a PURCHASE order.
+     * Expected outcome:
+     * - The cost stored with each order equals the revenue the sales rollup counts for it, both price the lines the same way.
+     */
+    @Test
+    void confirmedOrderCostMatchesTheRollupRevenue() {
+        for (Order.OrderType orderType : Order.OrderType.values()) {
+            Order order = orderService.createdOrder(request(orderType, 3));
+            orderIds.add(order.getId());
+
+            orderService.confirmOrder(order.getId(), "stress test");
+
+            DailySalesRollup rollup = rollupRepository.findById(new DailySalesRollup.Key(
+                    order.getOrderTime().toLocalDate(), orderType, item.getProduct().getId())).orElseThrow();
+            assertEquals(Money.of(order.getCost()), rollup.getRevenue(), orderType.name());
+        }
+    }
+
+    /**
+     * Test: Creates a SELL order of more than is in stock, then a PURCHASE order of the same quantity.
+     * Expected outcome:
+     * - The SELL order is rejected with 409 CONFLICT as its lines cannot be reserved, nothing of it is stored or reserved.
+     * - The PURCHASE order reserves nothing and is created.
+     */
+    @Test
+    void sellOrderBeyondTheStockIsRejectedWithConflict() {
+        long orders = orderRepository.count();
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> orderService.createdOrder(request(Order.OrderType.SELL, 1_001)));
+
+        assertEquals(HttpStatus.CONFLICT, exception.getStatusCode());
+        assertEquals(orders, orderRepository.count());
+        assertEquals(0, inventoryRepository.findById(item.getId()).orElseThrow().getReservedAmount());
+
+        orderIds.add(orderService.createdOrder(request(Order.OrderType.PURCHASE, 1_001)).getId());
+    }
+
+    private OrderCreateRequest request(Order.OrderType orderType, int quantity) {
+        return OrderCreateRequest.builder()
+                .orderType(orderType)
+                .comment("stress test")
+                .products(List.of(OrderCreateRequest.ProductRequest.builder()
+                        .id(item.getProduct().getId())
+                        .quantity(quantity)
+                        .build()))
+                .build();
+    }
+}
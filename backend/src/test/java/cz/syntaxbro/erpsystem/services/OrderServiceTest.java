@@ -1,7 +1,16 @@
 package cz.syntaxbro.erpsystem.services;
 
+import cz.syntaxbro.erpsystem.events.InventoryEvent;
+import cz.syntaxbro.erpsystem.events.OrderEvent;
+import cz.syntaxbro.erpsystem.events.OrderEventBus;
 import cz.syntaxbro.erpsystem.models.*;
+import cz.syntaxbro.erpsystem.exceptions.ResourceNotFoundException;
 import cz.syntaxbro.erpsystem.repositories.OrderRepository;
+import cz.syntaxbro.erpsystem.repositories.ProductRepository;
+import cz.syntaxbro.erpsystem.requests.OrderCreateRequest;
+import cz.syntaxbro.erpsystem.requests.OrderPageRequest;
+import cz.syntaxbro.erpsystem.responses.BulkOrderResponse;
+import cz.syntaxbro.erpsystem.responses.OrderPageResponse;
 import cz.syntaxbro.erpsystem.responses.OrderResponse;
 import cz.syntaxbro.erpsystem.security.services.CustomUserDetails;
 import cz.syntaxbro.erpsystem.services.impl.OrderServiceImpl;
@@ -12,6 +21,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.Spy;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -19,13 +29,21 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @Slf4j
@@ -34,9 +52,33 @@ public class OrderServiceTest {
     @Mock
     private OrderRepository orderRepository;
 
+    @Mock
+    private ProductRepository productRepository;
+
     @Mock
     private InventoryService inventoryService;
 
+    @Mock
+    private OrderItemService orderItemService;
+
+    @Mock
+    private SalesRollupService salesRollupService;
+
+    @Mock
+    private ReportCache reportCache;
+
+    @Mock
+    private OrderEventBus orderEventBus;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private StockReservationService reservationService;
+
+    @Mock
+    private StockLedgerService ledgerService;
+
     @Mock
     private SecurityContext securityContext;
 
@@ -116,7 +158,7 @@ public class OrderServiceTest {
         SecurityContextHolder.setContext(securityContext);
 
         // Mock the inventoryService to avoid NullPointerException
-        doNothing().when(inventoryService).releaseStock(anyLong(), anyInt());
+        doNothing().when(inventoryService).releaseStock(anyLong(), anyInt(), any(), any());
     }
 
     @Test
@@ -149,6 +191,109 @@ public class OrderServiceTest {
         verify(orderRepository, times(1)).findAll();
     }
 
+    /**
+     * Test: One page of the order listing.
+     * Expected outcome:
+     * - The repository is asked for one order more than the page size.
+     * - The extra order is dropped and the cursor points after the last order of the page.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGetOrderPageReturnsCursorWhenMoreOrdersExist() {
+        Order olderOrder = Order.builder().id(2L).orderTime(testOrder.getOrderTime().minusDays(1))
+                .orderItems(List.of()).status(Order.Status.PENDING).orderType(Order.OrderType.SELL).build();
+        doReturn(List.of(testOrder, olderOrder)).when(orderRepository).findBy(any(Specification.class), any(Function.class));
+
+        OrderPageResponse page = orderService.getOrderPage(OrderPageRequest.builder().limit(1).build());
+
+        assertEquals(1, page.getOrders().size());
+        assertEquals(testOrder.getId(), page.getOrders().getFirst().getId());
+        assertNotNull(page.getNextCursor());
+
+        // The last page has no cursor
+        doReturn(List.of(olderOrder)).when(orderRepository).findBy(any(Specification.class), any(Function.class));
+        OrderPageResponse lastPage = orderService.getOrderPage(OrderPageRequest.builder()
+                .limit(1).cursor(page.getNextCursor()).build());
+        assertNull(lastPage.getNextCursor());
+    }
+
+    /**
+     * Test: Creates an order with repeated product lines.
+     * Expected outcome:
+     * - Products and inventory items are loaded with one call each, whatever the number of lines.
+     * - Lines of the same product are merged into one order item.
+     */
+    @Test
+    void testCreatedOrderLoadsProductsOnceAndMergesLines() {
+        Product otherProduct = Product.builder().id(2L).name("Other Product").buyoutPrice(5).purchasePrice(3).build();
+        InventoryItem otherItem = InventoryItem.builder().id(2L).product(otherProduct).stockedAmount(0).build();
+
+        doReturn(testUser).when(orderService).getCurrentUser();
+        doAnswer(invocation -> invocation.getArgument(0)).when(orderRepository).save(any(Order.class));
+        doReturn(List.of(testItem.getProduct(), otherProduct)).when(productRepository).findAllById(any());
+        doReturn(Map.of(1L, testItem, 2L, otherItem)).when(inventoryService).findItemsByProductIds(any());
+
+        Order order = orderService.createdOrder(OrderCreateRequest.builder()
+                .orderType(Order.OrderType.PURCHASE)
+                .comment("Bulk purchase")
+                .products(List.of(productLine(1L, 2), productLine(2L, 1), productLine(1L, 3)))
+                .build());
+
+        assertEquals(2, order.getOrderItems().size());
+        assertEquals(5, order.getOrderItems().getFirst().getQuantity());
+        assertEquals(1, order.getOrderItems().get(1).getQuantity());
+        // Purchases are priced with the purchase price: 5 * 20 + 1 * 3
+        assertEquals(103.0, order.getCost());
+
+        verify(productRepository, times(1)).findAllById(Set.of(1L, 2L));
+        verify(productRepository, never()).findById(anyLong());
+        verify(inventoryService, times(1)).findItemsByProductIds(Set.of(1L, 2L));
+        verify(inventoryService, never()).findItemByProductForOrder(any());
+        verify(orderItemService, times(2)).createOrderItem(any(OrderItem.class));
+    }
+
+    /**
+     * Test: Creating an order with an unknown product fails before any order item is written.
+     */
+    @Test
+    void testCreatedOrderWithUnknownProductThrows() {
+        doReturn(testUser).when(orderService).getCurrentUser();
+        doAnswer(invocation -> invocation.getArgument(0)).when(orderRepository).save(any(Order.class));
+        doReturn(List.of(testItem.getProduct())).when(productRepository).findAllById(any());
+
+        OrderCreateRequest request = OrderCreateRequest.builder()
+                .orderType(Order.OrderType.SELL)
+                .comment("Unknown product")
+                .products(List.of(productLine(1L, 1), productLine(99L, 1)))
+                .build();
+
+        assertThrows(ResourceNotFoundException.class, () -> orderService.createdOrder(request));
+        verify(orderItemService, never()).createOrderItem(any(OrderItem.class));
+    }
+
+    private static OrderCreateRequest.ProductRequest productLine(Long productId, int quantity) {
+        return OrderCreateRequest.ProductRequest.builder().id(productId).quantity(quantity).build();
+    }
+
+    /**
+     * Test: Cursors that were tampered with or issued for another sort key are rejected.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGetOrderPageRejectsInvalidCursor() {
+        Order olderOrder = Order.builder().id(0L).orderItems(List.of()).build();
+        doReturn(List.of(testOrder, olderOrder)).when(orderRepository).findBy(any(Specification.class), any(Function.class));
+        String idCursor = orderService.getOrderPage(OrderPageRequest.builder()
+                .sort(OrderPageRequest.Sort.ID).limit(1).build()).getNextCursor();
+
+        assertNotNull(orderService.getOrderPage(OrderPageRequest.builder()
+                .sort(OrderPageRequest.Sort.ID).limit(1).cursor(idCursor).build()));
+        assertThrows(IllegalArgumentException.class,
+                () -> orderService.getOrderPage(OrderPageRequest.builder().cursor(idCursor).build()));
+        assertThrows(IllegalArgumentException.class,
+                () -> orderService.getOrderPage(OrderPageRequest.builder().cursor("not a cursor").build()));
+    }
+
 
     @Test
     void testCancelOrderSuccessfully() {
@@ -167,6 +312,11 @@ public class OrderServiceTest {
         assertEquals(Order.Status.CANCELED, canceledOrder.getStatus());
         assertEquals(comment, canceledOrder.getComment());
         assertNotNull(canceledOrder.getDecisionTime());
+        // The reservation is released, the stock itself is not touched
+        assertEquals(10.0, testItem.getStockedAmount());
+        verify(reservationService, times(1)).release(orderId);
+        verify(inventoryService, never()).receiveStock(anyLong(), anyInt(), any(), any());
+        verify(inventoryService, never()).releaseStock(anyLong(), anyInt(), any(), any());
 
         verify(orderRepository, times(1)).findById(orderId);
         verify(orderRepository, times(2)).save(any(Order.class));
@@ -185,7 +335,7 @@ public class OrderServiceTest {
         doReturn(testUser).when(orderService).getCurrentUser();
 
         // Mock the inventoryService.releaseStock method for the specific inventory item
-        doNothing().when(inventoryService).releaseStock(testItem.getId(), 10);
+        doNothing().when(inventoryService).releaseStock(testItem.getId(), 10, StockMovement.Reason.SALE, orderId);
 
         Order confirmedOrder = orderService.confirmOrder(orderId, comment);
 
@@ -197,7 +347,149 @@ public class OrderServiceTest {
         // Adjust verification to match actual implementation
         verify(orderRepository, times(2)).save(any(Order.class));
         // Verify that inventoryService.releaseStock was called
-        verify(inventoryService, times(1)).releaseStock(testItem.getId(), 10);
+        verify(inventoryService, times(1)).releaseStock(testItem.getId(), 10, StockMovement.Reason.SALE, orderId);
+        // Verify that the confirmed order was added to the sales rollup
+        verify(salesRollupService, times(1)).applyStatusChange(testOrder, Order.Status.PENDING, Order.Status.CONFIRMED);
+        // Verify that the cached reports containing the order were invalidated
+        verify(reportCache, times(1)).invalidate(testOrder.getOrderTime().toLocalDate());
+        // Verify that the subscribers are told about the confirmation
+        verify(orderEventBus, times(1)).publish(new OrderEvent.OrderConfirmed(
+                orderId, Order.OrderType.SELL, testUser.getUsername(), confirmedOrder.getDecisionTime()));
+    }
+
+    /**
+     * Test: Confirms several orders at once.
+     * Expected outcome:
+     * - The inventory items are locked once, the stock is taken from the locked items without per-item calls.
+     * - An order that would oversell the stock left by the orders before it is skipped, as are orders that are
+     *   not pending or do not exist; every requested order gets one result.
+     */
+    @Test
+    void testConfirmOrdersInBulk() {
+        Order secondSell = Order.builder().id(2L).orderTime(testOrder.getOrderTime()).orderType(Order.OrderType.SELL)
+                .status(Order.Status.PENDING).build();
+        secondSell.setOrderItems(List.of(OrderItem.builder().id(2L).quantity(1).order(secondSell).inventoryItem(testItem).build()));
+        Order confirmed = Order.builder().id(3L).orderType(Order.OrderType.SELL).status(Order.Status.CONFIRMED)
+                .orderItems(List.of()).build();
+
+        doReturn(testUser).when(orderService).getCurrentUser();
+        doReturn(List.of(testItem.getId())).when(orderRepository).findInventoryItemIds(any());
+        doReturn(Map.of(testItem.getId(), testItem)).when(inventoryService).lockItems(List.of(testItem.getId()));
+        doReturn(List.of(testOrder, secondSell, confirmed)).when(orderRepository).findAllById(any());
+
+        BulkOrderResponse response = orderService.confirmOrders(List.of(1L, 2L, 3L, 4L, 1L), "Bulk approval");
+
+        assertEquals(1, response.getSucceeded());
+        assertEquals(3, response.getFailed());
+        assertEquals(List.of(1L, 2L, 3L, 4L), response.getResults().stream().map(BulkOrderResponse.Result::getOrderId).toList());
+        assertTrue(response.getResults().getFirst().isSuccess());
+        assertEquals(Order.Status.CONFIRMED, testOrder.getStatus());
+        assertEquals("Bulk approval", testOrder.getComment());
+        assertEquals(0.0, testItem.getStockedAmount());
+
+        // The second order no longer has enough goods in stock
+        assertFalse(response.getResults().get(1).isSuccess());
+        assertEquals(Order.Status.PENDING, secondSell.getStatus());
+        assertNull(response.getResults().get(3).getStatus());
+
+        verify(inventoryService, times(1)).lockItems(any());
+        verify(inventoryService, never()).releaseStock(anyLong(), anyInt(), any(), any());
+        verify(orderRepository, never()).save(any(Order.class));
+        verify(salesRollupService, times(1)).applyStatusChange(testOrder, Order.Status.PENDING, Order.Status.CONFIRMED);
+        // One event per confirmed order, published together
+        OrderEvent confirmedEvent = new OrderEvent.OrderConfirmed(1L, Order.OrderType.SELL, testUser.getUsername(), testOrder.getDecisionTime());
+        verify(orderEventBus, times(1)).publishAll(List.of(confirmedEvent));
+        // The events and the stock change are written to the outbox in the same transaction
+        verify(outboxService, times(1)).append(confirmedEvent);
+        verify(outboxService, times(1)).append(new InventoryEvent.StockChanged(testItem.getId(), -10, testOrder.getDecisionTime()));
+        // The stock movement is journaled with the order that caused it
+        verify(ledgerService, times(1)).recordAll(List.of(StockMovement.builder()
+                .inventoryItemId(testItem.getId()).orderId(1L).delta(-10).reason(StockMovement.Reason.SALE).build()));
+    }
+
+    /**
+     * Test: Cancels several orders at once.
+     * Expected outcome:
+     * - The reservations of the orders end, the stocked amount stays, a pending order has not moved any stock.
+     * - No stock movement is journaled and no stock change is written to the outbox.
+     */
+    @Test
+    void testCancelOrdersInBulk() {
+        testItem.setReservedAmount(10);
+        doReturn(testUser).when(orderService).getCurrentUser();
+        doReturn(Map.of(1L, Map.of(testItem.getId(), 10))).when(reservationService).lock(any());
+        doReturn(List.of(testItem.getId())).when(orderRepository).findInventoryItemIds(any());
+        doReturn(Map.of(testItem.getId(), testItem)).when(inventoryService).lockItems(any());
+        doReturn(List.of(testOrder)).when(orderRepository).findAllById(any());
+
+        BulkOrderResponse response = orderService.cancelOrders(List.of(1L), null);
+
+        assertEquals(1, response.getSucceeded());
+        assertEquals(Order.Status.CANCELED, testOrder.getStatus());
+        assertEquals(10.0, testItem.getStockedAmount());
+        assertEquals(0.0, testItem.getReservedAmount());
+        verify(reservationService, times(1)).remove(List.of(1L));
+        verify(inventoryService, never()).receiveStock(anyLong(), anyInt(), any(), any());
+        verify(ledgerService, times(1)).recordAll(List.of());
+        verify(outboxService, never()).append(any(InventoryEvent.class));
+    }
+
+    /**
+     * Test: Creating a SELL order reserves the ordered quantities.
+     * Expected outcome:
+     * - The reservation is keyed by inventory item, merged lines are reserved once.
+     */
+    @Test
+    void testCreatedSellOrderReservesStock() {
+        doReturn(testUser).when(orderService).getCurrentUser();
+        doAnswer(invocation -> invocation.getArgument(0)).when(orderRepository).save(any(Order.class));
+        doReturn(List.of(testItem.getProduct())).when(productRepository).findAllById(any());
+        doReturn(Map.of(1L, testItem)).when(inventoryService).findItemsByProductIds(any());
+
+        orderService.createdOrder(OrderCreateRequest.builder()
+                .orderType(Order.OrderType.SELL)
+                .products(List.of(productLine(1L, 2), productLine(1L, 3)))
+                .build());
+
+        verify(reservationService, times(1)).reserve(any(), eq(Map.of(testItem.getId(), 5)));
+    }
+
+    /**
+     * Test: Confirming a SELL order withdraws its reservation and takes only the unreserved rest from the available stock.
+     */
+    @Test
+    void testConfirmOrderConvertsReservation() {
+        doReturn(Optional.of(testOrder)).when(orderRepository).findById(1L);
+        doReturn(testOrder).when(orderRepository).save(any(Order.class));
+        doReturn(testUser).when(orderService).getCurrentUser();
+        doReturn(Map.of(testItem.getId(), 6)).when(reservationService).convert(1L);
+
+        orderService.confirmOrder(1L, null);
+
+        verify(inventoryService, times(1)).releaseStock(testItem.getId(), 4, StockMovement.Reason.SALE, 1L);
+    }
+
+    /**
+     * Test: A bulk confirmation may use the stock reserved by the confirmed order itself.
+     * Expected outcome:
+     * - The whole stock is reserved by the order, so it is not available, but the order is confirmed.
+     * - The reservation ends: the reserved amount drops and the reservation rows of the order are removed.
+     */
+    @Test
+    void testConfirmOrdersInBulkUsesOwnReservation() {
+        testItem.setReservedAmount(10);
+        doReturn(testUser).when(orderService).getCurrentUser();
+        doReturn(Map.of(1L, Map.of(testItem.getId(), 10))).when(reservationService).lock(any());
+        doReturn(List.of(testItem.getId())).when(orderRepository).findInventoryItemIds(any());
+        doReturn(Map.of(testItem.getId(), testItem)).when(inventoryService).lockItems(List.of(testItem.getId()));
+        doReturn(List.of(testOrder)).when(orderRepository).findAllById(any());
+
+        BulkOrderResponse response = orderService.confirmOrders(List.of(1L), null);
+
+        assertEquals(1, response.getSucceeded());
+        assertEquals(0.0, testItem.getStockedAmount());
+        assertEquals(0.0, testItem.getReservedAmount());
+        verify(reservationService, times(1)).remove(List.of(1L));
     }
 
     @Test
@@ -211,6 +503,11 @@ public class OrderServiceTest {
         orderService.updateOrderStatus(orderId, newStatus);
 
         assertEquals(newStatus, testOrder.getStatus());
+        verify(salesRollupService, times(1)).applyStatusChange(testOrder, Order.Status.PENDING, newStatus);
+        verify(orderEventBus, times(1)).publish(argThat(event -> event instanceof OrderEvent.OrderStatusChanged changed
+                && changed.orderId().equals(orderId)
+                && changed.previousStatus() == Order.Status.PENDING
+                && changed.newStatus() == newStatus));
 
         verify(orderRepository, times(1)).findById(orderId);
         verify(orderRepository, times(1)).save(any(Order.class));
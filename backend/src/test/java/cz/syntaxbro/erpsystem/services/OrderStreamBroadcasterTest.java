@@ -0,0 +1,122 @@
+package cz.syntaxbro.erpsystem.services;
+
+import cz.syntaxbro.erpsystem.events.OrderEvent;
+import cz.syntaxbro.erpsystem.models.InventoryItem;
+import cz.syntaxbro.erpsystem.models.Order;
+import cz.syntaxbro.erpsystem.models.OutboxMessage;
+import cz.syntaxbro.erpsystem.models.Product;
+import cz.syntaxbro.erpsystem.repositories.InventoryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class OrderStreamBroadcasterTest {
+
+    private final OrderEvent confirmed = new OrderEvent.OrderConfirmed(1L, Order.OrderType.SELL, "admin", LocalDateTime.now());
+    private final OrderEvent changed = new OrderEvent.OrderStatusChanged(1L, Order.Status.CONFIRMED, Order.Status.IN_TRANSMIT, LocalDateTime.now());
+
+    private InventoryRepository inventoryRepository;
+    private MeterRegistry meterRegistry;
+
+    // Sender tasks are collected and run by the test, so it decides when a client catches up
+    private final List<Runnable> senderTasks = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        inventoryRepository = mock(InventoryRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private OrderStreamBroadcaster broadcaster(int bufferSize) {
+        return new OrderStreamBroadcaster(inventoryRepository, meterRegistry, bufferSize, Duration.ofMinutes(1), senderTasks::add);
+    }
+
+    private void runSenders() {
+        while (!senderTasks.isEmpty()) {
+            senderTasks.removeFirst().run();
+        }
+    }
+
+    /**
+     * Test: A confirmation is sent to every connected client.
+     * Expected outcome:
+     * - One sender task per client drains its buffer, only the order event is sent, stock levels come from the outbox.
+     */
+    @Test
+    void confirmationIsSentToEveryClient() {
+        OrderStreamBroadcaster broadcaster = broadcaster(16);
+        broadcaster.onEvent(confirmed);
+
+        broadcaster.connect();
+        broadcaster.connect();
+        broadcaster.onEvent(confirmed);
+        assertEquals(2, senderTasks.size());
+        runSenders();
+
+        assertEquals(2, meterRegistry.get("orders.stream.events.sent").counter().count());
+        assertEquals(2, meterRegistry.get("orders.stream.clients").gauge().value());
+        verifyNoInteractions(inventoryRepository);
+    }
+
+    /**
+     * Test: The outbox relays a reservation and a stock change of an item and an order event.
+     * Expected outcome:
+     * - The current stock level of the item is sent once, the order message is not sent again.
+     * - Without clients nothing is loaded from the database.
+     */
+    @Test
+    void relayedStockChangesAreSentAsStockLevels() {
+        OrderStreamBroadcaster broadcaster = broadcaster(16);
+        broadcaster.accept(List.of(message(OutboxMessage.AggregateType.INVENTORY_ITEM, 3L)));
+        verifyNoInteractions(inventoryRepository);
+
+        Product product = Product.builder().id(5L).name("Desk").build();
+        when(inventoryRepository.findAllById(Set.of(3L)))
+                .thenReturn(List.of(InventoryItem.builder().id(3L).product(product).stockedAmount(7).reservedAmount(2).build()));
+
+        broadcaster.connect();
+        broadcaster.accept(List.of(message(OutboxMessage.AggregateType.INVENTORY_ITEM, 3L),
+                message(OutboxMessage.AggregateType.ORDER, 1L), message(OutboxMessage.AggregateType.INVENTORY_ITEM, 3L)));
+        runSenders();
+
+        assertEquals(1, meterRegistry.get("orders.stream.events.sent").counter().count());
+    }
+
+    private static OutboxMessage message(OutboxMessage.AggregateType aggregateType, Long aggregateId) {
+        return OutboxMessage.builder().aggregateType(aggregateType).aggregateId(aggregateId).createdAt(LocalDateTime.now()).build();
+    }
+
+    /**
+     * Test: A client that does not keep up is disconnected once its buffer is full.
+     * Expected outcome:
+     * - The slow client is dropped and counted, a client connected later still gets the events.
+     */
+    @Test
+    void slowClientIsDroppedWhenBufferIsFull() {
+        OrderStreamBroadcaster broadcaster = broadcaster(2);
+        broadcaster.connect();
+
+        broadcaster.onEvent(changed);
+        broadcaster.onEvent(changed);
+        assertEquals(1, broadcaster.clientCount());
+        broadcaster.onEvent(changed);
+        assertEquals(0, broadcaster.clientCount());
+        assertEquals(1, meterRegistry.get("orders.stream.clients.dropped").tag("cause", "overflow").counter().count());
+
+        senderTasks.clear();
+        broadcaster.connect();
+        broadcaster.onEvent(changed);
+        runSenders();
+        assertEquals(1, meterRegistry.get("orders.stream.events.sent").counter().count());
+    }
+}
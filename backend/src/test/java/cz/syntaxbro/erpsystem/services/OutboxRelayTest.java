@@ -0,0 +1,186 @@
+package cz.syntaxbro.erpsystem.services;
+
+import cz.syntaxbro.erpsystem.events.OutboxConsumer;
+import cz.syntaxbro.erpsystem.models.OutboxMessage;
+import cz.syntaxbro.erpsystem.repositories.OutboxRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The relay against a real database. Leasing, delivery and deletion commit on their own, so the test runs outside of a transaction.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OutboxRelayTest {
+
+    private final Instant now = Instant.parse("2025-03-31T10:00:00Z");
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private MeterRegistry meterRegistry;
+    private final List<Long> received = new ArrayList<>();
+    private boolean failing;
+    private Long poisoned;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        for (int i = 0; i < 5; i++) {
+            save(i);
+        }
+    }
+
+    private Long save(long orderId) {
+        return outboxRepository.save(OutboxMessage.builder()
+                .aggregateType(OutboxMessage.AggregateType.ORDER)
+                .aggregateId(orderId)
+                .eventType("OrderCreated")
+                .payload("{}")
+                .createdAt(LocalDateTime.ofInstant(now, ZoneOffset.UTC))
+                .build()).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxRepository.deleteAll();
+    }
+
+    private OutboxRelay relay(Instant at) {
+        OutboxConsumer consumer = messages -> {
+            if (failing || messages.stream().anyMatch(message -> message.getId().equals(poisoned))) {
+                throw new IOException("sink unavailable");
+            }
+            messages.forEach(message -> received.add(message.getId()));
+        };
+        return relay(at, List.of(consumer));
+    }
+
+    private OutboxRelay relay(Instant at, List<OutboxConsumer> consumers) {
+        return new OutboxRelay(outboxRepository, consumers, new TransactionTemplate(transactionManager), meterRegistry,
+                Clock.fixed(at, ZoneOffset.UTC), 2, Duration.ofSeconds(30), 3, Duration.ofSeconds(1), false);
+    }
+
+    /**
+     * Test: The relay drains the whole outbox in batches, in ID order, and deletes what it delivered.
+     */
+    @Test
+    void drainDeliversInOrderAndDeletes() {
+        List<Long> ids = outboxRepository.findAll().stream().map(OutboxMessage::getId).sorted().toList();
+
+        assertEquals(5, relay(now).drain());
+
+        assertEquals(ids, received);
+        assertEquals(0, outboxRepository.count());
+        assertEquals(5, meterRegistry.get("outbox.relay.delivered").counter().count());
+        assertEquals(3, meterRegistry.get("outbox.relay.batch").timer().count());
+    }
+
+    /**
+     * Test: A failed batch stays leased until the lease expires, then it is delivered again (at least once).
+     * Expected outcome:
+     * - Nothing is delivered or deleted while the consumer fails, the failure is counted.
+     * - A relay of another node skips the leased batch and delivers the messages of the other orders.
+     * - After the lease expired the failed messages are delivered too.
+     */
+    @Test
+    void failedBatchIsRetriedAfterLeaseExpires() {
+        List<Long> ids = outboxRepository.findAll().stream().map(OutboxMessage::getId).sorted().toList();
+
+        failing = true;
+        assertEquals(0, relay(now).drain());
+        assertEquals(1, meterRegistry.get("outbox.relay.failures").counter().count());
+        assertEquals(5, outboxRepository.count());
+
+        failing = false;
+        assertEquals(3, relay(now.plusSeconds(10)).drain());
+        assertEquals(ids.subList(2, 5), received);
+        assertEquals(2, outboxRepository.count());
+
+        assertEquals(2, relay(now.plusSeconds(31)).drain());
+        assertEquals(0, outboxRepository.count());
+        assertEquals(List.of(ids.get(2), ids.get(3), ids.get(4), ids.get(0), ids.get(1)), received);
+    }
+
+    /**
+     * Test: More messages of the order of a failed batch are written while the batch is leased.
+     * Expected outcome:
+     * - Another node holds them back while the older message of their order is leased.
+     * - Once that message is delivered they follow, in ID order.
+     */
+    @Test
+    void messagesOfAnAggregateWaitForTheOlderOnes() {
+        List<Long> ids = outboxRepository.findAll().stream().map(OutboxMessage::getId).sorted().toList();
+
+        failing = true;
+        assertEquals(0, relay(now).drain());
+        Long first = save(0);
+        Long second = save(0);
+
+        failing = false;
+        assertEquals(3, relay(now.plusSeconds(10)).drain());
+        assertEquals(ids.subList(2, 5), received);
+
+        assertEquals(4, relay(now.plusSeconds(31)).drain());
+        assertEquals(List.of(ids.get(0), ids.get(1), first, second), received.subList(3, 7));
+    }
+
+    /**
+     * Test: The relay runs without any consumer.
+     * Expected outcome:
+     * - Nothing is leased or deleted, the messages wait for a relay with consumers.
+     */
+    @Test
+    void nothingIsDrainedWithoutConsumers() {
+        assertEquals(0, relay(now, List.of()).drain());
+
+        assertEquals(5, outboxRepository.count());
+        assertTrue(outboxRepository.findAll().stream().allMatch(message -> message.getAttempts() == 0));
+    }
+
+    /**
+     * Test: The consumer keeps failing on the oldest message.
+     * Expected outcome:
+     * - Once it was leased the maximum number of attempts (3), the message is dead-lettered and kept.
+     * - The messages behind it are delivered, the dead-lettered one is not leased any more.
+     */
+    @Test
+    void exhaustedMessageIsDeadLettered() {
+        List<Long> ids = outboxRepository.findAll().stream().map(OutboxMessage::getId).sorted().toList();
+        poisoned = ids.getFirst();
+
+        for (int attempt = 0; attempt < 3; attempt++) {
+            assertEquals(0, relay(now.plusSeconds(31L * attempt)).drain());
+        }
+        assertEquals(0, meterRegistry.get("outbox.relay.dead_lettered").counter().count());
+
+        assertEquals(4, relay(now.plusSeconds(93)).drain());
+        assertEquals(ids.subList(1, 5), received);
+        assertEquals(1, meterRegistry.get("outbox.relay.dead_lettered").counter().count());
+
+        OutboxMessage deadLettered = outboxRepository.findById(poisoned).orElseThrow();
+        assertEquals(3, deadLettered.getAttempts());
+        assertNotNull(deadLettered.getDeadLetteredAt());
+        assertEquals(0, relay(now.plusSeconds(200)).drain());
+        assertEquals(3, outboxRepository.findById(poisoned).orElseThrow().getAttempts());
+    }
+}
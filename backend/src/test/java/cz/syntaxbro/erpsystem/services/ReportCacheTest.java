@@ -0,0 +1,138 @@
+package cz.syntaxbro.erpsystem.services;
+
+import cz.syntaxbro.erpsystem.models.Order;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportCacheTest {
+
+    private final LocalDate today = LocalDate.of(2025, 3, 31);
+
+    private MeterRegistry meterRegistry;
+    private MutableClock clock;
+    private ReportCache reportCache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        clock = new MutableClock();
+        reportCache = new ReportCache(meterRegistry, 2, Duration.ofMinutes(5), clock);
+        loads = new AtomicInteger();
+    }
+
+    private ReportCache.Key salesKey(LocalDate start, LocalDate end) {
+        return new ReportCache.Key(ReportCache.Kind.SALES, start, end, Order.OrderType.SELL, 0);
+    }
+
+    private String load(ReportCache.Key key) {
+        return reportCache.get(key, () -> "report-" + loads.incrementAndGet());
+    }
+
+    private double count(String name, String tag, String value) {
+        return meterRegistry.get(name).tag(tag, value).counter().count();
+    }
+
+    @Test
+    void get_ShouldServeRepeatedRequestsFromCache() {
+        ReportCache.Key key = salesKey(today.minusMonths(1), today);
+
+        assertEquals("report-1", load(key));
+        assertEquals("report-1", load(key));
+
+        assertEquals(1, loads.get());
+        assertEquals(1, count("reports.cache.requests", "result", "hit"));
+        assertEquals(1, count("reports.cache.requests", "result", "miss"));
+    }
+
+    @Test
+    void get_ShouldReloadExpiredEntries() {
+        ReportCache.Key key = salesKey(today.minusMonths(1), today);
+        load(key);
+
+        clock.advance(Duration.ofMinutes(6));
+
+        assertEquals("report-2", load(key));
+        assertEquals(1, count("reports.cache.evictions", "cause", "expired"));
+    }
+
+    @Test
+    void get_ShouldEvictLeastRecentlyUsedEntryWhenFull() {
+        ReportCache.Key first = salesKey(today.minusDays(3), today.minusDays(3));
+        ReportCache.Key second = salesKey(today.minusDays(2), today.minusDays(2));
+        ReportCache.Key third = salesKey(today.minusDays(1), today.minusDays(1));
+
+        load(first);
+        load(second);
+        load(first);
+        load(third);
+
+        assertEquals(2, reportCache.size());
+        assertEquals(1, count("reports.cache.evictions", "cause", "size"));
+        assertEquals("report-1", load(first));
+        assertEquals("report-4", load(second));
+    }
+
+    @Test
+    void invalidate_ShouldOnlyEvictReportsContainingTheDay() {
+        ReportCache.Key march = salesKey(today.withDayOfMonth(1), today);
+        ReportCache.Key february = salesKey(today.minusMonths(1).withDayOfMonth(1), today.minusMonths(1));
+        load(march);
+        load(february);
+
+        reportCache.invalidate(today.minusDays(5));
+
+        assertEquals(1, reportCache.size());
+        assertEquals("report-3", load(march));
+        assertEquals("report-2", load(february));
+        assertEquals(1, count("reports.cache.evictions", "cause", "invalidation"));
+    }
+
+    @Test
+    void get_ShouldNotCacheReportComputedAcrossInvalidation() {
+        ReportCache.Key key = salesKey(today.minusMonths(1), today);
+
+        reportCache.get(key, () -> {
+            reportCache.invalidate(today);
+            return "stale";
+        });
+
+        assertEquals(0, reportCache.size());
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant instant = Instant.parse("2025-03-31T10:00:00Z");
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
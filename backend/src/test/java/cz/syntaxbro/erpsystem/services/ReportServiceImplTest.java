@@ -6,6 +6,7 @@ import cz.syntaxbro.erpsystem.responses.reports.OrderApprovalReportDTO;
 import cz.syntaxbro.erpsystem.responses.reports.ProductPurchaseReportDTO;
 import cz.syntaxbro.erpsystem.responses.reports.ProductSalesReportDTO;
 import cz.syntaxbro.erpsystem.responses.reports.SalesReportDTO;
+import cz.syntaxbro.erpsystem.responses.reports.SalesSeriesReportDTO;
 import cz.syntaxbro.erpsystem.services.impl.ReportServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,8 +14,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
@@ -29,9 +32,6 @@ public class ReportServiceImplTest {
     @Mock
     private OrderRepository orderRepository;
 
-    @Mock
-    private OrderItemRepository orderItemRepository;
-
     @Mock
     private ProductRepository productRepository;
 
@@ -39,7 +39,10 @@ public class ReportServiceImplTest {
     private UserRepository userRepository;
 
     @Mock
-    private InventoryRepository inventoryRepository;
+    private StockMovementRepository stockMovementRepository;
+
+    @Mock
+    private DailySalesRollupRepository rollupRepository;
 
     @InjectMocks
     private ReportServiceImpl reportService;
@@ -189,7 +192,9 @@ public class ReportServiceImplTest {
         LocalDate endDate = LocalDate.now();
         Order.OrderType orderType = Order.OrderType.SELL;
 
-        when(orderRepository.findAll()).thenReturn(orders);
+        when(rollupRepository.sumRevenueMinor(startDate, endDate, orderType)).thenReturn(70000L);
+        when(orderRepository.countInPeriod(startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay(), Order.Status.CONFIRMED, orderType))
+                .thenReturn(2L);
 
         // Act
         SalesReportDTO result = reportService.generateSalesReport(startDate, endDate, orderType);
@@ -198,9 +203,77 @@ public class ReportServiceImplTest {
         assertNotNull(result);
         assertEquals(startDate, result.getStartDate());
         assertEquals(endDate, result.getEndDate());
+        assertEquals(2, result.getOrderCount());
+        assertEquals(0, new BigDecimal("700").compareTo(result.getTotalSales()));
+        assertEquals(new BigDecimal("350.00"), result.getAverageOrderValue());
         
-        // Ověření, že byly použity pouze prodejní objednávky
-        verify(orderRepository).findAll();
+        // The order history is not read
+        verify(rollupRepository).sumRevenueMinor(startDate, endDate, orderType);
+        verify(orderRepository, never()).findAll();
+        verify(orderRepository, never()).findInPeriod(any(), any(), any(), any());
+    }
+
+    @Test
+    void generateSalesSeries_ShouldGroupDaysIntoWeeks() {
+        // Arrange: Wednesday 5 Feb to Thursday 20 Feb 2025, i.e. three (truncated) weeks
+        LocalDate startDate = LocalDate.of(2025, 2, 5);
+        LocalDate endDate = LocalDate.of(2025, 2, 20);
+        Order.OrderType orderType = Order.OrderType.SELL;
+
+        when(rollupRepository.sumRevenueByDay(startDate, endDate, orderType)).thenReturn(List.of(
+                new Object[]{LocalDate.of(2025, 2, 5), 10000L},
+                new Object[]{LocalDate.of(2025, 2, 9), 20000L},
+                new Object[]{LocalDate.of(2025, 2, 20), 5000L}
+        ));
+        when(orderRepository.countByDay(startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay(), Order.Status.CONFIRMED, orderType))
+                .thenReturn(List.of(
+                        new Object[]{LocalDate.of(2025, 2, 5), 1L},
+                        new Object[]{LocalDate.of(2025, 2, 9), 2L},
+                        new Object[]{LocalDate.of(2025, 2, 20), 1L}
+                ));
+
+        // Act
+        SalesSeriesReportDTO result = reportService.generateSalesSeries(startDate, endDate, orderType, SalesSeriesReportDTO.Bucket.WEEK);
+
+        // Assert
+        List<SalesSeriesReportDTO.Point> points = result.getPoints();
+        assertEquals(3, points.size());
+
+        assertEquals(startDate, points.get(0).getBucketStart());
+        assertEquals(LocalDate.of(2025, 2, 9), points.get(0).getBucketEnd());
+        assertEquals(0, new BigDecimal("300").compareTo(points.get(0).getTotalSales()));
+        assertEquals(3, points.get(0).getOrderCount());
+        assertEquals(new BigDecimal("100.00"), points.get(0).getAverageOrderValue());
+
+        // A week without sales is in the series with zeros
+        assertEquals(LocalDate.of(2025, 2, 10), points.get(1).getBucketStart());
+        assertEquals(0, points.get(1).getOrderCount());
+        assertEquals(BigDecimal.ZERO, points.get(1).getAverageOrderValue());
+
+        assertEquals(LocalDate.of(2025, 2, 17), points.get(2).getBucketStart());
+        assertEquals(endDate, points.get(2).getBucketEnd());
+        assertEquals(1, points.get(2).getOrderCount());
+        verify(orderRepository, never()).findInPeriod(any(), any(), any(), any());
+    }
+
+    @Test
+    void generateSalesSeries_ShouldReturnOnePointPerMonth() {
+        // Arrange
+        LocalDate startDate = LocalDate.of(2025, 1, 15);
+        LocalDate endDate = LocalDate.of(2025, 3, 10);
+
+        when(rollupRepository.sumRevenueByDay(any(), any(), any())).thenReturn(List.<Object[]>of(new Object[]{LocalDate.of(2025, 2, 28), 8000L}));
+        when(orderRepository.countByDay(any(), any(), any(), any())).thenReturn(List.<Object[]>of(new Object[]{LocalDate.of(2025, 2, 28), 2L}));
+
+        // Act
+        SalesSeriesReportDTO result = reportService.generateSalesSeries(startDate, endDate, Order.OrderType.SELL, SalesSeriesReportDTO.Bucket.MONTH);
+
+        // Assert
+        assertEquals(3, result.getPoints().size());
+        SalesSeriesReportDTO.Point february = result.getPoints().get(1);
+        assertEquals(LocalDate.of(2025, 2, 1), february.getBucketStart());
+        assertEquals(LocalDate.of(2025, 2, 28), february.getBucketEnd());
+        assertEquals(new BigDecimal("40.00"), february.getAverageOrderValue());
     }
 
     @Test
@@ -210,22 +283,26 @@ public class ReportServiceImplTest {
         LocalDate endDate = LocalDate.now();
         int limit = 10;
 
-        when(orderRepository.findAll()).thenReturn(orders);
-        when(orderItemRepository.findAll()).thenReturn(orderItems);
-        when(productRepository.findById(1L)).thenReturn(Optional.of(products.get(0)));
-        when(productRepository.findById(2L)).thenReturn(Optional.of(products.get(1)));
+        when(rollupRepository.sumRevenueMinor(any(), any(), eq(Order.OrderType.SELL))).thenReturn(70000L);
+        when(rollupRepository.findProductSales(any(), any(), eq(Order.OrderType.SELL), eq(PageRequest.of(0, limit))))
+                .thenReturn(new ArrayList<>(List.of(
+                        new ProductSalesReportDTO(1L, "Produkt 1", "Popis produktu 1", 5L, 50000L, 100.0),
+                        new ProductSalesReportDTO(2L, "Produkt 2", "Popis produktu 2", 1L, 20000L, 200.0)
+                )));
 
         // Act
         List<ProductSalesReportDTO> result = reportService.generateBestSellingProductsReport(startDate, endDate, limit);
 
         // Assert
         assertNotNull(result);
-        assertFalse(result.isEmpty());
+        assertEquals(2, result.size());
+        assertEquals(5, result.get(0).getQuantitySold());
+        assertEquals(new BigDecimal("71.43"), result.get(0).getPercentageOfTotalSales());
+        assertEquals(new BigDecimal("28.57"), result.get(1).getPercentageOfTotalSales());
         
         // Ověření, že byly použity správné repository metody
-        verify(orderRepository).findAll();
-        verify(orderItemRepository, times(3)).findAll();
-        verify(productRepository, atLeastOnce()).findById(anyLong());
+        verify(orderRepository, never()).findAll();
+        verify(productRepository, never()).findById(anyLong());
     }
 
     @Test
@@ -235,19 +312,22 @@ public class ReportServiceImplTest {
         LocalDate endDate = LocalDate.now();
         int limit = 10;
 
-        when(inventoryRepository.findAll()).thenReturn(inventoryItems);
-        when(productRepository.findById(1L)).thenReturn(Optional.of(products.get(0)));
-        when(productRepository.findById(2L)).thenReturn(Optional.of(products.get(1)));
+        ProductPurchaseReportDTO purchased = new ProductPurchaseReportDTO(1L, "Produkt 1", "Popis produktu 1", 15.0, 2L, 80.0);
+        when(stockMovementRepository.findProductMovements(startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay(),
+                StockMovement.Reason.PURCHASE, PageRequest.of(0, limit))).thenReturn(List.of(purchased));
 
         // Act
         List<ProductPurchaseReportDTO> result = reportService.generateMostPurchasedProductsReport(startDate, endDate, limit);
 
         // Assert
-        assertNotNull(result);
-        
-        // Ověření, že byly použity správné repository metody
-        verify(inventoryRepository).findAll();
-        verify(productRepository, atLeastOnce()).findById(anyLong());
+        assertEquals(1, result.size());
+        assertEquals(15, result.getFirst().getQuantityPurchased());
+        assertEquals(new BigDecimal("1200.00"), result.getFirst().getTotalCost());
+        assertEquals(new BigDecimal("80.00"), result.getFirst().getAveragePurchasePrice());
+        assertEquals(2, result.getFirst().getPurchaseCount());
+
+        // The report is computed from the stock movements, not from the inventory items
+        verify(productRepository, never()).findById(anyLong());
     }
 
     @Test
@@ -256,7 +336,7 @@ public class ReportServiceImplTest {
         LocalDate startDate = LocalDate.now().minusMonths(1);
         LocalDate endDate = LocalDate.now();
 
-        when(orderRepository.findAll()).thenReturn(orders);
+        when(orderRepository.findInPeriod(any(), any(), eq(Order.Status.CONFIRMED), isNull())).thenReturn(orders);
         when(userRepository.findById(1L)).thenReturn(Optional.of(users.get(0)));
         when(userRepository.findById(2L)).thenReturn(Optional.of(users.get(1)));
 
@@ -268,7 +348,7 @@ public class ReportServiceImplTest {
         assertFalse(result.isEmpty());
         
         // Ověření, že byly použity správné repository metody
-        verify(orderRepository).findAll();
+        verify(orderRepository).findInPeriod(any(), any(), eq(Order.Status.CONFIRMED), isNull());
         verify(userRepository, atLeastOnce()).findById(anyLong());
     }
 
@@ -276,7 +356,7 @@ public class ReportServiceImplTest {
     void generateSalesReport_WithNullDates_ShouldUseDefaultDates() {
         // Arrange
         Order.OrderType orderType = Order.OrderType.SELL;
-        when(orderRepository.findAll()).thenReturn(orders);
+        when(rollupRepository.sumRevenueMinor(any(), any(), eq(orderType))).thenReturn(0L);
 
         // Act
         SalesReportDTO result = reportService.generateSalesReport(null, null, orderType);
@@ -294,7 +374,8 @@ public class ReportServiceImplTest {
         LocalDate endDate = LocalDate.now();
         int limit = 10;
 
-        when(orderRepository.findAll()).thenReturn(Collections.emptyList());
+        when(rollupRepository.sumRevenueMinor(any(), any(), eq(Order.OrderType.SELL))).thenReturn(0L);
+        when(rollupRepository.findProductSales(any(), any(), eq(Order.OrderType.SELL), any())).thenReturn(Collections.emptyList());
 
         // Act
         List<ProductSalesReportDTO> result = reportService.generateBestSellingProductsReport(startDate, endDate, limit);
@@ -311,7 +392,7 @@ public class ReportServiceImplTest {
         LocalDate endDate = LocalDate.now();
         int limit = 10;
 
-        when(inventoryRepository.findAll()).thenReturn(Collections.emptyList());
+        when(stockMovementRepository.findProductMovements(any(), any(), eq(StockMovement.Reason.PURCHASE), any())).thenReturn(Collections.emptyList());
 
         // Act
         List<ProductPurchaseReportDTO> result = reportService.generateMostPurchasedProductsReport(startDate, endDate, limit);
@@ -327,20 +408,8 @@ public class ReportServiceImplTest {
         LocalDate startDate = LocalDate.now().minusMonths(1);
         LocalDate endDate = LocalDate.now();
 
-        List<Order> noApprovedOrders = new ArrayList<>();
-        for (Order order : orders) {
-            Order newOrder = Order.builder()
-                    .id(order.getId())
-                    .orderType(order.getOrderType())
-                    .status(Order.Status.PENDING) // Všechny objednávky jsou PENDING
-                    .cost(order.getCost())
-                    .orderTime(order.getOrderTime())
-                    .orderItems(new ArrayList<>())
-                    .build();
-            noApprovedOrders.add(newOrder);
-        }
-
-        when(orderRepository.findAll()).thenReturn(noApprovedOrders);
+        // All orders are PENDING, so the repository returns no confirmed ones
+        when(orderRepository.findInPeriod(any(), any(), eq(Order.Status.CONFIRMED), isNull())).thenReturn(Collections.emptyList());
 
         // Act
         List<OrderApprovalReportDTO> result = reportService.generateOrderApprovalsReport(startDate, endDate);
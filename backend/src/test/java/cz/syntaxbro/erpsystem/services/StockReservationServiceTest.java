@@ -0,0 +1,139 @@
+package cz.syntaxbro.erpsystem.services;
+
+import cz.syntaxbro.erpsystem.models.InventoryItem;
+import cz.syntaxbro.erpsystem.models.Product;
+import cz.syntaxbro.erpsystem.models.ProductCategory;
+import cz.syntaxbro.erpsystem.repositories.InventoryRepository;
+import cz.syntaxbro.erpsystem.repositories.ProductCategoryRepository;
+import cz.syntaxbro.erpsystem.repositories.ProductRepository;
+import cz.syntaxbro.erpsystem.repositories.StockReservationRepository;
+import cz.syntaxbro.erpsystem.services.impl.InventoryServiceImpl;
+import cz.syntaxbro.erpsystem.services.impl.StockReservationServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Reservations against a real database, the reserved amount of the item has to follow every reservation change.
+ */
+@DataJpaTest
+class StockReservationServiceTest {
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductCategoryRepository productCategoryRepository;
+
+    @Autowired
+    private StockReservationRepository reservationRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private InventoryService inventoryService;
+    private InventoryItem item;
+
+    @BeforeEach
+    void setUp() {
+        inventoryService = new InventoryServiceImpl(inventoryRepository, null, mock(OutboxService.class), mock(StockLedgerService.class));
+
+        ProductCategory category = productCategoryRepository.save(ProductCategory.builder()
+                .name("reservations")
+                .description("reservation test")
+                .build());
+        Product product = productRepository.save(Product.builder()
+                .name("Reserved Product")
+                .description("reservation test")
+                .buyoutPrice(10)
+                .purchasePrice(5)
+                .productCategory(category)
+                .build());
+        item = inventoryRepository.save(InventoryItem.builder().product(product).stockedAmount(10).build());
+    }
+
+    private StockReservationService reservations(Duration ttl) {
+        return new StockReservationServiceImpl(reservationRepository, inventoryService, ttl);
+    }
+
+    /**
+     * The stock updates bypass the persistence context, the item is refreshed to see them.
+     */
+    private InventoryItem reload() {
+        entityManager.refresh(item);
+        return item;
+    }
+
+    /**
+     * Test: Reserving takes stock out of the available stock, until nothing is left.
+     * Expected outcome:
+     * - Two orders reserve 6 and 4 pieces, a third one cannot reserve anything more (409 CONFLICT).
+     * - Releasing one order makes its quantity available again.
+     */
+    @Test
+    void reserveAndReleaseFollowAvailableStock() {
+        StockReservationService reservations = reservations(Duration.ofHours(1));
+        reservations.reserve(1L, Map.of(item.getId(), 6));
+        reservations.reserve(2L, Map.of(item.getId(), 4));
+
+        assertEquals(0.0, reload().getAvailableAmount());
+        assertFalse(inventoryService.isStockAvailable(item.getId(), 1));
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> reservations.reserve(3L, Map.of(item.getId(), 1)));
+        assertEquals(HttpStatus.CONFLICT, exception.getStatusCode());
+
+        reservations.release(1L);
+        assertEquals(6.0, reload().getAvailableAmount());
+        assertEquals(1, reservationRepository.count());
+    }
+
+    /**
+     * Test: Confirming converts the reservation into a withdrawal.
+     * Expected outcome:
+     * - Stocked and reserved amounts drop together, the available stock does not change.
+     * - Unreserved stock cannot be taken from under a reservation of another order.
+     */
+    @Test
+    void convertWithdrawsReservedStock() {
+        StockReservationService reservations = reservations(Duration.ofHours(1));
+        reservations.reserve(1L, Map.of(item.getId(), 6));
+
+        assertThrows(ResponseStatusException.class, () -> inventoryService.releaseStock(item.getId(), 5));
+        assertEquals(Map.of(item.getId(), 6), reservations.convert(1L));
+
+        InventoryItem converted = reload();
+        assertEquals(4.0, converted.getStockedAmount());
+        assertEquals(0.0, converted.getReservedAmount());
+        assertEquals(0, reservationRepository.count());
+        assertTrue(reservations.convert(1L).isEmpty());
+    }
+
+    /**
+     * Test: The sweeper releases expired reservations in batches.
+     */
+    @Test
+    void releaseExpiredReturnsReservedStock() {
+        StockReservationService reservations = reservations(Duration.ofSeconds(-1));
+        for (long orderId = 1; orderId <= 3; orderId++) {
+            reservations.reserve(orderId, Map.of(item.getId(), 2));
+        }
+
+        assertEquals(2, reservations.releaseExpired(2));
+        assertEquals(1, reservations.releaseExpired(2));
+        assertEquals(0, reservations.releaseExpired(2));
+        assertEquals(0.0, reload().getReservedAmount());
+        assertEquals(10.0, reload().getStockedAmount());
+    }
+}
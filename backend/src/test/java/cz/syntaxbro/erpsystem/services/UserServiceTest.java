@@ -6,6 +6,7 @@ import cz.syntaxbro.erpsystem.repositories.RoleRepository;
 import cz.syntaxbro.erpsystem.repositories.UserRepository;
 import cz.syntaxbro.erpsystem.requests.CreateUserRequest;
 import cz.syntaxbro.erpsystem.security.PasswordSecurity;
+import cz.syntaxbro.erpsystem.security.services.SecurityStamps;
 import cz.syntaxbro.erpsystem.services.impl.UserServiceImpl;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
@@ -42,6 +43,9 @@ class UserServiceTest {
     @Mock
     private PasswordSecurity passwordSecurity;
 
+    @Mock
+    private SecurityStamps securityStamps;
+
     @InjectMocks
     private UserServiceImpl userService; // Uses real service with injected mocks
 
@@ -5,10 +5,12 @@ import cz.syntaxbro.erpsystem.security.PasswordSecurity;
 import cz.syntaxbro.erpsystem.models.User;
 import cz.syntaxbro.erpsystem.repositories.UserRepository;
 import cz.syntaxbro.erpsystem.security.services.CustomUserDetails;
+import cz.syntaxbro.erpsystem.security.services.SecurityStamps;
+import cz.syntaxbro.erpsystem.services.RefreshTokenService;
 import cz.syntaxbro.erpsystem.services.UserService;
-import cz.syntaxbro.erpsystem.utils.JwtUtil;
 import cz.syntaxbro.erpsystem.requests.LoginRequest;
 import cz.syntaxbro.erpsystem.requests.SignUpRequest;
+import cz.syntaxbro.erpsystem.responses.JWTResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.*;
 import org.mockito.InjectMocks;
@@ -47,7 +49,10 @@ class AuthServiceImplTest {
     SecurityContext securityContext;
 
     @Mock
-    private JwtUtil jwtUtil;
+    private SecurityStamps securityStamps;
+
+    @Mock
+    private RefreshTokenService refreshTokenService;
 
     @Mock
     private Authentication authentication;
@@ -62,7 +67,7 @@ class AuthServiceImplTest {
     @BeforeEach
     void setUp() {
         autoCloseable = MockitoAnnotations.openMocks(this);
-        authServiceImpl = new AuthServiceImpl(userRepository, jwtUtil, passwordSecurity, userService);
+        authServiceImpl = new AuthServiceImpl(userRepository, passwordSecurity, userService, securityStamps, refreshTokenService);
 
         signUpRequest = new SignUpRequest("Username", "1!Password", "email@email.com");
 
@@ -119,35 +124,55 @@ class AuthServiceImplTest {
     }
 
     @Test
-    void authenticateUser_shouldThrowException_whenInvalidUsername() {
+    void login_shouldThrowException_whenInvalidUsername() {
         when(userRepository.findByEmail("email@email.com")).thenReturn(Optional.empty());
 
         GlobalExceptionHandler.UserNotFoundException exception = assertThrows(GlobalExceptionHandler.UserNotFoundException.class,
-                () -> authServiceImpl.authenticateUser(new LoginRequest("email@email.com", "1!Password")));
+                () -> authServiceImpl.login(new LoginRequest("email@email.com", "1!Password")));
 
         assertEquals("Invalid email or password", exception.getMessage());
+        verifyNoInteractions(refreshTokenService);
     }
 
     @Test
-    void authenticateUser_shouldThrowException_whenInvalidPassword() {
+    void login_shouldVerifyOnceAndIssueBothTokens() {
         when(userRepository.findByEmail("email@email.com")).thenReturn(Optional.of(user));
-        when(passwordSecurity.matches("1!Password", "hashedPassword")).thenReturn(false);
+        when(passwordSecurity.matches("1!Password", "hashedPassword")).thenReturn(true);
+        when(securityStamps.current("email@email.com")).thenReturn(1L);
+        when(refreshTokenService.issue(any(), eq(1L))).thenReturn(new JWTResponse("access-token", "refresh-token"));
 
-        RuntimeException exception = assertThrows(RuntimeException.class,
-                () -> authServiceImpl.authenticateUser(new LoginRequest("email@email.com", "1!Password")));
+        JWTResponse response = authServiceImpl.login(new LoginRequest("email@email.com", "1!Password"));
 
-        assertEquals("[password];Invalid email or password", exception.getMessage());
+        assertEquals("access-token", response.getAccessToken());
+        assertEquals("refresh-token", response.getRefreshToken());
+        // One query and one password hash for both tokens
+        verify(userRepository, times(1)).findByEmail("email@email.com");
+        verify(passwordSecurity, times(1)).matches("1!Password", "hashedPassword");
     }
 
     @Test
-    void authenticateUser_shouldReturnToken_whenValidCredentials() {
+    void login_shouldRehashOutdatedPassword() {
         when(userRepository.findByEmail("email@email.com")).thenReturn(Optional.of(user));
         when(passwordSecurity.matches("1!Password", "hashedPassword")).thenReturn(true);
-        when(jwtUtil.generateToken(any())).thenReturn("generated-jwt-token");
+        when(passwordSecurity.upgradeEncoding("hashedPassword")).thenReturn(true);
+        when(passwordSecurity.encode("1!Password")).thenReturn("$pbkdf2-sha256$rehashed");
 
-        String token = authServiceImpl.authenticateUser(new LoginRequest("email@email.com", "1!Password"));
+        authServiceImpl.login(new LoginRequest("email@email.com", "1!Password"));
+
+        assertEquals("$pbkdf2-sha256$rehashed", user.getPassword());
+        verify(userRepository, times(1)).save(user);
+    }
 
-        assertEquals("generated-jwt-token", token);
+    @Test
+    void login_shouldNotIssueTokens_whenInvalidPassword() {
+        when(userRepository.findByEmail("email@email.com")).thenReturn(Optional.of(user));
+        when(passwordSecurity.matches("1!Password", "hashedPassword")).thenReturn(false);
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> authServiceImpl.login(new LoginRequest("email@email.com", "1!Password")));
+
+        assertEquals("[password];Invalid email or password", exception.getMessage());
+        verifyNoInteractions(refreshTokenService);
     }
 
     @Test
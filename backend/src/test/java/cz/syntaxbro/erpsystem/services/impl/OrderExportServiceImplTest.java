@@ -0,0 +1,115 @@
+package cz.syntaxbro.erpsystem.services.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.syntaxbro.erpsystem.models.*;
+import cz.syntaxbro.erpsystem.repositories.OrderRepository;
+import cz.syntaxbro.erpsystem.responses.exports.OrderExportRow;
+import cz.syntaxbro.erpsystem.responses.exports.SalesLineExportRow;
+import cz.syntaxbro.erpsystem.services.OrderExportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderExportServiceImplTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private OrderExportServiceImpl exportService;
+
+    @BeforeEach
+    void setUp() {
+        exportService = new OrderExportServiceImpl(orderRepository, objectMapper);
+    }
+
+    /**
+     * Test: Exports orders as CSV.
+     * Expected outcome:
+     * - A header line followed by one line per order, with fields containing commas or quotes quoted.
+     */
+    @Test
+    void exportOrdersWritesCsv() throws Exception {
+        when(orderRepository.streamExportRows(LocalDateTime.of(2025, 2, 1, 0, 0), LocalDateTime.of(2025, 3, 1, 0, 0), null, null))
+                .thenReturn(Stream.of(new OrderExportRow(1L, LocalDateTime.of(2025, 2, 13, 10, 20), Order.OrderType.SELL,
+                        Order.Status.CONFIRMED, 500.0, 1L, 2L, "admin", null, "say \"hi\"")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.exportOrders(LocalDate.of(2025, 2, 1), LocalDate.of(2025, 2, 28), null, OrderExportService.Format.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(String.join(",", OrderExportServiceImpl.ORDER_COLUMNS), lines[0]);
+        assertEquals("1,2025-02-13T10:20,SELL,CONFIRMED,500.0,1,2,admin,,\"say \"\"hi\"\"\"", lines[1]);
+    }
+
+    /**
+     * Test: Exports order lines of confirmed orders as newline-delimited JSON.
+     * Expected outcome:
+     * - One JSON object per order line, priced with the confirmed unit price, or the buyout price for SELL lines without one.
+     */
+    @Test
+    void exportSalesLinesWritesNdjson() throws Exception {
+        LocalDateTime orderTime = LocalDateTime.of(2025, 2, 13, 10, 20);
+        when(orderRepository.streamSalesLineRows(any(), any(), eq(Order.Status.CONFIRMED), eq(Order.OrderType.SELL)))
+                .thenReturn(Stream.of(
+                        new SalesLineExportRow(1L, orderTime, Order.OrderType.SELL, 7L, "Desk, oak", 2, null, 250.0, 100.0),
+                        new SalesLineExportRow(1L, orderTime, Order.OrderType.SELL, 8L, "Chair", 3, Money.of(20.0), 25.0, 10.0)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.exportSalesLines(null, null, Order.OrderType.SELL, OrderExportService.Format.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        JsonNode row = objectMapper.readTree(lines[0]);
+        assertEquals(1L, row.get("orderId").asLong());
+        assertEquals("2025-02-13T10:20", row.get("orderTime").asText());
+        assertEquals("Desk, oak", row.get("productName").asText());
+        assertEquals(2, row.get("quantity").asInt());
+        assertEquals(500.0, row.get("lineTotal").asDouble());
+        assertTrue(lines[0].endsWith("\"unitPrice\":250.00,\"lineTotal\":500.00}"), lines[0]);
+        assertEquals(60.0, objectMapper.readTree(lines[1]).get("lineTotal").asDouble());
+    }
+
+    /**
+     * Test: Exports an order line whose total is not exact in binary floating point as CSV.
+     * Expected outcome:
+     * - The unit price and the line total are computed in minor units and written with two decimals, like the report totals.
+     */
+    @Test
+    void exportSalesLinesWritesExactTotals() throws Exception {
+        when(orderRepository.streamSalesLineRows(any(), any(), eq(Order.Status.CONFIRMED), eq(Order.OrderType.PURCHASE)))
+                .thenReturn(Stream.of(new SalesLineExportRow(3L, LocalDateTime.of(2025, 2, 13, 10, 20), Order.OrderType.PURCHASE,
+                        9L, "Screw", 3, null, 0.2, 0.1)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.exportSalesLines(null, null, Order.OrderType.PURCHASE, OrderExportService.Format.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals("3,2025-02-13T10:20,PURCHASE,9,Screw,3,0.10,0.30", lines[1]);
+    }
+
+    /**
+     * Test: Unknown export formats are rejected.
+     */
+    @Test
+    void unknownFormatIsRejected() {
+        assertEquals(OrderExportService.Format.NDJSON, OrderExportService.Format.of("ndjson"));
+        assertThrows(IllegalArgumentException.class, () -> OrderExportService.Format.of("xml"));
+    }
+}
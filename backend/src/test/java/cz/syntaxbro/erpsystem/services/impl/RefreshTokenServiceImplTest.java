@@ -0,0 +1,174 @@
+package cz.syntaxbro.erpsystem.services.impl;
+
+import cz.syntaxbro.erpsystem.models.RefreshToken;
+import cz.syntaxbro.erpsystem.models.User;
+import cz.syntaxbro.erpsystem.repositories.RefreshTokenRepository;
+import cz.syntaxbro.erpsystem.repositories.UserRepository;
+import cz.syntaxbro.erpsystem.responses.JWTResponse;
+import cz.syntaxbro.erpsystem.security.services.CustomUserDetails;
+import cz.syntaxbro.erpsystem.security.services.PrincipalCache;
+import cz.syntaxbro.erpsystem.security.services.RevokedFamilies;
+import cz.syntaxbro.erpsystem.security.services.SecurityStamps;
+import cz.syntaxbro.erpsystem.utils.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Refresh token families against a real database: rotation, reuse detection, logout and the revocation filter.
+ */
+@DataJpaTest
+class RefreshTokenServiceImplTest {
+
+    private static final String EMAIL = "refresh@example.com";
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final JwtUtil jwtUtil = new JwtUtil();
+    private RevokedFamilies revokedFamilies;
+    private RefreshTokenServiceImpl refreshTokenService;
+    private CustomUserDetails userDetails;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(jwtUtil, "secret", "ThisIsASecretKeyForTestingOnly12345!");
+        revokedFamilies = new RevokedFamilies(1000, 0.01);
+        refreshTokenService = service(Clock.systemDefaultZone());
+        refreshTokenService.rebuildRevocations();
+
+        User user = new User();
+        user.setUsername("refresh");
+        user.setPassword("hashedPassword");
+        user.setFirstName("Refresh");
+        user.setLastName("Token");
+        user.setEmail(EMAIL);
+        user.setActive(true);
+        user.setRoles(Set.of());
+        userDetails = new CustomUserDetails(userRepository.save(user));
+    }
+
+    private RefreshTokenServiceImpl service(Clock clock) {
+        return new RefreshTokenServiceImpl(refreshTokenRepository, userRepository, jwtUtil,
+                new SecurityStamps(mock(PrincipalCache.class)),
+                revokedFamilies, meterRegistry, clock);
+    }
+
+    @Test
+    void rotate_ShouldIssueNextTokenOfTheFamily() {
+        JWTResponse issued = refreshTokenService.issue(userDetails, 0L);
+
+        JWTResponse rotated = refreshTokenService.rotate(issued.getRefreshToken(), EMAIL).orElseThrow();
+
+        Claims first = jwtUtil.parseClaims(issued.getRefreshToken());
+        Claims next = jwtUtil.parseClaims(rotated.getRefreshToken());
+        assertEquals(JwtUtil.extractFamily(first), JwtUtil.extractFamily(next));
+        assertEquals(JwtUtil.extractFamily(first), JwtUtil.extractFamily(jwtUtil.parseClaims(rotated.getAccessToken())));
+        assertNotEquals(first.getId(), next.getId());
+        assertEquals(RefreshToken.Status.ROTATED, refreshTokenRepository.lockByTokenId(first.getId()).orElseThrow().getStatus());
+        assertEquals(RefreshToken.Status.ACTIVE, refreshTokenRepository.lockByTokenId(next.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void rotate_ShouldRevokeFamily_WhenRotatedTokenIsReused() {
+        JWTResponse issued = refreshTokenService.issue(userDetails, 0L);
+        JWTResponse rotated = refreshTokenService.rotate(issued.getRefreshToken(), EMAIL).orElseThrow();
+        String familyId = JwtUtil.extractFamily(jwtUtil.parseClaims(issued.getRefreshToken()));
+
+        // The old token used a second time revokes the whole family, the new token too
+        assertTrue(refreshTokenService.rotate(issued.getRefreshToken(), EMAIL).isEmpty());
+        assertTrue(refreshTokenService.rotate(rotated.getRefreshToken(), EMAIL).isEmpty());
+        assertTrue(refreshTokenService.isRevoked(familyId));
+    }
+
+    @Test
+    void rotate_ShouldRejectTokenOfAnotherUser() {
+        JWTResponse issued = refreshTokenService.issue(userDetails, 0L);
+
+        assertEquals(Optional.empty(), refreshTokenService.rotate(issued.getRefreshToken(), "other@example.com"));
+        assertEquals(Optional.empty(), refreshTokenService.rotate("not.a.token", EMAIL));
+        // The token stays valid for its owner
+        assertTrue(refreshTokenService.rotate(issued.getRefreshToken(), EMAIL).isPresent());
+    }
+
+    @Test
+    void revoke_ShouldRejectTheFamily() {
+        JWTResponse issued = refreshTokenService.issue(userDetails, 0L);
+        String familyId = JwtUtil.extractFamily(jwtUtil.parseClaims(issued.getAccessToken()));
+
+        assertTrue(refreshTokenService.revoke(issued.getRefreshToken(), EMAIL));
+
+        assertTrue(refreshTokenService.isRevoked(familyId));
+        assertTrue(refreshTokenService.rotate(issued.getRefreshToken(), EMAIL).isEmpty());
+        assertFalse(refreshTokenService.revoke(issued.getRefreshToken(), "other@example.com"));
+    }
+
+    @Test
+    void isRevoked_ShouldNotAskTheStore_WhenFilterHasNoHit() {
+        JWTResponse issued = refreshTokenService.issue(userDetails, 0L);
+        String familyId = JwtUtil.extractFamily(jwtUtil.parseClaims(issued.getAccessToken()));
+
+        assertFalse(refreshTokenService.isRevoked(familyId));
+
+        assertEquals(1, meterRegistry.get("auth.revocations.checks").tag("result", "negative").counter().count());
+        assertEquals(0, meterRegistry.get("auth.revocations.checks").tag("result", "false_positive").counter().count());
+    }
+
+    @Test
+    void rebuildRevocations_ShouldLoadRevokedFamiliesFromTheStore() {
+        JWTResponse issued = refreshTokenService.issue(userDetails, 0L);
+        String familyId = JwtUtil.extractFamily(jwtUtil.parseClaims(issued.getAccessToken()));
+        refreshTokenService.revoke(issued.getRefreshToken(), EMAIL);
+
+        // After a restart the filter is empty until it is loaded, meanwhile the store answers every check
+        revokedFamilies = new RevokedFamilies(1000, 0.01);
+        RefreshTokenServiceImpl restarted = service(Clock.systemDefaultZone());
+        assertTrue(restarted.isRevoked(familyId));
+
+        assertEquals(1, restarted.rebuildRevocations());
+        assertTrue(revokedFamilies.isLoaded());
+        assertTrue(restarted.isRevoked(familyId));
+    }
+
+    @Test
+    void isRevoked_ShouldAskTheStore_UntilTheFilterIsLoaded() {
+        JWTResponse issued = refreshTokenService.issue(userDetails, 0L);
+        String familyId = JwtUtil.extractFamily(jwtUtil.parseClaims(issued.getAccessToken()));
+
+        revokedFamilies = new RevokedFamilies(1000, 0.01);
+        RefreshTokenServiceImpl restarted = service(Clock.systemDefaultZone());
+        assertFalse(restarted.isRevoked(familyId));
+        assertEquals(1, meterRegistry.get("auth.revocations.checks").tag("result", "unfiltered").counter().count());
+
+        restarted.rebuildRevocations();
+        assertFalse(restarted.isRevoked(familyId));
+        assertEquals(1, meterRegistry.get("auth.revocations.checks").tag("result", "negative").counter().count());
+    }
+
+    @Test
+    void purgeExpired_ShouldDeleteOnlyExpiredTokens() {
+        LocalDateTime issuedAt = LocalDateTime.of(2025, 3, 1, 12, 0);
+        service(Clock.fixed(issuedAt.atZone(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault())).issue(userDetails, 0L);
+        refreshTokenService.issue(userDetails, 0L);
+
+        assertEquals(1, refreshTokenService.purgeExpired(issuedAt.plus(JwtUtil.REFRESH_TOKEN_VALIDITY).plusSeconds(1)));
+        assertEquals(1, refreshTokenRepository.count());
+    }
+}
@@ -0,0 +1,103 @@
+package cz.syntaxbro.erpsystem.services.impl;
+
+import cz.syntaxbro.erpsystem.models.Order;
+import cz.syntaxbro.erpsystem.responses.reports.DashboardReportDTO;
+import cz.syntaxbro.erpsystem.responses.reports.SalesReportDTO;
+import cz.syntaxbro.erpsystem.services.ReportService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReportDashboardServiceImplTest {
+
+    @Mock
+    private ReportService reportService;
+
+    private ReportDashboardServiceImpl dashboardService;
+
+    private final LocalDate startDate = LocalDate.of(2025, 2, 1);
+    private final LocalDate endDate = LocalDate.of(2025, 2, 28);
+
+    @BeforeEach
+    void setUp() {
+        dashboardService = new ReportDashboardServiceImpl(reportService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dashboardService.shutdown();
+    }
+
+    /**
+     * Test: All four sections are computed at the same time.
+     * Expected outcome:
+     * - Every section waits until all four have started, which only finishes when they run concurrently.
+     * - The response contains every section and its timing.
+     */
+    @Test
+    void generateDashboardComputesSectionsConcurrently() {
+        CountDownLatch allStarted = new CountDownLatch(4);
+        SalesReportDTO sales = new SalesReportDTO(startDate, endDate, BigDecimal.TEN, 1, BigDecimal.TEN, BigDecimal.ONE);
+
+        doAnswer(awaitAll(allStarted, sales)).when(reportService).generateSalesReport(startDate, endDate, Order.OrderType.SELL);
+        doAnswer(awaitAll(allStarted, List.of())).when(reportService).generateBestSellingProductsReport(startDate, endDate, 5);
+        doAnswer(awaitAll(allStarted, List.of())).when(reportService).generateMostPurchasedProductsReport(startDate, endDate, 5);
+        doAnswer(awaitAll(allStarted, List.of())).when(reportService).generateOrderApprovalsReport(startDate, endDate);
+
+        DashboardReportDTO dashboard = dashboardService.generateDashboard(startDate, endDate, Order.OrderType.SELL, 5);
+
+        assertSame(sales, dashboard.getSales());
+        assertEquals(List.of(), dashboard.getBestSellingProducts());
+        assertEquals(List.of(), dashboard.getMostPurchasedProducts());
+        assertEquals(List.of(), dashboard.getOrderApprovals());
+        assertEquals(List.of("sales", "bestSellingProducts", "mostPurchasedProducts", "orderApprovals"),
+                List.copyOf(dashboard.getSectionTimingsMillis().keySet()));
+        assertFalse(dashboard.getSectionTimingsMillis().containsValue(null));
+    }
+
+    /**
+     * Test: Missing dates are resolved once and passed to every section.
+     */
+    @Test
+    void generateDashboardResolvesDefaultWindowOnce() {
+        DashboardReportDTO dashboard = dashboardService.generateDashboard(null, null, Order.OrderType.SELL, 10);
+
+        assertEquals(LocalDate.now(), dashboard.getEndDate());
+        verify(reportService).generateSalesReport(dashboard.getStartDate(), dashboard.getEndDate(), Order.OrderType.SELL);
+        verify(reportService).generateOrderApprovalsReport(dashboard.getStartDate(), dashboard.getEndDate());
+    }
+
+    /**
+     * Test: A failing section fails the whole dashboard with the original exception.
+     */
+    @Test
+    void generateDashboardRethrowsSectionFailure() {
+        when(reportService.generateOrderApprovalsReport(startDate, endDate)).thenThrow(new IllegalStateException("boom"));
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> dashboardService.generateDashboard(startDate, endDate, Order.OrderType.SELL, 10));
+        assertEquals("boom", exception.getMessage());
+    }
+
+    private static Answer<Object> awaitAll(CountDownLatch allStarted, Object result) {
+        return invocation -> {
+            allStarted.countDown();
+            assertTrue(allStarted.await(5, TimeUnit.SECONDS), "Sections are not computed concurrently");
+            return result;
+        };
+    }
+}
@@ -0,0 +1,181 @@
+package cz.syntaxbro.erpsystem.services.impl;
+
+import cz.syntaxbro.erpsystem.models.InventoryItem;
+import cz.syntaxbro.erpsystem.models.Product;
+import cz.syntaxbro.erpsystem.models.ProductCategory;
+import cz.syntaxbro.erpsystem.models.StockMovement;
+import cz.syntaxbro.erpsystem.repositories.*;
+import cz.syntaxbro.erpsystem.responses.StockHistoryResponse;
+import cz.syntaxbro.erpsystem.responses.reports.ProductPurchaseReportDTO;
+import cz.syntaxbro.erpsystem.services.OutboxService;
+import cz.syntaxbro.erpsystem.services.StockLedgerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * The stock ledger against a real database: movements, snapshots and the stock as of a past time.
+ */
+@DataJpaTest
+class StockLedgerServiceImplTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 3, 1, 12, 0);
+
+    @Autowired
+    private StockMovementRepository movementRepository;
+
+    @Autowired
+    private StockSnapshotRepository snapshotRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductCategoryRepository productCategoryRepository;
+
+    private InventoryItem item;
+
+    @BeforeEach
+    void setUp() {
+        ProductCategory category = productCategoryRepository.save(ProductCategory.builder()
+                .name("ledger")
+                .description("ledger test")
+                .build());
+        Product product = productRepository.save(Product.builder()
+                .name("Journaled Product")
+                .description("ledger test")
+                .buyoutPrice(10)
+                .purchasePrice(4)
+                .productCategory(category)
+                .build());
+        item = inventoryRepository.save(InventoryItem.builder().product(product).stockedAmount(10).build());
+    }
+
+    // The ledger with its clock set to the given time
+    private StockLedgerService ledger(LocalDateTime now) {
+        return new StockLedgerServiceImpl(movementRepository, snapshotRepository, inventoryRepository,
+                Clock.fixed(now.atZone(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault()));
+    }
+
+    /**
+     * Test: The stock at a time is the latest snapshot up to then plus the movements after it.
+     * Expected outcome:
+     * - Before, between and after the movements the stock is the running sum.
+     * - A snapshot is written only for an item that moved since the last one, and does not change the results.
+     */
+    @Test
+    void stockAsOfSumsSnapshotAndTail() {
+        ledger(T0).record(item.getId(), null, 10, StockMovement.Reason.OPENING);
+        ledger(T0.plusHours(1)).record(item.getId(), 1L, -3, StockMovement.Reason.SALE);
+
+        StockLedgerService ledger = ledger(T0.plusDays(1));
+        assertEquals(1, ledger.takeSnapshots(T0.plusHours(2), 100));
+        assertEquals(0, ledger.takeSnapshots(T0.plusHours(3), 100));
+        assertEquals(7.0, snapshotRepository.findAll().getFirst().getStockedAmount());
+
+        ledger(T0.plusHours(4)).record(item.getId(), 2L, 5, StockMovement.Reason.PURCHASE);
+
+        assertEquals(0.0, ledger.stockAsOf(item.getId(), T0.minusMinutes(1)));
+        assertEquals(10.0, ledger.stockAsOf(item.getId(), T0));
+        assertEquals(7.0, ledger.stockAsOf(item.getId(), T0.plusHours(1)));
+        assertEquals(7.0, ledger.stockAsOf(item.getId(), T0.plusHours(3)));
+        assertEquals(12.0, ledger.stockAsOf(item.getId(), T0.plusHours(4)));
+
+        assertEquals(1, ledger.takeSnapshots(T0.plusHours(5), 100));
+        assertEquals(12.0, snapshotRepository.findLatest(List.of(item.getId()), T0.plusDays(1)).getFirst().getStockedAmount());
+        assertEquals(12.0, ledger.stockAsOf(item.getId(), T0.plusDays(1)));
+    }
+
+    /**
+     * Test: The stock of many items at once, e.g. for a month-end close.
+     * Expected outcome:
+     * - Items are read from their snapshot plus tail like a single item, items without movements up to then are missing.
+     */
+    @Test
+    void stockAsOfManyItems() {
+        InventoryItem other = inventoryRepository.save(InventoryItem.builder()
+                .product(productRepository.save(Product.builder()
+                        .name("Later Product")
+                        .description("ledger test")
+                        .buyoutPrice(1)
+                        .purchasePrice(1)
+                        .productCategory(item.getProduct().getProductCategory())
+                        .build()))
+                .build());
+        ledger(T0).record(item.getId(), null, 10, StockMovement.Reason.OPENING);
+        ledger(T0.plusDays(1)).takeSnapshots(T0.plusHours(1), 100);
+        ledger(T0.plusHours(2)).record(item.getId(), 1L, -4, StockMovement.Reason.SALE);
+        ledger(T0.plusHours(3)).record(other.getId(), null, 3, StockMovement.Reason.OPENING);
+
+        StockLedgerService ledger = ledger(T0.plusDays(1));
+        assertEquals(Map.of(item.getId(), 10.0), ledger.stockAsOf(List.of(item.getId(), other.getId()), T0.plusHours(1)));
+        assertEquals(Map.of(item.getId(), 6.0, other.getId(), 3.0), ledger.stockAsOf(List.of(item.getId(), other.getId()), T0.plusHours(3)));
+    }
+
+    /**
+     * Test: The history of an item starts at the stock at the beginning of the window and runs the balance through its movements.
+     */
+    @Test
+    void stockHistoryRunsBalanceFromOpening() {
+        ledger(T0).record(item.getId(), null, 10, StockMovement.Reason.OPENING);
+        ledger(T0.plusHours(1)).record(item.getId(), 1L, -3, StockMovement.Reason.SALE);
+        ledger(T0.plusHours(2)).record(item.getId(), 2L, 5, StockMovement.Reason.PURCHASE);
+        InventoryServiceImpl inventoryService = new InventoryServiceImpl(inventoryRepository, null, mock(OutboxService.class), ledger(T0));
+
+        StockHistoryResponse history = inventoryService.getStockHistory(item.getId(), T0, T0.plusHours(2));
+
+        assertEquals(10.0, history.getOpeningAmount());
+        assertEquals(12.0, history.getClosingAmount());
+        assertEquals(List.of(7.0, 12.0), history.getMovements().stream().map(StockHistoryResponse.Movement::getBalance).toList());
+        assertEquals(List.of(1L, 2L), history.getMovements().stream().map(StockHistoryResponse.Movement::getOrderId).toList());
+        assertFalse(history.isTruncated());
+        assertThrows(IllegalArgumentException.class, () -> inventoryService.getStockHistory(item.getId(), T0, T0.minusDays(1)));
+    }
+
+    /**
+     * Test: Stock that predates the ledger is journaled once as an opening movement.
+     */
+    @Test
+    void recordOpeningBalancesJournalsPreLedgerStock() {
+        StockLedgerService ledger = ledger(LocalDateTime.now());
+
+        assertEquals(1, ledger.recordOpeningBalances());
+        assertEquals(0, ledger.recordOpeningBalances());
+        assertEquals(10.0, ledger.stockAsOf(item.getId(), LocalDateTime.now().plusMinutes(1)));
+    }
+
+    /**
+     * Test: The most purchased report reads the purchase movements of the window.
+     * Expected outcome:
+     * - Only PURCHASE movements inside the window count, the purchases are counted per order.
+     */
+    @Test
+    void findProductMovementsAggregatesPurchases() {
+        ledger(T0).record(item.getId(), 1L, 6, StockMovement.Reason.PURCHASE);
+        ledger(T0.plusHours(1)).record(item.getId(), 2L, 4, StockMovement.Reason.PURCHASE);
+        ledger(T0.plusHours(2)).record(item.getId(), 3L, -2, StockMovement.Reason.SALE);
+        ledger(T0.plusDays(2)).record(item.getId(), 4L, 100, StockMovement.Reason.PURCHASE);
+
+        List<ProductPurchaseReportDTO> report = movementRepository.findProductMovements(T0.minusDays(1), T0.plusDays(1),
+                StockMovement.Reason.PURCHASE, PageRequest.of(0, 10));
+
+        assertEquals(1, report.size());
+        assertEquals(10, report.getFirst().getQuantityPurchased());
+        assertEquals(2, report.getFirst().getPurchaseCount());
+        assertEquals(item.getProduct().getId(), report.getFirst().getProductId());
+    }
+}
@@ -7,6 +7,7 @@ import cz.syntaxbro.erpsystem.models.User;
 import cz.syntaxbro.erpsystem.requests.CreateUserRequest;
 import cz.syntaxbro.erpsystem.repositories.RoleRepository;
 import cz.syntaxbro.erpsystem.repositories.UserRepository;
+import cz.syntaxbro.erpsystem.security.services.SecurityStamps;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -34,10 +35,13 @@ class UserServiceImplTest {
     @Mock
     private PasswordSecurity passwordSecurity;
 
+    @Mock
+    private SecurityStamps securityStamps;
+
     @BeforeEach
     void setUp() {
         autoCloseable = MockitoAnnotations.openMocks(this);
-        userServiceImpl = new UserServiceImpl(userRepository, roleRepository, passwordSecurity);
+        userServiceImpl = new UserServiceImpl(userRepository, roleRepository, passwordSecurity, securityStamps);
 
         user = new User(1L, "username", "1!Password", "firstName", "lastName", "email@email.com", null, true, Set.of());
         userRequest = new UserRequest("username", "firstName", "lastName", true, Set.of(), null);
@@ -87,20 +91,49 @@ class UserServiceImplTest {
         assertNotNull(updatedUser);
         assertEquals(userRequest.getUsername(), updatedUser.getUsername());
         verify(userRepository, times(1)).save(any(User.class));
+        // Neither the roles nor the active flag changed, the tokens stay valid
+        verify(securityStamps, never()).revoke(anyString());
+    }
+
+    @Test
+    void updateUser_shouldRevokeTokens_whenRolesChange() {
+        Role roleAdmin = new Role("ROLE_ADMIN");
+        UserRequest promotion = new UserRequest("username", "firstName", "lastName", true, Set.of("admin"), null);
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(roleRepository.findByName("ROLE_ADMIN")).thenReturn(Optional.of(roleAdmin));
+        when(userRepository.save(any(User.class))).thenReturn(user);
+
+        userServiceImpl.updateUser(1L, promotion);
+
+        verify(securityStamps, times(1)).revoke("email@email.com");
+    }
+
+    @Test
+    void updateUser_shouldRevokeTokens_whenUserDeactivated() {
+        UserRequest deactivation = new UserRequest("username", "firstName", "lastName", false, Set.of(), null);
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.save(any(User.class))).thenReturn(user);
+
+        userServiceImpl.updateUser(1L, deactivation);
+
+        verify(securityStamps, times(1)).revoke("email@email.com");
     }
 
     @Test
     void deleteUser_shouldDeleteUser() {
-        when(userRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
         doNothing().when(userRepository).deleteById(1L);
 
         assertDoesNotThrow(() -> userServiceImpl.deleteUser(1L));
         verify(userRepository, times(1)).deleteById(1L);
+        verify(securityStamps, times(1)).revoke("email@email.com");
     }
 
     @Test
     void deleteUser_shouldThrowException_whenUserNotFound() {
-        when(userRepository.existsById(1L)).thenReturn(false);
+        when(userRepository.findById(1L)).thenReturn(Optional.empty());
 
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> userServiceImpl.deleteUser(1L));
 
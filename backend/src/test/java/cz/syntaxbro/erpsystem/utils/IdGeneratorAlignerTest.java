@@ -0,0 +1,65 @@
+package cz.syntaxbro.erpsystem.utils;
+
+import cz.syntaxbro.erpsystem.constants.IdGenerators;
+import cz.syntaxbro.erpsystem.models.Order;
+import cz.syntaxbro.erpsystem.repositories.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(IdGeneratorAligner.class)
+class IdGeneratorAlignerTest {
+
+    @Autowired
+    private IdGeneratorAligner idGeneratorAligner;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    /**
+     * Test: An order row inserted with an id the generator does not know about (like the rows created with IDENTITY ids).
+     * Expected outcome:
+     * - The generator is moved past the row, so the ids it hands out next cannot collide with it.
+     * - Aligning again does not move it further.
+     */
+    @Test
+    void alignMovesGeneratorPastExistingIds() {
+        long legacyId = generatorValue("orders") + 1_000;
+        jdbcTemplate.update("insert into orders (id, cost, status, order_type, order_time) values (?, 0, 'PENDING', 'SELL', ?)",
+                legacyId, LocalDateTime.now());
+
+        idGeneratorAligner.align();
+        long aligned = generatorValue("orders");
+        assertTrue(aligned - IdGenerators.ALLOCATION_SIZE >= legacyId);
+
+        idGeneratorAligner.align();
+        assertEquals(aligned, generatorValue("orders"));
+    }
+
+    /**
+     * Test: Orders are saved with generated ids without an IDENTITY column.
+     */
+    @Test
+    void ordersGetGeneratedIds() {
+        Order first = orderRepository.save(Order.builder().status(Order.Status.PENDING).orderType(Order.OrderType.SELL).build());
+        Order second = orderRepository.save(Order.builder().status(Order.Status.PENDING).orderType(Order.OrderType.SELL).build());
+
+        assertNotNull(first.getId());
+        assertNotEquals(first.getId(), second.getId());
+    }
+
+    private long generatorValue(String generator) {
+        return jdbcTemplate.queryForObject("select coalesce(max(" + IdGenerators.VALUE_COLUMN + "), 0) from " + IdGenerators.TABLE +
+                " where " + IdGenerators.NAME_COLUMN + " = ?", Long.class, generator);
+    }
+}
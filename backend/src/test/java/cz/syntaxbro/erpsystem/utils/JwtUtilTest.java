@@ -6,6 +6,7 @@ import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.test.util.ReflectionTestUtils;
@@ -14,8 +15,11 @@ import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class JwtUtilTest {
 
@@ -91,4 +95,29 @@ class JwtUtilTest {
         // Act & Assert: Expect SignatureException
         assertThrows(SignatureException.class, () -> jwtUtil.validateToken(invalidToken, testUser));
     }
-}
\ No newline at end of file
+
+    /**
+     * Test: Valid token should be parsed and validated repeatedly with the cached parser.
+     * Expected result: The subject is read and the token is valid on every call.
+     */
+    @Test
+    void shouldParseValidTokenRepeatedly() {
+        assertEquals("testUser", jwtUtil.parseClaims(validToken).getSubject());
+        assertTrue(jwtUtil.validateToken(validToken, testUser));
+        assertEquals("testUser", jwtUtil.extractUsername(validToken));
+    }
+
+    /**
+     * Test: Token should carry the role names and the security stamp it was issued with.
+     * Expected result: Both are read back from the verified claims.
+     */
+    @Test
+    void shouldEmbedRolesAndStamp() {
+        String token = jwtUtil.generateToken(testUser, 3L);
+
+        io.jsonwebtoken.Claims claims = jwtUtil.parseClaims(token);
+
+        assertEquals(3L, JwtUtil.extractStamp(claims));
+        assertEquals(List.of("ROLE_USER"), JwtUtil.extractAuthorities(claims).stream().map(GrantedAuthority::getAuthority).toList());
+    }
+}